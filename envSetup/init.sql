@@ -12,4 +12,78 @@ CREATE TABLE IF NOT EXISTS notifications (
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 
-ALTER TABLE notifications ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
\ No newline at end of file
+ALTER TABLE notifications ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+-- keyset pagination: ORDER BY created_at DESC, id DESC with a (created_at, id) cursor
+ALTER TABLE notifications MODIFY created_at DATETIME(3) NOT NULL;
+CREATE INDEX idx_notifications_created_at_id ON notifications (created_at, id);
+
+CREATE TABLE IF NOT EXISTS notification_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    topic VARCHAR(255) NOT NULL,
+    message_key VARCHAR(255) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at DATETIME NOT NULL,
+    sent_at DATETIME NULL,
+    INDEX idx_notification_outbox_sent_at_id (sent_at, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- retention: expired rows per type are found on this index, oldest first
+CREATE INDEX idx_notifications_type_created_at_id ON notifications (type, created_at, id);
+
+CREATE TABLE IF NOT EXISTS notifications_archive (
+    id BIGINT PRIMARY KEY,
+    type VARCHAR(255) NOT NULL,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(255),
+    content TEXT NOT NULL,
+    created_at DATETIME(3) NOT NULL,
+    version BIGINT NOT NULL,
+    archived_at DATETIME(3) NOT NULL,
+    INDEX idx_notifications_archive_created_at_id (created_at, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Optional: monthly range partitions on the archive, so old archive months drop in O(1)
+-- (ALTER TABLE notifications_archive DROP PARTITION p2025_01). MySQL wants the partition
+-- column in every unique key, hence the wider primary key.
+-- ALTER TABLE notifications_archive DROP PRIMARY KEY, ADD PRIMARY KEY (id, created_at);
+-- ALTER TABLE notifications_archive PARTITION BY RANGE COLUMNS (created_at) (
+--     PARTITION p2025_01 VALUES LESS THAN ('2025-02-01'),
+--     PARTITION p2025_02 VALUES LESS THAN ('2025-03-01'),
+--     PARTITION pmax VALUES LESS THAN (MAXVALUE)
+-- );
+
+-- per recipient inbox, keyset pages newest first
+CREATE INDEX idx_notifications_recipient_created_at_id ON notifications (recipient, created_at, id);
+
+-- read state: per-recipient sequence (bit offset in the Redis unread bitmap) and write-behind read_at;
+-- rows from before get 0 and count as read
+ALTER TABLE notifications ADD COLUMN recipient_seq BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE notifications ADD COLUMN read_at DATETIME(3) NULL;
+CREATE INDEX idx_notifications_recipient_seq ON notifications (recipient, recipient_seq);
+
+-- scheduled notifications: pending CREATE messages, deleted once sent
+CREATE TABLE IF NOT EXISTS notification_schedule (
+    notification_id BIGINT PRIMARY KEY,
+    due_at DATETIME(3) NOT NULL,
+    claimed_until DATETIME(3) NULL,
+    INDEX idx_notification_schedule_due_at (due_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- priority lanes: fixed per notification; outbox rows are relayed highest priority (lowest ordinal) first
+ALTER TABLE notifications ADD COLUMN priority VARCHAR(16) NOT NULL DEFAULT 'NORMAL';
+ALTER TABLE notification_outbox ADD COLUMN priority TINYINT NOT NULL DEFAULT 1;
+CREATE INDEX idx_notification_outbox_sent_at_priority_id ON notification_outbox (sent_at, priority, id);
+DROP INDEX idx_notification_outbox_sent_at_id ON notification_outbox;
+
+-- outbox relay: rows are claimed with a lease and sent after the claim committed;
+-- only the oldest unsent row of a message key is claimable, found on this index
+ALTER TABLE notification_outbox ADD COLUMN claimed_until DATETIME NULL;
+CREATE INDEX idx_notification_outbox_message_key_sent_at_id ON notification_outbox (message_key, sent_at, id);
+
+-- archive keeps the read state columns, so an archived row still tells whether it was read
+ALTER TABLE notifications_archive ADD COLUMN recipient_seq BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE notifications_archive ADD COLUMN read_at DATETIME(3) NULL;
+
+-- archive keeps the priority, so archived rows can still be told apart by lane
+ALTER TABLE notifications_archive ADD COLUMN priority VARCHAR(16) NOT NULL DEFAULT 'NORMAL';
@@ -0,0 +1,38 @@
+package com.example.demo;
+
+import com.example.demo.enums.NotificationType;
+import com.example.demo.model.Notifications;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Representative notifications shared by the benchmarks.
+ */
+public final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    public static Notifications notification(long id) {
+        Notifications notification = new Notifications();
+        notification.setId(id);
+        notification.setType(id % 2 == 0 ? NotificationType.EMAIL : NotificationType.SMS);
+        notification.setRecipient("user" + id + "@example.com");
+        notification.setSubject("Your order #" + id + " has shipped");
+        notification.setContent("Hi, your order #" + id + " left our warehouse today and should arrive within 2-3 business days. "
+                + "You can track the parcel from your account page.");
+        notification.setCreatedAt(LocalDateTime.of(2024, 5, 1, 8, 30).plusSeconds(id));
+        notification.setVersion(1L);
+        return notification;
+    }
+
+    public static List<Notifications> notifications(int count) {
+        List<Notifications> notifications = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            notifications.add(notification(1_000_000L + i));
+        }
+        return notifications;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.demo.cache;
+
+import com.example.demo.BenchmarkData;
+import com.example.demo.config.RedisConfig;
+import com.example.demo.enums.RedisValueFormat;
+import com.example.demo.model.Notifications;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache value round trip: the original polymorphic Jackson serializer from {@link RedisConfig}
+ * against {@link NotificationRedisSerializer}. A cache hit pays {@code deserialize} only.
+ * Payload sizes are printed once per fork.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisSerializerBenchmark {
+
+    @Param({"JSON", "BINARY"})
+    private RedisValueFormat format;
+
+    private RedisSerializer<Object> serializer;
+    private Notifications notification;
+    private byte[] serialized;
+
+    @Setup
+    public void setUp() {
+        serializer = new NotificationRedisSerializer(RedisConfig.jsonRedisSerializer(), format);
+        notification = BenchmarkData.notification(42L);
+        serialized = serializer.serialize(notification);
+        System.out.println(format + " payload: " + serialized.length + " bytes");
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(notification);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(serialized);
+    }
+}
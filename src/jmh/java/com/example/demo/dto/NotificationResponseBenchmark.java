@@ -0,0 +1,28 @@
+package com.example.demo.dto;
+
+import com.example.demo.BenchmarkData;
+import com.example.demo.model.Notifications;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotificationResponseBenchmark {
+
+    private Notifications notification;
+
+    @Setup
+    public void setUp() {
+        notification = BenchmarkData.notification(42L);
+    }
+
+    @Benchmark
+    public NotificationResponse fromEntity() {
+        return NotificationResponse.fromEntity(notification);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.demo.enums;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotificationTypeBenchmark {
+
+    // request payloads come in lower case ("email" / "sms")
+    @Param({"email", "SMS"})
+    private String type;
+
+    @Benchmark
+    public NotificationType fromString() {
+        return NotificationType.fromString(type);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demo.service;
+
+import com.example.demo.BenchmarkData;
+import com.example.demo.dto.NotificationMessage;
+import com.example.demo.enums.NotificationMessageType;
+import com.example.demo.model.Notifications;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotificationMessageBenchmark {
+
+    private Notifications notification;
+
+    @Setup
+    public void setUp() {
+        notification = BenchmarkData.notification(42L);
+    }
+
+    @Benchmark
+    public NotificationMessage toMessage() {
+        return NotificationMessage.fromEntity(notification, NotificationMessageType.CREATE);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.demo.util;
+
+import com.example.demo.BenchmarkData;
+import com.example.demo.cache.NotificationRedisSerializer;
+import com.example.demo.config.AppProperties;
+import com.example.demo.config.RedisConfig;
+import com.example.demo.enums.RedisValueFormat;
+import com.example.demo.model.Notifications;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Script argument construction for {@link RedisUtil#populateRecentList} (score, member and
+ * serialized body per notification), i.e. everything before the single network round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecentListArgsBenchmark {
+
+    @Param({"JSON", "BINARY"})
+    private RedisValueFormat format;
+
+    private RedisUtil redisUtil;
+    private List<Notifications> notifications;
+
+    @Setup
+    public void setUp() {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getRedis().setRecentListKey("recent_notifications");
+
+        // serializers only, no connection is opened
+        RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setValueSerializer(new NotificationRedisSerializer(RedisConfig.jsonRedisSerializer(), format));
+
+        redisUtil = new RedisUtil(redisTemplate, null, appProperties, new SimpleMeterRegistry());
+        notifications = BenchmarkData.notifications(RedisUtil.RECENT_LIST_SIZE);
+    }
+
+    @Benchmark
+    public Object[] populateRecentListArgs() {
+        return redisUtil.recentListArgs(notifications, false);
+    }
+}
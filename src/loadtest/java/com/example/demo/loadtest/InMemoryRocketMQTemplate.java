@@ -0,0 +1,76 @@
+package com.example.demo.loadtest;
+
+import org.apache.rocketmq.client.producer.SendCallback;
+import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.client.producer.SendStatus;
+import org.apache.rocketmq.spring.core.RocketMQTemplate;
+import org.springframework.messaging.Message;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link RocketMQTemplate} stand-in: acknowledges every send on a callback thread (like the real
+ * client) and only counts messages per topic.
+ */
+public class InMemoryRocketMQTemplate extends RocketMQTemplate {
+
+    private final Map<String, LongAdder> sent = new ConcurrentHashMap<>();
+    private final ExecutorService callbackExecutor = Executors.newSingleThreadExecutor(Thread.ofPlatform()
+            .name("in-memory-rocketmq-callback")
+            .daemon(true)
+            .factory());
+
+    @Override
+    public void asyncSend(String destination, Message<?> message, SendCallback sendCallback, long timeout) {
+        record(destination, 1);
+        callbackExecutor.execute(() -> sendCallback.onSuccess(sendResult()));
+    }
+
+    @Override
+    public <T extends Message> void asyncSend(String destination, Collection<T> messages, SendCallback sendCallback,
+                                              long timeout) {
+        record(destination, messages.size());
+        callbackExecutor.execute(() -> sendCallback.onSuccess(sendResult()));
+    }
+
+    @Override
+    protected void doSend(String destination, Message<?> message) {
+        record(destination, 1);
+    }
+
+    public Map<String, Long> sentPerTopic() {
+        Map<String, Long> counts = new ConcurrentHashMap<>();
+        sent.forEach((topic, count) -> counts.put(topic, count.sum()));
+        return counts;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        // no producer to start
+    }
+
+    @Override
+    public void destroy() {
+        callbackExecutor.shutdown();
+    }
+
+    private void record(String destination, int messages) {
+        // "topic:tag" -> topic
+        int separator = destination.indexOf(':');
+        String topic = separator < 0 ? destination : destination.substring(0, separator);
+        sent.computeIfAbsent(topic, t -> new LongAdder()).add(messages);
+    }
+
+    private static SendResult sendResult() {
+        SendResult result = new SendResult();
+        result.setSendStatus(SendStatus.SEND_OK);
+        result.setMsgId(UUID.randomUUID().toString());
+        return result;
+    }
+}
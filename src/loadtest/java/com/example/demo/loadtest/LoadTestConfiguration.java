@@ -0,0 +1,52 @@
+package com.example.demo.loadtest;
+
+import com.github.fppt.jedismock.RedisServer;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.protocol.ProtocolVersion;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+
+/**
+ * Backs the {@code loadtest} profile with in-process servers. Redis is jedis-mock, a RESP server
+ * that runs Lua, so RedisUtil, its scripts, the value codec and Lettuce are all the real ones;
+ * RocketMQ is a fake template. Redis and RocketMQ auto-configuration are excluded in
+ * application-loadtest.yaml.
+ */
+@Configuration
+@Profile("loadtest")
+public class LoadTestConfiguration {
+
+    @Bean(destroyMethod = "stop")
+    public RedisServer redisServer() throws IOException {
+        return RedisServer.newRedisServer().start();
+    }
+
+    /**
+     * jedis-mock only speaks RESP2.
+     */
+    @Bean
+    public LettuceConnectionFactory redisConnectionFactory(RedisServer redisServer) {
+        return new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redisServer.getHost(), redisServer.getBindPort()),
+                LettuceClientConfiguration.builder()
+                        .clientOptions(ClientOptions.builder().protocolVersion(ProtocolVersion.RESP2).build())
+                        .build());
+    }
+
+    @Bean
+    public StringRedisTemplate stringRedisTemplate(LettuceConnectionFactory redisConnectionFactory) {
+        return new StringRedisTemplate(redisConnectionFactory);
+    }
+
+    @Bean
+    public InMemoryRocketMQTemplate rocketMQTemplate() {
+        return new InMemoryRocketMQTemplate();
+    }
+}
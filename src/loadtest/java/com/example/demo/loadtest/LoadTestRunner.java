@@ -0,0 +1,343 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.config.AppProperties;
+import com.example.demo.enums.WriteLockMode;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Starts the real application with the {@code loadtest} profile (H2, jedis-mock Redis, fake
+ * RocketMQ) on a random port, drives a weighted mix of operations through the REST and GraphQL
+ * controllers, and writes one HdrHistogram percentile file per operation plus a summary.
+ *
+ * Settings (system properties):
+ * <ul>
+ *   <li>{@code loadtest.duration} measured run, default 30s</li>
+ *   <li>{@code loadtest.warmup} discarded warm-up, default 10s</li>
+ *   <li>{@code loadtest.concurrency} closed-loop workers, default 32</li>
+ *   <li>{@code loadtest.mix} operation weights, default create=20,read=40,recent=20,list=5,update=10,delete=5</li>
+ *   <li>{@code loadtest.graphql-ratio} share of requests sent through GraphQL, default 0.3</li>
+ *   <li>{@code loadtest.seed} notifications created before the warm-up, default 1000</li>
+ *   <li>{@code loadtest.output} output directory, default target/loadtest</li>
+ *   <li>{@code loadtest.hot-rows} if set, update / delete only hit the first N seeded notifications</li>
+ *   <li>{@code loadtest.lock-modes} comma separated {@code app.write.lock-mode} values; the run is
+ *       repeated once per mode on the same data, each reported into its own sub directory</li>
+ * </ul>
+ *
+ * Write contention benchmark: {@code -Dloadtest.mix=update=100 -Dloadtest.hot-rows=10
+ * -Dloadtest.lock-modes=pessimistic,optimistic}.
+ */
+public class LoadTestRunner {
+
+    enum Operation { CREATE, READ, RECENT, LIST, UPDATE, DELETE }
+
+    // ids handed out by creates, reused by read / update / delete
+    private static final int ID_POOL_SIZE = 1 << 16;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final String baseUrl;
+    private final double graphqlRatio;
+    private final int hotRows;
+
+    private final AtomicLongArray idPool = new AtomicLongArray(ID_POOL_SIZE);
+    private final AtomicLong created = new AtomicLong();
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    LoadTestRunner(String baseUrl, double graphqlRatio, int hotRows) {
+        this.baseUrl = baseUrl;
+        this.graphqlRatio = graphqlRatio;
+        this.hotRows = hotRows;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Duration duration = Duration.parse("PT" + System.getProperty("loadtest.duration", "30s"));
+        Duration warmup = Duration.parse("PT" + System.getProperty("loadtest.warmup", "10s"));
+        int concurrency = Integer.getInteger("loadtest.concurrency", 32);
+        Map<Operation, Integer> mix = parseMix(System.getProperty("loadtest.mix", "create=20,read=40,recent=20,list=5,update=10,delete=5"));
+        double graphqlRatio = Double.parseDouble(System.getProperty("loadtest.graphql-ratio", "0.3"));
+        int seed = Integer.getInteger("loadtest.seed", 1000);
+        Path output = Path.of(System.getProperty("loadtest.output", "target/loadtest"));
+        int hotRows = Integer.getInteger("loadtest.hot-rows", 0);
+        List<WriteLockMode> lockModes = Arrays.stream(System.getProperty("loadtest.lock-modes", "").split(","))
+                .map(String::trim)
+                .filter(mode -> !mode.isEmpty())
+                .map(mode -> WriteLockMode.valueOf(mode.toUpperCase()))
+                .toList();
+
+        SpringApplication application = new SpringApplication(DemoApplication.class);
+        application.setAdditionalProfiles("loadtest");
+        try (ConfigurableApplicationContext context = application.run("--server.port=0")) {
+            String port = context.getEnvironment().getProperty("local.server.port");
+            LoadTestRunner runner = new LoadTestRunner("http://localhost:" + port, graphqlRatio, hotRows);
+            runner.seed(seed);
+
+            if (lockModes.isEmpty()) {
+                runner.measure(mix, concurrency, warmup, duration, output, context);
+            }
+            // the service reads the lock mode per call, so it can be switched between passes
+            AppProperties.Write write = context.getBean(AppProperties.class).getWrite();
+            for (WriteLockMode lockMode : lockModes) {
+                write.setLockMode(lockMode);
+                System.out.printf("=== app.write.lock-mode=%s%n", lockMode.name().toLowerCase());
+                runner.measure(mix, concurrency, warmup, duration, output.resolve(lockMode.name().toLowerCase()), context);
+            }
+        }
+        System.exit(0);
+    }
+
+    void measure(Map<Operation, Integer> mix, int concurrency, Duration warmup, Duration duration,
+                 Path output, ConfigurableApplicationContext context) throws Exception {
+        System.out.printf("Warming up for %s with %d workers%n", warmup, concurrency);
+        run(mix, concurrency, warmup);
+        reset();
+
+        System.out.printf("Measuring for %s with %d workers, mix %s, graphql ratio %.2f%n", duration, concurrency, mix, graphqlRatio);
+        long start = System.nanoTime();
+        run(mix, concurrency, duration);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        report(output, seconds, context.getBean(InMemoryRocketMQTemplate.class).sentPerTopic());
+        reset();
+    }
+
+    void seed(int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            create(false);
+        }
+    }
+
+    void run(Map<Operation, Integer> mix, int concurrency, Duration duration) throws InterruptedException {
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            workers.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    Operation operation = pick(mix, totalWeight);
+                    boolean graphql = ThreadLocalRandom.current().nextDouble() < graphqlRatio;
+                    String name = operation.name().toLowerCase() + (graphql ? "/graphql" : "/rest");
+                    long begin = System.nanoTime();
+                    try {
+                        execute(operation, graphql);
+                        histograms.computeIfAbsent(name, k -> new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3))
+                                .recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin), TimeUnit.MINUTES.toMicros(1)));
+                    } catch (Exception e) {
+                        errors.computeIfAbsent(name, k -> new LongAdder()).increment();
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(duration.toMillis() + 60_000, TimeUnit.MILLISECONDS);
+    }
+
+    void reset() {
+        histograms.clear();
+        errors.clear();
+    }
+
+    private void execute(Operation operation, boolean graphql) throws Exception {
+        switch (operation) {
+            case CREATE -> create(graphql);
+            case READ -> {
+                long id = randomId();
+                if (graphql) {
+                    graphql("{ notification(id: \"" + id + "\") { id type recipient subject content createdAt } }");
+                } else {
+                    send(HttpRequest.newBuilder(URI.create(baseUrl + "/notifications/" + id)).GET(), 404);
+                }
+            }
+            case RECENT -> {
+                if (graphql) {
+                    graphql("{ recentNotifications { id type recipient subject createdAt } }");
+                } else {
+                    send(HttpRequest.newBuilder(URI.create(baseUrl + "/notifications/recent")).GET());
+                }
+            }
+            case LIST -> {
+                if (graphql) {
+                    graphql("{ allNotifications(first: 20) { edges { cursor node { id subject createdAt } } pageInfo { hasNextPage endCursor } } }");
+                } else {
+                    send(HttpRequest.newBuilder(URI.create(baseUrl + "/notifications?limit=20")).GET());
+                }
+            }
+            case UPDATE -> {
+                long id = writeTargetId();
+                String subject = "updated " + System.nanoTime();
+                if (graphql) {
+                    graphql("mutation { updateNotification(id: \"" + id + "\", input: { subject: \"" + subject + "\", content: \"updated content\" }) { id } }");
+                } else {
+                    send(HttpRequest.newBuilder(URI.create(baseUrl + "/notifications/" + id))
+                            .header("Content-Type", "application/json")
+                            .PUT(HttpRequest.BodyPublishers.ofString("{\"subject\":\"" + subject + "\",\"content\":\"updated content\"}")), 404);
+                }
+            }
+            case DELETE -> {
+                long id = writeTargetId();
+                if (graphql) {
+                    graphql("mutation { deleteNotification(id: \"" + id + "\") }");
+                } else {
+                    send(HttpRequest.newBuilder(URI.create(baseUrl + "/notifications/" + id)).DELETE(), 404);
+                }
+            }
+        }
+    }
+
+    private void create(boolean graphql) throws Exception {
+        long n = created.get();
+        String recipient = "user" + n + "@example.com";
+        String subject = "Load test " + n;
+        String content = "Generated by the load test harness, notification number " + n + ".";
+
+        JsonNode created;
+        if (graphql) {
+            created = graphql("mutation { createNotification(input: { type: EMAIL, recipient: \"" + recipient
+                    + "\", subject: \"" + subject + "\", content: \"" + content + "\" }) { id } }")
+                    .path("data").path("createNotification");
+        } else {
+            String body = objectMapper.writeValueAsString(Map.of(
+                    "type", "EMAIL", "recipient", recipient, "subject", subject, "content", content));
+            created = send(HttpRequest.newBuilder(URI.create(baseUrl + "/notifications"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body)));
+        }
+        long id = created.path("id").asLong();
+        idPool.set((int) (this.created.getAndIncrement() % ID_POOL_SIZE), id);
+    }
+
+    private long randomId() {
+        long known = Math.min(created.get(), ID_POOL_SIZE);
+        return known == 0 ? 1 : idPool.get(ThreadLocalRandom.current().nextInt((int) known));
+    }
+
+    // the hot set is the start of the pool, which the seed filled first
+    private long writeTargetId() {
+        long known = Math.min(created.get(), ID_POOL_SIZE);
+        if (hotRows <= 0 || known == 0) {
+            return randomId();
+        }
+        return idPool.get(ThreadLocalRandom.current().nextInt((int) Math.min(hotRows, known)));
+    }
+
+    private JsonNode graphql(String query) throws Exception {
+        JsonNode response = send(HttpRequest.newBuilder(URI.create(baseUrl + "/graphql"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(Map.of("query", query)))));
+        if (response.hasNonNull("errors")) {
+            throw new IllegalStateException("GraphQL errors: " + response.get("errors"));
+        }
+        return response;
+    }
+
+    /**
+     * @param expected non-2xx statuses that are a normal outcome (e.g. 404 for an id deleted meanwhile)
+     */
+    private JsonNode send(HttpRequest.Builder request, int... expected) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(request.timeout(Duration.ofSeconds(30)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        if (status / 100 != 2 && Arrays.stream(expected).noneMatch(code -> code == status)) {
+            throw new IllegalStateException("HTTP " + status + ": " + response.body());
+        }
+        String body = response.body();
+        return body == null || body.isEmpty() ? objectMapper.nullNode() : objectMapper.readTree(body);
+    }
+
+    void report(Path output, double seconds, Map<String, Long> sentPerTopic) throws IOException {
+        Files.createDirectories(output);
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("%-16s %10s %10s %9s %9s %9s %9s %9s %8s",
+                "operation", "count", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "errors"));
+
+        long total = 0;
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+            Histogram histogram = entry.getValue();
+            long count = histogram.getTotalCount();
+            total += count;
+            lines.add(String.format("%-16s %10d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f %8d",
+                    entry.getKey(), count, count / seconds,
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(90) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0,
+                    errors.getOrDefault(entry.getKey(), new LongAdder()).sum()));
+
+            try (PrintStream out = new PrintStream(Files.newOutputStream(output.resolve(entry.getKey().replace('/', '-') + ".hgrm")))) {
+                // recorded in microseconds, reported in milliseconds
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        errors.forEach((name, count) -> {
+            if (!histograms.containsKey(name)) {
+                lines.add(String.format("%-16s %10d %10s %9s %9s %9s %9s %9s %8d", name, 0, "-", "-", "-", "-", "-", "-", count.sum()));
+            }
+        });
+        lines.add(String.format("total %.1f ops/s over %.1fs, MQ messages per topic %s", total / seconds, seconds, sentPerTopic));
+
+        lines.forEach(System.out::println);
+        Files.write(output.resolve("summary.txt"), lines);
+        System.out.println("Histograms written to " + output.toAbsolutePath());
+    }
+
+    private static Operation pick(Map<Operation, Integer> mix, int totalWeight) {
+        int r = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            r -= entry.getValue();
+            if (r < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("empty mix");
+    }
+
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.valueOf(pair[0].trim().toUpperCase()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix has no positive weight: " + mix);
+        }
+        return weights;
+    }
+}
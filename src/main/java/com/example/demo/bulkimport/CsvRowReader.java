@@ -0,0 +1,146 @@
+package com.example.demo.bulkimport;
+
+import com.example.demo.dto.NotificationRequest;
+import com.example.demo.enums.NotificationPriority;
+import com.example.demo.enums.NotificationType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * RFC 4180 CSV: the header row names the columns (type, recipient, subject, content and optionally
+ * priority, any order, case-insensitive), quoted fields may hold commas, doubled quotes and line breaks. Empty fields
+ * are null.
+ */
+class CsvRowReader implements ImportRowReader {
+
+    private static final List<String> COLUMNS = List.of("type", "recipient", "subject", "content", "priority");
+
+    private final BufferedReader reader;
+    private Map<String, Integer> columns;
+    // line the next record starts on
+    private long line = 1;
+
+    CsvRowReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public ImportRow next() throws IOException {
+        if (columns == null) {
+            List<String> header = readRecord();
+            if (header == null) {
+                return null;
+            }
+            columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i) != null) {
+                    columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+                }
+            }
+            if (!columns.keySet().containsAll(List.of("type", "recipient", "content"))) {
+                throw new IllegalArgumentException("CSV header must name the columns " + COLUMNS + ", got " + header);
+            }
+        }
+
+        List<String> record;
+        long start;
+        do {
+            start = line;
+            record = readRecord();
+        } while (record != null && record.size() == 1 && record.get(0) == null);
+        if (record == null) {
+            return null;
+        }
+        if (record.size() != columns.size()) {
+            return ImportRow.rejected(start, "expected " + columns.size() + " fields, got " + record.size());
+        }
+
+        String type = field(record, "type");
+        NotificationType notificationType;
+        try {
+            notificationType = type == null ? null : NotificationType.valueOf(type.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ImportRow.rejected(start, "unsupported type: " + type);
+        }
+        String priority = field(record, "priority");
+        NotificationPriority notificationPriority;
+        try {
+            notificationPriority = priority == null ? null : NotificationPriority.valueOf(priority.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ImportRow.rejected(start, "unsupported priority: " + priority);
+        }
+        return ImportRow.parsed(start, NotificationRequest.builder()
+                .type(notificationType)
+                .recipient(field(record, "recipient"))
+                .subject(field(record, "subject"))
+                .content(field(record, "content"))
+                .priority(notificationPriority)
+                .build());
+    }
+
+    private String field(List<String> record, String column) {
+        Integer index = columns.get(column);
+        return index == null ? null : record.get(index);
+    }
+
+    /**
+     * @return fields of the next record, null at the end of the input
+     */
+    private List<String> readRecord() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                fields.add(value(field, wasQuoted));
+                field.setLength(0);
+                wasQuoted = false;
+            } else if (c == '\n') {
+                line++;
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        fields.add(value(field, wasQuoted));
+        return fields;
+    }
+
+    // "" is an empty string, an empty unquoted field is null
+    private static String value(StringBuilder field, boolean wasQuoted) {
+        return field.isEmpty() && !wasQuoted ? null : field.toString();
+    }
+}
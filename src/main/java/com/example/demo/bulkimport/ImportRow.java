@@ -0,0 +1,19 @@
+package com.example.demo.bulkimport;
+
+import com.example.demo.dto.NotificationRequest;
+
+/**
+ * One data row of an upload: either a parsed request or why it could not be parsed.
+ *
+ * @param line 1-based line where the row starts
+ */
+record ImportRow(long line, NotificationRequest request, String error) {
+
+    static ImportRow parsed(long line, NotificationRequest request) {
+        return new ImportRow(line, request, null);
+    }
+
+    static ImportRow rejected(long line, String error) {
+        return new ImportRow(line, null, error);
+    }
+}
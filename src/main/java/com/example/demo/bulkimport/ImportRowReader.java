@@ -0,0 +1,26 @@
+package com.example.demo.bulkimport;
+
+import com.example.demo.enums.ImportFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Reads an upload one row at a time, so only the current row is ever in memory.
+ */
+interface ImportRowReader {
+
+    /**
+     * @return the next data row, null at the end of the upload
+     * @throws IOException only if the upload itself cannot be read; bad rows come back rejected
+     */
+    ImportRow next() throws IOException;
+
+    static ImportRowReader of(ImportFormat format, BufferedReader reader, ObjectMapper objectMapper) {
+        return switch (format) {
+            case NDJSON -> new NdjsonRowReader(reader, objectMapper);
+            case CSV -> new CsvRowReader(reader);
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.bulkimport;
+
+import com.example.demo.dto.NotificationRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * One JSON object per line; a malformed line is rejected on its own, the next one parses as usual.
+ */
+class NdjsonRowReader implements ImportRowReader {
+
+    private final BufferedReader reader;
+    private final ObjectReader requestReader;
+    private long line;
+
+    NdjsonRowReader(BufferedReader reader, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.requestReader = objectMapper.readerFor(NotificationRequest.class);
+    }
+
+    @Override
+    public ImportRow next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            line++;
+        } while (text != null && text.isBlank());
+        if (text == null) {
+            return null;
+        }
+        try {
+            return ImportRow.parsed(line, requestReader.readValue(text));
+        } catch (JsonProcessingException e) {
+            return ImportRow.rejected(line, "invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.demo.bulkimport;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.dto.ImportResult;
+import com.example.demo.dto.NotificationMessage;
+import com.example.demo.dto.NotificationRequest;
+import com.example.demo.enums.ImportFormat;
+import com.example.demo.enums.LimitedOperation;
+import com.example.demo.enums.NotificationMessageType;
+import com.example.demo.enums.NotificationPriority;
+import com.example.demo.exception.ConcurrencyLimitExceededException;
+import com.example.demo.model.Notifications;
+import com.example.demo.mq.NotificationOutboxPublisher;
+import com.example.demo.readstate.NotificationReadState;
+import com.example.demo.repository.NotificationRepository;
+import com.example.demo.util.RedisUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import of an NDJSON or CSV upload, for backfills and migrations.
+ *
+ * The upload is parsed row by row while it streams in; valid rows are inserted
+ * {@code app.bulk-import.batch-size} at a time, one transaction and one JDBC batch per batch,
+ * with one Redis call for their read-state sequences. Rejected rows are counted and reported
+ * with their line, the rest of the upload carries on. A batch the DB rejects stops the import;
+ * batches before it stay committed.
+ *
+ * By default no notification body is cached and no CREATE message is sent per row: one IMPORT
+ * message goes out at the end instead. Inboxes, the recent list and unread counts are always
+ * kept up to date.
+ */
+@Slf4j
+@Component
+public class NotificationImporter {
+
+    private static final int MAX_RECIPIENT_LENGTH = 255;
+    private static final int MAX_SUBJECT_LENGTH = 255;
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationReadState notificationReadState;
+    private final NotificationOutboxPublisher notificationOutboxPublisher;
+    private final RedisUtil redisUtil;
+    private final ObjectMapper objectMapper;
+    private final AppProperties.BulkImport properties;
+    private final Counter importedRows;
+    private final Counter rejectedRows;
+    private final Counter redisErrors;
+    private final TransactionTemplate transactionTemplate;
+    private final Semaphore permits;
+    // imports running on this node, by id
+    private final Map<String, ImportResult> running = new ConcurrentHashMap<>();
+
+    public NotificationImporter(NotificationRepository notificationRepository,
+                                NotificationReadState notificationReadState,
+                                NotificationOutboxPublisher notificationOutboxPublisher,
+                                RedisUtil redisUtil,
+                                ObjectMapper objectMapper,
+                                AppProperties appProperties,
+                                MeterRegistry meterRegistry,
+                                PlatformTransactionManager transactionManager) {
+        this.notificationRepository = notificationRepository;
+        this.notificationReadState = notificationReadState;
+        this.notificationOutboxPublisher = notificationOutboxPublisher;
+        this.redisUtil = redisUtil;
+        this.objectMapper = objectMapper;
+        this.properties = appProperties.getBulkImport();
+        this.importedRows = meterRegistry.counter("notification.import.rows", "outcome", "imported");
+        this.rejectedRows = meterRegistry.counter("notification.import.rows", "outcome", "rejected");
+        this.redisErrors = meterRegistry.counter("notification.import.redis.errors");
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.permits = new Semaphore(properties.getMaxConcurrent());
+    }
+
+    /**
+     * Imports switch off per-row work through the options, all false is the fastest.
+     *
+     * @param populateCache cache every imported notification body in Redis
+     * @param publishEach   one CREATE message per row (delivered to its channel) instead of one IMPORT summary
+     * @throws IllegalArgumentException            if the CSV header lacks a required column
+     * @throws ConcurrencyLimitExceededException if app.bulk-import.max-concurrent imports are running
+     * @throws IOException                       if the upload could not be read; the result so far is lost to the caller, see the log
+     */
+    public ImportResult importNotifications(ImportFormat format, BufferedReader reader,
+                                            boolean populateCache, boolean publishEach) throws IOException {
+        if (!permits.tryAcquire()) {
+            throw new ConcurrencyLimitExceededException(LimitedOperation.IMPORT, properties.getMaxConcurrent());
+        }
+
+        ImportResult result = ImportResult.builder()
+                .id(UUID.randomUUID().toString())
+                .format(format)
+                .status(ImportResult.Status.RUNNING)
+                .errors(new ArrayList<>())
+                .startedAt(LocalDateTime.now())
+                .build();
+        running.put(result.getId(), result);
+        log.info("Import {} ({}) started", result.getId(), format);
+        try {
+            ImportRowReader rows = ImportRowReader.of(format, reader, objectMapper);
+            List<Notifications> batch = new ArrayList<>(properties.getBatchSize());
+            long lastId = 0;
+            ImportRow row;
+            while ((row = rows.next()) != null) {
+                result.setProcessed(result.getProcessed() + 1);
+                String error = row.error() != null ? row.error() : validate(row.request());
+                if (error != null) {
+                    reject(result, row.line(), error);
+                } else {
+                    batch.add(toEntity(row.request()));
+                    if (batch.size() == properties.getBatchSize()) {
+                        lastId = insert(result, batch, populateCache, publishEach);
+                        batch.clear();
+                    }
+                }
+                if (result.getProcessed() % properties.getProgressEvery() == 0) {
+                    log.info("Import {}: {} rows read, {} imported, {} rejected",
+                            result.getId(), result.getProcessed(), result.getImported(), result.getFailed());
+                }
+            }
+            if (!batch.isEmpty()) {
+                lastId = insert(result, batch, populateCache, publishEach);
+            }
+
+            if (!publishEach && result.getImported() > 0) {
+                publishSummary(result, lastId);
+            }
+            result.setStatus(ImportResult.Status.COMPLETED);
+        } catch (IllegalArgumentException e) {
+            // the upload as a whole is unusable (a CSV header without the required columns): 400
+            throw e;
+        } catch (RuntimeException e) {
+            // the batch in flight rolled back, earlier ones are in
+            log.error("Import {} failed after {} imported rows", result.getId(), result.getImported(), e);
+            result.setStatus(ImportResult.Status.FAILED);
+            result.setMessage(e.getMessage());
+        } catch (IOException e) {
+            log.warn("Import {} aborted after {} imported rows: upload could not be read", result.getId(), result.getImported(), e);
+            throw e;
+        } finally {
+            result.setFinishedAt(LocalDateTime.now());
+            running.remove(result.getId());
+            permits.release();
+        }
+        log.info("Import {} {}: {} rows read, {} imported, {} rejected",
+                result.getId(), result.getStatus(), result.getProcessed(), result.getImported(), result.getFailed());
+        return result;
+    }
+
+    /**
+     * @return progress of the imports running on this node, oldest first
+     */
+    public List<ImportResult> findRunning() {
+        return running.values().stream()
+                .sorted(Comparator.comparing(ImportResult::getStartedAt))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Insert one batch in its own transaction.
+     *
+     * @return id of the last inserted row
+     */
+    private long insert(ImportResult result, List<Notifications> batch, boolean populateCache, boolean publishEach) {
+        List<Notifications> saved = transactionTemplate.execute(status -> {
+            notificationReadState.assignSequences(batch);
+            List<Notifications> inserted = notificationRepository.insertAllInBatch(batch);
+            if (publishEach) {
+                notificationOutboxPublisher.publishAll(inserted.stream()
+                        .map(notification -> NotificationMessage.fromEntity(notification, NotificationMessageType.CREATE))
+                        .collect(Collectors.toList()));
+            }
+            return inserted;
+        });
+        result.setImported(result.getImported() + saved.size());
+        importedRows.increment(saved.size());
+
+        // the rows are in; Redis catching up is best effort, a cold key is rebuilt from the DB anyway
+        try {
+            redisUtil.addNotificationsToInboxes(saved);
+            // only the newest can make it into the recent list
+            redisUtil.addNotificationsToRecentList(saved.subList(Math.max(0, saved.size() - RedisUtil.RECENT_LIST_SIZE), saved.size()));
+            notificationReadState.onCreated(saved);
+            if (populateCache) {
+                redisUtil.cacheNotifications(saved);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Import {}: Redis update failed for a batch of {} rows", result.getId(), saved.size(), e);
+            redisErrors.increment();
+        }
+        return saved.get(saved.size() - 1).getId();
+    }
+
+    /**
+     * One outbox message for the whole import: the id of its last row, the import id as subject.
+     */
+    private void publishSummary(ImportResult result, long lastId) {
+        NotificationMessage summary = NotificationMessage.builder()
+                .id(lastId)
+                .notificationMessageType(NotificationMessageType.IMPORT)
+                .subject(result.getId())
+                .content("imported " + result.getImported() + " notifications, " + result.getFailed() + " rows rejected")
+                .version(0L)
+                .build();
+        transactionTemplate.executeWithoutResult(status -> notificationOutboxPublisher.publish(summary));
+    }
+
+    private void reject(ImportResult result, long line, String error) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < properties.getMaxReportedErrors()) {
+            result.getErrors().add(new ImportResult.RowError(line, error));
+        }
+        rejectedRows.increment();
+    }
+
+    /**
+     * @return why the row cannot be imported, null if it can
+     */
+    private static String validate(NotificationRequest request) {
+        if (request.getType() == null) {
+            return "type is required";
+        }
+        if (request.getRecipient() == null || request.getRecipient().isBlank()) {
+            return "recipient is required";
+        }
+        if (request.getRecipient().length() > MAX_RECIPIENT_LENGTH) {
+            return "recipient is longer than " + MAX_RECIPIENT_LENGTH + " characters";
+        }
+        if (request.getSubject() != null && request.getSubject().length() > MAX_SUBJECT_LENGTH) {
+            return "subject is longer than " + MAX_SUBJECT_LENGTH + " characters";
+        }
+        if (request.getContent() == null) {
+            return "content is required";
+        }
+        if (request.getScheduledAt() != null) {
+            // an import is history, not a send queue
+            return "scheduledAt is not supported by bulk import";
+        }
+        return null;
+    }
+
+    private static Notifications toEntity(NotificationRequest request) {
+        Notifications notification = new Notifications();
+        notification.setType(request.getType());
+        notification.setRecipient(request.getRecipient());
+        notification.setSubject(request.getSubject());
+        notification.setContent(request.getContent());
+        notification.setPriority(NotificationPriority.orDefault(request.getPriority()));
+        return notification;
+    }
+}
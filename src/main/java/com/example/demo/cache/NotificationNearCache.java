@@ -0,0 +1,113 @@
+package com.example.demo.cache;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.model.Notifications;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Per-node L1 cache in front of {@link com.example.demo.util.RedisUtil#findNotificationById(Long)}.
+ *
+ * Caffeine gives us W-TinyLFU (frequency based admission) and a weight bound, so a burst of
+ * one-off ids cannot push the hot ids out. Entries expire well before the Redis TTL, and
+ * every node drops an id when any node publishes it on the invalidation channel.
+ */
+@Slf4j
+@Component
+public class NotificationNearCache implements MessageListener {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final AppProperties.NearCache properties;
+    private final Cache<Long, Notifications> cache;
+
+    public NotificationNearCache(StringRedisTemplate stringRedisTemplate,
+                                 AppProperties appProperties,
+                                 MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.properties = appProperties.getNearCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumWeight())
+                .weigher((Long id, Notifications notification) -> weigh(notification))
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .build();
+
+        // hit / miss / eviction counters (cache.gets, cache.evictions ...)
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "notification.near-cache");
+    }
+
+    public Optional<Notifications> get(Long id) {
+        if (!properties.isEnabled()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.getIfPresent(id));
+    }
+
+    public void put(Notifications notification) {
+        if (properties.isEnabled() && notification.getId() != null) {
+            cache.put(notification.getId(), notification);
+        }
+    }
+
+    /**
+     * Drop the id locally and tell every other node to do the same.
+     * Only call this after the DB change is committed.
+     */
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+        try {
+            stringRedisTemplate.convertAndSend(properties.getInvalidationChannel(), String.valueOf(id));
+        } catch (RuntimeException e) {
+            // other nodes fall back to expireAfterWrite
+            log.warn("Failed to broadcast near cache invalidation for id {}", id, e);
+        }
+    }
+
+    /**
+     * Drop the ids on this node only; other nodes age them out within expire-after-write.
+     * For bulk removals of cold rows, where one broadcast per id is not worth it.
+     */
+    public void invalidateLocally(Collection<Long> ids) {
+        cache.invalidateAll(ids);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            cache.invalidate(Long.valueOf(body.trim()));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed near cache invalidation: {}", body);
+        }
+    }
+
+    /**
+     * Rough UTF-16 footprint of the strings plus a fixed object overhead.
+     */
+    static int weigh(Notifications notification) {
+        int chars = length(notification.getRecipient())
+                + length(notification.getSubject())
+                + length(notification.getContent());
+        return 128 + chars * 2;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
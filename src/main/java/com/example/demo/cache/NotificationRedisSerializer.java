@@ -0,0 +1,230 @@
+package com.example.demo.cache;
+
+import com.example.demo.enums.NotificationPriority;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.enums.RedisValueFormat;
+import com.example.demo.model.Notifications;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Redis value serializer with a compact binary layout for {@link Notifications}.
+ *
+ * Layout (v1): magic, version, presence flags, then varint id, type ordinal, length-prefixed
+ * UTF-8 recipient / subject / content, varint epoch millis (UTC), varint version and varint
+ * recipient sequence; absent (null, or 0 for the sequence) fields are skipped. The flags byte is
+ * full: later fields sit behind a second flags byte, written only when one of them is present
+ * (priority, as an ordinal, when not NORMAL). Fields are only ever appended, so an older reader
+ * just ignores the trailing ones. Anything else, and every value that does not start with the magic
+ * byte (i.e. JSON written before the switch), goes through the JSON delegate, so both formats
+ * can be read during a rollout.
+ */
+public class NotificationRedisSerializer implements RedisSerializer<Object> {
+
+    // never the first byte of a JSON document
+    static final byte MAGIC = (byte) 0xB7;
+    static final byte VERSION_1 = 1;
+
+    private static final int HAS_ID = 1;
+    private static final int HAS_TYPE = 1 << 1;
+    private static final int HAS_RECIPIENT = 1 << 2;
+    private static final int HAS_SUBJECT = 1 << 3;
+    private static final int HAS_CONTENT = 1 << 4;
+    private static final int HAS_CREATED_AT = 1 << 5;
+    private static final int HAS_VERSION = 1 << 6;
+    private static final int HAS_RECIPIENT_SEQ = 1 << 7;
+    // second flags byte
+    private static final int HAS_PRIORITY = 1;
+
+    // NotificationType is stored by ordinal: only ever append new constants
+    private static final NotificationType[] TYPES = NotificationType.values();
+    private static final NotificationPriority[] PRIORITIES = NotificationPriority.values();
+
+    private final RedisSerializer<Object> jsonSerializer;
+    private final RedisValueFormat format;
+
+    public NotificationRedisSerializer(RedisSerializer<Object> jsonSerializer, RedisValueFormat format) {
+        this.jsonSerializer = jsonSerializer;
+        this.format = format;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (format == RedisValueFormat.BINARY && value instanceof Notifications notification) {
+            return encode(notification);
+        }
+        return jsonSerializer.serialize(value);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] == MAGIC) {
+            return decode(bytes);
+        }
+        return jsonSerializer.deserialize(bytes);
+    }
+
+    static byte[] encode(Notifications notification) {
+        byte[] recipient = utf8(notification.getRecipient());
+        byte[] subject = utf8(notification.getSubject());
+        byte[] content = utf8(notification.getContent());
+
+        int flags = (notification.getId() != null ? HAS_ID : 0)
+                | (notification.getType() != null ? HAS_TYPE : 0)
+                | (recipient != null ? HAS_RECIPIENT : 0)
+                | (subject != null ? HAS_SUBJECT : 0)
+                | (content != null ? HAS_CONTENT : 0)
+                | (notification.getCreatedAt() != null ? HAS_CREATED_AT : 0)
+                | (notification.getVersion() != null ? HAS_VERSION : 0)
+                | (notification.getRecipientSeq() != 0 ? HAS_RECIPIENT_SEQ : 0);
+        // NORMAL is what a value without it decodes to
+        boolean hasPriority = notification.getPriority() != null && notification.getPriority() != NotificationPriority.NORMAL;
+        int moreFlags = hasPriority ? HAS_PRIORITY : 0;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 + length(recipient) + length(subject) + length(content));
+        out.write(MAGIC);
+        out.write(VERSION_1);
+        out.write(flags);
+        if (notification.getId() != null) {
+            writeVarLong(out, notification.getId());
+        }
+        if (notification.getType() != null) {
+            writeVarLong(out, notification.getType().ordinal());
+        }
+        writeBytes(out, recipient);
+        writeBytes(out, subject);
+        writeBytes(out, content);
+        if (notification.getCreatedAt() != null) {
+            writeVarLong(out, notification.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+        if (notification.getVersion() != null) {
+            writeVarLong(out, notification.getVersion());
+        }
+        if (notification.getRecipientSeq() != 0) {
+            writeVarLong(out, notification.getRecipientSeq());
+        }
+        if (moreFlags != 0) {
+            out.write(moreFlags);
+            if (hasPriority) {
+                writeVarLong(out, notification.getPriority().ordinal());
+            }
+        }
+        return out.toByteArray();
+    }
+
+    static Notifications decode(byte[] bytes) {
+        if (bytes.length < 3 || bytes[1] != VERSION_1) {
+            throw new SerializationException("Unsupported notification format version " + (bytes.length > 1 ? bytes[1] : -1));
+        }
+
+        Reader reader = new Reader(bytes, 2);
+        try {
+            int flags = reader.readByte();
+            Notifications notification = new Notifications();
+            if ((flags & HAS_ID) != 0) {
+                notification.setId(reader.readVarLong());
+            }
+            if ((flags & HAS_TYPE) != 0) {
+                notification.setType(TYPES[(int) reader.readVarLong()]);
+            }
+            if ((flags & HAS_RECIPIENT) != 0) {
+                notification.setRecipient(reader.readString());
+            }
+            if ((flags & HAS_SUBJECT) != 0) {
+                notification.setSubject(reader.readString());
+            }
+            if ((flags & HAS_CONTENT) != 0) {
+                notification.setContent(reader.readString());
+            }
+            if ((flags & HAS_CREATED_AT) != 0) {
+                notification.setCreatedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(reader.readVarLong()), ZoneOffset.UTC));
+            }
+            if ((flags & HAS_VERSION) != 0) {
+                notification.setVersion(reader.readVarLong());
+            }
+            if ((flags & HAS_RECIPIENT_SEQ) != 0) {
+                notification.setRecipientSeq(reader.readVarLong());
+            }
+            int moreFlags = reader.hasRemaining() ? reader.readByte() : 0;
+            if ((moreFlags & HAS_PRIORITY) != 0) {
+                notification.setPriority(PRIORITIES[(int) reader.readVarLong()]);
+            }
+            return notification;
+        } catch (IndexOutOfBoundsException e) {
+            throw new SerializationException("Truncated notification value", e);
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+
+    private static void writeBytes(ByteArrayOutputStream out, byte[] value) {
+        if (value != null) {
+            writeVarLong(out, value.length);
+            out.write(value, 0, value.length);
+        }
+    }
+
+    // unsigned LEB128; ids, lengths, versions and post-1970 timestamps are never negative
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static final class Reader {
+        private final byte[] bytes;
+        private int position;
+
+        Reader(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        int readByte() {
+            return bytes[position++] & 0xFF;
+        }
+
+        boolean hasRemaining() {
+            return position < bytes.length;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("Malformed varint");
+        }
+
+        String readString() {
+            int length = (int) readVarLong();
+            if (length < 0 || position + length > bytes.length) {
+                throw new IndexOutOfBoundsException("string length " + length);
+            }
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.demo.cache;
+
+import com.example.demo.config.AppProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * "Recent list was rebuilt" signal, broadcast over Redis pub/sub.
+ *
+ * A node that loses the rebuild lease grabs {@link #nextFill()} and waits on it instead of
+ * sleeping; the lease holder calls {@link #publish()} once the list is back in Redis and every
+ * node completes its pending future.
+ */
+@Slf4j
+@Component
+public class RecentListFillSignal implements MessageListener {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final AppProperties.Redis properties;
+    private final AtomicReference<CompletableFuture<Void>> nextFill = new AtomicReference<>(new CompletableFuture<>());
+
+    public RecentListFillSignal(StringRedisTemplate stringRedisTemplate, AppProperties appProperties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.properties = appProperties.getRedis();
+    }
+
+    /**
+     * Completes on the next fill. Grab it before re-checking the cache, so a fill that lands
+     * between the check and the wait is not missed.
+     */
+    public CompletableFuture<Void> nextFill() {
+        return nextFill.get();
+    }
+
+    public void publish() {
+        // wake local waiters right away, other nodes via pub/sub
+        signal();
+        try {
+            stringRedisTemplate.convertAndSend(properties.getRecentListFillChannel(), "filled");
+        } catch (RuntimeException e) {
+            // waiters on other nodes fall back to the DB after their wait
+            log.warn("Failed to broadcast recent list fill", e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        signal();
+    }
+
+    private void signal() {
+        nextFill.getAndSet(new CompletableFuture<>()).complete(null);
+    }
+}
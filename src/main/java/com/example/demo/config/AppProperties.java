@@ -1,9 +1,22 @@
 package com.example.demo.config;
 
+import com.example.demo.enums.NotificationPriority;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.enums.OverflowPolicy;
+import com.example.demo.enums.RedisValueFormat;
+import com.example.demo.enums.WriteLockMode;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 @Data
 @Configuration
 @ConfigurationProperties(prefix = "app")
@@ -11,15 +24,330 @@ public class AppProperties {
 
     private final RocketMQ rocketmq = new RocketMQ();
     private final Redis redis = new Redis();
+    private final NearCache nearCache = new NearCache();
+    private final Batch batch = new Batch();
+    private final Pagination pagination = new Pagination();
+    private final Outbox outbox = new Outbox();
+    private final Delivery delivery = new Delivery();
+    private final Limiter limiter = new Limiter();
+    private final Write write = new Write();
+    private final ReadReplicas readReplicas = new ReadReplicas();
+    private final Retention retention = new Retention();
+    private final ReadState readState = new ReadState();
+    private final Export export = new Export();
+    private final BulkImport bulkImport = new BulkImport();
+    private final Push push = new Push();
+    private final Scheduler scheduler = new Scheduler();
 
     @Data
     public static class RocketMQ {
         private String notificationTopic;
+        // per priority; a priority not listed shares notificationTopic
+        private final Map<NotificationPriority, String> priorityTopics = new EnumMap<>(NotificationPriority.class);
+        private final Producer producer = new Producer();
+        private final Consumer consumer = new Consumer();
+
+        public String topicFor(NotificationPriority priority) {
+            return priorityTopics.getOrDefault(NotificationPriority.orDefault(priority), notificationTopic);
+        }
+
+        /**
+         * @return each topic once, highest priority first
+         */
+        public Set<String> topics() {
+            Set<String> topics = new LinkedHashSet<>();
+            for (NotificationPriority priority : NotificationPriority.values()) {
+                topics.add(topicFor(priority));
+            }
+            return topics;
+        }
+    }
+
+    @Data
+    public static class Consumer {
+        private boolean enabled = true;
+        private String group = "notification_consumer_group";
+        // consume threads, 0 = 2 x available processors
+        private int consumeThreads = 0;
+        // max messages handed to one onMessages call
+        private int batchSize = 32;
+        // how long a processed message is remembered for redelivery dedup
+        private Duration dedupWindow = Duration.ofHours(6);
+        // how long a message is claimed while being handled, must exceed the slowest handling;
+        // a redelivery meanwhile is retried later instead of handled twice
+        private Duration inProgressTtl = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Producer {
+        // max async sends waiting for a broker ack
+        private int maxInFlight = 256;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+        // BLOCK only
+        private Duration blockTimeout = Duration.ofSeconds(1);
+        // SPILL only
+        private int spillCapacity = 10000;
+        // attempts per message, including the first one
+        private int maxAttempts = 3;
+        private Duration retryBackoff = Duration.ofMillis(200);
+        private double retryMultiplier = 2.0;
+        private Duration sendTimeout = Duration.ofSeconds(3);
     }
 
     @Data
     public static class Redis {
         private String recentListKey;
+        // safety net in case an incremental update is ever missed
+        private Duration recentListTtl = Duration.ofMinutes(30);
+        // rebuild lease, expires on its own if the holder dies; writes made while the list is cold
+        // are parked this long for the rebuild to merge
+        private Duration recentListLeaseTtl = Duration.ofSeconds(30);
+        // how long a node without the lease waits for the fill before reading the DB itself
+        private Duration recentListFillWait = Duration.ofMillis(200);
+        private String recentListFillChannel = "recent_notifications:filled";
         private String notificationKeyPrefix;
+        private String dedupKeyPrefix = "notification:dedup:";
+        // per recipient ZSET of the newest ids, see RedisUtil#findInboxPage
+        private String inboxKeyPrefix = "notification:inbox:";
+        // ids kept per recipient, pages past them are read from the DB
+        private int inboxSize = 200;
+        private Duration inboxTtl = Duration.ofHours(1);
+        // adds and removals hitting a cold inbox are kept this long for a concurrent fill to apply
+        private Duration inboxPendingTtl = Duration.ofSeconds(30);
+        // per recipient unread bitmap + count (app.read-state.redis-ttl) and sequence counter (no TTL), see NotificationReadState
+        private String readStateKeyPrefix = "notification:unread:";
+        private String sequenceKeyPrefix = "notification:seq:";
+        // switch to BINARY only once every node can read it
+        private RedisValueFormat valueFormat = RedisValueFormat.JSON;
+    }
+
+    @Data
+    public static class Pagination {
+        private int defaultLimit = 20;
+        private int maxLimit = 100;
+    }
+
+    @Data
+    public static class Batch {
+        // max notifications accepted by one batch create call
+        private int maxSize = 1000;
+    }
+
+    @Data
+    public static class Outbox {
+        private Duration pollInterval = Duration.ofMillis(200);
+        // rows claimed per relay round
+        private int batchSize = 500;
+        // rows per RocketMQ batch send
+        private int sendBatchSize = 32;
+        // max batch sends outstanding, keep below rocketmq.producer.max-in-flight
+        private int maxInFlight = 64;
+        private Duration sendTimeout = Duration.ofSeconds(30);
+        // how long claimed rows stay with their relay, must exceed send-timeout;
+        // rows of a relay that died are sent again after it
+        private Duration lease = Duration.ofMinutes(1);
+        // how long relayed rows are kept before cleanup
+        private Duration retention = Duration.ofDays(1);
+        private Duration cleanupInterval = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Delivery {
+        private boolean enabled = true;
+        // share of a busy channel's send slots per priority, see PrioritySlots; unlisted priorities get 1
+        private final Map<NotificationPriority, Integer> priorityWeights = new EnumMap<>(Map.of(
+                NotificationPriority.HIGH, 16,
+                NotificationPriority.NORMAL, 4,
+                NotificationPriority.LOW, 1));
+        private final Email email = new Email();
+        private final Sms sms = new Sms();
+
+        public ChannelLimits limitsFor(NotificationType type) {
+            return switch (type) {
+                case EMAIL -> email.getLimits();
+                case SMS -> sms.getLimits();
+            };
+        }
+    }
+
+    @Data
+    public static class ChannelLimits {
+        // concurrent sends on this channel, the rest wait without holding anything else
+        private int maxConcurrency = 8;
+        // token bucket refill rate and size
+        private double ratePerSecond = 20;
+        private int burst = 20;
+        // how long a consume thread waits for one dispatch, queueing included; a message not
+        // sent by then is redelivered later and, if it has not started sending yet, dropped here
+        private Duration dispatchTimeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Email {
+        private final ChannelLimits limits = new ChannelLimits();
+        private String host = "localhost";
+        private int port = 25;
+        private String username;
+        private String password;
+        private boolean starttls = false;
+        private String from = "no-reply@example.com";
+        private Duration timeout = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class Sms {
+        private final ChannelLimits limits = new ChannelLimits();
+        private String gatewayUrl = "http://localhost:8099/sms";
+        private String apiKey;
+        private Duration timeout = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class NearCache {
+        private boolean enabled = true;
+        // approximate bytes held per node, see NotificationNearCache#weigh
+        private long maximumWeight = 32 * 1024 * 1024;
+        // must stay below the 10 minutes Redis TTL
+        private Duration expireAfterWrite = Duration.ofSeconds(60);
+        private String invalidationChannel = "notification:invalidate";
+    }
+
+    @Data
+    public static class Limiter {
+        private boolean enabled = true;
+        // same settings for every operation class, each class gets its own limit
+        private int initialLimit = 20;
+        private int minLimit = 4;
+        private int maxLimit = 200;
+        // latency the limit tolerates over the long term average before shrinking
+        private double rttTolerance = 1.5;
+        // samples in the long / short term latency averages
+        private int longWindow = 600;
+        private int shortWindow = 10;
+        // share of each new estimate blended into the limit
+        private double smoothing = 0.2;
+        // multiplicative decrease on a dropped call (timeout, lock wait, pool exhausted)
+        private double backoffRatio = 0.9;
+    }
+
+    @Data
+    public static class Write {
+        // how update / delete guard the row, see WriteLockMode
+        private WriteLockMode lockMode = WriteLockMode.PESSIMISTIC;
+        // optimistic mode: conditional writes tried before answering 409
+        private int maxAttempts = 3;
+        // optimistic mode: upper bound of the random pause between attempts
+        private Duration retryBackoff = Duration.ofMillis(5);
+    }
+
+    @Data
+    public static class ReadReplicas {
+        // off: everything goes to spring.datasource as before
+        private boolean enabled = false;
+        private List<Replica> replicas = new ArrayList<>();
+        // replicas further behind are skipped; with all of them behind, reads go to the primary
+        private Duration maxLag = Duration.ofSeconds(5);
+        private Duration lagCheckInterval = Duration.ofSeconds(1);
+        // lag in seconds: Seconds_Behind_Source if the result has it, else the first column; NULL = replication stopped
+        private String lagQuery = "SHOW REPLICA STATUS";
+        // reads from a client that just wrote stay on the primary this long
+        private Duration stickyWindow = Duration.ofSeconds(2);
+        private String stickyCookie = "notification-primary-until";
+    }
+
+    @Data
+    public static class Replica {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+
+    @Data
+    public static class Retention {
+        private boolean enabled = false;
+        // per type, rows older than this are moved to notifications_archive; types not listed are kept forever
+        private final Map<NotificationType, Duration> ttl = new EnumMap<>(NotificationType.class);
+        private Duration interval = Duration.ofHours(1);
+        // rows moved per transaction, keeps row locks short
+        private int chunkSize = 500;
+        // pause between chunks, leaves room for the live traffic (and replication) to catch up
+        private Duration chunkPause = Duration.ofMillis(100);
+        // a run stops after this, the next one continues where the table now starts
+        private Duration maxRunTime = Duration.ofMinutes(10);
+        // only one node purges at a time
+        private String leaseKey = "notification:retention:lease";
+    }
+
+    @Data
+    public static class ReadState {
+        // read_at is written behind: Redis answers right away, the DB catches up every interval
+        private Duration flushInterval = Duration.ofSeconds(1);
+        // ids per UPDATE ... WHERE id IN (...)
+        private int flushBatchSize = 500;
+        // rows per mark-all UPDATE ... LIMIT
+        private int markAllChunkSize = 1000;
+        // pending ids beyond this are dropped (and counted); Redis stays right, the DB row stays unread
+        private int maxPending = 100_000;
+        // unread bitmap and count of a recipient without writes for this long are rebuilt on next use
+        private Duration redisTtl = Duration.ofDays(7);
+        // creates and deletes hitting cold state are kept this long for a rebuild in progress to apply
+        private Duration pendingTtl = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Export {
+        // MySQL Connector/J streams row by row only with Integer.MIN_VALUE (or a positive size plus useCursorFetch=true)
+        private int fetchSize = Integer.MIN_VALUE;
+        // rows buffered before the response is flushed to the client
+        private int flushEvery = 1000;
+        // each export holds a request thread and a DB connection until it is done
+        private int maxConcurrent = 2;
+    }
+
+    @Data
+    public static class BulkImport {
+        // rows per transaction and JDBC batch
+        private int batchSize = 1000;
+        // each import holds a request thread (and, per batch, a DB connection) until it is done
+        private int maxConcurrent = 1;
+        // rejected rows listed in the result; all of them are counted
+        private int maxReportedErrors = 100;
+        // rows between progress log lines
+        private int progressEvery = 100_000;
+    }
+
+    @Data
+    public static class Push {
+        // broadcast consumer feeding the subscribers of this node
+        private boolean enabled = true;
+        // broadcast group: every node gets every message, unlike the clustered consumer group
+        private String group = "notification_push_group";
+        // events queued per subscriber; a slow one loses events past this, see NotificationEventHub
+        private int bufferSize = 256;
+        private int maxSubscribers = 10_000;
+        // SSE comment line so proxies do not close an idle stream
+        private Duration heartbeat = Duration.ofSeconds(15);
+    }
+
+    @Data
+    public static class Scheduler {
+        // holds back CREATE messages of notifications with a scheduledAt, see NotificationScheduler
+        private boolean enabled = true;
+        // firing resolution
+        private Duration tick = Duration.ofMillis(100);
+        // buckets per wheel level
+        private int wheelSize = 512;
+        // how far ahead due rows are claimed into memory
+        private Duration horizon = Duration.ofMinutes(1);
+        private Duration claimInterval = Duration.ofSeconds(1);
+        private int claimBatchSize = 1000;
+        // max rows held in memory per node
+        private int maxHeld = 100_000;
+        // a claim lapses this long after the due time, another node then fires the row
+        private Duration lease = Duration.ofSeconds(30);
+        // rows read back per query when firing
+        private int releaseBatchSize = 500;
     }
 }
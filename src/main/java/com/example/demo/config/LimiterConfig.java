@@ -0,0 +1,34 @@
+package com.example.demo.config;
+
+import com.example.demo.limiter.ConcurrencyLimitInterceptor;
+import com.example.demo.limiter.ConcurrencyLimited;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Adaptive concurrency limits in front of NotificationService, see {@link ConcurrencyLimited}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.limiter", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class LimiterConfig {
+
+    @Bean
+    public ConcurrencyLimitInterceptor concurrencyLimitInterceptor(AppProperties appProperties, MeterRegistry meterRegistry) {
+        return new ConcurrencyLimitInterceptor(appProperties, meterRegistry);
+    }
+
+    @Bean
+    public Advisor concurrencyLimitAdvisor(ConcurrencyLimitInterceptor concurrencyLimitInterceptor) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(ConcurrencyLimited.class), concurrencyLimitInterceptor);
+        // outermost, ahead of the transaction advisor
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+}
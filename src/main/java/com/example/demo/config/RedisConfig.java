@@ -1,5 +1,8 @@
 package com.example.demo.config;
 
+import com.example.demo.cache.NotificationNearCache;
+import com.example.demo.cache.NotificationRedisSerializer;
+import com.example.demo.cache.RecentListFillSignal;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -9,6 +12,8 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -16,10 +21,27 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 public class RedisConfig {
 
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory, AppProperties appProperties) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
+        // binary for Notifications if configured, JSON otherwise; old JSON values stay readable
+        NotificationRedisSerializer valueSerializer = new NotificationRedisSerializer(
+                jsonRedisSerializer(), appProperties.getRedis().getValueFormat());
+
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(valueSerializer);
+        template.setHashKeySerializer(new StringRedisSerializer());
+        template.setHashValueSerializer(valueSerializer);
+
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    /**
+     * Polymorphic Jackson serializer, the original value format.
+     */
+    public static GenericJackson2JsonRedisSerializer jsonRedisSerializer() {
         // Use Jackson2JsonRedisSerializer
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
@@ -30,14 +52,23 @@ public class RedisConfig {
                 ObjectMapper.DefaultTyping.NON_FINAL,
                 JsonTypeInfo.As.PROPERTY
         );
-        GenericJackson2JsonRedisSerializer jackson2JsonRedisSerializer = new GenericJackson2JsonRedisSerializer(objectMapper);
-
-        template.setKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(jackson2JsonRedisSerializer);
-        template.setHashKeySerializer(new StringRedisSerializer());
-        template.setHashValueSerializer(jackson2JsonRedisSerializer);
+        return new GenericJackson2JsonRedisSerializer(objectMapper);
+    }
 
-        template.afterPropertiesSet();
-        return template;
+    /**
+     * Pub/sub listener container, used to broadcast near cache invalidations and recent list fills across nodes.
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       NotificationNearCache notificationNearCache,
+                                                                       RecentListFillSignal recentListFillSignal,
+                                                                       AppProperties appProperties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(notificationNearCache,
+                new ChannelTopic(appProperties.getNearCache().getInvalidationChannel()));
+        container.addMessageListener(recentListFillSignal,
+                new ChannelTopic(appProperties.getRedis().getRecentListFillChannel()));
+        return container;
     }
 }
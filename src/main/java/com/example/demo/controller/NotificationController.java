@@ -1,27 +1,59 @@
 package com.example.demo.controller;
 
+import com.example.demo.bulkimport.NotificationImporter;
+import com.example.demo.config.AppProperties;
+import com.example.demo.dto.ImportResult;
+import com.example.demo.dto.NotificationEvent;
+import com.example.demo.dto.NotificationPage;
+import com.example.demo.dto.NotificationPageResponse;
 import com.example.demo.dto.NotificationRequest;
 import com.example.demo.dto.NotificationResponse;
 import com.example.demo.dto.UpdateNotificationRequest;
+import com.example.demo.enums.ImportFormat;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.export.NotificationExporter;
 import com.example.demo.model.Notifications;
+import com.example.demo.push.NotificationEventHub;
 import com.example.demo.service.NotificationService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
+@Slf4j
 @RestController
 @RequestMapping("/notifications")
 @RequiredArgsConstructor
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final NotificationExporter notificationExporter;
+    private final NotificationImporter notificationImporter;
+    private final NotificationEventHub notificationEventHub;
+    private final AppProperties appProperties;
 
     @PostMapping
     public ResponseEntity<NotificationResponse> createNotification(@RequestBody NotificationRequest request) {
@@ -29,6 +61,101 @@ public class NotificationController {
         return new ResponseEntity<>(NotificationResponse.fromEntity(createdNotification), HttpStatus.CREATED);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<NotificationResponse>> createNotifications(@RequestBody List<NotificationRequest> requests) {
+        List<Notifications> createdNotifications = notificationService.createNotifications(requests);
+        List<NotificationResponse> response = createdNotifications.stream()
+                .map(NotificationResponse::fromEntity)
+                .collect(Collectors.toList());
+        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    }
+
+    /**
+     * Keyset pagination, newest first: pass the previous page's nextCursor as {@code after}.
+     * With {@code recipient}, only that recipient's notifications (their inbox).
+     */
+    @GetMapping
+    public ResponseEntity<NotificationPageResponse> listNotifications(@RequestParam(required = false) String recipient,
+                                                                      @RequestParam(required = false) String after,
+                                                                      @RequestParam(required = false) Integer limit) {
+        NotificationPage page = recipient == null
+                ? notificationService.listNotifications(after, limit)
+                : notificationService.listInbox(recipient, after, limit);
+        return ResponseEntity.ok(NotificationPageResponse.fromPage(page));
+    }
+
+    /**
+     * Every notification created in [from, to), oldest first, as NDJSON streamed straight from the DB.
+     * Gzip encoded when the client accepts it.
+     */
+    @GetMapping("/export")
+    public void exportNotifications(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                    @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                    @RequestParam(required = false) NotificationType type,
+                                    @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                    HttpServletResponse response) throws IOException {
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        try {
+            long rows = notificationExporter.export(from, to, type, () -> {
+                // headers only once the export is accepted, errors before that still get a JSON body
+                response.setContentType("application/x-ndjson");
+                response.setCharacterEncoding("UTF-8");
+                response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"notifications.ndjson\"");
+                if (gzip) {
+                    response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                    return new GZIPOutputStream(response.getOutputStream(), 8192);
+                }
+                return response.getOutputStream();
+            });
+            log.info("Exported {} notifications from {} to {}", rows, from, to);
+        } catch (UncheckedIOException | CancellationException e) {
+            // client went away (write failed, or the request thread was interrupted), nothing left to answer
+            log.debug("Export from {} to {} aborted: {}", from, to, e.getMessage());
+        }
+    }
+
+    /**
+     * Bulk import of the raw request body, NDJSON or CSV (with a header row) by Content-Type. The body
+     * is parsed while it streams in, so its size is not limited by the heap. Answers once the import
+     * is done, with the per-row errors; see {@link NotificationImporter} for the options.
+     */
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<ImportResult> importNotifications(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                            @RequestParam(defaultValue = "false") boolean populateCache,
+                                                            @RequestParam(defaultValue = "false") boolean publishEach,
+                                                            HttpServletRequest request) throws IOException {
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        ImportFormat format = mediaType.isCompatibleWith(MediaType.parseMediaType("text/csv")) ? ImportFormat.CSV : ImportFormat.NDJSON;
+        Charset charset = mediaType.getCharset() == null ? StandardCharsets.UTF_8 : mediaType.getCharset();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), charset), 65536)) {
+            return ResponseEntity.ok(notificationImporter.importNotifications(format, reader, populateCache, publishEach));
+        }
+    }
+
+    /**
+     * Progress of the imports running on this node.
+     */
+    @GetMapping("/import")
+    public ResponseEntity<List<ImportResult>> listRunningImports() {
+        return ResponseEntity.ok(notificationImporter.findRunning());
+    }
+
+    /**
+     * Live creates, updates and deletes as server-sent events, optionally only one recipient's
+     * and/or one type's. Replaces polling /recent: connect once, re-read the inbox only when an
+     * event says it missed some.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<NotificationEvent>> streamNotifications(@RequestParam(required = false) String recipient,
+                                                                       @RequestParam(required = false) NotificationType type) {
+        Flux<ServerSentEvent<NotificationEvent>> events = notificationEventHub.subscribe(recipient, type)
+                .map(event -> ServerSentEvent.builder(event).build());
+        Flux<ServerSentEvent<NotificationEvent>> heartbeats = Flux.interval(appProperties.getPush().getHeartbeat())
+                .map(tick -> ServerSentEvent.<NotificationEvent>builder().comment("keepalive").build());
+        // heartbeats end with the events, e.g. when a slow subscriber is disconnected
+        return events.publish(shared -> Flux.merge(shared, heartbeats.takeUntilOther(shared.then())));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<?> getNotificationById(@PathVariable Long id){
         Optional<Notifications> notifications = notificationService.getNotificationById(id);
@@ -50,6 +177,30 @@ public class NotificationController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Badge count, answered from Redis.
+     */
+    @GetMapping("/unread-count")
+    public ResponseEntity<Map<String, Object>> getUnreadCount(@RequestParam String recipient) {
+        long unreadCount = notificationService.getUnreadCount(recipient);
+        return ResponseEntity.ok(Map.of("recipient", recipient, "unreadCount", unreadCount));
+    }
+
+    /**
+     * Mark the given ids read; unknown ids are skipped.
+     */
+    @PostMapping("/read")
+    public ResponseEntity<Map<String, Long>> markRead(@RequestBody List<Long> ids) {
+        long newlyRead = notificationService.markRead(ids);
+        return ResponseEntity.ok(Map.of("newlyRead", newlyRead));
+    }
+
+    @PostMapping("/read-all")
+    public ResponseEntity<Void> markAllRead(@RequestParam String recipient) {
+        notificationService.markAllRead(recipient);
+        return ResponseEntity.noContent().build();
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<?> updateNotification(@PathVariable Long id, @RequestBody UpdateNotificationRequest request) {
         Optional<Notifications> updatedNotification = notificationService.updateNotification(id, request);
@@ -1,25 +1,54 @@
 package com.example.demo.controller;
 
+import com.example.demo.config.AppProperties;
+import com.example.demo.dto.NotificationConnection;
+import com.example.demo.dto.NotificationEvent;
+import com.example.demo.dto.NotificationPage;
 import com.example.demo.dto.NotificationRequest;
 import com.example.demo.dto.NotificationResponse;
 import com.example.demo.dto.UpdateNotificationRequest;
+import com.example.demo.enums.NotificationType;
 import com.example.demo.model.Notifications;
+import com.example.demo.push.NotificationEventHub;
 import com.example.demo.service.NotificationService;
-import lombok.RequiredArgsConstructor;
+import org.dataloader.DataLoader;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SubscriptionMapping;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
 import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Controller
-@RequiredArgsConstructor
 public class NotificationGraphQLController {
 
     private final NotificationService notificationService;
+    private final NotificationEventHub notificationEventHub;
+    private final AppProperties appProperties;
+
+    public NotificationGraphQLController(NotificationService notificationService,
+                                         NotificationEventHub notificationEventHub,
+                                         AppProperties appProperties,
+                                         BatchLoaderRegistry batchLoaderRegistry) {
+        this.notificationService = notificationService;
+        this.notificationEventHub = notificationEventHub;
+        this.appProperties = appProperties;
+
+        // every id requested in one document is collected and loaded in one call
+        batchLoaderRegistry.forTypePair(Long.class, NotificationResponse.class)
+                .withOptions(options -> options.setMaxBatchSize(appProperties.getBatch().getMaxSize()))
+                .registerMappedBatchLoader((ids, environment) -> Mono.fromCallable(() ->
+                        notificationService.getNotificationsByIds(ids).entrySet().stream()
+                                .collect(Collectors.toMap(Map.Entry::getKey, entry -> NotificationResponse.fromEntity(entry.getValue())))));
+    }
 
     /**
      * Query: Get notification by ID
@@ -37,9 +66,32 @@ public class NotificationGraphQLController {
      * }
      */
     @QueryMapping
-    public NotificationResponse notification(@Argument Long id) {
-        Optional<Notifications> notification = notificationService.getNotificationById(id);
-        return notification.map(NotificationResponse::fromEntity).orElse(null);
+    public CompletableFuture<NotificationResponse> notification(@Argument Long id,
+                                                                DataLoader<Long, NotificationResponse> loader) {
+        // batched with any other notification / notifications field in the same document
+        return loader.load(id);
+    }
+
+    /**
+     * Query: Get notifications by IDs, in the order given (null for an unknown id)
+     *
+     * GraphQL Query Example:
+     * {
+     *   notifications(ids: ["1", "2", "3"]) {
+     *     id
+     *     subject
+     *     createdAt
+     *   }
+     * }
+     */
+    @QueryMapping
+    public CompletableFuture<List<NotificationResponse>> notifications(@Argument List<Long> ids,
+                                                                       DataLoader<Long, NotificationResponse> loader) {
+        int maxSize = appProperties.getBatch().getMaxSize();
+        if (ids.size() > maxSize) {
+            throw new IllegalArgumentException("ids size " + ids.size() + " exceeds limit " + maxSize);
+        }
+        return loader.loadMany(ids);
     }
 
     /**
@@ -66,33 +118,75 @@ public class NotificationGraphQLController {
     }
 
     /**
-     * Query: Get all notifications with optional pagination
+     * Query: List all notifications, newest first, with cursor (keyset) pagination
      *
-     * Note: This is a basic implementation. For production use, consider implementing
-     * proper pagination in the service layer.
+     * GraphQL Query Example:
+     * {
+     *   allNotifications(first: 20, after: "MTcwMDAwMDAwMDAwMDo0Mg") {
+     *     edges {
+     *       cursor
+     *       node {
+     *         id
+     *         subject
+     *         createdAt
+     *       }
+     *     }
+     *     pageInfo {
+     *       hasNextPage
+     *       endCursor
+     *     }
+     *   }
+     * }
+     */
+    @QueryMapping
+    public NotificationConnection allNotifications(
+            @Argument Integer first,
+            @Argument String after) {
+        NotificationPage page = notificationService.listNotifications(after, first);
+        return NotificationConnection.fromPage(page);
+    }
+
+    /**
+     * Query: One recipient's notifications, newest first, with cursor (keyset) pagination
      *
      * GraphQL Query Example:
      * {
-     *   allNotifications(limit: 20, offset: 0) {
-     *     id
-     *     type
-     *     recipient
-     *     subject
-     *     content
-     *     createdAt
+     *   inbox(recipient: "user@example.com", first: 20) {
+     *     edges {
+     *       cursor
+     *       node {
+     *         id
+     *         subject
+     *         createdAt
+     *       }
+     *     }
+     *     pageInfo {
+     *       hasNextPage
+     *       endCursor
+     *     }
      *   }
      * }
      */
     @QueryMapping
-    public List<NotificationResponse> allNotifications(
-            @Argument Integer limit,
-            @Argument Integer offset) {
-        // For now, returning recent notifications
-        // TODO: Implement proper pagination in service layer if needed
-        List<Notifications> notifications = notificationService.getRecentNotifications();
-        return notifications.stream()
-                .map(NotificationResponse::fromEntity)
-                .collect(Collectors.toList());
+    public NotificationConnection inbox(
+            @Argument String recipient,
+            @Argument Integer first,
+            @Argument String after) {
+        NotificationPage page = notificationService.listInbox(recipient, after, first);
+        return NotificationConnection.fromPage(page);
+    }
+
+    /**
+     * Query: Unread count of one recipient (from Redis, never a COUNT on the DB)
+     *
+     * GraphQL Query Example:
+     * {
+     *   unreadCount(recipient: "user@example.com")
+     * }
+     */
+    @QueryMapping
+    public Long unreadCount(@Argument String recipient) {
+        return notificationService.getUnreadCount(recipient);
     }
 
     /**
@@ -121,6 +215,30 @@ public class NotificationGraphQLController {
         return NotificationResponse.fromEntity(created);
     }
 
+    /**
+     * Mutation: Create notifications in one batch (one transaction, one JDBC batch)
+     *
+     * GraphQL Mutation Example:
+     * mutation {
+     *   createNotifications(inputs: [
+     *     { type: EMAIL, recipient: "a@example.com", subject: "Hi", content: "Hello" },
+     *     { type: SMS, recipient: "+886900000000", subject: "Hi", content: "Hello" }
+     *   ]) {
+     *     id
+     *     type
+     *     recipient
+     *     createdAt
+     *   }
+     * }
+     */
+    @MutationMapping
+    public List<NotificationResponse> createNotifications(@Argument List<NotificationRequest> inputs) {
+        List<Notifications> created = notificationService.createNotifications(inputs);
+        return created.stream()
+                .map(NotificationResponse::fromEntity)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Mutation: Update notification
      *
@@ -147,6 +265,33 @@ public class NotificationGraphQLController {
         return updated.map(NotificationResponse::fromEntity).orElse(null);
     }
 
+    /**
+     * Mutation: Mark notifications read, returns how many of them were unread
+     *
+     * GraphQL Mutation Example:
+     * mutation {
+     *   markRead(ids: ["1", "2"])
+     * }
+     */
+    @MutationMapping
+    public Long markRead(@Argument List<Long> ids) {
+        return notificationService.markRead(ids);
+    }
+
+    /**
+     * Mutation: Mark everything of one recipient read
+     *
+     * GraphQL Mutation Example:
+     * mutation {
+     *   markAllRead(recipient: "user@example.com")
+     * }
+     */
+    @MutationMapping
+    public Boolean markAllRead(@Argument String recipient) {
+        notificationService.markAllRead(recipient);
+        return true;
+    }
+
     /**
      * Mutation: Delete notification
      *
@@ -159,4 +304,23 @@ public class NotificationGraphQLController {
     public Boolean deleteNotification(@Argument Long id) {
         return notificationService.deleteNotification(id);
     }
+
+    /**
+     * Subscription: live creates, updates and deletes, optionally of one recipient and/or one type
+     * (over SSE: POST /graphql with Accept: text/event-stream)
+     *
+     * GraphQL Subscription Example:
+     * subscription {
+     *   notificationEvents(recipient: "user@example.com") {
+     *     event
+     *     id
+     *     subject
+     *     missed
+     *   }
+     * }
+     */
+    @SubscriptionMapping
+    public Flux<NotificationEvent> notificationEvents(@Argument String recipient, @Argument NotificationType type) {
+        return notificationEventHub.subscribe(recipient, type);
+    }
 }
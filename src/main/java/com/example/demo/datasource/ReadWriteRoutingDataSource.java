@@ -0,0 +1,167 @@
+package com.example.demo.datasource;
+
+import com.example.demo.config.AppProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to a replica and everything else to the primary.
+ *
+ * The route is decided when the physical connection is taken, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: by the first statement
+ * the transaction's read-only flag is known. Replicas are picked round robin, skipping any whose
+ * last measured lag (see {@link ReplicaLagMonitor}) is over {@code app.read-replicas.max-lag}.
+ * Reads fall back to the primary when no replica qualifies, or when the client is inside its
+ * {@link ReadYourWrites} window.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    public static final String PRIMARY = "primary";
+
+    // lag of a replica that was never measured, or whose replication is stopped
+    private static final long UNKNOWN_LAG = Long.MAX_VALUE;
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final long maxLagMillis;
+    private final Counter writes;
+    private final Counter stickyReads;
+    private final Counter fallbackReads;
+
+    /**
+     * @param replicaDataSources by replica name, closed together with this data source
+     */
+    public ReadWriteRoutingDataSource(DataSource primary,
+                                      Map<String, DataSource> replicaDataSources,
+                                      AppProperties appProperties,
+                                      MeterRegistry meterRegistry) {
+        this.maxLagMillis = appProperties.getReadReplicas().getMaxLag().toMillis();
+        this.writes = routeCounter(meterRegistry, PRIMARY, "write");
+        this.stickyReads = routeCounter(meterRegistry, PRIMARY, "sticky");
+        this.fallbackReads = routeCounter(meterRegistry, PRIMARY, "no-replica");
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicaDataSources.forEach((name, dataSource) -> {
+            Replica replica = new Replica(name, dataSource, routeCounter(meterRegistry, name, "replica"));
+            replicas.add(replica);
+            targets.put(name, dataSource);
+            Gauge.builder("notification.db.replica.lag", replica, r -> r.lagMillis == UNKNOWN_LAG ? Double.NaN : r.lagMillis / 1000.0)
+                    .tag("replica", name)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        });
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        // an unknown key is a bug, not something to paper over with the primary
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                ReadYourWrites.recordWrite();
+            }
+            return route(writes, PRIMARY);
+        }
+        if (ReadYourWrites.isSticky()) {
+            return route(stickyReads, PRIMARY);
+        }
+        Replica replica = pickReplica();
+        if (replica == null) {
+            return route(fallbackReads, PRIMARY);
+        }
+        return route(replica.routed, replica.name);
+    }
+
+    /**
+     * @param lag null if the replica could not be checked or is not replicating
+     */
+    public void updateLag(String name, Duration lag) {
+        for (Replica replica : replicas) {
+            if (replica.name.equals(name)) {
+                replica.lagMillis = lag == null ? UNKNOWN_LAG : lag.toMillis();
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return replica data sources by name, for the lag checks
+     */
+    public Map<String, DataSource> getReplicaDataSources() {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        replicas.forEach(replica -> dataSources.put(replica.name, replica.dataSource));
+        return dataSources;
+    }
+
+    @Override
+    public void destroy() {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Failed to close replica {}", replica.name, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Round robin over the replicas within max lag, null if there is none.
+     */
+    private Replica pickReplica() {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.lagMillis <= maxLagMillis) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private static String route(Counter counter, String target) {
+        counter.increment();
+        return target;
+    }
+
+    private static Counter routeCounter(MeterRegistry meterRegistry, String target, String reason) {
+        return meterRegistry.counter("notification.db.route", "target", target, "reason", reason);
+    }
+
+    private static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private final Counter routed;
+        private volatile long lagMillis = UNKNOWN_LAG;
+
+        private Replica(String name, DataSource dataSource, Counter routed) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.routed = routed;
+        }
+    }
+}
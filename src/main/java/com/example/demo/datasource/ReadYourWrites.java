@@ -0,0 +1,79 @@
+package com.example.demo.datasource;
+
+import java.time.Duration;
+import java.util.function.LongConsumer;
+
+/**
+ * Read-your-writes stickiness for the current client, bound to the request thread.
+ *
+ * A client that just wrote keeps reading from the primary until its deadline passes, so it never
+ * sees its own write go missing on a lagging replica. The deadline travels with the client (see
+ * {@link ReadYourWritesFilter}), which keeps this working across nodes without shared state.
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Session> CURRENT = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    /**
+     * @param stickyUntil deadline the client brought along, epoch millis (0 if none)
+     * @param window      how far a write pushes the deadline out
+     * @param onWrite     called with the new deadline on the first write of this session
+     */
+    public static Session begin(long stickyUntil, Duration window, LongConsumer onWrite) {
+        Session session = new Session(stickyUntil, window.toMillis(), onWrite);
+        CURRENT.set(session);
+        return session;
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return true if reads on this thread must go to the primary
+     */
+    public static boolean isSticky() {
+        Session session = CURRENT.get();
+        return session != null && session.stickyUntil > System.currentTimeMillis();
+    }
+
+    /**
+     * A write is about to run on this thread; no-op outside a session (scheduled jobs, MQ consumers).
+     */
+    public static void recordWrite() {
+        Session session = CURRENT.get();
+        if (session != null) {
+            session.recordWrite();
+        }
+    }
+
+    public static final class Session {
+
+        private final long window;
+        private final LongConsumer onWrite;
+        private long stickyUntil;
+        private boolean wrote;
+
+        private Session(long stickyUntil, long window, LongConsumer onWrite) {
+            this.stickyUntil = stickyUntil;
+            this.window = window;
+            this.onWrite = onWrite;
+        }
+
+        public long getStickyUntil() {
+            return stickyUntil;
+        }
+
+        private void recordWrite() {
+            // measured from the first write; a request is far shorter than the window
+            stickyUntil = Math.max(stickyUntil, System.currentTimeMillis() + window);
+            if (!wrote) {
+                wrote = true;
+                onWrite.accept(stickyUntil);
+            }
+        }
+    }
+}
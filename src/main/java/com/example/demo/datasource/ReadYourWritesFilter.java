@@ -0,0 +1,67 @@
+package com.example.demo.datasource;
+
+import com.example.demo.config.AppProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Opens a {@link ReadYourWrites} session per request.
+ *
+ * The deadline lives in a cookie: a write sets it to now + {@code app.read-replicas.sticky-window},
+ * and until it passes every read of that client, on any node, goes to the primary.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final AppProperties.ReadReplicas properties;
+
+    public ReadYourWritesFilter(AppProperties appProperties) {
+        this.properties = appProperties.getReadReplicas();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ReadYourWrites.begin(stickyUntil(request), properties.getStickyWindow(), deadline -> {
+            // the connection is taken before anything is written to the body, so this still makes it out
+            if (!response.isCommitted()) {
+                response.addCookie(stickyCookie(deadline));
+            }
+        });
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.end();
+        }
+    }
+
+    private long stickyUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (properties.getStickyCookie().equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private Cookie stickyCookie(long deadline) {
+        Cookie cookie = new Cookie(properties.getStickyCookie(), String.valueOf(deadline));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) Math.max(1, properties.getStickyWindow().toSeconds() + 1));
+        return cookie;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.demo.datasource;
+
+import com.example.demo.config.AppProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Measures every replica's lag with {@code app.read-replicas.lag-query} and hands it to the
+ * {@link ReadWriteRoutingDataSource}. A replica that cannot be checked is treated as too far behind.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private static final String LAG_COLUMN = "Seconds_Behind_Source";
+
+    private final ReadWriteRoutingDataSource routingDataSource;
+    private final AppProperties.ReadReplicas properties;
+
+    public ReplicaLagMonitor(ReadWriteRoutingDataSource routingDataSource, AppProperties appProperties) {
+        this.routingDataSource = routingDataSource;
+        this.properties = appProperties.getReadReplicas();
+    }
+
+    @Scheduled(fixedDelayString = "${app.read-replicas.lag-check-interval:1s}")
+    public void check() {
+        for (Map.Entry<String, DataSource> replica : routingDataSource.getReplicaDataSources().entrySet()) {
+            Duration lag;
+            try {
+                lag = measure(replica.getValue());
+            } catch (SQLException e) {
+                log.warn("Lag check failed on replica {}: {}", replica.getKey(), e.getMessage());
+                lag = null;
+            }
+            routingDataSource.updateLag(replica.getKey(), lag);
+        }
+    }
+
+    /**
+     * @return null if replication is stopped
+     */
+    Duration measure(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            // never let a stuck replica hold up the checks of the others for long
+            statement.setQueryTimeout((int) Math.max(1, properties.getLagCheckInterval().toSeconds()));
+            try (ResultSet resultSet = statement.executeQuery(properties.getLagQuery())) {
+                if (!resultSet.next()) {
+                    // no replication channel, nothing to be behind of
+                    return Duration.ZERO;
+                }
+                long seconds = resultSet.getLong(lagColumn(resultSet.getMetaData()));
+                return resultSet.wasNull() ? null : Duration.ofSeconds(seconds);
+            }
+        }
+    }
+
+    private static int lagColumn(ResultSetMetaData metaData) throws SQLException {
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            if (LAG_COLUMN.equalsIgnoreCase(metaData.getColumnLabel(i))) {
+                return i;
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.demo.delivery;
+
+import com.example.demo.dto.NotificationMessage;
+import com.example.demo.enums.NotificationType;
+
+/**
+ * Delivers a notification over one channel. Implementations are Spring beans picked up by
+ * {@link NotificationDispatcher}; they are called from virtual threads and may block.
+ */
+public interface ChannelSender {
+
+    NotificationType channel();
+
+    /**
+     * @throws com.example.demo.exception.DeliveryException if the provider did not accept the message
+     */
+    void send(NotificationMessage message);
+
+    /**
+     * True if the client library blocks on I/O inside {@code synchronized} blocks, which pins a
+     * virtual thread to its carrier. Such channels get a platform thread pool sized to their
+     * concurrency limit so they cannot occupy every carrier thread.
+     */
+    default boolean requiresPlatformThreads() {
+        return false;
+    }
+}
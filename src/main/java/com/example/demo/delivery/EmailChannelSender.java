@@ -0,0 +1,121 @@
+package com.example.demo.delivery;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.dto.NotificationMessage;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.exception.DeliveryException;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * SMTP sender. Connected transports are pooled and reused across messages instead of
+ * opening a new SMTP session per mail; the pool never grows beyond the channel concurrency.
+ */
+@Slf4j
+@Component
+public class EmailChannelSender implements ChannelSender {
+
+    private final AppProperties.Email properties;
+    private final Session session;
+    private final BlockingQueue<Transport> idleTransports;
+
+    public EmailChannelSender(AppProperties appProperties) {
+        this.properties = appProperties.getDelivery().getEmail();
+        this.idleTransports = new LinkedBlockingQueue<>(properties.getLimits().getMaxConcurrency());
+
+        Properties mailProperties = new Properties();
+        mailProperties.put("mail.transport.protocol", "smtp");
+        mailProperties.put("mail.smtp.host", properties.getHost());
+        mailProperties.put("mail.smtp.port", String.valueOf(properties.getPort()));
+        mailProperties.put("mail.smtp.auth", String.valueOf(properties.getUsername() != null));
+        mailProperties.put("mail.smtp.starttls.enable", String.valueOf(properties.isStarttls()));
+        mailProperties.put("mail.smtp.connectiontimeout", String.valueOf(properties.getTimeout().toMillis()));
+        mailProperties.put("mail.smtp.timeout", String.valueOf(properties.getTimeout().toMillis()));
+        mailProperties.put("mail.smtp.writetimeout", String.valueOf(properties.getTimeout().toMillis()));
+        this.session = Session.getInstance(mailProperties);
+    }
+
+    @Override
+    public NotificationType channel() {
+        return NotificationType.EMAIL;
+    }
+
+    // Jakarta Mail synchronizes around socket I/O
+    @Override
+    public boolean requiresPlatformThreads() {
+        return true;
+    }
+
+    @Override
+    public void send(NotificationMessage message) {
+        Transport transport = borrow();
+        try {
+            MimeMessage mimeMessage = new MimeMessage(session);
+            mimeMessage.setFrom(new InternetAddress(properties.getFrom()));
+            mimeMessage.setRecipients(Message.RecipientType.TO, InternetAddress.parse(message.getRecipient()));
+            mimeMessage.setSubject(message.getSubject(), StandardCharsets.UTF_8.name());
+            mimeMessage.setText(message.getContent(), StandardCharsets.UTF_8.name());
+            mimeMessage.saveChanges();
+
+            transport.sendMessage(mimeMessage, mimeMessage.getAllRecipients());
+            giveBack(transport);
+        } catch (MessagingException e) {
+            // the session state is unknown after a failure, do not reuse it
+            close(transport);
+            throw new DeliveryException("SMTP send failed for notification " + message.getId(), e);
+        }
+    }
+
+    private Transport borrow() {
+        Transport transport = idleTransports.poll();
+        try {
+            if (transport == null) {
+                transport = session.getTransport();
+            }
+            if (!transport.isConnected()) {
+                transport.connect(properties.getHost(), properties.getPort(), properties.getUsername(), properties.getPassword());
+            }
+            return transport;
+        } catch (MessagingException e) {
+            close(transport);
+            throw new DeliveryException("SMTP connect failed", e);
+        }
+    }
+
+    private void giveBack(Transport transport) {
+        if (!idleTransports.offer(transport)) {
+            close(transport);
+        }
+    }
+
+    private void close(Transport transport) {
+        if (transport == null) {
+            return;
+        }
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            log.debug("Ignoring SMTP close failure", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Transport transport;
+        while ((transport = idleTransports.poll()) != null) {
+            close(transport);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.demo.delivery;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.dto.NotificationMessage;
+import com.example.demo.enums.NotificationPriority;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.exception.DeliveryException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routes notifications to their {@link ChannelSender} on virtual threads.
+ *
+ * Every channel has its own concurrency limit and token bucket, so a slow or throttled
+ * provider only queues its own messages and never holds up another channel. Senders that
+ * would pin carrier threads ({@link ChannelSender#requiresPlatformThreads()}) still wait for their
+ * slot on a virtual thread, and only the send itself goes to a small platform pool of their own,
+ * sized to the slots so it never queues.
+ *
+ * Within a channel, sends waiting for a slot are served by priority ({@link PrioritySlots}), so
+ * a campaign queued on a channel does not hold up its time-critical messages.
+ *
+ * A dispatch fails with a {@link java.util.concurrent.TimeoutException} after the channel's
+ * {@code dispatch-timeout}, so a hung provider cannot hold the consume threads (and with them
+ * every other channel); a send still queued by then is dropped and left to the redelivery.
+ */
+@Slf4j
+@Component
+public class NotificationDispatcher {
+
+    private final Map<NotificationType, Channel> channels = new EnumMap<>(NotificationType.class);
+    private final ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+    private final MeterRegistry meterRegistry;
+
+    public NotificationDispatcher(List<ChannelSender> senders, AppProperties appProperties, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Map<NotificationPriority, Integer> weights = appProperties.getDelivery().getPriorityWeights();
+        for (ChannelSender sender : senders) {
+            AppProperties.ChannelLimits limits = appProperties.getDelivery().limitsFor(sender.channel());
+            // null: the send runs on the virtual thread that took the slot
+            ExecutorService platformThreads = sender.requiresPlatformThreads()
+                    ? Executors.newFixedThreadPool(limits.getMaxConcurrency(), Thread.ofPlatform()
+                            .name("delivery-" + sender.channel().name().toLowerCase() + "-", 0)
+                            .daemon(true)
+                            .factory())
+                    : null;
+            PrioritySlots slots = new PrioritySlots(limits.getMaxConcurrency(), weights);
+            Map<NotificationPriority, Timer> slotWait = new EnumMap<>(NotificationPriority.class);
+            Map<NotificationPriority, Timer> latency = new EnumMap<>(NotificationPriority.class);
+            for (NotificationPriority priority : NotificationPriority.values()) {
+                Gauge.builder("notification.delivery.queued", slots, s -> s.queued(priority))
+                        .tag("channel", sender.channel().name())
+                        .tag("priority", priority.name())
+                        .register(meterRegistry);
+                slotWait.put(priority, meterRegistry.timer("notification.delivery.wait",
+                        "channel", sender.channel().name(), "priority", priority.name()));
+                latency.put(priority, meterRegistry.timer("notification.delivery.latency",
+                        "channel", sender.channel().name(), "priority", priority.name()));
+            }
+            channels.put(sender.channel(), new Channel(sender, platformThreads, slots,
+                    new TokenBucket(limits.getRatePerSecond(), limits.getBurst()), limits.getDispatchTimeout(),
+                    slotWait, latency));
+        }
+    }
+
+    public CompletableFuture<Void> dispatch(NotificationMessage message) {
+        Channel channel = channels.get(message.getNotificationType());
+        if (channel == null) {
+            return CompletableFuture.failedFuture(
+                    new DeliveryException("no sender for channel " + message.getNotificationType()));
+        }
+        NotificationPriority priority = NotificationPriority.orDefault(message.getPriority());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long deadline = System.nanoTime() + channel.dispatchTimeout().toNanos();
+        return CompletableFuture.runAsync(() -> {
+            channel.send(message, priority, deadline);
+            // dispatch to sent, queueing included
+            sample.stop(channel.latency().get(priority));
+        }, virtualThreads).orTimeout(channel.dispatchTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        channels.values().stream()
+                .map(Channel::platformThreads)
+                .filter(Objects::nonNull)
+                .forEach(ExecutorService::shutdown);
+        virtualThreads.shutdown();
+    }
+
+    private record Channel(ChannelSender sender, ExecutorService platformThreads, PrioritySlots concurrency, TokenBucket rateLimit,
+                           Duration dispatchTimeout, Map<NotificationPriority, Timer> slotWait,
+                           Map<NotificationPriority, Timer> latency) {
+
+        void send(NotificationMessage message, NotificationPriority priority, long deadline) {
+            long start = System.nanoTime();
+            try {
+                concurrency.acquire(priority);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DeliveryException("interrupted waiting for " + sender.channel() + " slot", e);
+            }
+            slotWait.get(priority).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            try {
+                rateLimit.acquire();
+                if (System.nanoTime() - deadline > 0) {
+                    // the consumer gave up on it already and the message will be redelivered
+                    throw new DeliveryException(sender.channel() + " send not started within " + dispatchTimeout);
+                }
+                if (platformThreads == null) {
+                    sender.send(message);
+                } else {
+                    // holding the slot, so a pool thread is free
+                    platformThreads.submit(() -> sender.send(message)).get();
+                }
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new DeliveryException(sender.channel() + " send failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DeliveryException("interrupted waiting for " + sender.channel() + " rate limit or send", e);
+            } finally {
+                concurrency.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.delivery;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.dto.NotificationMessage;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.exception.DeliveryException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+
+/**
+ * SMS sender for a JSON HTTP gateway. One shared {@link HttpClient} keeps connections alive
+ * between requests.
+ */
+@Component
+public class SmsChannelSender implements ChannelSender {
+
+    private final AppProperties.Sms properties;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+
+    public SmsChannelSender(AppProperties appProperties, ObjectMapper objectMapper) {
+        this.properties = appProperties.getDelivery().getSms();
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(properties.getTimeout())
+                .build();
+    }
+
+    @Override
+    public NotificationType channel() {
+        return NotificationType.SMS;
+    }
+
+    @Override
+    public void send(NotificationMessage message) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(properties.getGatewayUrl()))
+                .timeout(properties.getTimeout())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(toJson(message)));
+        if (properties.getApiKey() != null) {
+            request.header("Authorization", "Bearer " + properties.getApiKey());
+        }
+
+        try {
+            HttpResponse<Void> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() / 100 != 2) {
+                throw new DeliveryException("SMS gateway returned " + response.statusCode() + " for notification " + message.getId());
+            }
+        } catch (IOException e) {
+            throw new DeliveryException("SMS gateway call failed for notification " + message.getId(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeliveryException("SMS send interrupted for notification " + message.getId(), e);
+        }
+    }
+
+    private String toJson(NotificationMessage message) {
+        try {
+            return objectMapper.writeValueAsString(Map.of(
+                    "id", message.getId(),
+                    "to", message.getRecipient(),
+                    "text", message.getContent()));
+        } catch (JsonProcessingException e) {
+            throw new DeliveryException("Failed to build SMS payload for notification " + message.getId(), e);
+        }
+    }
+}
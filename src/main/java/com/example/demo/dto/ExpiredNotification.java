@@ -0,0 +1,13 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A row due for archiving, with what its Redis state is keyed by (recipient, read-state sequence).
+ */
+public record ExpiredNotification(Long id, LocalDateTime createdAt, String recipient, long recipientSeq) {
+
+    public NotificationCursor cursor() {
+        return new NotificationCursor(createdAt, id);
+    }
+}
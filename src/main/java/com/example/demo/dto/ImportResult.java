@@ -0,0 +1,49 @@
+package com.example.demo.dto;
+
+import com.example.demo.enums.ImportFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Progress of a bulk import while it runs, its outcome once it is done.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResult {
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        // stopped at a batch the DB rejected; earlier batches stay committed
+        FAILED
+    }
+
+    private String id;
+    private ImportFormat format;
+    private Status status;
+    // data rows read so far (blank lines and the CSV header are not counted)
+    private long processed;
+    private long imported;
+    private long failed;
+    // first app.bulk-import.max-reported-errors rejected rows
+    private List<RowError> errors;
+    private String message;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RowError {
+        // 1-based line of the row in the upload (where it starts, for a multi-line CSV record)
+        private long line;
+        private String message;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Relay-style connection for the GraphQL {@code allNotifications} query.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationConnection {
+
+    private List<Edge> edges;
+    private PageInfo pageInfo;
+
+    public static NotificationConnection fromPage(NotificationPage page) {
+        List<Edge> edges = page.getItems().stream()
+                .map(notification -> new Edge(NotificationCursor.of(notification).encode(), NotificationResponse.fromEntity(notification)))
+                .collect(Collectors.toList());
+        return new NotificationConnection(edges, new PageInfo(page.isHasNextPage(), page.getEndCursor()));
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Edge {
+        private String cursor;
+        private NotificationResponse node;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PageInfo {
+        private boolean hasNextPage;
+        private String endCursor;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.demo.dto;
+
+import com.example.demo.enums.NotificationMessageType;
+import com.example.demo.enums.NotificationType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One change pushed to live subscribers (SSE and the GraphQL subscription).
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationEvent {
+
+    private NotificationMessageType event;
+    private Long id;
+    private NotificationType type;
+    private String recipient;
+    private String subject;
+    private String content;
+    // events dropped for this subscriber right before this one; re-read the inbox to catch up
+    private long missed;
+
+    public static NotificationEvent fromMessage(NotificationMessage message) {
+        return NotificationEvent.builder()
+                .event(message.getNotificationMessageType())
+                .id(message.getId())
+                .type(message.getNotificationType())
+                .recipient(message.getRecipient())
+                .subject(message.getSubject())
+                .content(message.getContent())
+                .build();
+    }
+}
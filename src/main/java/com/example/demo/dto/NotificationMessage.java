@@ -1,7 +1,9 @@
 package com.example.demo.dto;
 
 import com.example.demo.enums.NotificationMessageType;
+import com.example.demo.enums.NotificationPriority;
 import com.example.demo.enums.NotificationType;
+import com.example.demo.model.Notifications;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -23,4 +25,21 @@ public class NotificationMessage implements Serializable {
     private String recipient;
     private String subject;
     private String content;
+    // entity @Version at the time of the change, part of the consumer dedup key
+    private Long version;
+    // null on messages from before priorities existed, treated as NORMAL
+    private NotificationPriority priority;
+
+    public static NotificationMessage fromEntity(Notifications notification, NotificationMessageType messageType) {
+        return NotificationMessage.builder()
+                .id(notification.getId())
+                .notificationType(notification.getType())
+                .notificationMessageType(messageType)
+                .recipient(notification.getRecipient())
+                .subject(notification.getSubject())
+                .content(notification.getContent())
+                .version(notification.getVersion())
+                .priority(notification.getPriority())
+                .build();
+    }
 }
@@ -0,0 +1,20 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.Notifications;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One keyset page, newest first.
+ */
+@Data
+@AllArgsConstructor
+public class NotificationPage {
+
+    private List<Notifications> items;
+    // cursor of the last item, null on an empty page
+    private String endCursor;
+    private boolean hasNextPage;
+}
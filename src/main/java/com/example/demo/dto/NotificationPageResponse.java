@@ -0,0 +1,26 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationPageResponse {
+
+    private List<NotificationResponse> items;
+    // pass as ?after= to get the next page
+    private String nextCursor;
+    private boolean hasNext;
+
+    public static NotificationPageResponse fromPage(NotificationPage page) {
+        return new NotificationPageResponse(
+                page.getItems().stream().map(NotificationResponse::fromEntity).collect(Collectors.toList()),
+                page.getEndCursor(),
+                page.isHasNextPage());
+    }
+}
@@ -1,11 +1,14 @@
 package com.example.demo.dto;
 
+import com.example.demo.enums.NotificationPriority;
 import com.example.demo.enums.NotificationType;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -15,4 +18,8 @@ public class NotificationRequest {
     private String recipient;
     private String subject;
     private String content;
+    // optional, NORMAL if absent
+    private NotificationPriority priority;
+    // optional: delivery is held back until then, the notification itself is stored right away
+    private LocalDateTime scheduledAt;
 }
@@ -1,5 +1,6 @@
 package com.example.demo.dto;
 
+import com.example.demo.enums.NotificationPriority;
 import com.example.demo.enums.NotificationType;
 import com.example.demo.model.Notifications;
 import lombok.AllArgsConstructor;
@@ -20,6 +21,7 @@ public class NotificationResponse {
     private String recipient;
     private String subject;
     private String content;
+    private NotificationPriority priority;
     private LocalDateTime createdAt;
 
     public static NotificationResponse fromEntity(Notifications notifications) {
@@ -29,6 +31,7 @@ public class NotificationResponse {
                 .recipient(notifications.getRecipient())
                 .subject(notifications.getSubject())
                 .content(notifications.getContent())
+                .priority(notifications.getPriority())
                 .createdAt(notifications.getCreatedAt())
                 .build();
     }
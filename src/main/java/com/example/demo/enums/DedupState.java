@@ -0,0 +1,13 @@
+package com.example.demo.enums;
+
+/**
+ * Where a consumed message stands in the Redis dedup store.
+ */
+public enum DedupState {
+    // not seen before, claimed for this delivery
+    FRESH,
+    // handled before, skip it
+    DONE,
+    // being handled by another delivery (or one that died); redeliver later
+    IN_PROGRESS,
+}
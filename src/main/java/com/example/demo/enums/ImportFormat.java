@@ -0,0 +1,11 @@
+package com.example.demo.enums;
+
+/**
+ * Upload formats of POST /notifications/import, picked by Content-Type.
+ */
+public enum ImportFormat {
+    // application/x-ndjson: one NotificationRequest JSON object per line
+    NDJSON,
+    // text/csv: header row naming type, recipient, subject, content in any order (RFC 4180 quoting)
+    CSV
+}
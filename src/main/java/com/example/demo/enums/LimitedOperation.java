@@ -0,0 +1,32 @@
+package com.example.demo.enums;
+
+/**
+ * Operation classes with their own concurrency limit, so slow writes cannot starve reads.
+ */
+public enum LimitedOperation {
+    // single and batched lookups, keyset pages
+    READ(true),
+    // create, update, delete
+    WRITE(true),
+    // recent list, may rebuild from the DB on a cold cache
+    RECENT_LIST(true),
+    // streaming export, a fixed cap (app.export.max-concurrent) instead: runs take minutes
+    EXPORT(false),
+    // bulk import, a fixed cap as well (app.bulk-import.max-concurrent)
+    IMPORT(false),
+    // live push subscriptions (SSE, GraphQL subscription), a fixed cap per node (app.push.max-subscribers)
+    PUSH(false);
+
+    private final boolean adaptive;
+
+    LimitedOperation(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * @return true if guarded by an adaptive limit ({@code @ConcurrencyLimited}), false for a fixed cap
+     */
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+}
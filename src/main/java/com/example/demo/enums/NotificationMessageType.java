@@ -6,6 +6,8 @@ public enum NotificationMessageType {
     CREATE,
     UPDATE,
     DELETE,
+    // one per bulk import without per-row CREATE messages: id of its last row, import id as subject
+    IMPORT,
     ;
 
     public static NotificationMessageType fromString(String type) {
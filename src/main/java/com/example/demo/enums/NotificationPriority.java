@@ -0,0 +1,21 @@
+package com.example.demo.enums;
+
+/**
+ * Delivery lane of a notification, highest first. Stored by ordinal in the outbox and the binary
+ * Redis format: only ever append new constants.
+ */
+public enum NotificationPriority {
+    // time-critical: one-time passwords, security alerts
+    HIGH,
+    // the default
+    NORMAL,
+    // bulk and marketing, may wait behind everything else
+    LOW;
+
+    /**
+     * @return NORMAL for null, i.e. requests and messages from before priorities existed
+     */
+    public static NotificationPriority orDefault(NotificationPriority priority) {
+        return priority == null ? NORMAL : priority;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.demo.enums;
+
+/**
+ * What the async producer does when its in-flight window is full.
+ */
+public enum OverflowPolicy {
+    // fail the send immediately
+    REJECT,
+    // wait up to block-timeout for a free slot, then fail
+    BLOCK,
+    // park the send in a bounded in-memory queue, drained as slots free up
+    SPILL,
+}
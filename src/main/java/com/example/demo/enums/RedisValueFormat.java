@@ -0,0 +1,11 @@
+package com.example.demo.enums;
+
+/**
+ * Format for cached values written through {@code redisTemplate}. Reads accept both.
+ */
+public enum RedisValueFormat {
+    // polymorphic Jackson JSON (class name in every value)
+    JSON,
+    // compact binary codec for Notifications, JSON for anything else
+    BINARY
+}
@@ -0,0 +1,11 @@
+package com.example.demo.enums;
+
+/**
+ * How updateNotification / deleteNotification guard the row against concurrent writers.
+ */
+public enum WriteLockMode {
+    // SELECT ... FOR UPDATE, writers on the same row queue on the lock
+    PESSIMISTIC,
+    // conditional UPDATE / DELETE on the @Version column, retried on conflict
+    OPTIMISTIC,
+}
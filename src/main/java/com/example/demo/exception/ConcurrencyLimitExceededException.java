@@ -0,0 +1,19 @@
+package com.example.demo.exception;
+
+import com.example.demo.enums.LimitedOperation;
+import lombok.Getter;
+
+/**
+ * Thrown when an operation class is at its concurrency limit; mapped to 503 / a GraphQL error.
+ */
+@Getter
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+    private final LimitedOperation operation;
+
+    public ConcurrencyLimitExceededException(LimitedOperation operation, int limit) {
+        // shed load cheaply, no stack trace
+        super(operation + " concurrency limit " + limit + " reached", null, false, false);
+        this.operation = operation;
+    }
+}
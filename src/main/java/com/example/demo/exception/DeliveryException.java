@@ -0,0 +1,11 @@
+package com.example.demo.exception;
+
+public class DeliveryException extends RuntimeException {
+    public DeliveryException(String message) {
+        super(message);
+    }
+
+    public DeliveryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
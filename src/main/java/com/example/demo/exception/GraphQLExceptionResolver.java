@@ -0,0 +1,38 @@
+package com.example.demo.exception;
+
+import graphql.ErrorClassification;
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.schema.DataFetchingEnvironment;
+import org.springframework.graphql.execution.DataFetcherExceptionResolverAdapter;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * GraphQL counterpart of {@link GlobalExceptionHandler}.
+ */
+@Component
+public class GraphQLExceptionResolver extends DataFetcherExceptionResolverAdapter {
+
+    static final ErrorClassification SERVICE_UNAVAILABLE = ErrorClassification.errorClassification("SERVICE_UNAVAILABLE");
+    static final ErrorClassification CONFLICT = ErrorClassification.errorClassification("CONFLICT");
+
+    @Override
+    protected GraphQLError resolveToSingleError(Throwable ex, DataFetchingEnvironment env) {
+        if (ex instanceof ConcurrencyLimitExceededException limitExceeded) {
+            return GraphqlErrorBuilder.newError(env)
+                    .errorType(SERVICE_UNAVAILABLE)
+                    .message(limitExceeded.getMessage())
+                    .extensions(Map.of("retryAfterSeconds", 1))
+                    .build();
+        }
+        if (ex instanceof NotificationConflictException) {
+            return GraphqlErrorBuilder.newError(env)
+                    .errorType(CONFLICT)
+                    .message(ex.getMessage())
+                    .build();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.exception;
+
+/**
+ * Thrown (or used to fail a send future) when the producer's in-flight window is full.
+ */
+public class NotificationBackpressureException extends RuntimeException {
+    public NotificationBackpressureException(String message) {
+        super(message);
+    }
+}
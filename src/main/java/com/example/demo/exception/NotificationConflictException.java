@@ -0,0 +1,14 @@
+package com.example.demo.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when an optimistic update / delete keeps losing to concurrent writers.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class NotificationConflictException extends RuntimeException {
+    public NotificationConflictException(String message) {
+        super(message);
+    }
+}
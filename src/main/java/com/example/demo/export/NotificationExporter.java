@@ -0,0 +1,146 @@
+package com.example.demo.export;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.dto.NotificationResponse;
+import com.example.demo.enums.LimitedOperation;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.exception.ConcurrencyLimitExceededException;
+import com.example.demo.repository.NotificationRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Streams notifications created in a time range as NDJSON, one {@link NotificationResponse} per line.
+ *
+ * Rows come from a forward-only JDBC cursor ({@link NotificationRepository#streamRange}) and are
+ * written as they arrive, flushed every {@code app.export.flush-every} rows, so heap use is the same
+ * for a thousand rows or a hundred million. A client that goes away (or an interrupted thread)
+ * cancels the query. Runs in a read-only transaction, i.e. on a replica when read replicas are on.
+ */
+@Component
+public class NotificationExporter {
+
+    /**
+     * Opened only once the export is allowed to start, so a rejected export can still answer with an error.
+     */
+    @FunctionalInterface
+    public interface Sink {
+        OutputStream open() throws IOException;
+    }
+
+    private final NotificationRepository notificationRepository;
+    private final ObjectMapper objectMapper;
+    // no flush per row, see flush-every
+    private final ObjectWriter writer;
+    private final AppProperties.Export properties;
+    private final MeterRegistry meterRegistry;
+    private final Counter exportedRows;
+    private final Timer succeeded;
+    private final Timer aborted;
+    private final Timer failed;
+    private final TransactionTemplate transactionTemplate;
+    private final Semaphore permits;
+
+    public NotificationExporter(NotificationRepository notificationRepository,
+                                ObjectMapper objectMapper,
+                                AppProperties appProperties,
+                                MeterRegistry meterRegistry,
+                                PlatformTransactionManager transactionManager) {
+        this.notificationRepository = notificationRepository;
+        this.objectMapper = objectMapper;
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.properties = appProperties.getExport();
+        this.meterRegistry = meterRegistry;
+        this.exportedRows = meterRegistry.counter("notification.export.rows");
+        this.succeeded = meterRegistry.timer("notification.export", "outcome", "success");
+        this.aborted = meterRegistry.timer("notification.export", "outcome", "aborted");
+        this.failed = meterRegistry.timer("notification.export", "outcome", "error");
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.permits = new Semaphore(properties.getMaxConcurrent());
+    }
+
+    /**
+     * @param type null for every type
+     * @return number of rows written
+     * @throws IllegalArgumentException            if the range is empty, before anything is opened
+     * @throws ConcurrencyLimitExceededException if app.export.max-concurrent exports are running
+     * @throws UncheckedIOException                if the client went away
+     * @throws CancellationException              if the request thread was interrupted (client disconnect)
+     */
+    public long export(LocalDateTime from, LocalDateTime to, NotificationType type, Sink sink) throws IOException {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        if (!permits.tryAcquire()) {
+            throw new ConcurrencyLimitExceededException(LimitedOperation.EXPORT, properties.getMaxConcurrent());
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Timer outcome = failed;
+        try (OutputStream out = sink.open();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            // one value per line, we write the newline ourselves
+            generator.setRootValueSeparator(null);
+            int flushEvery = properties.getFlushEvery();
+            int[] sinceFlush = {0};
+            Long rows = streamInTransaction(() -> notificationRepository.streamRange(type, from, to,
+                    properties.getFetchSize(), notification -> {
+                        if (Thread.currentThread().isInterrupted()) {
+                            throw new CancellationException("export interrupted");
+                        }
+                        try {
+                            writer.writeValue(generator, NotificationResponse.fromEntity(notification));
+                            generator.writeRaw('\n');
+                            if (++sinceFlush[0] == flushEvery) {
+                                generator.flush();
+                                sinceFlush[0] = 0;
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }));
+            outcome = succeeded;
+            exportedRows.increment(rows == null ? 0 : rows);
+            return rows == null ? 0 : rows;
+        } catch (UncheckedIOException | CancellationException e) {
+            outcome = aborted;
+            throw e;
+        } finally {
+            permits.release();
+            sample.stop(outcome);
+        }
+    }
+
+    /**
+     * The repository proxy translates a {@link CancellationException} thrown by the row callback
+     * (an IllegalStateException) into InvalidDataAccessApiUsageException; hand it back as it was.
+     */
+    private Long streamInTransaction(Supplier<Long> stream) {
+        try {
+            return transactionTemplate.execute(status -> stream.get());
+        } catch (InvalidDataAccessApiUsageException e) {
+            if (e.getCause() instanceof CancellationException cancelled) {
+                throw cancelled;
+            }
+            throw e;
+        }
+    }
+}
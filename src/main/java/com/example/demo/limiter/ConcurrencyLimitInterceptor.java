@@ -0,0 +1,85 @@
+package com.example.demo.limiter;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.enums.LimitedOperation;
+import com.example.demo.exception.ConcurrencyLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Guards {@link ConcurrencyLimited} methods with one {@link GradientLimiter} per adaptive operation
+ * class; the fixed caps (export, import, push) are enforced where they run and get no limiter here.
+ *
+ * Runs outside {@code @Transactional}, so a rejected call never takes a connection from the pool.
+ */
+public class ConcurrencyLimitInterceptor implements MethodInterceptor {
+
+    private final Map<LimitedOperation, GradientLimiter> limiters = new EnumMap<>(LimitedOperation.class);
+    private final Map<LimitedOperation, Counter> rejected = new EnumMap<>(LimitedOperation.class);
+
+    public ConcurrencyLimitInterceptor(AppProperties appProperties, MeterRegistry meterRegistry) {
+        for (LimitedOperation operation : LimitedOperation.values()) {
+            if (!operation.isAdaptive()) {
+                continue;
+            }
+            GradientLimiter limiter = new GradientLimiter(appProperties.getLimiter());
+            limiters.put(operation, limiter);
+            Gauge.builder("notification.limiter.limit", limiter, GradientLimiter::getLimit)
+                    .tag("operation", operation.name())
+                    .register(meterRegistry);
+            Gauge.builder("notification.limiter.in-flight", limiter, GradientLimiter::getInFlight)
+                    .tag("operation", operation.name())
+                    .register(meterRegistry);
+            rejected.put(operation, meterRegistry.counter("notification.limiter.rejected", "operation", operation.name()));
+        }
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        LimitedOperation operation = operationOf(invocation);
+        GradientLimiter limiter = limiters.get(operation);
+        if (!limiter.tryAcquire()) {
+            rejected.get(operation).increment();
+            throw new ConcurrencyLimitExceededException(operation, limiter.getLimit());
+        }
+
+        long start = System.nanoTime();
+        boolean dropped = false;
+        try {
+            return invocation.proceed();
+        } catch (TransientDataAccessException | CannotCreateTransactionException e) {
+            // query/Redis timeouts, lock waits, Hikari pool exhausted
+            dropped = true;
+            throw e;
+        } finally {
+            limiter.release(System.nanoTime() - start, dropped);
+        }
+    }
+
+    GradientLimiter limiter(LimitedOperation operation) {
+        return limiters.get(operation);
+    }
+
+    private static LimitedOperation operationOf(MethodInvocation invocation) {
+        Class<?> targetClass = invocation.getThis() == null ? null : AopUtils.getTargetClass(invocation.getThis());
+        ConcurrencyLimited annotation = AnnotatedElementUtils.findMergedAnnotation(
+                AopUtils.getMostSpecificMethod(invocation.getMethod(), targetClass), ConcurrencyLimited.class);
+        if (annotation == null) {
+            throw new IllegalStateException("No @ConcurrencyLimited on " + invocation.getMethod());
+        }
+        if (!annotation.value().isAdaptive()) {
+            throw new IllegalStateException(annotation.value() + " has a fixed cap, not an adaptive limit: " + invocation.getMethod());
+        }
+        return annotation.value();
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.demo.limiter;
+
+import com.example.demo.enums.LimitedOperation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the method under the adaptive limit of its operation class, see {@link ConcurrencyLimitInterceptor}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConcurrencyLimited {
+    LimitedOperation value();
+}
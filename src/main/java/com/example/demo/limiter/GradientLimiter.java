@@ -0,0 +1,92 @@
+package com.example.demo.limiter;
+
+import com.example.demo.config.AppProperties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive concurrency limit, gradient style (as in Netflix concurrency-limits' Gradient2).
+ *
+ * Every finished call feeds its latency into a long and a short term average. While the short term
+ * latency stays within {@code rtt-tolerance} of the long term one, the limit grows by about
+ * sqrt(limit); once queueing (Hikari, row locks, Redis) pushes latency up, the gradient
+ * longRtt / shortRtt falls below 1 and the limit shrinks with it. Dropped calls cut the limit
+ * multiplicatively. Calls over the limit are not queued, {@link #tryAcquire()} just says no.
+ */
+public class GradientLimiter {
+
+    private final AppProperties.Limiter properties;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+    // guarded by this
+    private double longRtt;
+    private double shortRtt;
+    private long samples;
+
+    public GradientLimiter(AppProperties.Limiter properties) {
+        this.properties = properties;
+        this.limit = properties.getInitialLimit();
+    }
+
+    /**
+     * @return true if the call may run; it must then call {@link #release} exactly once
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param rttNanos how long the call took
+     * @param dropped  the call failed from overload (timeout, lock wait) rather than its own fault
+     */
+    public void release(long rttNanos, boolean dropped) {
+        int inFlightAtRelease = inFlight.getAndDecrement();
+        update(rttNanos, inFlightAtRelease, dropped);
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void update(long rttNanos, int inFlightAtRelease, boolean dropped) {
+        if (dropped) {
+            limit = Math.max(properties.getMinLimit(), limit * properties.getBackoffRatio());
+            return;
+        }
+
+        samples++;
+        longRtt = average(longRtt, rttNanos, Math.min(samples, properties.getLongWindow()));
+        shortRtt = average(shortRtt, rttNanos, Math.min(samples, properties.getShortWindow()));
+
+        // long term average still remembers a slow spell that is over, let it catch up
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        // limit is not in use, latency says nothing about it
+        if (inFlightAtRelease < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, properties.getRttTolerance() * longRtt / shortRtt));
+        double estimate = limit * gradient + Math.sqrt(limit);
+        double smoothed = limit * (1 - properties.getSmoothing()) + estimate * properties.getSmoothing();
+        limit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), smoothed));
+    }
+
+    private static double average(double current, long sample, long window) {
+        return current + (sample - current) / window;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.model;
+
+import com.example.demo.enums.NotificationPriority;
+import com.example.demo.enums.NotificationType;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A notification past its retention, moved out of the live table by NotificationRetentionJob.
+ * Keeps the original id; only written with INSERT ... SELECT, never through JPA.
+ */
+@Entity
+@Table(name = "notifications_archive", indexes = {
+        @Index(name = "idx_notifications_archive_created_at_id", columnList = "created_at, id")
+})
+@Data
+public class NotificationArchive {
+
+    @Id
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private NotificationType type;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    private String subject;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String content;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private Long version;
+
+    @Column(name = "recipient_seq", nullable = false)
+    private long recipientSeq;
+
+    @Column(name = "read_at")
+    private LocalDateTime readAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private NotificationPriority priority = NotificationPriority.NORMAL;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,47 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbox row, written in the same transaction as the notifications change
+ * and relayed to RocketMQ by NotificationOutboxRelay.
+ */
+@Entity
+@Table(name = "notification_outbox", indexes = {
+        @Index(name = "idx_notification_outbox_sent_at_priority_id", columnList = "sent_at, priority, id"),
+        @Index(name = "idx_notification_outbox_message_key_sent_at_id", columnList = "message_key, sent_at, id")
+})
+@Data
+public class NotificationOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String topic;
+
+    // RocketMQ message key, the notification id; messages with the same key are relayed in order
+    @Column(name = "message_key", nullable = false)
+    private String messageKey;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    // NotificationPriority ordinal: unsent rows are relayed lowest first, so HIGH skips a campaign backlog
+    @Column(nullable = false)
+    private int priority;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // set while a relay sends the row; after it any relay may claim the row again
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,33 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A notification whose CREATE message is held back until due_at; deleted once it went out.
+ * Only pending rows live here, so the due index stays small however large notifications grows.
+ */
+@Entity
+@Table(name = "notification_schedule", indexes = {
+        @Index(name = "idx_notification_schedule_due_at", columnList = "due_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationSchedule {
+
+    @Id
+    @Column(name = "notification_id")
+    private Long notificationId;
+
+    @Column(name = "due_at", nullable = false)
+    private LocalDateTime dueAt;
+
+    // set while a node holds the row in its timing wheel; after it any node may claim the row again
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+}
@@ -1,10 +1,12 @@
 package com.example.demo.model;
 
+import com.example.demo.enums.NotificationPriority;
 import com.example.demo.enums.NotificationType;
 import jakarta.persistence.*;
 import lombok.Data;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 
 @Entity
@@ -28,15 +30,29 @@ public class Notifications {
     @Column(nullable = false, columnDefinition = "TEXT")
     private String content;
 
+    // fixed at creation, picks the topic and the delivery lane
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false)
+    private NotificationPriority priority = NotificationPriority.NORMAL;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
     @Version
     private Long version;
 
+    // position in the recipient's unread bitmap, 1-based; 0 on rows created before read state existed
+    @Column(name = "recipient_seq", nullable = false, updatable = false)
+    private long recipientSeq;
+
+    // written only by ReadStateWriteBehind with a bulk UPDATE, never through the entity
+    @Column(name = "read_at", insertable = false, updatable = false)
+    private LocalDateTime readAt;
+
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
+        // DATETIME(3): keep millis only so the keyset cursor matches the stored value
+        createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
     }
 
 
@@ -1,23 +1,215 @@
 package com.example.demo.mq;
 
 import com.example.demo.config.AppProperties;
+import com.example.demo.delivery.NotificationDispatcher;
 import com.example.demo.dto.NotificationMessage;
-import lombok.RequiredArgsConstructor;
+import com.example.demo.enums.DedupState;
+import com.example.demo.enums.NotificationMessageType;
+import com.example.demo.enums.NotificationPriority;
+import com.example.demo.util.RedisUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
-import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyStatus;
+import org.apache.rocketmq.client.consumer.listener.MessageListenerConcurrently;
+import org.apache.rocketmq.client.exception.MQClientException;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.spring.autoconfigure.RocketMQProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch consumer for the notification topic.
+ *
+ * {@code @RocketMQMessageListener} only delivers one message per call, so the push consumer is
+ * built here directly with a configurable thread count and batch size. RocketMQ is at-least-once;
+ * every message is claimed in Redis under id + message type + version before it is handled. The
+ * claim is short-lived ({@code in-progress-ttl}) and only turned into a dedup entry for
+ * {@code dedup-window} once the message was handled, so a consumer that dies mid-batch loses
+ * nothing; a failed message is released right away so its redelivery is not skipped.
+ * CREATE messages are delivered through {@link NotificationDispatcher}.
+ *
+ * Every priority topic ({@code app.rocketmq.priority-topics}) gets a push consumer and thread pool
+ * of its own, in a group of its own, so a LOW backlog on the broker or in a consume thread never
+ * holds up a HIGH message; the dispatcher then serves them by priority per channel.
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
-@RocketMQMessageListener(topic = "#{appProperties.rocketmq.notificationTopic}", consumerGroup = "notification_consumer_group")
-public class NotificationConsumer implements RocketMQListener<NotificationMessage> {
+@ConditionalOnProperty(prefix = "app.rocketmq.consumer", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class NotificationConsumer implements SmartLifecycle {
 
     private final AppProperties appProperties;
+    private final AppProperties.Consumer properties;
+    private final RocketMQProperties rocketMQProperties;
+    private final RedisUtil redisUtil;
+    private final ObjectMapper objectMapper;
+    private final NotificationDispatcher notificationDispatcher;
+    private final Map<NotificationPriority, Timer> consumeLag = new EnumMap<>(NotificationPriority.class);
 
-    @Override
-    public void onMessage(NotificationMessage message) {
+    private final List<DefaultMQPushConsumer> consumers = new ArrayList<>();
+
+    public NotificationConsumer(AppProperties appProperties,
+                                RocketMQProperties rocketMQProperties,
+                                RedisUtil redisUtil,
+                                ObjectMapper objectMapper,
+                                NotificationDispatcher notificationDispatcher,
+                                MeterRegistry meterRegistry) {
+        this.appProperties = appProperties;
+        this.properties = appProperties.getRocketmq().getConsumer();
+        this.rocketMQProperties = rocketMQProperties;
+        this.redisUtil = redisUtil;
+        this.objectMapper = objectMapper;
+        this.notificationDispatcher = notificationDispatcher;
+        for (NotificationPriority priority : NotificationPriority.values()) {
+            consumeLag.put(priority, meterRegistry.timer("notification.consume.lag", "priority", priority.name()));
+        }
+    }
+
+    public ConsumeConcurrentlyStatus onMessages(List<NotificationMessage> messages) {
+        // drop duplicates inside the batch, then everything already handled or being handled
+        Map<String, NotificationMessage> byDedupKey = new LinkedHashMap<>();
+        messages.forEach(message -> byDedupKey.putIfAbsent(dedupKey(message), message));
+
+        List<String> keys = new ArrayList<>(byDedupKey.keySet());
+        List<DedupState> states = redisUtil.claimProcessing(keys, properties.getInProgressTtl());
+
+        List<String> pending = new ArrayList<>();
+        boolean busy = false;
+        for (int i = 0; i < keys.size(); i++) {
+            switch (states.get(i)) {
+                case FRESH -> pending.add(keys.get(i));
+                case DONE -> log.debug("Skipping duplicate message {}", keys.get(i));
+                case IN_PROGRESS -> {
+                    // another delivery holds it; if that consumer died its claim runs out before a later redelivery
+                    log.debug("Message {} is being handled elsewhere, batch will be redelivered", keys.get(i));
+                    busy = true;
+                }
+            }
+        }
+
+        // handle the whole batch concurrently, then collect failures
+        Map<String, CompletableFuture<Void>> results = new LinkedHashMap<>();
+        for (String key : pending) {
+            try {
+                results.put(key, handle(byDedupKey.get(key)));
+            } catch (RuntimeException e) {
+                results.put(key, CompletableFuture.failedFuture(e));
+            }
+        }
+
+        List<String> handled = new ArrayList<>();
+        List<String> failed = new ArrayList<>();
+        results.forEach((key, result) -> {
+            try {
+                // bounded, dispatches time out after their channel's dispatch-timeout
+                result.join();
+                handled.add(key);
+            } catch (CompletionException | CancellationException e) {
+                log.warn("Failed to handle message {}, batch will be redelivered", key, e);
+                failed.add(key);
+            }
+        });
+
+        // only now remembered as done, a crash before this leaves the claim to run out
+        redisUtil.markProcessed(handled, properties.getDedupWindow());
+        if (!failed.isEmpty()) {
+            redisUtil.releaseProcessing(failed);
+        }
+        return failed.isEmpty() && !busy ? ConsumeConcurrentlyStatus.CONSUME_SUCCESS : ConsumeConcurrentlyStatus.RECONSUME_LATER;
+    }
+
+    CompletableFuture<Void> handle(NotificationMessage message) {
         log.info("Received message: {}", message);
+
+        // only new notifications go out to a channel
+        if (message.getNotificationMessageType() != NotificationMessageType.CREATE
+                || !appProperties.getDelivery().isEnabled()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return notificationDispatcher.dispatch(message);
+    }
+
+    static String dedupKey(NotificationMessage message) {
+        return message.getId() + ":" + message.getNotificationMessageType() + ":" + message.getVersion();
+    }
+
+    private ConsumeConcurrentlyStatus consume(List<MessageExt> messageExts) {
+        List<NotificationMessage> messages = new ArrayList<>(messageExts.size());
+        long now = System.currentTimeMillis();
+        for (MessageExt messageExt : messageExts) {
+            try {
+                NotificationMessage message = objectMapper.readValue(messageExt.getBody(), NotificationMessage.class);
+                // relayed to picked up: time spent queued on the broker and in the pull buffer
+                consumeLag.get(NotificationPriority.orDefault(message.getPriority()))
+                        .record(Math.max(0, now - messageExt.getBornTimestamp()), TimeUnit.MILLISECONDS);
+                messages.add(message);
+            } catch (IOException e) {
+                // a poison message would be redelivered forever, log and drop it
+                log.error("Dropping undecodable message {}", messageExt.getMsgId(), e);
+            }
+        }
+        return messages.isEmpty() ? ConsumeConcurrentlyStatus.CONSUME_SUCCESS : onMessages(messages);
+    }
+
+    @Override
+    public void start() {
+        int threads = properties.getConsumeThreads() > 0
+                ? properties.getConsumeThreads()
+                : Runtime.getRuntime().availableProcessors() * 2;
+
+        AppProperties.RocketMQ rocketmq = appProperties.getRocketmq();
+        List<String> started = new ArrayList<>();
+        for (NotificationPriority priority : NotificationPriority.values()) {
+            String topic = rocketmq.topicFor(priority);
+            if (started.contains(topic)) {
+                continue;
+            }
+            // the default topic keeps the original group (and its offsets)
+            String group = topic.equals(rocketmq.getNotificationTopic())
+                    ? properties.getGroup()
+                    : properties.getGroup() + "_" + priority.name().toLowerCase();
+
+            DefaultMQPushConsumer consumer = new DefaultMQPushConsumer(group);
+            consumer.setNamesrvAddr(rocketMQProperties.getNameServer());
+            consumer.setConsumeThreadMin(threads);
+            consumer.setConsumeThreadMax(threads);
+            consumer.setConsumeMessageBatchMaxSize(properties.getBatchSize());
+            consumer.setPullBatchSize(Math.max(32, properties.getBatchSize()));
+            consumer.registerMessageListener((MessageListenerConcurrently) (messageExts, context) -> consume(messageExts));
+            try {
+                consumer.subscribe(topic, "*");
+                consumer.start();
+            } catch (MQClientException e) {
+                stop();
+                throw new IllegalStateException("Failed to start notification consumer for " + topic, e);
+            }
+            consumers.add(consumer);
+            started.add(topic);
+        }
+    }
+
+    @Override
+    public void stop() {
+        consumers.forEach(DefaultMQPushConsumer::shutdown);
+        consumers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return !consumers.isEmpty();
     }
 }
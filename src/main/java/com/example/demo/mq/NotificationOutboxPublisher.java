@@ -0,0 +1,58 @@
+package com.example.demo.mq;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.dto.NotificationMessage;
+import com.example.demo.enums.NotificationPriority;
+import com.example.demo.model.NotificationOutbox;
+import com.example.demo.repository.NotificationOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Writes MQ messages into the outbox table as part of the caller's transaction,
+ * so a message exists if and only if the notifications change is committed.
+ */
+@Component
+@RequiredArgsConstructor
+public class NotificationOutboxPublisher {
+
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final AppProperties appProperties;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(NotificationMessage message) {
+        publishAll(List.of(message));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishAll(List<NotificationMessage> messages) {
+        LocalDateTime now = LocalDateTime.now();
+        notificationOutboxRepository.insertAllInBatch(messages.stream()
+                .map(message -> toOutbox(message, now))
+                .collect(Collectors.toList()));
+    }
+
+    private NotificationOutbox toOutbox(NotificationMessage message, LocalDateTime now) {
+        NotificationOutbox outbox = new NotificationOutbox();
+        NotificationPriority priority = NotificationPriority.orDefault(message.getPriority());
+        outbox.setTopic(appProperties.getRocketmq().topicFor(priority));
+        outbox.setPriority(priority.ordinal());
+        outbox.setMessageKey(String.valueOf(message.getId()));
+        outbox.setCreatedAt(now);
+        try {
+            outbox.setPayload(objectMapper.writeValueAsString(message));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize notification message " + message.getId(), e);
+        }
+        return outbox;
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.demo.mq;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.dto.NotificationMessage;
+import com.example.demo.enums.NotificationPriority;
+import com.example.demo.model.NotificationOutbox;
+import com.example.demo.repository.NotificationOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the outbox table to RocketMQ.
+ *
+ * Each round claims the oldest unsent rows in a short transaction (SELECT ... FOR UPDATE SKIP
+ * LOCKED, then a lease in claimed_until, so several nodes can relay at once), commits, and only then talks to the broker: rows go out as RocketMQ batches of
+ * {@code app.outbox.send-batch-size}, at most {@code max-in-flight} batches outstanding, and the
+ * acknowledged rows are marked sent with one UPDATE. Only the oldest unsent row of a message key
+ * (the notification id) is claimable, so CREATE/UPDATE/DELETE of one notification go out in order
+ * whichever node relays them, one per round. A round's {@code batch-size} is split between the
+ * priorities by {@code app.delivery.priority-weights}, so a backlog of LOW rows still moves while
+ * HIGH ones keep coming; a share left unused goes to the others, highest priority first. Delivery is at-least-once: rows of a relay that dies
+ * before marking them are sent again once their lease ran out. A row whose payload cannot be read
+ * is logged, counted in {@code notification.outbox.corrupt} and marked sent without being sent.
+ */
+@Slf4j
+@Component
+public class NotificationOutboxRelay {
+
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final NotificationProducer notificationProducer;
+    private final AppProperties.Outbox properties;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter corrupt;
+    // rows per round reserved for each priority, by ordinal
+    private final int[] quotas = new int[NotificationPriority.values().length];
+
+    public NotificationOutboxRelay(NotificationOutboxRepository notificationOutboxRepository,
+                                   NotificationProducer notificationProducer,
+                                   AppProperties appProperties,
+                                   ObjectMapper objectMapper,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry) {
+        this.notificationOutboxRepository = notificationOutboxRepository;
+        this.notificationProducer = notificationProducer;
+        this.properties = appProperties.getOutbox();
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.corrupt = meterRegistry.counter("notification.outbox.corrupt");
+        Map<NotificationPriority, Integer> weights = appProperties.getDelivery().getPriorityWeights();
+        int total = 0;
+        for (NotificationPriority priority : NotificationPriority.values()) {
+            total += Math.max(1, weights.getOrDefault(priority, 1));
+        }
+        for (NotificationPriority priority : NotificationPriority.values()) {
+            int weight = Math.max(1, weights.getOrDefault(priority, 1));
+            quotas[priority.ordinal()] = Math.max(1, properties.getBatchSize() * weight / total);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval:200ms}")
+    public void relay() {
+        // keep draining while rounds make progress; a key's next row is claimable once its previous one went out
+        int sent;
+        do {
+            sent = relayBatch();
+        } while (sent > 0 && !Thread.currentThread().isInterrupted());
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.cleanup-interval:10m}")
+    public void cleanup() {
+        Integer deleted = transactionTemplate.execute(status ->
+                notificationOutboxRepository.deleteSentBefore(LocalDateTime.now().minus(properties.getRetention())));
+        if (deleted != null && deleted > 0) {
+            log.info("Deleted {} relayed outbox rows", deleted);
+        }
+    }
+
+    /**
+     * @return number of rows marked, sent or dropped as corrupt
+     */
+    int relayBatch() {
+        List<NotificationOutbox> rows = claim();
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        // decoded before anything is sent, so a corrupt row cannot abort the round halfway
+        Map<Long, NotificationMessage> messages = new HashMap<>();
+        List<Long> corruptIds = new ArrayList<>();
+        for (NotificationOutbox row : rows) {
+            NotificationMessage message = decode(row);
+            if (message == null) {
+                corruptIds.add(row.getId());
+            } else {
+                messages.put(row.getId(), message);
+            }
+        }
+
+        // one batch send per topic and send-batch-size rows, id order kept inside each
+        Map<String, List<NotificationOutbox>> byTopic = rows.stream()
+                .filter(row -> messages.containsKey(row.getId()))
+                .collect(Collectors.groupingBy(NotificationOutbox::getTopic, LinkedHashMap::new, Collectors.toList()));
+
+        Semaphore inFlight = new Semaphore(properties.getMaxInFlight());
+        Queue<Long> sentIds = new ConcurrentLinkedQueue<>();
+        Queue<Long> failedIds = new ConcurrentLinkedQueue<>();
+        List<CompletableFuture<?>> sends = new ArrayList<>();
+        try {
+            for (Map.Entry<String, List<NotificationOutbox>> entry : byTopic.entrySet()) {
+                List<NotificationOutbox> topicRows = entry.getValue();
+                for (int from = 0; from < topicRows.size(); from += properties.getSendBatchSize()) {
+                    List<NotificationOutbox> batch = topicRows.subList(from, Math.min(topicRows.size(), from + properties.getSendBatchSize()));
+                    List<Long> ids = batch.stream().map(NotificationOutbox::getId).toList();
+                    // sends are only issued from this thread, callbacks just record the outcome
+                    inFlight.acquire();
+                    sends.add(notificationProducer.sendNotificationsAsync(entry.getKey(), batch.stream().map(row -> messages.get(row.getId())).toList())
+                            .whenComplete((result, e) -> {
+                                if (e == null) {
+                                    sentIds.addAll(ids);
+                                } else {
+                                    log.warn("Outbox relay send failed: {}", e.getMessage());
+                                    failedIds.addAll(ids);
+                                }
+                                inFlight.release();
+                            }));
+                }
+            }
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(properties.getSendTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException e) {
+            // the rows still out are sent again once their lease ran out
+            log.warn("Outbox batch not fully acknowledged within {}", properties.getSendTimeout());
+        } catch (ExecutionException e) {
+            // logged by the batch that failed, its rows are in failedIds
+        }
+
+        List<Long> sent = new ArrayList<>(sentIds);
+        List<Long> failed = new ArrayList<>(failedIds);
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sent.isEmpty()) {
+                notificationOutboxRepository.markSent(sent, LocalDateTime.now());
+            }
+            if (!corruptIds.isEmpty()) {
+                // marked sent so they stop being claimed and no longer block their key; cleanup deletes them
+                notificationOutboxRepository.markSent(corruptIds, LocalDateTime.now());
+                corrupt.increment(corruptIds.size());
+            }
+            if (!failed.isEmpty()) {
+                notificationOutboxRepository.release(failed);
+            }
+        });
+        return sent.size() + corruptIds.size();
+    }
+
+    /**
+     * Claim the next rows in their own transaction, so no row lock is held while sending: each
+     * priority up to its quota, then what is left of the batch across all of them. A claimed row
+     * has its lease set right away, so the later queries of the round no longer see it.
+     */
+    private List<NotificationOutbox> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime claimedUntil = now.plus(properties.getLease());
+        List<NotificationOutbox> rows = transactionTemplate.execute(status -> {
+            List<NotificationOutbox> claimed = new ArrayList<>();
+            for (NotificationPriority priority : NotificationPriority.values()) {
+                int quota = Math.min(quotas[priority.ordinal()], properties.getBatchSize() - claimed.size());
+                if (quota > 0) {
+                    claimInto(claimed, notificationOutboxRepository.findClaimableByPriorityForUpdate(priority.ordinal(), now,
+                            PageRequest.of(0, quota)), claimedUntil);
+                }
+            }
+            int left = properties.getBatchSize() - claimed.size();
+            if (left > 0) {
+                claimInto(claimed, notificationOutboxRepository.findClaimableForUpdate(now, PageRequest.of(0, left)),
+                        claimedUntil);
+            }
+            return claimed;
+        });
+        return rows == null ? List.of() : rows;
+    }
+
+    private void claimInto(List<NotificationOutbox> claimed, List<NotificationOutbox> claimable, LocalDateTime claimedUntil) {
+        if (!claimable.isEmpty()) {
+            notificationOutboxRepository.claim(claimable.stream().map(NotificationOutbox::getId).toList(), claimedUntil);
+            claimed.addAll(claimable);
+        }
+    }
+
+    /**
+     * @return null if the payload cannot be read
+     */
+    private NotificationMessage decode(NotificationOutbox row) {
+        try {
+            return objectMapper.readValue(row.getPayload(), NotificationMessage.class);
+        } catch (JsonProcessingException e) {
+            log.error("Dropping corrupt outbox row {} (key {}): {}", row.getId(), row.getMessageKey(), e.getMessage());
+            return null;
+        }
+    }
+}
@@ -2,18 +2,239 @@ package com.example.demo.mq;
 
 import com.example.demo.config.AppProperties;
 import com.example.demo.dto.NotificationMessage;
-import lombok.RequiredArgsConstructor;
+import com.example.demo.enums.OverflowPolicy;
+import com.example.demo.exception.NotificationBackpressureException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.producer.SendCallback;
+import org.apache.rocketmq.client.producer.SendResult;
 import org.apache.rocketmq.spring.core.RocketMQTemplate;
+import org.apache.rocketmq.spring.support.RocketMQHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RocketMQ producer.
+ *
+ * {@link #sendNotificationAsync} never waits on the broker: at most {@code app.rocketmq.producer.max-in-flight}
+ * sends are outstanding, failed sends are retried with exponential backoff, and when the window
+ * is full the configured {@link OverflowPolicy} decides between rejecting, blocking up to a
+ * timeout, or spilling into a bounded queue. {@link #sendNotificationsAsync} sends a RocketMQ
+ * batch, one round trip and one window slot for all its messages.
+ */
+@Slf4j
 @Component
-@RequiredArgsConstructor
 public class NotificationProducer {
 
     private final RocketMQTemplate rocketmqTemplate;
-    private final AppProperties appProperties;
+    private final AppProperties.Producer properties;
+    private final MeterRegistry meterRegistry;
+
+    // meters per topic, registered on its first send rather than looked up in the registry on every call
+    private final Map<String, TopicMeters> topicMeters = new ConcurrentHashMap<>();
+
+    private final Semaphore window;
+    private final BlockingQueue<PendingSend> spill;
+    private final ScheduledExecutorService retryScheduler;
+
+    public NotificationProducer(RocketMQTemplate rocketmqTemplate, AppProperties appProperties, MeterRegistry meterRegistry) {
+        this.rocketmqTemplate = rocketmqTemplate;
+        this.properties = appProperties.getRocketmq().getProducer();
+        this.meterRegistry = meterRegistry;
+        this.window = new Semaphore(properties.getMaxInFlight());
+        this.spill = new ArrayBlockingQueue<>(Math.max(1, properties.getSpillCapacity()));
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("notification-producer-retry")
+                .daemon(true)
+                .factory());
+
+        Gauge.builder("notification.mq.send.in-flight", () -> properties.getMaxInFlight() - window.availablePermits())
+                .register(meterRegistry);
+        Gauge.builder("notification.mq.send.spilled", spill, BlockingQueue::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Send without blocking on the broker; the future completes on the RocketMQ callback thread.
+     * If the window is full the future fails with {@link NotificationBackpressureException}
+     * (REJECT, or BLOCK after block-timeout, or SPILL once the spill queue is full too).
+     */
+    public CompletableFuture<SendResult> sendNotificationAsync(String topic, NotificationMessage message) {
+        return sendNotificationsAsync(topic, List.of(message));
+    }
+
+    /**
+     * Like {@link #sendNotificationAsync}, for messages that go to the broker as one batch; they
+     * land on one queue in list order. Keep batches well under the broker's 4MB message size limit.
+     */
+    public CompletableFuture<SendResult> sendNotificationsAsync(String topic, List<NotificationMessage> messages) {
+        PendingSend pending = new PendingSend(topic, messages, new CompletableFuture<>());
+
+        if (!acquireSlot(pending)) {
+            return pending.future();
+        }
+        attempt(pending, 1);
+        return pending.future();
+    }
+
+    private boolean acquireSlot(PendingSend pending) {
+        if (window.tryAcquire()) {
+            return true;
+        }
+
+        OverflowPolicy policy = properties.getOverflowPolicy();
+        switch (policy) {
+            case BLOCK -> {
+                try {
+                    if (window.tryAcquire(properties.getBlockTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            case SPILL -> {
+                if (spill.offer(pending)) {
+                    // a slot may have been freed between tryAcquire and offer
+                    drainSpill();
+                    return false;
+                }
+            }
+            case REJECT -> {
+                // fall through to rejection
+            }
+        }
+
+        meters(pending.topic()).rejected().increment();
+        pending.future().completeExceptionally(new NotificationBackpressureException(
+                "producer window full (" + properties.getMaxInFlight() + " in flight), policy " + policy));
+        return false;
+    }
+
+    private void attempt(PendingSend pending, int attempt) {
+        long start = System.nanoTime();
+        SendCallback callback = new SendCallback() {
+            @Override
+            public void onSuccess(SendResult sendResult) {
+                record(pending.topic(), true, start);
+                complete(pending, sendResult, null);
+            }
+
+            @Override
+            public void onException(Throwable e) {
+                record(pending.topic(), false, start);
+                retryOrFail(pending, attempt, e);
+            }
+        };
+        try {
+            if (pending.messages().size() == 1) {
+                rocketmqTemplate.asyncSend(pending.topic(), toMessage(pending.messages().get(0)), callback,
+                        properties.getSendTimeout().toMillis());
+            } else {
+                rocketmqTemplate.asyncSend(pending.topic(), pending.messages().stream().map(NotificationProducer::toMessage).toList(),
+                        callback, properties.getSendTimeout().toMillis());
+            }
+        } catch (RuntimeException e) {
+            // asyncSend throws synchronously when the producer cannot even enqueue the request
+            record(pending.topic(), false, start);
+            retryOrFail(pending, attempt, e);
+        }
+    }
+
+    private void retryOrFail(PendingSend pending, int attempt, Throwable e) {
+        if (attempt < properties.getMaxAttempts()) {
+            long backoff = (long) (properties.getRetryBackoff().toMillis() * Math.pow(properties.getRetryMultiplier(), attempt - 1));
+            log.debug("Retrying send of notification {} ({} messages) in {}ms (attempt {})",
+                    pending.messages().get(0).getId(), pending.messages().size(), backoff, attempt + 1);
+            retryScheduler.schedule(() -> attempt(pending, attempt + 1), backoff, TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        meters(pending.topic()).failures().increment();
+        complete(pending, null, e);
+    }
+
+    private void complete(PendingSend pending, SendResult result, Throwable e) {
+        window.release();
+        drainSpill();
+        if (e == null) {
+            pending.future().complete(result);
+        } else {
+            pending.future().completeExceptionally(e);
+        }
+    }
+
+    private void drainSpill() {
+        while (!spill.isEmpty() && window.tryAcquire()) {
+            PendingSend next = spill.poll();
+            if (next == null) {
+                window.release();
+                return;
+            }
+            attempt(next, 1);
+        }
+    }
+
+    private static Message<NotificationMessage> toMessage(NotificationMessage message) {
+        return MessageBuilder.withPayload(message)
+                .setHeader(RocketMQHeaders.KEYS, String.valueOf(message.getId()))
+                .build();
+    }
+
+    private void record(String topic, boolean success, long startNanos) {
+        TopicMeters meters = meters(topic);
+        (success ? meters.success() : meters.failure()).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private TopicMeters meters(String topic) {
+        TopicMeters meters = topicMeters.get(topic);
+        return meters != null ? meters : topicMeters.computeIfAbsent(topic, this::registerMeters);
+    }
+
+    private TopicMeters registerMeters(String topic) {
+        return new TopicMeters(
+                sendTimer(topic, "success"),
+                sendTimer(topic, "failure"),
+                Counter.builder("notification.mq.send.failures")
+                        .tag("topic", topic)
+                        .register(meterRegistry),
+                Counter.builder("notification.mq.send.rejected")
+                        .tag("topic", topic)
+                        .tag("policy", properties.getOverflowPolicy().name())
+                        .register(meterRegistry));
+    }
+
+    private Timer sendTimer(String topic, String outcome) {
+        return Timer.builder("notification.mq.send")
+                .tag("topic", topic)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryScheduler.shutdown();
+    }
+
+    private record TopicMeters(Timer success, Timer failure, Counter failures, Counter rejected) {
+    }
 
-    public void sendNotification(NotificationMessage message) {
-        rocketmqTemplate.convertAndSend(appProperties.getRocketmq().getNotificationTopic(), message);
+    private record PendingSend(String topic, List<NotificationMessage> messages, CompletableFuture<SendResult> future) {
     }
 }
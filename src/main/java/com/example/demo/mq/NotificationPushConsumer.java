@@ -0,0 +1,96 @@
+package com.example.demo.mq;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.dto.NotificationMessage;
+import com.example.demo.push.NotificationEventHub;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyStatus;
+import org.apache.rocketmq.client.consumer.listener.MessageListenerConcurrently;
+import org.apache.rocketmq.client.exception.MQClientException;
+import org.apache.rocketmq.common.consumer.ConsumeFromWhere;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.remoting.protocol.heartbeat.MessageModel;
+import org.apache.rocketmq.spring.autoconfigure.RocketMQProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Feeds {@link NotificationEventHub} from the notification topics, every priority lane.
+ *
+ * {@link NotificationConsumer} is clustered, each message reaches one node only; live subscribers
+ * can be connected to any node, so this consumer subscribes in broadcasting mode and every node
+ * sees every message. Nothing is retried and nothing is deduplicated: a live feed that is late
+ * is worse than one with a gap, and a client already tells a repeat by id and event.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.push", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class NotificationPushConsumer implements SmartLifecycle {
+
+    private final AppProperties appProperties;
+    private final RocketMQProperties rocketMQProperties;
+    private final ObjectMapper objectMapper;
+    private final NotificationEventHub notificationEventHub;
+
+    private DefaultMQPushConsumer consumer;
+
+    public NotificationPushConsumer(AppProperties appProperties,
+                                    RocketMQProperties rocketMQProperties,
+                                    ObjectMapper objectMapper,
+                                    NotificationEventHub notificationEventHub) {
+        this.appProperties = appProperties;
+        this.rocketMQProperties = rocketMQProperties;
+        this.objectMapper = objectMapper;
+        this.notificationEventHub = notificationEventHub;
+    }
+
+    ConsumeConcurrentlyStatus consume(List<MessageExt> messageExts) {
+        for (MessageExt messageExt : messageExts) {
+            try {
+                notificationEventHub.publish(objectMapper.readValue(messageExt.getBody(), NotificationMessage.class));
+            } catch (IOException e) {
+                log.error("Dropping undecodable message {}", messageExt.getMsgId(), e);
+            }
+        }
+        return ConsumeConcurrentlyStatus.CONSUME_SUCCESS;
+    }
+
+    @Override
+    public void start() {
+        consumer = new DefaultMQPushConsumer(appProperties.getPush().getGroup());
+        consumer.setNamesrvAddr(rocketMQProperties.getNameServer());
+        consumer.setMessageModel(MessageModel.BROADCASTING);
+        // only what happens from now on, a restarted node has no subscribers to replay to
+        consumer.setConsumeFromWhere(ConsumeFromWhere.CONSUME_FROM_LAST_OFFSET);
+        consumer.setConsumeMessageBatchMaxSize(appProperties.getRocketmq().getConsumer().getBatchSize());
+        consumer.registerMessageListener((MessageListenerConcurrently) (messageExts, context) -> consume(messageExts));
+        try {
+            // every priority lane
+            for (String topic : appProperties.getRocketmq().topics()) {
+                consumer.subscribe(topic, "*");
+            }
+            consumer.start();
+        } catch (MQClientException e) {
+            throw new IllegalStateException("Failed to start notification push consumer", e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (consumer != null) {
+            consumer.shutdown();
+            consumer = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return consumer != null;
+    }
+}
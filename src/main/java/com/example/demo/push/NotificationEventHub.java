@@ -0,0 +1,192 @@
+package com.example.demo.push;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.dto.NotificationEvent;
+import com.example.demo.dto.NotificationMessage;
+import com.example.demo.enums.LimitedOperation;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.exception.ConcurrencyLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fan-out of notification changes to the live subscribers of this node.
+ *
+ * Every subscriber has its own bounded queue ({@code app.push.buffer-size}); publishing never
+ * waits for a subscriber. When a queue is full the event is dropped for that subscriber only, and
+ * its next event carries the number it missed so the client can re-read its inbox. A subscriber
+ * that missed more than a whole queue is not reading at all: it is completed once its queue is
+ * drained and has to reconnect.
+ *
+ * Subscribers filtered by recipient are indexed by it, so an event costs its recipient's
+ * subscribers plus the unfiltered ones, not every open stream.
+ */
+@Slf4j
+@Component
+public class NotificationEventHub {
+
+    private final AppProperties.Push properties;
+    // by recipient; null key not allowed, unfiltered subscribers are kept apart
+    private final Map<String, Set<Subscriber>> byRecipient = new ConcurrentHashMap<>();
+    private final Set<Subscriber> unfiltered = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger count = new AtomicInteger();
+    private final Counter delivered;
+    private final Counter dropped;
+    private final Counter disconnected;
+
+    public NotificationEventHub(AppProperties appProperties, MeterRegistry meterRegistry) {
+        this.properties = appProperties.getPush();
+        this.delivered = meterRegistry.counter("notification.push.events", "outcome", "delivered");
+        this.dropped = meterRegistry.counter("notification.push.events", "outcome", "dropped");
+        this.disconnected = meterRegistry.counter("notification.push.disconnected");
+        Gauge.builder("notification.push.subscribers", count, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Live changes from now on, registered when the returned flux is subscribed to.
+     *
+     * @param recipient null for every recipient
+     * @param type      null for every type
+     * @throws ConcurrencyLimitExceededException at app.push.max-subscribers on this node; the flux
+     *                                           fails with it too if the limit was reached meanwhile
+     */
+    public Flux<NotificationEvent> subscribe(String recipient, NotificationType type) {
+        // early check, so a full node answers before the stream opens; the slot is reserved below
+        if (count.get() >= properties.getMaxSubscribers()) {
+            throw new ConcurrencyLimitExceededException(LimitedOperation.PUSH, properties.getMaxSubscribers());
+        }
+        return Flux.defer(() -> {
+            // concurrent connects all pass the check above, only one of them gets the last slot
+            if (count.incrementAndGet() > properties.getMaxSubscribers()) {
+                count.decrementAndGet();
+                return Flux.error(new ConcurrencyLimitExceededException(LimitedOperation.PUSH, properties.getMaxSubscribers()));
+            }
+            Subscriber subscriber = new Subscriber(recipient, type, properties.getBufferSize());
+            register(subscriber);
+            return subscriber.sink.asFlux().doFinally(signal -> unregister(subscriber));
+        });
+    }
+
+    /**
+     * Called by the consumer threads; only ever queues.
+     */
+    public void publish(NotificationMessage message) {
+        NotificationEvent event = NotificationEvent.fromMessage(message);
+        unfiltered.forEach(subscriber -> offer(subscriber, event));
+        if (message.getRecipient() != null) {
+            Set<Subscriber> subscribers = byRecipient.get(message.getRecipient());
+            if (subscribers != null) {
+                subscribers.forEach(subscriber -> offer(subscriber, event));
+            }
+        }
+    }
+
+    int subscriberCount() {
+        return count.get();
+    }
+
+    private void offer(Subscriber subscriber, NotificationEvent event) {
+        if (subscriber.type != null && subscriber.type != event.getType()) {
+            return;
+        }
+        Sinks.EmitResult result = subscriber.offer(event);
+        if (result.isSuccess()) {
+            delivered.increment();
+        } else if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+            dropped.increment();
+            // not reading at all: let it drain what it has, then it reconnects
+            if (subscriber.missed() > properties.getBufferSize() && unregister(subscriber)) {
+                log.debug("Disconnecting push subscriber for {} after {} missed events", subscriber.recipient, subscriber.missed());
+                subscriber.complete();
+                disconnected.increment();
+            }
+        } else {
+            // cancelled or completed, doFinally may not have run yet
+            unregister(subscriber);
+        }
+    }
+
+    /**
+     * The slot is already counted.
+     */
+    private void register(Subscriber subscriber) {
+        if (subscriber.recipient == null) {
+            unfiltered.add(subscriber);
+            return;
+        }
+        // compute, not computeIfAbsent + add: an unregister may be dropping the same set
+        byRecipient.compute(subscriber.recipient, (recipient, subscribers) -> {
+            Set<Subscriber> set = subscribers == null ? ConcurrentHashMap.newKeySet() : subscribers;
+            set.add(subscriber);
+            return set;
+        });
+    }
+
+    /**
+     * @return false if it was already gone
+     */
+    private boolean unregister(Subscriber subscriber) {
+        boolean removed;
+        if (subscriber.recipient == null) {
+            removed = unfiltered.remove(subscriber);
+        } else {
+            boolean[] found = {false};
+            byRecipient.computeIfPresent(subscriber.recipient, (recipient, subscribers) -> {
+                found[0] = subscribers.remove(subscriber);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+            removed = found[0];
+        }
+        if (removed) {
+            count.decrementAndGet();
+        }
+        return removed;
+    }
+
+    private static final class Subscriber {
+
+        private final String recipient;
+        private final NotificationType type;
+        private final Sinks.Many<NotificationEvent> sink;
+        // events dropped since the last one that got through
+        private long missed;
+
+        private Subscriber(String recipient, NotificationType type, int bufferSize) {
+            this.recipient = recipient;
+            this.type = type;
+            this.sink = Sinks.many().unicast().onBackpressureBuffer(new ArrayBlockingQueue<>(bufferSize));
+        }
+
+        /**
+         * Serialized: consumer threads publish concurrently, a sink takes one emitter at a time.
+         */
+        private synchronized Sinks.EmitResult offer(NotificationEvent event) {
+            Sinks.EmitResult result = sink.tryEmitNext(missed == 0 ? event : event.toBuilder().missed(missed).build());
+            if (result.isSuccess()) {
+                missed = 0;
+            } else if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+                missed++;
+            }
+            return result;
+        }
+
+        private synchronized long missed() {
+            return missed;
+        }
+
+        private synchronized void complete() {
+            sink.tryEmitComplete();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.demo.readstate;
+
+import com.example.demo.model.Notifications;
+import com.example.demo.repository.NotificationRepository;
+import com.example.demo.util.RedisUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Per-recipient read state. Every notification takes the next sequence of its recipient on create,
+ * which is its bit in the recipient's Redis bitmap; the count of set bits is kept next to it, so an
+ * unread count is one HGET and never a COUNT(*) on MySQL. read_at is written behind by
+ * {@link ReadStateWriteBehind}.
+ *
+ * The bitmap and count expire after {@code app.read-state.redis-ttl} without writes and are then
+ * rebuilt from the DB, as they are if Redis lost them; rows created before read state existed
+ * (sequence 0) count as read. Creates and deletes that hit cold state are parked in Redis for a
+ * rebuild in progress to apply, see {@link RedisUtil#populateUnread}.
+ */
+@Component
+public class NotificationReadState {
+
+    private final NotificationRepository notificationRepository;
+    private final RedisUtil redisUtil;
+    private final ReadStateWriteBehind writeBehind;
+    private final Counter rebuilds;
+
+    public NotificationReadState(NotificationRepository notificationRepository,
+                                 RedisUtil redisUtil,
+                                 ReadStateWriteBehind writeBehind,
+                                 MeterRegistry meterRegistry) {
+        this.notificationRepository = notificationRepository;
+        this.redisUtil = redisUtil;
+        this.writeBehind = writeBehind;
+        this.rebuilds = meterRegistry.counter("notification.read-state.rebuild");
+    }
+
+    /**
+     * @return the first of {@code count} consecutive new sequences of the recipient
+     */
+    public long allocate(String recipient, int count) {
+        Long last = redisUtil.nextRecipientSeq(recipient, count);
+        if (last == null) {
+            seedSequence(recipient);
+            last = redisUtil.nextRecipientSeq(recipient, count);
+            if (last == null) {
+                throw new IllegalStateException("sequence counter of " + recipient + " is gone right after seeding it");
+            }
+        }
+        return last - count + 1;
+    }
+
+    /**
+     * Bulk {@link #allocate}: fills in {@code recipientSeq} of every notification, in list order per
+     * recipient, with one Redis call (plus one query and one more call if some counters are cold).
+     */
+    public void assignSequences(List<Notifications> notifications) {
+        Map<String, List<Notifications>> byRecipient = new LinkedHashMap<>();
+        notifications.forEach(notification ->
+                byRecipient.computeIfAbsent(notification.getRecipient(), recipient -> new ArrayList<>()).add(notification));
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        byRecipient.forEach((recipient, recipientNotifications) -> counts.put(recipient, recipientNotifications.size()));
+
+        Map<String, Long> last = new HashMap<>(redisUtil.nextRecipientSeqs(counts));
+        if (last.size() < counts.size()) {
+            Map<String, Integer> cold = new LinkedHashMap<>(counts);
+            cold.keySet().removeAll(last.keySet());
+            Map<String, Long> seeds = new HashMap<>();
+            cold.keySet().forEach(recipient -> seeds.put(recipient, 0L));
+            for (Object[] row : notificationRepository.findMaxRecipientSeqs(cold.keySet())) {
+                seeds.put((String) row[0], ((Number) row[1]).longValue());
+            }
+            redisUtil.seedRecipientSeqs(seeds);
+            last.putAll(redisUtil.nextRecipientSeqs(cold));
+            if (last.size() < counts.size()) {
+                throw new IllegalStateException("sequence counters are gone right after seeding them");
+            }
+        }
+
+        byRecipient.forEach((recipient, recipientNotifications) -> {
+            long seq = last.get(recipient) - recipientNotifications.size() + 1;
+            for (Notifications notification : recipientNotifications) {
+                notification.setRecipientSeq(seq++);
+            }
+        });
+    }
+
+    /**
+     * After the creating transaction committed: the new notifications are unread.
+     */
+    public void onCreated(List<Notifications> notifications) {
+        redisUtil.markUnread(notifications);
+    }
+
+    /**
+     * After the deleting transaction committed: a deleted notification no longer counts.
+     */
+    public void onDeleted(Notifications notification) {
+        if (notification.getRecipientSeq() > 0) {
+            // cold state parks it, a rebuild that still read the row drops it again
+            redisUtil.markDeleted(notification.getRecipient(), List.of(notification.getRecipientSeq()));
+        }
+    }
+
+    /**
+     * @return how many of them were unread
+     */
+    public long markRead(Collection<Notifications> notifications) {
+        Map<String, List<Long>> seqsByRecipient = new LinkedHashMap<>();
+        for (Notifications notification : notifications) {
+            if (notification.getRecipientSeq() > 0) {
+                seqsByRecipient.computeIfAbsent(notification.getRecipient(), recipient -> new ArrayList<>())
+                        .add(notification.getRecipientSeq());
+            }
+        }
+
+        long newlyRead = 0;
+        for (Map.Entry<String, List<Long>> entry : seqsByRecipient.entrySet()) {
+            long cleared = redisUtil.markRead(entry.getKey(), entry.getValue());
+            if (cleared < 0) {
+                // rebuild before queueing the DB write, so these still come back unread and get cleared here
+                load(entry.getKey());
+                cleared = redisUtil.markRead(entry.getKey(), entry.getValue());
+            }
+            newlyRead += Math.max(cleared, 0);
+        }
+        writeBehind.markRead(notifications);
+        return newlyRead;
+    }
+
+    /**
+     * O(1) in Redis whatever the number of unread notifications; the DB catches up in chunks.
+     */
+    public void markAllRead(String recipient) {
+        if (redisUtil.findRecipientSeq(recipient).isEmpty()) {
+            seedSequence(recipient);
+        }
+        long upToSeq = redisUtil.markAllRead(recipient);
+        writeBehind.markAllRead(recipient, upToSeq);
+    }
+
+    public long unreadCount(String recipient) {
+        Optional<Long> count = redisUtil.findUnreadCount(recipient);
+        if (count.isPresent()) {
+            return count.get();
+        }
+        load(recipient);
+        return redisUtil.findUnreadCount(recipient).orElse(0L);
+    }
+
+    /**
+     * Continue after the DB's highest sequence. A create still in flight while the counter was
+     * lost may end up sharing its sequence with the next one; both then share one bit.
+     */
+    private void seedSequence(String recipient) {
+        redisUtil.seedRecipientSeq(recipient, notificationRepository.findMaxRecipientSeq(recipient));
+    }
+
+    /**
+     * Rebuild lost state from read_at. Reads this node has not written to the DB yet are applied on
+     * top, or they would come back as unread; taken first, so none slips between the two reads.
+     */
+    private void load(String recipient) {
+        ReadStateWriteBehind.PendingReads pending = writeBehind.pendingReads(recipient);
+        List<Long> unreadSeqs = notificationRepository.findUnreadSeqs(recipient).stream()
+                .filter(seq -> !pending.isRead(seq))
+                .toList();
+        // bitmap starts right below the oldest unread one, not at sequence 1
+        long base = unreadSeqs.isEmpty()
+                ? notificationRepository.findMaxRecipientSeq(recipient)
+                : unreadSeqs.stream().mapToLong(Long::longValue).min().getAsLong() - 1;
+        redisUtil.populateUnread(recipient, base, unreadSeqs);
+        rebuilds.increment();
+    }
+}
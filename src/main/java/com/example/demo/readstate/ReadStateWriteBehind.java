@@ -0,0 +1,200 @@
+package com.example.demo.readstate;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.model.Notifications;
+import com.example.demo.repository.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Writes read_at behind {@link NotificationReadState}: marks are queued and flushed every
+ * {@code app.read-state.flush-interval}, {@code flush-batch-size} ids per UPDATE. A mark-all becomes
+ * UPDATE ... LIMIT statements over the recipient's sequences, repeated until nothing is left.
+ *
+ * Redis already has every mark when it is queued; the DB copy is only read to rebuild lost state,
+ * so a crash costs at most one interval of marks there. A rebuild on this node applies the marks
+ * not written yet on top of the DB ({@link #pendingReads}) instead of waiting for a flush.
+ * {@link #pendingReads} only knows this node's marks: a rebuild on another node can bring back up
+ * to one flush interval of reads as unread.
+ */
+@Slf4j
+@Component
+public class ReadStateWriteBehind {
+
+    private final NotificationRepository notificationRepository;
+    private final AppProperties.ReadState properties;
+    private final Counter droppedMarks;
+    private final Counter flushedIds;
+    private final Counter flushedAll;
+    private final TransactionTemplate transactionTemplate;
+
+    private final BlockingQueue<Mark> pendingMarks;
+    // id -> mark, from queueing until its UPDATE committed (so also while a flush writes it)
+    private final Map<Long, Mark> unwritten = new ConcurrentHashMap<>();
+    // recipient -> highest sequence of a pending mark-all, repeated mark-alls merge
+    private final Map<String, Long> pendingMarkAll = new ConcurrentHashMap<>();
+    // mark-alls taken off pendingMarkAll but not fully written yet
+    private final Map<String, Long> markAllInFlight = new ConcurrentHashMap<>();
+    // the scheduled flush and the one in @PreDestroy may run at the same time
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public ReadStateWriteBehind(NotificationRepository notificationRepository,
+                                AppProperties appProperties,
+                                MeterRegistry meterRegistry,
+                                PlatformTransactionManager transactionManager) {
+        this.notificationRepository = notificationRepository;
+        this.properties = appProperties.getReadState();
+        this.droppedMarks = meterRegistry.counter("notification.read-state.dropped");
+        this.flushedIds = meterRegistry.counter("notification.read-state.flushed", "kind", "ids");
+        this.flushedAll = meterRegistry.counter("notification.read-state.flushed", "kind", "all");
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.pendingMarks = new LinkedBlockingQueue<>(properties.getMaxPending());
+        meterRegistry.gauge("notification.read-state.pending", pendingMarks, BlockingQueue::size);
+    }
+
+    public void markRead(Collection<Notifications> notifications) {
+        requeue(notifications.stream()
+                .map(notification -> new Mark(notification.getId(), notification.getRecipient(), notification.getRecipientSeq()))
+                .toList());
+    }
+
+    public void markAllRead(String recipient, long upToSeq) {
+        pendingMarkAll.merge(recipient, upToSeq, Math::max);
+    }
+
+    /**
+     * Read marks of the recipient that may not be in the DB yet. Take this before reading read_at:
+     * a mark gone from here has already committed.
+     */
+    public PendingReads pendingReads(String recipient) {
+        Set<Long> seqs = new HashSet<>();
+        // rebuilds are rare, a scan of at most max-pending marks is fine
+        for (Mark mark : unwritten.values()) {
+            if (mark.recipient().equals(recipient) && mark.seq() > 0) {
+                seqs.add(mark.seq());
+            }
+        }
+        long upToSeq = Math.max(markAllInFlight.getOrDefault(recipient, 0L), pendingMarkAll.getOrDefault(recipient, 0L));
+        return new PendingReads(upToSeq, seqs);
+    }
+
+    private void requeue(List<Mark> marks) {
+        int dropped = 0;
+        for (Mark mark : marks) {
+            // tracked before it can be drained, untracked if it does not fit
+            unwritten.put(mark.id(), mark);
+            if (!pendingMarks.offer(mark)) {
+                unwritten.remove(mark.id());
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            droppedMarks.increment(dropped);
+            log.warn("Read state queue full, {} read marks not written to the DB", dropped);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.read-state.flush-interval:1s}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushIds();
+            flushMarkAll();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void flushIds() {
+        int batchSize = properties.getFlushBatchSize();
+        // only what is queued now, so a busy queue cannot keep one flush going forever
+        int remaining = pendingMarks.size();
+        List<Mark> batch = new ArrayList<>(batchSize);
+        while (remaining > 0 && pendingMarks.drainTo(batch, Math.min(batchSize, remaining)) > 0) {
+            remaining -= batch.size();
+            LocalDateTime readAt = LocalDateTime.now();
+            List<Long> ids = batch.stream().map(Mark::id).toList();
+            try {
+                int updated = update(() -> notificationRepository.markReadByIds(ids, readAt));
+                flushedIds.increment(updated);
+            } catch (RuntimeException e) {
+                // back in line for the next round
+                log.warn("Failed to write {} read marks: {}", batch.size(), e.getMessage());
+                requeue(batch);
+                return;
+            }
+            ids.forEach(unwritten::remove);
+            batch.clear();
+        }
+    }
+
+    private void flushMarkAll() {
+        int chunkSize = properties.getMarkAllChunkSize();
+        for (String recipient : List.copyOf(pendingMarkAll.keySet())) {
+            Long upToSeq = pendingMarkAll.get(recipient);
+            if (upToSeq == null) {
+                continue;
+            }
+            // in flight before it leaves pending, so pendingReads always sees it
+            markAllInFlight.merge(recipient, upToSeq, Math::max);
+            pendingMarkAll.remove(recipient, upToSeq);
+            try {
+                int updated;
+                do {
+                    LocalDateTime readAt = LocalDateTime.now();
+                    updated = update(() -> notificationRepository.markReadUpTo(recipient, upToSeq, readAt, chunkSize));
+                    flushedAll.increment(updated);
+                } while (updated == chunkSize);
+            } catch (RuntimeException e) {
+                log.warn("Failed to write mark-all of {}: {}", recipient, e.getMessage());
+                markAllRead(recipient, upToSeq);
+            } finally {
+                markAllInFlight.remove(recipient, upToSeq);
+            }
+        }
+    }
+
+    // a read mark on its way to read_at
+    private record Mark(Long id, String recipient, long seq) {
+    }
+
+    /**
+     * @param upToSeq every sequence up to this one is read (a pending mark-all), 0 if none
+     * @param seqs    single sequences marked read
+     */
+    public record PendingReads(long upToSeq, Set<Long> seqs) {
+
+        public boolean isRead(long seq) {
+            return seq <= upToSeq || seqs.contains(seq);
+        }
+    }
+
+    private int update(Supplier<Integer> statement) {
+        Integer updated = transactionTemplate.execute(status -> statement.get());
+        return updated == null ? 0 : updated;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.NotificationOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long>, NotificationOutboxRepositoryCustom {
+
+    // lock timeout -2 = SKIP LOCKED, so relays on other nodes take the next rows instead of waiting;
+    // highest priority first, on idx_notification_outbox_sent_at_priority_id.
+    // Only the oldest unsent row of a message key is claimable, so whichever node takes it, the
+    // key's next row waits until it was sent (idx_notification_outbox_message_key_sent_at_id)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM NotificationOutbox o WHERE o.sentAt IS NULL "
+            + "AND (o.claimedUntil IS NULL OR o.claimedUntil < :now) "
+            + "AND NOT EXISTS (SELECT p.id FROM NotificationOutbox p "
+            + "WHERE p.messageKey = o.messageKey AND p.sentAt IS NULL AND p.id < o.id) "
+            + "ORDER BY o.priority, o.id")
+    List<NotificationOutbox> findClaimableForUpdate(LocalDateTime now, Pageable pageable);
+
+    // the same claim within one priority (the outbox stores its ordinal), for the relay's per-priority quota
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM NotificationOutbox o WHERE o.sentAt IS NULL AND o.priority = :priority "
+            + "AND (o.claimedUntil IS NULL OR o.claimedUntil < :now) "
+            + "AND NOT EXISTS (SELECT p.id FROM NotificationOutbox p "
+            + "WHERE p.messageKey = o.messageKey AND p.sentAt IS NULL AND p.id < o.id) "
+            + "ORDER BY o.id")
+    List<NotificationOutbox> findClaimableByPriorityForUpdate(int priority, LocalDateTime now, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE NotificationOutbox o SET o.claimedUntil = :claimedUntil WHERE o.id IN :ids")
+    int claim(Collection<Long> ids, LocalDateTime claimedUntil);
+
+    // rejected by the broker: claimable again on the next round
+    @Modifying
+    @Query("UPDATE NotificationOutbox o SET o.claimedUntil = NULL WHERE o.id IN :ids")
+    int release(Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE NotificationOutbox o SET o.sentAt = :sentAt WHERE o.id IN :ids")
+    int markSent(Collection<Long> ids, LocalDateTime sentAt);
+
+    @Modifying
+    @Query("DELETE FROM NotificationOutbox o WHERE o.sentAt < :before")
+    int deleteSentBefore(LocalDateTime before);
+}
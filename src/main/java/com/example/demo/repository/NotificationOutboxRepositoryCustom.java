@@ -0,0 +1,13 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.NotificationOutbox;
+
+import java.util.List;
+
+public interface NotificationOutboxRepositoryCustom {
+
+    /**
+     * Insert all outbox rows with one JDBC batch, ids are not read back.
+     */
+    void insertAllInBatch(List<NotificationOutbox> rows);
+}
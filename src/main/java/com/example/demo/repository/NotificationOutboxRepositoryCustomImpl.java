@@ -0,0 +1,31 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.NotificationOutbox;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class NotificationOutboxRepositoryCustomImpl implements NotificationOutboxRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO notification_outbox (topic, message_key, payload, created_at, priority) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAllInBatch(List<NotificationOutbox> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.getTopic());
+            ps.setString(2, row.getMessageKey());
+            ps.setString(3, row.getPayload());
+            ps.setTimestamp(4, Timestamp.valueOf(row.getCreatedAt()));
+            ps.setInt(5, row.getPriority());
+        });
+    }
+}
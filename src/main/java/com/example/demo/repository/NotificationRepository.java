@@ -1,20 +1,85 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.NotificationCursor;
 import com.example.demo.model.Notifications;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface NotificationRepository extends JpaRepository<Notifications, Long> {
+public interface NotificationRepository extends JpaRepository<Notifications, Long>, NotificationRepositoryCustom {
+    // read-only so a recent list rebuild can be served by a replica (findById / findAllById already are)
+    @Transactional(readOnly = true)
     List<Notifications> findTop10ByOrderByCreatedAtDesc(Pageable pageable);
 
+    // keyset pagination on idx_notifications_created_at_id, newest first
+    List<Notifications> findAllByOrderByCreatedAtDescIdDesc(Limit limit);
+
+    // OR form instead of a row constructor so MySQL plans a range scan on the index
+    @Query("SELECT n FROM Notifications n WHERE n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id) "
+            + "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notifications> findPageAfter(LocalDateTime createdAt, Long id, Limit limit);
+
+    // inbox: keyset pages of one recipient on idx_notifications_recipient_created_at_id
+    @Transactional(readOnly = true)
+    List<Notifications> findByRecipientOrderByCreatedAtDescIdDesc(String recipient, Limit limit);
+
+    @Transactional(readOnly = true)
+    @Query("SELECT n FROM Notifications n WHERE n.recipient = :recipient "
+            + "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) "
+            + "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notifications> findRecipientPageAfter(String recipient, LocalDateTime createdAt, Long id, Limit limit);
+
+    // ids only, to fill a cold inbox (covered by the index, no row reads)
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.demo.dto.NotificationCursor(n.createdAt, n.id) FROM Notifications n "
+            + "WHERE n.recipient = :recipient ORDER BY n.createdAt DESC, n.id DESC")
+    List<NotificationCursor> findInboxHead(String recipient, Limit limit);
+
+    // read state: last sequence handed out, to seed a lost per-recipient counter (idx_notifications_recipient_seq)
+    @Query("SELECT COALESCE(MAX(n.recipientSeq), 0) FROM Notifications n WHERE n.recipient = :recipient")
+    long findMaxRecipientSeq(String recipient);
+
+    // bulk version of the above, recipients without rows are absent
+    @Query("SELECT n.recipient, MAX(n.recipientSeq) FROM Notifications n WHERE n.recipient IN :recipients GROUP BY n.recipient")
+    List<Object[]> findMaxRecipientSeqs(Collection<String> recipients);
+
+    // read state: rebuild of a lost bitmap, on the primary since read_at is written behind
+    @Query("SELECT n.recipientSeq FROM Notifications n WHERE n.recipient = :recipient AND n.recipientSeq > 0 AND n.readAt IS NULL")
+    List<Long> findUnreadSeqs(String recipient);
+
+    // native: read_at is not updatable through the entity
+    @Modifying
+    @Query(value = "UPDATE notifications SET read_at = :readAt WHERE id IN (:ids) AND read_at IS NULL", nativeQuery = true)
+    int markReadByIds(Collection<Long> ids, LocalDateTime readAt);
+
+    // mark-all: LIMIT keeps each statement's row locks short, repeated until it touches nothing
+    @Modifying
+    @Query(value = "UPDATE notifications SET read_at = :readAt WHERE recipient = :recipient AND recipient_seq > 0 "
+            + "AND recipient_seq <= :upToSeq AND read_at IS NULL LIMIT :limit", nativeQuery = true)
+    int markReadUpTo(String recipient, long upToSeq, LocalDateTime readAt, int limit);
+
+    // optimistic writes: 0 rows means the version moved on (or the row is gone)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Notifications n SET n.subject = :subject, n.content = :content, n.version = n.version + 1 "
+            + "WHERE n.id = :id AND n.version = :version")
+    int updateIfVersion(Long id, Long version, String subject, String content);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Notifications n WHERE n.id = :id AND n.version = :version")
+    int deleteIfVersion(Long id, Long version);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT n FROM Notifications n WHERE n.id = :id")
     Optional<Notifications> findNotificationAndLockById(Long id);
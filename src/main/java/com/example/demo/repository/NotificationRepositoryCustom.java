@@ -0,0 +1,50 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.ExpiredNotification;
+import com.example.demo.dto.NotificationCursor;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.model.Notifications;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface NotificationRepositoryCustom {
+
+    /**
+     * Insert all notifications with one JDBC batch.
+     *
+     * IDENTITY ids stop Hibernate from batching inserts, so this goes through JDBC directly
+     * and reads the generated keys back. The given entities are filled with id, createdAt and version.
+     */
+    List<Notifications> insertAllInBatch(List<Notifications> notifications);
+
+    /**
+     * Next chunk of rows of {@code type} created before {@code before}, oldest first, keyset ordered
+     * on (created_at, id). Plain non-locking read.
+     *
+     * @param after last position of the previous chunk, null for the first one
+     */
+    List<ExpiredNotification> findExpiredChunk(NotificationType type, LocalDateTime before, NotificationCursor after, int limit);
+
+    /**
+     * Copy the rows to notifications_archive and delete them, both by primary key. Run in one
+     * short transaction per chunk; rows deleted meanwhile are skipped.
+     *
+     * @return number of rows moved
+     */
+    int archive(List<Long> ids, LocalDateTime archivedAt);
+
+    /**
+     * Every row created in [from, to), oldest first, optionally of one type, handed to {@code sink}
+     * one at a time as the driver returns them. Forward-only and read-only, outside of any
+     * persistence context; memory does not grow with the number of rows.
+     *
+     * If {@code sink} throws, the query is cancelled and the exception rethrown.
+     *
+     * @param type      null for every type
+     * @param fetchSize JDBC fetch size, see app.export.fetch-size
+     * @return number of rows handed to {@code sink}
+     */
+    long streamRange(NotificationType type, LocalDateTime from, LocalDateTime to, int fetchSize, Consumer<Notifications> sink);
+}
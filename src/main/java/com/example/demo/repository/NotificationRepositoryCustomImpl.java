@@ -0,0 +1,187 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.ExpiredNotification;
+import com.example.demo.dto.NotificationCursor;
+import com.example.demo.enums.NotificationPriority;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.model.Notifications;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+@Slf4j
+@RequiredArgsConstructor
+public class NotificationRepositoryCustomImpl implements NotificationRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO notifications (type, recipient, subject, content, created_at, version, recipient_seq, priority) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // on idx_notifications_type_created_at_id
+    private static final String EXPIRED_FIRST_SQL =
+            "SELECT id, created_at, recipient, recipient_seq FROM notifications WHERE type = ? AND created_at < ? "
+                    + "ORDER BY created_at, id LIMIT ?";
+    private static final String EXPIRED_AFTER_SQL =
+            "SELECT id, created_at, recipient, recipient_seq FROM notifications WHERE type = ? AND created_at < ? "
+                    + "AND (created_at > ? OR (created_at = ? AND id > ?)) ORDER BY created_at, id LIMIT ?";
+
+    private static final String ARCHIVE_SQL =
+            "INSERT INTO notifications_archive (id, type, recipient, subject, content, created_at, version, recipient_seq, read_at, priority, archived_at) "
+                    + "SELECT id, type, recipient, subject, content, created_at, version, recipient_seq, read_at, priority, ? FROM notifications WHERE id IN (%s)";
+    private static final String DELETE_SQL = "DELETE FROM notifications WHERE id IN (%s)";
+
+    // on idx_notifications_created_at_id, or idx_notifications_type_created_at_id with a type
+    private static final String EXPORT_SQL =
+            "SELECT id, type, recipient, subject, content, created_at, version, recipient_seq, priority FROM notifications "
+                    + "WHERE created_at >= ? AND created_at < ? ORDER BY created_at, id";
+    private static final String EXPORT_BY_TYPE_SQL =
+            "SELECT id, type, recipient, subject, content, created_at, version, recipient_seq, priority FROM notifications "
+                    + "WHERE type = ? AND created_at >= ? AND created_at < ? ORDER BY created_at, id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Notifications> insertAllInBatch(List<Notifications> notifications) {
+        if (notifications.isEmpty()) {
+            return notifications;
+        }
+
+        // same as @PrePersist, which JDBC does not trigger
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        notifications.forEach(notification -> {
+            notification.setCreatedAt(now);
+            notification.setVersion(0L);
+        });
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Notifications notification = notifications.get(i);
+                        ps.setString(1, notification.getType().name());
+                        ps.setString(2, notification.getRecipient());
+                        ps.setString(3, notification.getSubject());
+                        ps.setString(4, notification.getContent());
+                        ps.setTimestamp(5, Timestamp.valueOf(notification.getCreatedAt()));
+                        ps.setLong(6, notification.getVersion());
+                        ps.setLong(7, notification.getRecipientSeq());
+                        ps.setString(8, notification.getPriority().name());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return notifications.size();
+                    }
+                },
+                keyHolder);
+
+        // generated keys come back in insert order
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < notifications.size(); i++) {
+            Number id = (Number) keys.get(i).values().iterator().next();
+            notifications.get(i).setId(id.longValue());
+        }
+        return notifications;
+    }
+
+    @Override
+    public List<ExpiredNotification> findExpiredChunk(NotificationType type, LocalDateTime before, NotificationCursor after, int limit) {
+        RowMapper<ExpiredNotification> rowMapper = (rs, rowNum) -> new ExpiredNotification(rs.getLong("id"),
+                rs.getTimestamp("created_at").toLocalDateTime(), rs.getString("recipient"), rs.getLong("recipient_seq"));
+        if (after == null) {
+            return jdbcTemplate.query(EXPIRED_FIRST_SQL, rowMapper, type.name(), Timestamp.valueOf(before), limit);
+        }
+        Timestamp afterCreatedAt = Timestamp.valueOf(after.createdAt());
+        return jdbcTemplate.query(EXPIRED_AFTER_SQL, rowMapper,
+                type.name(), Timestamp.valueOf(before), afterCreatedAt, afterCreatedAt, after.id(), limit);
+    }
+
+    @Override
+    public int archive(List<Long> ids, LocalDateTime archivedAt) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+
+        Object[] archiveArgs = new Object[ids.size() + 1];
+        archiveArgs[0] = Timestamp.valueOf(archivedAt);
+        for (int i = 0; i < ids.size(); i++) {
+            archiveArgs[i + 1] = ids.get(i);
+        }
+        jdbcTemplate.update(ARCHIVE_SQL.formatted(placeholders), archiveArgs);
+        return jdbcTemplate.update(DELETE_SQL.formatted(placeholders), ids.toArray());
+    }
+
+    @Override
+    public long streamRange(NotificationType type, LocalDateTime from, LocalDateTime to, int fetchSize, Consumer<Notifications> sink) {
+        Long rows = jdbcTemplate.execute((Connection connection) -> {
+            PreparedStatement ps = connection.prepareStatement(type == null ? EXPORT_SQL : EXPORT_BY_TYPE_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            int i = 1;
+            if (type != null) {
+                ps.setString(i++, type.name());
+            }
+            ps.setTimestamp(i++, Timestamp.valueOf(from));
+            ps.setTimestamp(i, Timestamp.valueOf(to));
+            return ps;
+        }, (PreparedStatement ps) -> {
+            long count = 0;
+            ResultSet rs = ps.executeQuery();
+            try {
+                while (rs.next()) {
+                    sink.accept(mapNotification(rs));
+                    count++;
+                }
+            } catch (RuntimeException e) {
+                // closing a streaming MySQL result set reads every remaining row, stop the query first
+                cancel(ps);
+                throw e;
+            } finally {
+                rs.close();
+            }
+            return count;
+        });
+        return rows == null ? 0 : rows;
+    }
+
+    private static Notifications mapNotification(ResultSet rs) throws SQLException {
+        Notifications notification = new Notifications();
+        notification.setId(rs.getLong("id"));
+        notification.setType(NotificationType.valueOf(rs.getString("type")));
+        notification.setRecipient(rs.getString("recipient"));
+        notification.setSubject(rs.getString("subject"));
+        notification.setContent(rs.getString("content"));
+        notification.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        notification.setVersion(rs.getLong("version"));
+        notification.setRecipientSeq(rs.getLong("recipient_seq"));
+        notification.setPriority(NotificationPriority.valueOf(rs.getString("priority")));
+        return notification;
+    }
+
+    private static void cancel(PreparedStatement ps) {
+        try {
+            ps.cancel();
+        } catch (SQLException e) {
+            log.debug("Failed to cancel export query: {}", e.getMessage());
+        }
+    }
+}
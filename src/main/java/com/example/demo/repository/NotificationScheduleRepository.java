@@ -0,0 +1,38 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.NotificationSchedule;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NotificationScheduleRepository extends JpaRepository<NotificationSchedule, Long>, NotificationScheduleRepositoryCustom {
+
+    // due before the horizon and not held by a live claim; SKIP LOCKED so nodes claiming at once split the rows
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT s FROM NotificationSchedule s WHERE s.dueAt < :horizon "
+            + "AND (s.claimedUntil IS NULL OR s.claimedUntil < :now) ORDER BY s.dueAt")
+    List<NotificationSchedule> findClaimableForUpdate(LocalDateTime horizon, LocalDateTime now, Pageable pageable);
+
+    // waits for the lock instead of skipping: a release and a change of the same notification take turns
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM NotificationSchedule s WHERE s.notificationId IN :ids")
+    List<NotificationSchedule> findAllByIdForUpdate(Collection<Long> ids);
+
+    // lease runs from the due time, or from now for a row that is already late
+    @Modifying
+    @Query(value = "UPDATE notification_schedule SET claimed_until = TIMESTAMPADD(SECOND, :leaseSeconds, GREATEST(due_at, :now)) "
+            + "WHERE notification_id IN :ids", nativeQuery = true)
+    int claim(Collection<Long> ids, LocalDateTime now, long leaseSeconds);
+}
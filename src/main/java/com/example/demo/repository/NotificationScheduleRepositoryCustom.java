@@ -0,0 +1,13 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.NotificationSchedule;
+
+import java.util.List;
+
+public interface NotificationScheduleRepositoryCustom {
+
+    /**
+     * Insert all schedule rows with one JDBC batch.
+     */
+    void insertAllInBatch(List<NotificationSchedule> rows);
+}
@@ -0,0 +1,27 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.NotificationSchedule;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class NotificationScheduleRepositoryCustomImpl implements NotificationScheduleRepositoryCustom {
+
+    private static final String INSERT_SQL = "INSERT INTO notification_schedule (notification_id, due_at) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAllInBatch(List<NotificationSchedule> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.getNotificationId());
+            ps.setTimestamp(2, Timestamp.valueOf(row.getDueAt()));
+        });
+    }
+}
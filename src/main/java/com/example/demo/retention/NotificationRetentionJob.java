@@ -0,0 +1,188 @@
+package com.example.demo.retention;
+
+import com.example.demo.cache.NotificationNearCache;
+import com.example.demo.config.AppProperties;
+import com.example.demo.dto.ExpiredNotification;
+import com.example.demo.dto.NotificationCursor;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.repository.NotificationRepository;
+import com.example.demo.repository.NotificationScheduleRepository;
+import com.example.demo.util.RedisUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves notifications past their per-type TTL ({@code app.retention.ttl}) to notifications_archive.
+ *
+ * Expired rows are found with a plain keyset read on (type, created_at, id) and moved
+ * {@code chunk-size} rows per transaction by primary key, so the live table never sees more than
+ * one chunk of row locks at a time. Chunks are spaced by {@code chunk-pause} and a run stops
+ * after {@code max-run-time}. A chunk's pending notification_schedule rows go in the same
+ * transaction; after it commits, the moved rows are dropped from Redis like deleted ones (cached
+ * body, recent list, inbox, unread bit). One node at a time, guarded by a Redis lease.
+ */
+@Slf4j
+@Component
+public class NotificationRetentionJob {
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationScheduleRepository notificationScheduleRepository;
+    private final RedisUtil redisUtil;
+    private final NotificationNearCache notificationNearCache;
+    private final AppProperties.Retention properties;
+    private final Map<NotificationType, Timer> chunkTimers = new EnumMap<>(NotificationType.class);
+    private final Map<NotificationType, Counter> archivedCounters = new EnumMap<>(NotificationType.class);
+    private final TransactionTemplate transactionTemplate;
+
+    // runs take minutes, keep them off the shared scheduler thread the outbox relay needs
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(Thread.ofPlatform()
+            .name("notification-retention")
+            .daemon(true)
+            .factory());
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public NotificationRetentionJob(NotificationRepository notificationRepository,
+                                    NotificationScheduleRepository notificationScheduleRepository,
+                                    RedisUtil redisUtil,
+                                    NotificationNearCache notificationNearCache,
+                                    AppProperties appProperties,
+                                    MeterRegistry meterRegistry,
+                                    PlatformTransactionManager transactionManager) {
+        this.notificationRepository = notificationRepository;
+        this.notificationScheduleRepository = notificationScheduleRepository;
+        this.redisUtil = redisUtil;
+        this.notificationNearCache = notificationNearCache;
+        this.properties = appProperties.getRetention();
+        for (NotificationType type : NotificationType.values()) {
+            chunkTimers.put(type, meterRegistry.timer("notification.retention.chunk", "type", type.name()));
+            archivedCounters.put(type, meterRegistry.counter("notification.retention.archived", "type", type.name()));
+        }
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${app.retention.interval:1h}")
+    public void schedule() {
+        if (!properties.isEnabled() || properties.getTtl().isEmpty() || !running.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                purge();
+            } catch (RuntimeException e) {
+                log.warn("Retention run failed", e);
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * One run over every type with a TTL.
+     *
+     * @return number of rows archived
+     */
+    long purge() {
+        String token = UUID.randomUUID().toString();
+        // outlives the run, a crashed holder only blocks the next run until it expires
+        Duration leaseTtl = properties.getMaxRunTime().plus(properties.getInterval());
+        if (!redisUtil.acquireLease(properties.getLeaseKey(), token, leaseTtl)) {
+            return 0;
+        }
+        try {
+            long deadline = System.nanoTime() + properties.getMaxRunTime().toNanos();
+            long archived = 0;
+            for (Map.Entry<NotificationType, Duration> ttl : properties.getTtl().entrySet()) {
+                archived += purge(ttl.getKey(), LocalDateTime.now().minus(ttl.getValue()), deadline);
+            }
+            if (archived > 0) {
+                log.info("Archived {} expired notifications", archived);
+            }
+            return archived;
+        } finally {
+            redisUtil.releaseLease(properties.getLeaseKey(), token);
+        }
+    }
+
+    private long purge(NotificationType type, LocalDateTime before, long deadline) {
+        long archived = 0;
+        NotificationCursor after = null;
+        while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+            List<ExpiredNotification> chunk = notificationRepository.findExpiredChunk(type, before, after, properties.getChunkSize());
+            if (chunk.isEmpty()) {
+                break;
+            }
+            after = chunk.get(chunk.size() - 1).cursor();
+
+            List<Long> ids = chunk.stream().map(ExpiredNotification::id).toList();
+            Integer moved = chunkTimers.get(type).record(() -> transactionTemplate.execute(status -> {
+                // a scheduled CREATE that has not gone out yet never will
+                notificationScheduleRepository.deleteAllByIdInBatch(ids);
+                return notificationRepository.archive(ids, LocalDateTime.now());
+            }));
+            archived += moved == null ? 0 : moved;
+            archivedCounters.get(type).increment(moved == null ? 0 : moved);
+
+            evict(chunk);
+            if (chunk.size() < properties.getChunkSize()) {
+                break;
+            }
+            pause();
+        }
+        return archived;
+    }
+
+    private void evict(List<ExpiredNotification> chunk) {
+        List<Long> ids = chunk.stream().map(ExpiredNotification::id).toList();
+        Map<String, List<ExpiredNotification>> byRecipient = new LinkedHashMap<>();
+        chunk.forEach(row -> byRecipient.computeIfAbsent(row.recipient(), recipient -> new ArrayList<>()).add(row));
+        try {
+            redisUtil.deleteNotifications(ids);
+            // expired rows are rarely still among the newest, but a tiny table can have them there
+            redisUtil.removeNotificationsFromRecentList(ids);
+            byRecipient.forEach((recipient, rows) -> {
+                redisUtil.removeNotificationsFromInbox(recipient, rows.stream().map(ExpiredNotification::id).toList());
+                // as on delete: an unread archived row no longer counts, cold state parks it for the rebuild
+                redisUtil.markDeleted(recipient, rows.stream()
+                        .map(ExpiredNotification::recipientSeq)
+                        .filter(seq -> seq > 0)
+                        .toList());
+            });
+        } catch (RuntimeException e) {
+            // bodies expire on their own TTL, inboxes and read state on theirs
+            log.warn("Failed to drop archived notifications from Redis: {}", e.getMessage());
+        }
+        notificationNearCache.invalidateLocally(ids);
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(properties.getChunkPause().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.example.demo.schedule;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.dto.NotificationMessage;
+import com.example.demo.enums.NotificationMessageType;
+import com.example.demo.model.NotificationSchedule;
+import com.example.demo.model.Notifications;
+import com.example.demo.mq.NotificationOutboxPublisher;
+import com.example.demo.repository.NotificationRepository;
+import com.example.demo.repository.NotificationScheduleRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Holds back the CREATE message of notifications created with a scheduledAt, and writes it to the
+ * outbox ({@link NotificationOutboxPublisher}) once due, so the relay batches it like any other.
+ *
+ * Pending notifications are rows in notification_schedule, so they survive restarts and cost no
+ * memory until they get close: every {@code app.scheduler.claim-interval} a node claims the rows
+ * due within {@code horizon} (SELECT ... FOR UPDATE SKIP LOCKED, like the outbox relay, so nodes
+ * split them) and holds them in a {@link TimingWheel} that fires them to the tick. Firing a batch is
+ * one transaction: lock the rows, write the CREATEs to the outbox, delete the rows. A claim lapses
+ * {@code lease} after the due time, so the rows of a node that died are fired by another one.
+ *
+ * An update or delete of a notification whose CREATE is still held back locks the same row
+ * ({@link #isPending}, {@link #cancel}) and writes no message of its own: the CREATE goes out later
+ * with the current row, or not at all. So the consumer never sees an UPDATE or DELETE before the
+ * CREATE of its notification.
+ *
+ * The wheel, the claims and the releases all run on one thread.
+ */
+@Slf4j
+@Component
+public class NotificationScheduler implements SmartLifecycle {
+
+    private record Pending(long notificationId, long dueMillis) {
+    }
+
+    private final NotificationScheduleRepository notificationScheduleRepository;
+    private final NotificationRepository notificationRepository;
+    private final NotificationOutboxPublisher notificationOutboxPublisher;
+    private final AppProperties.Scheduler properties;
+    private final Counter scheduled;
+    private final Timer lateness;
+    private final Counter releasedSent;
+    private final Counter releasedMissing;
+    private final Counter releasedFailed;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+
+    private final TimingWheel<Pending> wheel;
+    // ids in the wheel or being released, so a lapsed claim taken again is not held twice
+    private final Set<Long> held = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean claimRequested = new AtomicBoolean();
+    private ScheduledExecutorService executor;
+
+    @Autowired
+    public NotificationScheduler(NotificationScheduleRepository notificationScheduleRepository,
+                                 NotificationRepository notificationRepository,
+                                 NotificationOutboxPublisher notificationOutboxPublisher,
+                                 AppProperties appProperties,
+                                 MeterRegistry meterRegistry,
+                                 PlatformTransactionManager transactionManager) {
+        this(notificationScheduleRepository, notificationRepository, notificationOutboxPublisher, appProperties,
+                meterRegistry, transactionManager, Clock.systemDefaultZone());
+    }
+
+    NotificationScheduler(NotificationScheduleRepository notificationScheduleRepository,
+                          NotificationRepository notificationRepository,
+                          NotificationOutboxPublisher notificationOutboxPublisher,
+                          AppProperties appProperties,
+                          MeterRegistry meterRegistry,
+                          PlatformTransactionManager transactionManager,
+                          Clock clock) {
+        this.notificationScheduleRepository = notificationScheduleRepository;
+        this.notificationRepository = notificationRepository;
+        this.notificationOutboxPublisher = notificationOutboxPublisher;
+        this.properties = appProperties.getScheduler();
+        this.scheduled = meterRegistry.counter("notification.scheduler.scheduled");
+        this.lateness = meterRegistry.timer("notification.scheduler.lateness");
+        this.releasedSent = meterRegistry.counter("notification.scheduler.released", "outcome", "sent");
+        this.releasedMissing = meterRegistry.counter("notification.scheduler.released", "outcome", "missing");
+        this.releasedFailed = meterRegistry.counter("notification.scheduler.released", "outcome", "failed");
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.wheel = new TimingWheel<>(properties.getTick().toMillis(), properties.getWheelSize(), clock.millis());
+        Gauge.builder("notification.scheduler.held", held, Set::size).register(meterRegistry);
+    }
+
+    /**
+     * @return true if the notification should be held back rather than sent right away
+     */
+    public boolean isDeferred(LocalDateTime scheduledAt) {
+        return scheduledAt != null && scheduledAt.isAfter(LocalDateTime.now(clock));
+    }
+
+    /**
+     * In the caller's transaction: hold these notifications back until their due time. Rows due
+     * within the horizon are claimed right after the commit instead of on the next round.
+     */
+    public void schedule(List<NotificationSchedule> schedules) {
+        if (schedules.isEmpty()) {
+            return;
+        }
+        notificationScheduleRepository.insertAllInBatch(schedules);
+        scheduled.increment(schedules.size());
+
+        LocalDateTime horizon = LocalDateTime.now(clock).plus(properties.getHorizon());
+        if (schedules.stream().anyMatch(schedule -> schedule.getDueAt().isBefore(horizon))) {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        requestClaim();
+                    }
+                });
+            } else {
+                requestClaim();
+            }
+        }
+    }
+
+    /**
+     * In the caller's transaction, which changes the notification: true if its CREATE is still held
+     * back, and will carry the change. The row stays locked until the commit, so a release of it
+     * waits and then reads the changed notification.
+     */
+    public boolean isPending(Long notificationId) {
+        // plain lookup first: most notifications were never scheduled, and a locking miss would lock a gap
+        return notificationScheduleRepository.existsById(notificationId)
+                && !notificationScheduleRepository.findAllByIdForUpdate(List.of(notificationId)).isEmpty();
+    }
+
+    /**
+     * In the caller's transaction, which deletes the notification: drop its held back CREATE.
+     *
+     * @return true if there was one, so no message about the notification ever went out
+     */
+    public boolean cancel(Long notificationId) {
+        if (!isPending(notificationId)) {
+            return false;
+        }
+        notificationScheduleRepository.deleteAllByIdInBatch(List.of(notificationId));
+        return true;
+    }
+
+    /**
+     * Claim due rows into the wheel, until a round comes back short or the wheel is full.
+     */
+    void claimDue() {
+        claimRequested.set(false);
+        int claimed;
+        int limit;
+        do {
+            limit = Math.min(properties.getClaimBatchSize(), properties.getMaxHeld() - held.size());
+            if (limit <= 0) {
+                return;
+            }
+            LocalDateTime now = LocalDateTime.now(clock);
+            LocalDateTime horizon = now.plus(properties.getHorizon());
+            PageRequest page = PageRequest.of(0, limit);
+            List<NotificationSchedule> rows = transactionTemplate.execute(status -> {
+                List<NotificationSchedule> claimable = notificationScheduleRepository.findClaimableForUpdate(horizon, now,
+                        page);
+                if (!claimable.isEmpty()) {
+                    notificationScheduleRepository.claim(claimable.stream().map(NotificationSchedule::getNotificationId)
+                            .collect(Collectors.toList()), now, properties.getLease().toSeconds());
+                }
+                return claimable;
+            });
+            claimed = rows == null ? 0 : rows.size();
+
+            List<Pending> due = new ArrayList<>();
+            for (NotificationSchedule row : rows == null ? List.<NotificationSchedule>of() : rows) {
+                if (!held.add(row.getNotificationId())) {
+                    continue;
+                }
+                Pending pending = new Pending(row.getNotificationId(), toMillis(row.getDueAt()));
+                if (!wheel.add(pending.dueMillis(), pending)) {
+                    due.add(pending);
+                }
+            }
+            // late rows (after downtime, or due within a tick) go out right away
+            release(due);
+        } while (claimed == limit);
+    }
+
+    /**
+     * One wheel tick: fire what came due.
+     */
+    void tick() {
+        List<Pending> due = new ArrayList<>();
+        wheel.advance(clock.millis(), due::add);
+        release(due);
+    }
+
+    private void release(List<Pending> due) {
+        if (due.isEmpty()) {
+            return;
+        }
+        long now = clock.millis();
+        for (int from = 0; from < due.size(); from += properties.getReleaseBatchSize()) {
+            List<Pending> batch = due.subList(from, Math.min(due.size(), from + properties.getReleaseBatchSize()));
+            batch.forEach(pending -> lateness.record(Duration.ofMillis(Math.max(0, now - pending.dueMillis()))));
+            List<Long> ids = batch.stream().map(Pending::notificationId).collect(Collectors.toList());
+            try {
+                Integer sent = transactionTemplate.execute(status -> releaseInTransaction(ids));
+                int released = sent == null ? 0 : sent;
+                releasedSent.increment(released);
+                releasedMissing.increment(ids.size() - released);
+            } catch (RuntimeException e) {
+                // the claims lapse and the rows are fired again, by this node or another one
+                log.warn("Failed to release {} scheduled notifications: {}", ids.size(), e.getMessage());
+                releasedFailed.increment(ids.size());
+            } finally {
+                ids.forEach(held::remove);
+            }
+        }
+    }
+
+    /**
+     * @return number of CREATEs written to the outbox
+     */
+    private int releaseInTransaction(List<Long> ids) {
+        // waits for an update or delete of these notifications that locked the row first
+        List<Long> pending = notificationScheduleRepository.findAllByIdForUpdate(ids).stream()
+                .map(NotificationSchedule::getNotificationId)
+                .collect(Collectors.toList());
+        if (pending.isEmpty()) {
+            // cancelled (or released elsewhere) while they waited
+            return 0;
+        }
+        // current rows: an update made while they waited goes out with them
+        Map<Long, Notifications> notifications = notificationRepository.findAllById(pending).stream()
+                .collect(Collectors.toMap(Notifications::getId, Function.identity()));
+        List<NotificationMessage> messages = pending.stream()
+                .map(notifications::get)
+                // deleted (or archived) while they waited
+                .filter(Objects::nonNull)
+                .map(notification -> NotificationMessage.fromEntity(notification, NotificationMessageType.CREATE))
+                .collect(Collectors.toList());
+        notificationOutboxPublisher.publishAll(messages);
+        notificationScheduleRepository.deleteAllByIdInBatch(pending);
+        return messages.size();
+    }
+
+    private void requestClaim() {
+        if (executor != null && claimRequested.compareAndSet(false, true)) {
+            executor.execute(guarded("claim", this::claimDue));
+        }
+    }
+
+    private long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(clock.getZone()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * A task that throws would never run again on a ScheduledExecutorService.
+     */
+    private static Runnable guarded(String name, Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.warn("Scheduler {} failed", name, e);
+            }
+        };
+    }
+
+
+    @Override
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("notification-scheduler")
+                .daemon(true)
+                .factory());
+        long tickMillis = properties.getTick().toMillis();
+        executor.scheduleAtFixedRate(guarded("tick", this::tick), tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(guarded("claim", this::claimDue), 0,
+                properties.getClaimInterval().toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Notification scheduler started, horizon {}, tick {}", properties.getHorizon(), properties.getTick());
+    }
+
+    @Override
+    public void stop() {
+        if (executor != null) {
+            // claims left behind lapse after their lease, another node fires them
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return properties.isEnabled();
+    }
+}
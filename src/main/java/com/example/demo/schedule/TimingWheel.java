@@ -0,0 +1,117 @@
+package com.example.demo.schedule;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: O(1) add, O(1) per tick plus O(1) per entry each time it moves down
+ * a level. Level 0 has {@code wheelSize} buckets of one tick each; every level above has buckets
+ * as wide as the whole level below, added on demand, so any delay fits in a few levels.
+ *
+ * Deadlines are rounded up to the tick, an entry never fires early. Not thread-safe: one thread
+ * adds and advances.
+ */
+final class TimingWheel<T> {
+
+    private record Entry<T>(long slot, T item) {
+    }
+
+    private final class Level {
+        private final long tick;
+        private final long span;
+        private final ArrayDeque<Entry<T>>[] buckets;
+
+        @SuppressWarnings("unchecked")
+        private Level(long tick) {
+            this.tick = tick;
+            // throws long before a deadline could wrap around
+            this.span = Math.multiplyExact(tick, (long) wheelSize);
+            this.buckets = new ArrayDeque[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new ArrayDeque<>();
+            }
+        }
+
+        private ArrayDeque<Entry<T>> bucket(long slot) {
+            return buckets[(int) ((slot / tick) % wheelSize)];
+        }
+    }
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final List<Level> levels = new ArrayList<>();
+    // start of the current tick, every slot up to it has fired
+    private long now;
+    private int size;
+
+    TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("tick must be positive and the wheel at least 2 buckets");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.now = startMillis - Math.floorMod(startMillis, tickMillis);
+        this.levels.add(new Level(tickMillis));
+    }
+
+    /**
+     * @return false if the deadline is already due; nothing was added, the caller fires it
+     */
+    boolean add(long deadlineMillis, T item) {
+        long slot = Math.ceilDiv(deadlineMillis, tickMillis) * tickMillis;
+        if (slot <= now) {
+            return false;
+        }
+        place(new Entry<>(slot, item));
+        size++;
+        return true;
+    }
+
+    /**
+     * Move the clock up to {@code nowMillis}, handing every entry that came due to {@code due},
+     * earliest tick first.
+     */
+    void advance(long nowMillis, Consumer<T> due) {
+        while (now + tickMillis <= nowMillis) {
+            now += tickMillis;
+            // top level first: what it hands down may be due in this very tick
+            for (int i = levels.size() - 1; i >= 0; i--) {
+                Level level = levels.get(i);
+                if (now % level.tick != 0) {
+                    continue;
+                }
+                ArrayDeque<Entry<T>> bucket = level.bucket(now);
+                for (int n = bucket.size(); n > 0; n--) {
+                    Entry<T> entry = bucket.poll();
+                    if (entry.slot() <= now) {
+                        size--;
+                        due.accept(entry.item());
+                    } else {
+                        place(entry);
+                    }
+                }
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void place(Entry<T> entry) {
+        for (int i = 0; ; i++) {
+            if (i == levels.size()) {
+                levels.add(new Level(levels.get(i - 1).span));
+            }
+            Level level = levels.get(i);
+            // each level turns in steps of its own tick
+            long levelNow = now - now % level.tick;
+            if (entry.slot() < levelNow + level.span) {
+                level.bucket(entry.slot()).add(entry);
+                return;
+            }
+        }
+    }
+}
@@ -1,20 +1,66 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.NotificationPage;
 import com.example.demo.dto.NotificationRequest;
 import com.example.demo.dto.UpdateNotificationRequest;
 import com.example.demo.model.Notifications;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface NotificationService {
     Notifications createNotification(NotificationRequest request);
 
+    List<Notifications> createNotifications(List<NotificationRequest> requests);
+
     Optional<Notifications> getNotificationById(Long id);
 
+    /**
+     * Bulk version of {@link #getNotificationById}: near cache, then one MGET, then one query for the misses.
+     *
+     * @return found notifications by id, missing ids are absent
+     */
+    Map<Long, Notifications> getNotificationsByIds(Collection<Long> ids);
+
     List<Notifications> getRecentNotifications();
 
+    /**
+     * Keyset page, newest first.
+     *
+     * @param after endCursor of the previous page, null for the first page
+     * @param limit page size, null for the default; capped at app.pagination.max-limit
+     */
+    NotificationPage listNotifications(String after, Integer limit);
+
+    /**
+     * Keyset page of one recipient's notifications, newest first. Served from the recipient's
+     * Redis inbox while the page lies within its newest app.redis.inbox-size ids, from the DB past that.
+     *
+     * @param after endCursor of the previous page, null for the first page
+     * @param limit page size, null for the default; capped at app.pagination.max-limit
+     */
+    NotificationPage listInbox(String recipient, String after, Integer limit);
+
+    /**
+     * Mark notifications read; unknown ids are skipped.
+     *
+     * @return how many of them were unread before
+     */
+    long markRead(Collection<Long> ids);
+
+    /**
+     * Mark everything the recipient has so far read, O(1) however many are unread.
+     */
+    void markAllRead(String recipient);
+
+    /**
+     * Badge count from Redis, never a COUNT(*) on the DB.
+     */
+    long getUnreadCount(String recipient);
+
     Optional<Notifications> updateNotification(Long id, UpdateNotificationRequest request);
 
     @Transactional
@@ -1,70 +1,227 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.NotificationNearCache;
+import com.example.demo.cache.RecentListFillSignal;
+import com.example.demo.config.AppProperties;
+import com.example.demo.dto.NotificationCursor;
 import com.example.demo.dto.NotificationMessage;
+import com.example.demo.dto.NotificationPage;
 import com.example.demo.dto.NotificationRequest;
 import com.example.demo.dto.UpdateNotificationRequest;
+import com.example.demo.enums.LimitedOperation;
 import com.example.demo.enums.NotificationMessageType;
+import com.example.demo.enums.NotificationPriority;
 import com.example.demo.enums.NotificationType;
+import com.example.demo.enums.WriteLockMode;
+import com.example.demo.exception.NotificationConflictException;
+import com.example.demo.limiter.ConcurrencyLimited;
+import com.example.demo.model.NotificationSchedule;
 import com.example.demo.model.Notifications;
-import com.example.demo.mq.NotificationProducer;
+import com.example.demo.mq.NotificationOutboxPublisher;
+import com.example.demo.readstate.NotificationReadState;
 import com.example.demo.repository.NotificationRepository;
+import com.example.demo.schedule.NotificationScheduler;
 import com.example.demo.util.RedisUtil;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.apache.commons.collections.CollectionUtils;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Duration;
-import java.util.Collections;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 public class NotificationServiceImpl implements NotificationService {
 
+    private record Attempt(boolean found, Notifications written) {
+        static final Attempt GONE = new Attempt(false, null);
+    }
+
     private final NotificationRepository notificationRepository;
-    private final NotificationProducer notificationProducer;
+    private final NotificationOutboxPublisher notificationOutboxPublisher;
     private final RedisUtil redisUtil;
+    private final NotificationNearCache notificationNearCache;
+    private final NotificationReadState notificationReadState;
+    private final NotificationScheduler notificationScheduler;
+    private final AppProperties appProperties;
+    private final RecentListFillSignal recentListFillSignal;
+    private final MeterRegistry meterRegistry;
+    // update and delete, one transaction per optimistic attempt
+    private final TransactionTemplate writeTransaction;
+
+    // recent list load in progress on this node, if any
+    private final AtomicReference<CompletableFuture<List<Notifications>>> recentListLoad = new AtomicReference<>();
+
+    // meters by tag values, registered once rather than looked up in the registry on every call
+    private final Counter recentCoalesced;
+    private final Counter inboxPageFromCache;
+    private final Counter inboxPageFromDb;
+    private final Counter recentLeaseAcquired;
+    private final Counter recentLeaseBusy;
+    private final Timer recentFillFilled;
+    private final Timer recentFillTimeout;
+    private final Map<String, Counter> writeConflicts = new HashMap<>();
+    private final Timer lockWait;
+    private final Map<String, Timer> afterCommitTimers = new HashMap<>();
+
+    public NotificationServiceImpl(NotificationRepository notificationRepository,
+                                   NotificationOutboxPublisher notificationOutboxPublisher,
+                                   RedisUtil redisUtil,
+                                   NotificationNearCache notificationNearCache,
+                                   NotificationReadState notificationReadState,
+                                   NotificationScheduler notificationScheduler,
+                                   AppProperties appProperties,
+                                   RecentListFillSignal recentListFillSignal,
+                                   MeterRegistry meterRegistry,
+                                   PlatformTransactionManager transactionManager) {
+        this.notificationRepository = notificationRepository;
+        this.notificationOutboxPublisher = notificationOutboxPublisher;
+        this.redisUtil = redisUtil;
+        this.notificationNearCache = notificationNearCache;
+        this.notificationReadState = notificationReadState;
+        this.notificationScheduler = notificationScheduler;
+        this.appProperties = appProperties;
+        this.recentListFillSignal = recentListFillSignal;
+        this.meterRegistry = meterRegistry;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.recentCoalesced = meterRegistry.counter("notification.recent.coalesced");
+        this.inboxPageFromCache = meterRegistry.counter("notification.inbox.page", "source", "cache");
+        this.inboxPageFromDb = meterRegistry.counter("notification.inbox.page", "source", "db");
+        this.recentLeaseAcquired = meterRegistry.counter("notification.recent.lease", "result", "acquired");
+        this.recentLeaseBusy = meterRegistry.counter("notification.recent.lease", "result", "busy");
+        this.recentFillFilled = meterRegistry.timer("notification.recent.fill.wait", "outcome", "filled");
+        this.recentFillTimeout = meterRegistry.timer("notification.recent.fill.wait", "outcome", "timeout");
+        for (String operation : List.of("update", "delete")) {
+            writeConflicts.put(operation, meterRegistry.counter("notification.write.conflicts", "operation", operation));
+        }
+        this.lockWait = meterRegistry.timer("notification.db.lock.wait");
+        for (String operation : List.of("create", "create-batch", "update", "delete")) {
+            afterCommitTimers.put(operation, Timer.builder("notification.after-commit")
+                    .tag("operation", operation)
+                    .register(meterRegistry));
+        }
+    }
 
     @Override
+    @ConcurrencyLimited(LimitedOperation.WRITE)
     @Transactional
     public Notifications createNotification(NotificationRequest request) {
         // gen a entity
-        Notifications notification = new Notifications();
-        notification.setType(NotificationType.fromString(request.getType().name().toUpperCase()));
-        notification.setRecipient(request.getRecipient());
-        notification.setSubject(request.getSubject());
-        notification.setContent(request.getContent());
+        Notifications notification = toEntity(request);
+        // its bit in the recipient's unread bitmap
+        notification.setRecipientSeq(notificationReadState.allocate(notification.getRecipient(), 1));
 
         // save to DB
         Notifications savedNotification = notificationRepository.save(notification);
 
         // register sync
-        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-            @Override
-            public void afterCommit() {
-                notificationProducer.sendNotification(toMessage(savedNotification, NotificationMessageType.CREATE));
-
-                //redis
-                redisUtil.cacheNotification(savedNotification);
-                // clean recent list on redis
-                // 避免高併發競爭，讓 Recent List 在下次讀取時從 DB 重新計算。
-                redisUtil.clearRecentList();
-            }
+        afterCommit("create", () -> {
+            //redis
+            redisUtil.cacheNotification(savedNotification);
+            // push into recent list (no-op while it is cold, the next read rebuilds it)
+            redisUtil.addNotificationToRecentList(savedNotification);
+            // same for the recipient's inbox
+            redisUtil.addNotificationToInbox(savedNotification);
+            notificationReadState.onCreated(List.of(savedNotification));
         });
 
+        if (notificationScheduler.isDeferred(request.getScheduledAt())) {
+            // stored and readable now, the CREATE message waits for its time
+            notificationScheduler.schedule(List.of(new NotificationSchedule(savedNotification.getId(), request.getScheduledAt(), null)));
+        } else {
+            // MQ message goes out through the outbox, committed together with the row
+            notificationOutboxPublisher.publish(NotificationMessage.fromEntity(savedNotification, NotificationMessageType.CREATE));
+        }
+
         return savedNotification;
     }
 
     @Override
+    @ConcurrencyLimited(LimitedOperation.WRITE)
+    @Transactional
+    public List<Notifications> createNotifications(List<NotificationRequest> requests) {
+        if (CollectionUtils.isEmpty(requests)) {
+            return List.of();
+        }
+        int maxSize = appProperties.getBatch().getMaxSize();
+        if (requests.size() > maxSize) {
+            throw new IllegalArgumentException("batch size " + requests.size() + " exceeds limit " + maxSize);
+        }
+
+        List<Notifications> notifications = requests.stream().map(this::toEntity).collect(Collectors.toList());
+        // one sequence range per recipient, one Redis call for all of them
+        notificationReadState.assignSequences(notifications);
+
+        // save to DB with one JDBC batch
+        List<Notifications> savedNotifications = notificationRepository.insertAllInBatch(notifications);
+
+        afterCommit("create-batch", () -> {
+            // one pipelined round trip for all cache entries
+            redisUtil.cacheNotifications(savedNotifications);
+            redisUtil.addNotificationsToRecentList(savedNotifications);
+            redisUtil.addNotificationsToInboxes(savedNotifications);
+            notificationReadState.onCreated(savedNotifications);
+        });
+
+        // saved in request order: scheduled ones are held back, the rest go out now
+        List<NotificationMessage> messages = new ArrayList<>(savedNotifications.size());
+        List<NotificationSchedule> schedules = new ArrayList<>();
+        for (int i = 0; i < savedNotifications.size(); i++) {
+            Notifications saved = savedNotifications.get(i);
+            LocalDateTime scheduledAt = requests.get(i).getScheduledAt();
+            if (notificationScheduler.isDeferred(scheduledAt)) {
+                schedules.add(new NotificationSchedule(saved.getId(), scheduledAt, null));
+            } else {
+                messages.add(NotificationMessage.fromEntity(saved, NotificationMessageType.CREATE));
+            }
+        }
+        notificationScheduler.schedule(schedules);
+        // all CREATE messages written to the outbox with one JDBC batch
+        if (!messages.isEmpty()) {
+            notificationOutboxPublisher.publishAll(messages);
+        }
+
+        return savedNotifications;
+    }
+
+    @Override
+    @ConcurrencyLimited(LimitedOperation.READ)
     public Optional<Notifications> getNotificationById(Long id) {
+        // check local near cache first (no network round trip)
+        Optional<Notifications> nearCachedNotification = notificationNearCache.get(id);
+        if (nearCachedNotification.isPresent()) {
+            return nearCachedNotification;
+        }
+
         // check if redis has
         Optional<Notifications> cachedNotification = redisUtil.findNotificationById(id);
         if (cachedNotification.isPresent()) {
+            notificationNearCache.put(cachedNotification.get());
             return cachedNotification;
         }
 
@@ -72,12 +229,55 @@ public class NotificationServiceImpl implements NotificationService {
         Optional<Notifications> notificationFromDb = notificationRepository.findById(id);
 
         // successfully from DB, update redis
-        notificationFromDb.ifPresent(redisUtil::cacheNotification);
+        notificationFromDb.ifPresent(notification -> {
+            redisUtil.cacheNotification(notification);
+            notificationNearCache.put(notification);
+        });
 
         return notificationFromDb;
     }
 
     @Override
+    @ConcurrencyLimited(LimitedOperation.READ)
+    public Map<Long, Notifications> getNotificationsByIds(Collection<Long> ids) {
+        Map<Long, Notifications> found = new HashMap<>();
+        if (CollectionUtils.isEmpty(ids)) {
+            return found;
+        }
+
+        // local near cache first
+        List<Long> remoteIds = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            notificationNearCache.get(id).ifPresentOrElse(notification -> found.put(id, notification), () -> remoteIds.add(id));
+        }
+        if (remoteIds.isEmpty()) {
+            return found;
+        }
+
+        // one MGET for the rest
+        Map<Long, Notifications> cached = redisUtil.findNotificationsByIds(remoteIds);
+        cached.values().forEach(notificationNearCache::put);
+        found.putAll(cached);
+
+        List<Long> missedIds = remoteIds.stream().filter(id -> !cached.containsKey(id)).collect(Collectors.toList());
+        if (missedIds.isEmpty()) {
+            return found;
+        }
+
+        // one query for the misses, backfill redis in one pipelined round trip
+        List<Notifications> notificationsFromDb = notificationRepository.findAllById(missedIds);
+        if (!notificationsFromDb.isEmpty()) {
+            redisUtil.cacheNotifications(notificationsFromDb);
+            notificationsFromDb.forEach(notification -> {
+                notificationNearCache.put(notification);
+                found.put(notification.getId(), notification);
+            });
+        }
+        return found;
+    }
+
+    @Override
+    @ConcurrencyLimited(LimitedOperation.RECENT_LIST)
     public List<Notifications> getRecentNotifications() {
         // try to fetch from Redis
         List<Notifications> recentNotifications = redisUtil.findRecentNotifications();
@@ -85,12 +285,147 @@ public class NotificationServiceImpl implements NotificationService {
             return recentNotifications;
         }
 
-        // get lock
+        // single flight: concurrent misses in this JVM share one load
+        CompletableFuture<List<Notifications>> load = new CompletableFuture<>();
+        CompletableFuture<List<Notifications>> inFlight = recentListLoad.compareAndExchange(null, load);
+        if (inFlight != null) {
+            recentCoalesced.increment();
+            return join(inFlight);
+        }
+
+        try {
+            load.complete(loadRecentNotifications());
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+        } finally {
+            recentListLoad.compareAndSet(load, null);
+        }
+        return join(load);
+    }
+
+    @Override
+    @ConcurrencyLimited(LimitedOperation.READ)
+    @Transactional(readOnly = true)
+    public NotificationPage listNotifications(String after, Integer limit) {
+        int pageSize = pageSize(limit);
+
+        // one extra row tells whether there is a next page, no COUNT(*)
+        Limit fetch = Limit.of(pageSize + 1);
+        List<Notifications> rows;
+        if (after == null || after.isBlank()) {
+            rows = notificationRepository.findAllByOrderByCreatedAtDescIdDesc(fetch);
+        } else {
+            NotificationCursor cursor = NotificationCursor.decode(after);
+            rows = notificationRepository.findPageAfter(cursor.createdAt(), cursor.id(), fetch);
+        }
+        return toPage(rows, pageSize);
+    }
+
+    @Override
+    @ConcurrencyLimited(LimitedOperation.READ)
+    public NotificationPage listInbox(String recipient, String after, Integer limit) {
+        requireRecipient(recipient);
+        int pageSize = pageSize(limit);
+        NotificationCursor cursor = after == null || after.isBlank() ? null : NotificationCursor.decode(after);
+
+        // ids from the recipient's Redis ZSET, bodies through the near cache / MGET
+        Optional<RedisUtil.InboxSlice> slice = redisUtil.findInboxPage(recipient, cursor == null ? null : cursor.id(), pageSize + 1);
+        if (slice.isEmpty() && cursor == null) {
+            slice = Optional.of(fillInbox(recipient, pageSize + 1));
+        }
+        Optional<NotificationPage> cached = slice.flatMap(ids -> inboxPage(ids, pageSize));
+        (cached.isPresent() ? inboxPageFromCache : inboxPageFromDb).increment();
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        // past the cached ids, or the cursor fell out of them
+        Limit fetch = Limit.of(pageSize + 1);
+        List<Notifications> rows = cursor == null
+                ? notificationRepository.findByRecipientOrderByCreatedAtDescIdDesc(recipient, fetch)
+                : notificationRepository.findRecipientPageAfter(recipient, cursor.createdAt(), cursor.id(), fetch);
+        return toPage(rows, pageSize);
+    }
+
+    /**
+     * Load the recipient's newest ids into a cold inbox.
+     *
+     * @return the first {@code count} of them
+     */
+    private RedisUtil.InboxSlice fillInbox(String recipient, int count) {
+        int inboxSize = appProperties.getRedis().getInboxSize();
+        List<NotificationCursor> newest = notificationRepository.findInboxHead(recipient, Limit.of(inboxSize + 1));
+        boolean complete = newest.size() <= inboxSize;
+        if (!complete) {
+            newest = newest.subList(0, inboxSize);
+        }
+        redisUtil.populateInbox(recipient, newest, complete);
+
+        List<Long> ids = newest.stream().limit(count).map(NotificationCursor::id).collect(Collectors.toList());
+        return new RedisUtil.InboxSlice(ids, complete && ids.size() == newest.size());
+    }
+
+    /**
+     * @return empty if the slice does not cover the page, or a listed id is already gone
+     */
+    private Optional<NotificationPage> inboxPage(RedisUtil.InboxSlice slice, int pageSize) {
+        List<Long> ids = slice.ids();
+        boolean hasNextPage = ids.size() > pageSize;
+        if (!hasNextPage && !slice.endOfInbox()) {
+            return Optional.empty();
+        }
+        List<Long> pageIds = hasNextPage ? ids.subList(0, pageSize) : ids;
+        Map<Long, Notifications> found = getNotificationsByIds(pageIds);
+        List<Notifications> items = new ArrayList<>(pageIds.size());
+        for (Long id : pageIds) {
+            Notifications notification = found.get(id);
+            if (notification == null) {
+                return Optional.empty();
+            }
+            items.add(notification);
+        }
+        String endCursor = items.isEmpty() ? null : NotificationCursor.of(items.get(items.size() - 1)).encode();
+        return Optional.of(new NotificationPage(items, endCursor, hasNextPage));
+    }
+
+    private static String requireRecipient(String recipient) {
+        if (recipient == null || recipient.isBlank()) {
+            throw new IllegalArgumentException("recipient is required");
+        }
+        return recipient;
+    }
+
+    private int pageSize(Integer limit) {
+        AppProperties.Pagination pagination = appProperties.getPagination();
+        int pageSize = limit == null ? pagination.getDefaultLimit() : limit;
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        return Math.min(pageSize, pagination.getMaxLimit());
+    }
+
+    /**
+     * @param rows up to pageSize + 1 rows, the extra one only says there is a next page
+     */
+    private static NotificationPage toPage(List<Notifications> rows, int pageSize) {
+        boolean hasNextPage = rows.size() > pageSize;
+        List<Notifications> items = hasNextPage ? rows.subList(0, pageSize) : rows;
+        String endCursor = items.isEmpty() ? null : NotificationCursor.of(items.get(items.size() - 1)).encode();
+        return new NotificationPage(items, endCursor, hasNextPage);
+    }
+
+    /**
+     * Rebuild the recent list if this node gets the lease, otherwise wait for the holder's fill.
+     * Never returns an empty list just because someone else is rebuilding (防驚群).
+     */
+    private List<Notifications> loadRecentNotifications() {
+        AppProperties.Redis redisProperties = appProperties.getRedis();
         String lockKey = redisUtil.getLockKey("getRecentNotifications");
-        Boolean acquired = redisUtil.setnxWithExpiration(lockKey, "locked", Duration.ofSeconds(30));
+        String token = UUID.randomUUID().toString();
 
-        if (Boolean.TRUE.equals(acquired)) {
-            // get lock
+        boolean acquired = redisUtil.acquireLease(lockKey, token, redisProperties.getRecentListLeaseTtl());
+        (acquired ? recentLeaseAcquired : recentLeaseBusy).increment();
+        if (acquired) {
             try {
                 // DCL (double check lock) check cache again in case be refill while wait for lock
                 List<Notifications> checkNotifications = redisUtil.findRecentNotifications();
@@ -99,101 +434,270 @@ public class NotificationServiceImpl implements NotificationService {
                 }
 
                 // get from DB
-                List<Notifications> recentNotificationFromDb = notificationRepository.findTop10ByOrderByCreatedAtDesc(PageRequest.of(0, 10));
+                List<Notifications> recentNotificationFromDb = notificationRepository.findTop10ByOrderByCreatedAtDesc(
+                        PageRequest.of(0, RedisUtil.RECENT_LIST_SIZE));
 
-                // 2.3 refill the redis
+                // refill the redis, then wake up waiting nodes
                 if (CollectionUtils.isNotEmpty(recentNotificationFromDb)) {
                     redisUtil.populateRecentList(recentNotificationFromDb);
                 }
+                recentListFillSignal.publish();
 
                 return recentNotificationFromDb;
             } finally {
-                // release lock
-                redisUtil.deleteKey(lockKey);
+                // release lease, only if still ours
+                redisUtil.releaseLease(lockKey, token);
             }
-        } else {
-            // fetch lock failed: other thread is fulfill redis (防驚群核心邏輯)
+        }
 
-            // wait temp then re-try
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException ignored) {
-                Thread.currentThread().interrupt();
+        // other node is filling redis: wait for its signal instead of sleeping
+        CompletableFuture<Void> filled = recentListFillSignal.nextFill();
+        List<Notifications> retryNotifications = redisUtil.findRecentNotifications();
+        if (CollectionUtils.isNotEmpty(retryNotifications)) {
+            return retryNotifications;
+        }
+        Timer.Sample wait = Timer.start(meterRegistry);
+        Timer outcome = recentFillTimeout;
+        try {
+            filled.get(redisProperties.getRecentListFillWait().toMillis(), TimeUnit.MILLISECONDS);
+            retryNotifications = redisUtil.findRecentNotifications();
+            if (CollectionUtils.isNotEmpty(retryNotifications)) {
+                outcome = recentFillFilled;
+                return retryNotifications;
             }
+        } catch (TimeoutException | ExecutionException ignored) {
+            // fall through to DB
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            wait.stop(outcome);
+        }
 
-            // re-try
-            List<Notifications> retryNotifications = redisUtil.findRecentNotifications();
+        // still cold: read DB directly, leave the refill to the lease holder
+        return notificationRepository.findTop10ByOrderByCreatedAtDesc(PageRequest.of(0, RedisUtil.RECENT_LIST_SIZE));
+    }
 
-            // return if success or return empty list
-            return Optional.ofNullable(retryNotifications).orElse(Collections.emptyList());
+    private static List<Notifications> join(CompletableFuture<List<Notifications>> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
         }
     }
 
     @Override
-    @Transactional
+    @ConcurrencyLimited(LimitedOperation.WRITE)
+    public long markRead(Collection<Long> ids) {
+        if (CollectionUtils.isEmpty(ids)) {
+            return 0;
+        }
+        int maxSize = appProperties.getBatch().getMaxSize();
+        if (ids.size() > maxSize) {
+            throw new IllegalArgumentException("ids size " + ids.size() + " exceeds limit " + maxSize);
+        }
+
+        // recipient and sequence through the caches, a DB row only for what they miss
+        Map<Long, Notifications> found = getNotificationsByIds(ids);
+        // cache entries written before read state existed carry no sequence
+        List<Long> withoutSeq = found.values().stream()
+                .filter(notification -> notification.getRecipientSeq() == 0)
+                .map(Notifications::getId)
+                .collect(Collectors.toList());
+        if (!withoutSeq.isEmpty()) {
+            notificationRepository.findAllById(withoutSeq).forEach(notification -> found.put(notification.getId(), notification));
+        }
+        return notificationReadState.markRead(found.values());
+    }
+
+    @Override
+    @ConcurrencyLimited(LimitedOperation.WRITE)
+    public void markAllRead(String recipient) {
+        notificationReadState.markAllRead(requireRecipient(recipient));
+    }
+
+    @Override
+    @ConcurrencyLimited(LimitedOperation.READ)
+    public long getUnreadCount(String recipient) {
+        return notificationReadState.unreadCount(requireRecipient(recipient));
+    }
+
+    @Override
+    @ConcurrencyLimited(LimitedOperation.WRITE)
     public Optional<Notifications> updateNotification(Long id, UpdateNotificationRequest request) {
-        return notificationRepository.findNotificationAndLockById(id).map( notifications -> {
+        if (appProperties.getWrite().getLockMode() == WriteLockMode.OPTIMISTIC) {
+            return updateOptimistically(id, request);
+        }
+        return writeTransaction.execute(status -> updatePessimistically(id, request).map(this::onUpdated));
+    }
+
+    @Override
+    @ConcurrencyLimited(LimitedOperation.WRITE)
+    public boolean deleteNotification(Long id) {
+        Optional<Notifications> deleted = appProperties.getWrite().getLockMode() == WriteLockMode.OPTIMISTIC
+                ? deleteOptimistically(id)
+                : writeTransaction.execute(status -> deletePessimistically(id).map(this::onDeleted));
+        return deleted.isPresent();
+    }
+
+    /**
+     * In the write's transaction: cache cleanup after the commit, and the UPDATE message (via the outbox).
+     */
+    private Notifications onUpdated(Notifications updatedNotification) {
+        Long id = updatedNotification.getId();
+        // register (check DB success and clean cache)
+        afterCommit("update", () -> {
+            // replace the body in recent list, only if it is in there
+            redisUtil.updateNotificationInRecentList(updatedNotification);
+
+            // clean single cache in case duplicated
+            redisUtil.deleteNotification(id);
+            // drop near cache on every node
+            notificationNearCache.invalidate(id);
+        });
+
+        // MD not mentioned, but still push to MQ (via outbox); a held back CREATE carries the change instead
+        if (!notificationScheduler.isPending(id)) {
+            notificationOutboxPublisher.publish(NotificationMessage.fromEntity(updatedNotification, NotificationMessageType.UPDATE));
+        }
+        return updatedNotification;
+    }
+
+    /**
+     * In the delete's transaction: cache cleanup after the commit, and the DELETE message (via the outbox).
+     */
+    private Notifications onDeleted(Notifications deletedNotification) {
+        Long id = deletedNotification.getId();
+        // check if DB committed then clean cache
+        afterCommit("delete", () -> {
+            // drop it from recent list; a short list is dropped and rebuilt on next read
+            redisUtil.removeNotificationFromRecentList(deletedNotification);
+            redisUtil.removeNotificationFromInbox(deletedNotification);
+            notificationReadState.onDeleted(deletedNotification);
+
+            // clean single cache in case of race condition
+            redisUtil.deleteNotification(id);
+            // drop near cache on every node
+            notificationNearCache.invalidate(id);
+        });
+
+        // .MD not listed, push to MQ (via outbox) to align local and remote system;
+        // nothing to align if its CREATE was still held back
+        if (!notificationScheduler.cancel(id)) {
+            notificationOutboxPublisher.publish(NotificationMessage.fromEntity(deletedNotification, NotificationMessageType.DELETE));
+        }
+        return deletedNotification;
+    }
+
+    private Optional<Notifications> updatePessimistically(Long id, UpdateNotificationRequest request) {
+        return findAndLock(id).map(notifications -> {
             notifications.setSubject(request.getSubject());
             notifications.setContent(request.getContent());
-            Notifications updatedNotification = notificationRepository.save(notifications);
+            return notificationRepository.save(notifications);
+        });
+    }
 
-            // register (check DB success and clean cache)
-            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-                @Override
-                public void afterCommit() {
-                    // clean whole recent list
-                    redisUtil.clearRecentList();
+    /**
+     * Plain read, then UPDATE ... WHERE id = ? AND version = ?; no row lock is held between the two.
+     * A lost race re-reads and tries again, up to app.write.max-attempts.
+     */
+    private Optional<Notifications> updateOptimistically(Long id, UpdateNotificationRequest request) {
+        return retryOnConflict("update", id, current -> {
+            if (notificationRepository.updateIfVersion(id, current.getVersion(), request.getSubject(), request.getContent()) == 0) {
+                return null;
+            }
+            current.setSubject(request.getSubject());
+            current.setContent(request.getContent());
+            current.setVersion(current.getVersion() + 1);
+            return onUpdated(current);
+        });
+    }
 
-                    // clean single cache in case duplicated
-                    redisUtil.deleteNotification(id);
+    private Optional<Notifications> deletePessimistically(Long id) {
+        Optional<Notifications> dbNotification = findAndLock(id);
+        dbNotification.ifPresent(notification -> notificationRepository.deleteById(id));
+        return dbNotification;
+    }
 
-                    // MD not mentioned, but still push to MQ
-                    notificationProducer.sendNotification(toMessage(updatedNotification, NotificationMessageType.UPDATE));
-                }
-            });
+    private Optional<Notifications> deleteOptimistically(Long id) {
+        return retryOnConflict("delete", id,
+                current -> notificationRepository.deleteIfVersion(id, current.getVersion()) == 0 ? null : onDeleted(current));
+    }
 
-            return updatedNotification;
-        });
+    /**
+     * Every attempt is a transaction of its own, so the backoff between two attempts holds no
+     * connection and no locks, and the next attempt reads the latest committed version.
+     *
+     * @param attempt conditional write against the row as read, null if its version moved on
+     * @return empty if the row is gone
+     * @throws NotificationConflictException when every attempt lost the race
+     */
+    private Optional<Notifications> retryOnConflict(String operation, Long id, Function<Notifications, Notifications> attempt) {
+        AppProperties.Write properties = appProperties.getWrite();
+        for (int i = 1; i <= properties.getMaxAttempts(); i++) {
+            Attempt result = writeTransaction.execute(status -> notificationRepository.findById(id)
+                    .map(current -> new Attempt(true, attempt.apply(current)))
+                    .orElse(Attempt.GONE));
+            if (!result.found()) {
+                return Optional.empty();
+            }
+            if (result.written() != null) {
+                return Optional.of(result.written());
+            }
+            writeConflicts.get(operation).increment();
+            backoff(properties.getRetryBackoff());
+        }
+        throw new NotificationConflictException(
+                "notification " + id + " kept changing, " + operation + " gave up after " + properties.getMaxAttempts() + " attempts");
     }
 
-    @Override
-    @Transactional
-    public boolean deleteNotification(Long id) {
-        // get from DB
-        Optional<Notifications> dbNotification = notificationRepository.findNotificationAndLockById(id);
-        if (dbNotification.isEmpty()) {
-            return false;
+    private static void backoff(Duration maxBackoff) {
+        long millis = maxBackoff.toMillis();
+        if (millis <= 0) {
+            return;
         }
+        // jittered, so writers that collided do not collide again
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(millis + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-        // delete
-        notificationRepository.deleteById(id);
+    /**
+     * SELECT ... FOR UPDATE, timed separately since most of its latency is row lock wait.
+     */
+    private Optional<Notifications> findAndLock(Long id) {
+        return lockWait.record(() -> notificationRepository.findNotificationAndLockById(id));
+    }
 
-        // check if DB committed then clean cache
+    /**
+     * Run {@code action} once the surrounding transaction has committed, timed as
+     * {@code notification.after-commit} (it runs on the request thread, after the DB work).
+     */
+    private void afterCommit(String operation, Runnable action) {
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
             public void afterCommit() {
-                // clean whole recent list cache
-                redisUtil.clearRecentList();
-
-                // clean single cache in case of race condition
-                redisUtil.deleteNotification(id);
-
-                // .MD not listed, push to MQ to align local and remote system
-                notificationProducer.sendNotification(toMessage(dbNotification.get(), NotificationMessageType.DELETE));
+                Timer.Sample sample = Timer.start(meterRegistry);
+                try {
+                    action.run();
+                } finally {
+                    sample.stop(afterCommitTimers.get(operation));
+                }
             }
         });
-
-        return true;
     }
 
-    private NotificationMessage toMessage(Notifications notification, NotificationMessageType messageType) {
-        return NotificationMessage.builder()
-                .id(notification.getId())
-                .notificationType(notification.getType())
-                .notificationMessageType(messageType)
-                .recipient(notification.getRecipient())
-                .subject(notification.getSubject())
-                .content(notification.getContent())
-                .build();
+    private Notifications toEntity(NotificationRequest request) {
+        Notifications notification = new Notifications();
+        notification.setType(NotificationType.fromString(request.getType().name().toUpperCase()));
+        notification.setRecipient(request.getRecipient());
+        notification.setSubject(request.getSubject());
+        notification.setContent(request.getContent());
+        notification.setPriority(NotificationPriority.orDefault(request.getPriority()));
+        return notification;
     }
 }
@@ -1,144 +1,1037 @@
 package com.example.demo.util;
 
 import com.example.demo.config.AppProperties;
+import com.example.demo.dto.NotificationCursor;
+import com.example.demo.enums.DedupState;
 import com.example.demo.model.Notifications;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Component;
 import org.apache.commons.collections.CollectionUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 @Component
-@RequiredArgsConstructor
 public class RedisUtil {
 
+    // must match NotificationRepository#findTop10ByOrderByCreatedAtDesc
+    public static final int RECENT_LIST_SIZE = 10;
+
+    // KEYS: zset, bodies hash, pending zset, pending bodies hash (see recentListKeys).
+    // ARGV: size, ttl millis, only-if-exists, pending ttl millis, then score/member/body triples.
+    // While the list is cold, only-if-exists adds are parked in the pending keys; a populate merges
+    // them, so a write made between the rebuild's DB read and its populate is not lost
+    private static final RedisScript<Long> ADD_RECENT_SCRIPT = RedisScript.of("""
+            if ARGV[3] == '1' and redis.call('EXISTS', KEYS[1]) == 0 then
+                for i = 5, #ARGV, 3 do
+                    redis.call('ZADD', KEYS[3], ARGV[i], ARGV[i + 1])
+                    redis.call('HSET', KEYS[4], ARGV[i + 1], ARGV[i + 2])
+                end
+                redis.call('PEXPIRE', KEYS[3], ARGV[4])
+                redis.call('PEXPIRE', KEYS[4], ARGV[4])
+                return 0
+            end
+            for i = 5, #ARGV, 3 do
+                redis.call('ZADD', KEYS[1], ARGV[i], ARGV[i + 1])
+                redis.call('HSET', KEYS[2], ARGV[i + 1], ARGV[i + 2])
+            end
+            local removed = 0
+            if ARGV[3] == '0' then
+                local pending = redis.call('ZRANGE', KEYS[3], 0, -1, 'WITHSCORES')
+                for i = 1, #pending, 2 do
+                    redis.call('ZADD', KEYS[1], pending[i + 1], pending[i])
+                end
+                -- latest body per member, '' if it was removed
+                local bodies = redis.call('HGETALL', KEYS[4])
+                for i = 1, #bodies, 2 do
+                    if bodies[i + 1] == '' then
+                        removed = removed + redis.call('ZREM', KEYS[1], bodies[i])
+                        redis.call('HDEL', KEYS[2], bodies[i])
+                    elseif redis.call('ZSCORE', KEYS[1], bodies[i]) then
+                        redis.call('HSET', KEYS[2], bodies[i], bodies[i + 1])
+                    end
+                end
+                redis.call('DEL', KEYS[3], KEYS[4])
+            end
+            local stale = redis.call('ZRANGE', KEYS[1], 0, -(tonumber(ARGV[1]) + 1))
+            if #stale > 0 then
+                redis.call('ZREM', KEYS[1], unpack(stale))
+                redis.call('HDEL', KEYS[2], unpack(stale))
+            end
+            -- same rule as a remove: a list left short by it stays cold
+            if removed > 0 and redis.call('ZCARD', KEYS[1]) < tonumber(ARGV[1]) then
+                redis.call('DEL', KEYS[1], KEYS[2])
+                return 0
+            end
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            redis.call('PEXPIRE', KEYS[2], ARGV[2])
+            return 1
+            """, Long.class);
+
+    // ARGV: member, body, pending ttl millis
+    private static final RedisScript<Long> UPDATE_RECENT_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                redis.call('HSET', KEYS[4], ARGV[1], ARGV[2])
+                redis.call('PEXPIRE', KEYS[4], ARGV[3])
+                return 0
+            end
+            if redis.call('ZSCORE', KEYS[1], ARGV[1]) then
+                redis.call('HSET', KEYS[2], ARGV[1], ARGV[2])
+                return 1
+            end
+            return 0
+            """, Long.class);
+
+    // ARGV: size, pending ttl millis, then members. Removals while cold (or that leave the list
+    // cold) are parked as '' bodies, so a rebuild that read the DB before them drops them again
+    private static final RedisScript<Long> REMOVE_RECENT_SCRIPT = RedisScript.of("""
+            local removed = 0
+            for i = 3, #ARGV do
+                removed = removed + redis.call('ZREM', KEYS[1], ARGV[i])
+                redis.call('HDEL', KEYS[2], ARGV[i])
+            end
+            if removed > 0 and redis.call('ZCARD', KEYS[1]) < tonumber(ARGV[1]) then
+                redis.call('DEL', KEYS[1], KEYS[2])
+            end
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                for i = 3, #ARGV do
+                    redis.call('ZREM', KEYS[3], ARGV[i])
+                    redis.call('HSET', KEYS[4], ARGV[i], '')
+                end
+                redis.call('PEXPIRE', KEYS[4], ARGV[2])
+            end
+            return removed
+            """, Long.class);
+
+    // KEYS: lease. ARGV: owner token
+    private static final RedisScript<Long> RELEASE_LEASE_SCRIPT = RedisScript.of("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    // ARGV: size
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final RedisScript<List<byte[]>> READ_RECENT_SCRIPT = (RedisScript) RedisScript.of("""
+            local ids = redis.call('ZREVRANGE', KEYS[1], 0, tonumber(ARGV[1]) - 1)
+            if #ids == 0 then
+                return {}
+            end
+            return redis.call('HMGET', KEYS[2], unpack(ids))
+            """, List.class);
+
+    // KEYS: inbox zset, pending zset, removed set (see inboxKeys). ARGV: size, ttl millis, end marker,
+    // only-if-exists, pending ttl millis, then score/member pairs.
+    // An add to a cold inbox is parked in the pending zset. A fill only writes an inbox that is still
+    // cold, and merges what was parked (and drops what was removed) since its DB read
+    private static final RedisScript<Long> ADD_INBOX_SCRIPT = RedisScript.of("""
+            local exists = redis.call('EXISTS', KEYS[1]) == 1
+            if ARGV[4] == '1' and not exists then
+                for i = 6, #ARGV, 2 do
+                    redis.call('ZADD', KEYS[2], ARGV[i], ARGV[i + 1])
+                end
+                redis.call('PEXPIRE', KEYS[2], ARGV[5])
+                return 0
+            end
+            if ARGV[4] == '0' and exists then
+                -- filled by another reader meanwhile, possibly from a newer snapshot
+                return 0
+            end
+            for i = 6, #ARGV, 2 do
+                redis.call('ZADD', KEYS[1], ARGV[i], ARGV[i + 1])
+            end
+            if ARGV[4] == '0' then
+                local pending = redis.call('ZRANGE', KEYS[2], 0, -1, 'WITHSCORES')
+                for i = 1, #pending, 2 do
+                    redis.call('ZADD', KEYS[1], pending[i + 1], pending[i])
+                end
+                local removed = redis.call('SMEMBERS', KEYS[3])
+                if #removed > 0 then
+                    redis.call('ZREM', KEYS[1], unpack(removed))
+                end
+                redis.call('DEL', KEYS[2], KEYS[3])
+            end
+            -- the end marker sorts first, so trimming drops it as soon as older ids are dropped
+            local keep = tonumber(ARGV[1])
+            if redis.call('ZSCORE', KEYS[1], ARGV[3]) then
+                keep = keep + 1
+            end
+            redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -(keep + 1))
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """, Long.class);
+
+    // KEYS: as ADD_INBOX_SCRIPT. ARGV: pending ttl millis, then members.
+    // A removal from a cold inbox is remembered, so a fill that read the DB before it drops the ids
+    private static final RedisScript<Long> REMOVE_INBOX_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+                return redis.call('ZREM', KEYS[1], unpack(ARGV, 2))
+            end
+            redis.call('ZREM', KEYS[2], unpack(ARGV, 2))
+            redis.call('SADD', KEYS[3], unpack(ARGV, 2))
+            redis.call('PEXPIRE', KEYS[3], ARGV[1])
+            return 0
+            """, Long.class);
+
+    // ARGV: after member ('' for the first page), count. nil if cold or the cursor is not in there
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final RedisScript<List<byte[]>> READ_INBOX_SCRIPT = (RedisScript) RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                return false
+            end
+            local start = 0
+            if ARGV[1] ~= '' then
+                local rank = redis.call('ZREVRANK', KEYS[1], ARGV[1])
+                if not rank then
+                    return false
+                end
+                start = rank + 1
+            end
+            return redis.call('ZREVRANGE', KEYS[1], start, start + tonumber(ARGV[2]) - 1)
+            """, List.class);
+
+    // inbox member below every real id: present = the inbox holds the recipient's whole history
+    private static final long INBOX_END_ID = 0L;
+
+    // KEYS: sequence counter. ARGV: count. nil if the counter is cold
+    private static final RedisScript<Long> NEXT_SEQ_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                return false
+            end
+            return redis.call('INCRBY', KEYS[1], ARGV[1])
+            """, Long.class);
+
+    // Unread state per recipient: a bitmap with bit (seq - base - 1) set while unread, and a hash
+    // with the count of set bits and the base (every seq <= base is read). Mark-all moves the base,
+    // so the bitmap only ever spans the notifications since the last mark-all. While the state is
+    // cold, new unread sequences and deleted ones are parked in two sets for the rebuild to apply.
+    // All scripts take KEYS: bitmap, meta, parked unread, parked deleted (see readStateKeys).
+
+    // ARGV: ttl millis, pending ttl millis, then sequences
+    private static final RedisScript<Long> MARK_UNREAD_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[2]) == 0 then
+                for i = 3, #ARGV do
+                    redis.call('SADD', KEYS[3], ARGV[i])
+                end
+                redis.call('PEXPIRE', KEYS[3], ARGV[2])
+                return 0
+            end
+            local base = tonumber(redis.call('HGET', KEYS[2], 'base'))
+            for i = 3, #ARGV do
+                local seq = tonumber(ARGV[i])
+                if seq > base and redis.call('SETBIT', KEYS[1], seq - base - 1, 1) == 0 then
+                    redis.call('HINCRBY', KEYS[2], 'count', 1)
+                end
+            end
+            redis.call('PEXPIRE', KEYS[1], ARGV[1])
+            redis.call('PEXPIRE', KEYS[2], ARGV[1])
+            return 1
+            """, Long.class);
+
+    // ARGV: ttl millis, pending ttl millis ('' to not park while cold), then sequences.
+    // Returns how many were unread, -1 if cold
+    private static final RedisScript<Long> MARK_READ_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[2]) == 0 then
+                if ARGV[2] ~= '' then
+                    for i = 3, #ARGV do
+                        redis.call('SREM', KEYS[3], ARGV[i])
+                        redis.call('SADD', KEYS[4], ARGV[i])
+                    end
+                    redis.call('PEXPIRE', KEYS[4], ARGV[2])
+                end
+                return -1
+            end
+            local base = tonumber(redis.call('HGET', KEYS[2], 'base'))
+            local cleared = 0
+            for i = 3, #ARGV do
+                local seq = tonumber(ARGV[i])
+                -- GETBIT first: SETBIT 0 past the end would still grow the bitmap
+                if seq > base and redis.call('GETBIT', KEYS[1], seq - base - 1) == 1 then
+                    redis.call('SETBIT', KEYS[1], seq - base - 1, 0)
+                    cleared = cleared + 1
+                end
+            end
+            if cleared > 0 then
+                redis.call('HINCRBY', KEYS[2], 'count', -cleared)
+            end
+            redis.call('PEXPIRE', KEYS[1], ARGV[1])
+            redis.call('PEXPIRE', KEYS[2], ARGV[1])
+            return cleared
+            """, Long.class);
+
+    // KEYS: as above, then the sequence counter. ARGV: ttl millis. Returns the new base, the last
+    // sequence handed out; anything parked is at most that and so read too
+    private static final RedisScript<Long> MARK_ALL_READ_SCRIPT = RedisScript.of("""
+            local base = tonumber(redis.call('GET', KEYS[5]) or '0')
+            redis.call('DEL', KEYS[1], KEYS[3], KEYS[4])
+            redis.call('HSET', KEYS[2], 'count', 0, 'base', base)
+            redis.call('PEXPIRE', KEYS[2], ARGV[1])
+            return base
+            """, Long.class);
+
+    // ARGV: ttl millis, base, then the unread sequences. 0 if someone else filled it first.
+    // Parked unread sequences may lie below base (created before a later one the snapshot saw):
+    // base moves down to take them, the bits in between start out read
+    private static final RedisScript<Long> POPULATE_UNREAD_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[2]) == 1 then
+                return 0
+            end
+            redis.call('DEL', KEYS[1])
+            local base = tonumber(ARGV[2])
+            local unread = {}
+            for i = 3, #ARGV do
+                unread[tonumber(ARGV[i])] = true
+            end
+            for _, seq in ipairs(redis.call('SMEMBERS', KEYS[3])) do
+                seq = tonumber(seq)
+                unread[seq] = true
+                base = math.min(base, seq - 1)
+            end
+            for _, seq in ipairs(redis.call('SMEMBERS', KEYS[4])) do
+                unread[tonumber(seq)] = nil
+            end
+            local count = 0
+            for seq in pairs(unread) do
+                redis.call('SETBIT', KEYS[1], seq - base - 1, 1)
+                count = count + 1
+            end
+            redis.call('DEL', KEYS[3], KEYS[4])
+            redis.call('HSET', KEYS[2], 'count', count, 'base', base)
+            redis.call('PEXPIRE', KEYS[1], ARGV[1])
+            redis.call('PEXPIRE', KEYS[2], ARGV[1])
+            return 1
+            """, Long.class);
+
+    private static final String NOTIFICATION = "notification";
+    private static final String RECENT = "recent";
+    private static final String LEASE = "lease";
+    private static final String DEDUP = "dedup";
+    private static final String DEDUP_PROCESSING = "processing";
+    private static final String DEDUP_DONE = "done";
+    private static final String INBOX = "inbox";
+    private static final String READ_STATE = "read-state";
+
+    private record OperationTimers(Timer success, Timer error) {
+    }
+
     private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
     private final AppProperties appProperties;
+    private final MeterRegistry meterRegistry;
+    // meters by tag values, registered once rather than looked up in the registry on every call
+    private final Map<String, Map<String, OperationTimers>> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> hits = new HashMap<>();
+    private final Map<String, Counter> misses = new HashMap<>();
+
+    public RedisUtil(RedisTemplate<String, Object> redisTemplate,
+                     StringRedisTemplate stringRedisTemplate,
+                     AppProperties appProperties,
+                     MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.appProperties = appProperties;
+        this.meterRegistry = meterRegistry;
+        for (String family : List.of(NOTIFICATION, RECENT, DEDUP, INBOX, READ_STATE)) {
+            hits.put(family, lookupCounter(family, "hit"));
+            misses.put(family, lookupCounter(family, "miss"));
+        }
+    }
 
     public Optional<Notifications> findNotificationById(Long id) {
-        String key = appProperties.getRedis().getNotificationKeyPrefix() + id;
-        Object cachedObject = redisTemplate.opsForValue().get(key);
-        if (cachedObject instanceof Notifications notification) {
-            return Optional.of(notification);
+        return timed(NOTIFICATION, "get", () -> {
+            String key = appProperties.getRedis().getNotificationKeyPrefix() + id;
+            Object cachedObject = redisTemplate.opsForValue().get(key);
+            if (cachedObject instanceof Notifications notification) {
+                lookup(NOTIFICATION, 1, 0);
+                return Optional.of(notification);
+            }
+            lookup(NOTIFICATION, 0, 1);
+            return Optional.empty();
+        });
+    }
+
+    /**
+     * Look up many notifications with one MGET.
+     *
+     * @return cached notifications by id, misses are absent
+     */
+    public Map<Long, Notifications> findNotificationsByIds(Collection<Long> ids) {
+        if (CollectionUtils.isEmpty(ids)) {
+            return Map.of();
         }
-        return Optional.empty();
+
+        return timed(NOTIFICATION, "mget", () -> {
+            String keyPrefix = appProperties.getRedis().getNotificationKeyPrefix();
+            List<Long> idList = new ArrayList<>(ids);
+            List<Object> cachedObjects = redisTemplate.opsForValue().multiGet(idList.stream().map(id -> keyPrefix + id).toList());
+
+            Map<Long, Notifications> found = new HashMap<>();
+            if (cachedObjects != null) {
+                for (int i = 0; i < idList.size(); i++) {
+                    if (cachedObjects.get(i) instanceof Notifications notification) {
+                        found.put(idList.get(i), notification);
+                    }
+                }
+            }
+            lookup(NOTIFICATION, found.size(), idList.size() - found.size());
+            return found;
+        });
     }
 
+    /**
+     * Read the recent list in one round trip: ids from the ZSET, bodies from the hash.
+     * Returns an empty list if the list is cold or a body is missing, so the caller rebuilds it.
+     */
     public List<Notifications> findRecentNotifications() {
-        String recentListKey = appProperties.getRedis().getRecentListKey();
+        return timed(RECENT, "read", () -> {
+            List<byte[]> bodies = executeScript(READ_RECENT_SCRIPT,
+                    String.valueOf(RECENT_LIST_SIZE).getBytes(StandardCharsets.UTF_8));
+
+            List<Notifications> notifications = new ArrayList<>(bodies == null ? 0 : bodies.size());
+            if (bodies != null) {
+                for (byte[] body : bodies) {
+                    if (body == null || !(redisTemplate.getValueSerializer().deserialize(body) instanceof Notifications notification)) {
+                        notifications.clear();
+                        break;
+                    }
+                    notifications.add(notification);
+                }
+            }
+            lookup(RECENT, notifications.isEmpty() ? 0 : 1, notifications.isEmpty() ? 1 : 0);
+            return notifications;
+        });
+    }
+
+    public void cacheNotification(Notifications notification) {
+        timed(NOTIFICATION, "set", () -> {
+            String key = appProperties.getRedis().getNotificationKeyPrefix() + notification.getId();
+            redisTemplate.opsForValue().set(key, notification, 10, TimeUnit.MINUTES);
+        });
+    }
+
+    /**
+     * Cache all notifications with one pipelined round trip.
+     */
+    public void cacheNotifications(List<Notifications> notifications) {
+        if (CollectionUtils.isEmpty(notifications)) {
+            return;
+        }
 
-        // get ZSET
-        Set<Object> objects = redisTemplate.opsForZSet().reverseRange(recentListKey, 0, -1);
+        timed(NOTIFICATION, "mset", () -> {
+            String keyPrefix = appProperties.getRedis().getNotificationKeyPrefix();
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) {
+                    for (Notifications notification : notifications) {
+                        operations.opsForValue().set(keyPrefix + notification.getId(), notification, 10, TimeUnit.MINUTES);
+                    }
+                    // executePipelined collects the results itself
+                    return null;
+                }
+            });
+        });
+    }
 
-        if (CollectionUtils.isEmpty(objects)) {
+    /**
+     * Rebuild the recent list from DB rows. Merges instead of replacing, and also merges the writes
+     * parked while the list was cold (see ADD_RECENT_SCRIPT), so a create, update or delete that
+     * committed after the DB read is not lost; the script trims to size.
+     */
+    public void populateRecentList(List<Notifications> notifications) {
+        if (CollectionUtils.isEmpty(notifications)) {
+            return;
+        }
+        timed(RECENT, "populate", () -> executeScript(ADD_RECENT_SCRIPT, recentListArgs(notifications, false)));
+    }
+
+    public void deleteNotification(Long id) {
+        timed(NOTIFICATION, "delete", () -> redisTemplate.delete(appProperties.getRedis().getNotificationKeyPrefix() + id));
+    }
+
+    /**
+     * Delete many notification keys with one DEL.
+     */
+    public void deleteNotifications(Collection<Long> ids) {
+        if (CollectionUtils.isEmpty(ids)) {
+            return;
+        }
+        String keyPrefix = appProperties.getRedis().getNotificationKeyPrefix();
+        timed(NOTIFICATION, "mdelete", () -> redisTemplate.delete(ids.stream().map(id -> keyPrefix + id).toList()));
+    }
+
+    public void clearRecentList() {
+        timed(RECENT, "clear", () -> redisTemplate.delete(recentListKeys()));
+    }
+
+    /**
+     * Take a lease owned by {@code token}; only the owner can release it.
+     */
+    public boolean acquireLease(String key, String token, Duration ttl) {
+        return timed(LEASE, "acquire", () -> Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(key, token, ttl)));
+    }
+
+    /**
+     * Compare-and-delete, so a holder whose lease already expired cannot drop the next holder's lease.
+     */
+    public boolean releaseLease(String key, String token) {
+        return timed(LEASE, "release", () -> {
+            Long released = stringRedisTemplate.execute(RELEASE_LEASE_SCRIPT, List.of(key), token);
+            return released != null && released > 0;
+        });
+    }
+
+    public String getLockKey(String key) {
+        return appProperties.getRedis().getRecentListKey() + ":" + key + ":lock";
+    }
+
+    /**
+     * Claim messages for handling, one pipelined round trip for the whole list: a key not seen
+     * before is set to "processing" for {@code inProgressTtl} (SET NX). Claims of a consumer that
+     * died run out on their own, so the message is handled on a later redelivery.
+     *
+     * @return per key, FRESH if claimed here, DONE if already handled, IN_PROGRESS if claimed elsewhere
+     */
+    public List<DedupState> claimProcessing(List<String> dedupKeys, Duration inProgressTtl) {
+        if (dedupKeys.isEmpty()) {
             return List.of();
         }
 
-        // convert
-        return objects.stream()
-                // convert ZSET (SET) into List via stream api
-                .map(obj -> (Notifications) obj)
-                .collect(Collectors.toList());
+        return timed(DEDUP, "claim", () -> {
+            List<Object> results = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) {
+                    for (String dedupKey : dedupKeys) {
+                        operations.opsForValue().setIfAbsent(dedupKey(dedupKey), DEDUP_PROCESSING, inProgressTtl);
+                        operations.opsForValue().get(dedupKey(dedupKey));
+                    }
+                    return null;
+                }
+            });
+
+            List<DedupState> states = new ArrayList<>(dedupKeys.size());
+            for (int i = 0; i < dedupKeys.size(); i++) {
+                if (Boolean.TRUE.equals(results.get(i * 2))) {
+                    states.add(DedupState.FRESH);
+                } else {
+                    // gone again between SET and GET: the other claim ran out, retry later
+                    states.add(DEDUP_DONE.equals(results.get(i * 2 + 1)) ? DedupState.DONE : DedupState.IN_PROGRESS);
+                }
+            }
+            // a "hit" here is a duplicate
+            long duplicates = states.stream().filter(state -> state == DedupState.DONE).count();
+            lookup(DEDUP, duplicates, states.size() - duplicates);
+            return states;
+        });
     }
 
-    public void cacheNotification(Notifications notification) {
-        String key = appProperties.getRedis().getNotificationKeyPrefix() + notification.getId();
-        redisTemplate.opsForValue().set(key, notification, 10, TimeUnit.MINUTES);
+    /**
+     * Mark claimed messages handled, remembered for {@code window} so redeliveries are skipped.
+     */
+    public void markProcessed(List<String> dedupKeys, Duration window) {
+        if (dedupKeys.isEmpty()) {
+            return;
+        }
+        timed(DEDUP, "mark", () -> {
+            stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) {
+                    dedupKeys.forEach(dedupKey -> operations.opsForValue().set(dedupKey(dedupKey), DEDUP_DONE, window));
+                    return null;
+                }
+            });
+        });
     }
 
-    public void populateRecentList(List<Notifications> notifications) {
-        String recentListKey = appProperties.getRedis().getRecentListKey();
+    /**
+     * Drop claims again, used when handling failed and the message will be redelivered.
+     */
+    public void releaseProcessing(List<String> dedupKeys) {
+        if (dedupKeys.isEmpty()) {
+            return;
+        }
+        timed(DEDUP, "release", () -> {
+            // one DEL per key, the keys are in different cluster slots
+            stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) {
+                    dedupKeys.forEach(dedupKey -> operations.delete(dedupKey(dedupKey)));
+                    return null;
+                }
+            });
+        });
+    }
+
+    private String dedupKey(String dedupKey) {
+        return appProperties.getRedis().getDedupKeyPrefix() + dedupKey;
+    }
 
+    /**
+     * Add new notifications to the recent list (ZADD + HSET + trim in one script).
+     * While the list is cold they are parked for the next rebuild instead, otherwise the list would
+     * look warm with only these entries.
+     */
+    public void addNotificationToRecentList(Notifications notification) {
+        addNotificationsToRecentList(List.of(notification));
+    }
+
+    public void addNotificationsToRecentList(List<Notifications> notifications) {
         if (CollectionUtils.isEmpty(notifications)) {
             return;
         }
+        timed(RECENT, "add", () -> executeScript(ADD_RECENT_SCRIPT, recentListArgs(notifications, true)));
+    }
 
-        // prep for ZSET strucutre
-        Set<ZSetOperations.TypedTuple<Object>> tuples = notifications.stream()
-                .map(notification -> {
-                    // using create date time as scor
-                    double score = notification.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli();
+    /**
+     * Replace the cached body, only if the notification is currently in the recent list
+     * (or parked for the next rebuild while the list is cold).
+     */
+    public void updateNotificationInRecentList(Notifications notification) {
+        timed(RECENT, "update", () -> executeScript(UPDATE_RECENT_SCRIPT,
+                recentListMember(notification.getId()),
+                serializeValue(notification),
+                pendingTtlArg()));
+    }
 
-                    // create typedTuple: include score and member (Notification field)
-                    return ZSetOperations.TypedTuple.of((Object) notification, score);
-                })
-                .collect(Collectors.toSet());
+    /**
+     * Remove the notification from the recent list. If that leaves the list short, the list is
+     * dropped so the next read rebuilds it with the next-newest row from the DB.
+     */
+    public void removeNotificationFromRecentList(Notifications notification) {
+        removeNotificationsFromRecentList(List.of(notification.getId()));
+    }
 
-        // run ZADD to put Set and score into ZSET atomically
-        redisTemplate.opsForZSet().add(recentListKey, tuples);
+    public void removeNotificationsFromRecentList(Collection<Long> ids) {
+        if (CollectionUtils.isEmpty(ids)) {
+            return;
+        }
+        Object[] args = new Object[2 + ids.size()];
+        args[0] = String.valueOf(RECENT_LIST_SIZE).getBytes(StandardCharsets.UTF_8);
+        args[1] = pendingTtlArg();
+        int i = 2;
+        for (Long id : ids) {
+            args[i++] = recentListMember(id);
+        }
+        timed(RECENT, "remove", () -> executeScript(REMOVE_RECENT_SCRIPT, args));
+    }
 
-        // (可選/推薦) 進行定長修剪，以防載入過多歷史數據
-        // make sure keep top 10
-        redisTemplate.opsForZSet().removeRange(recentListKey, 0, -11);
+    /**
+     * Up to {@code count} ids of the recipient's inbox after {@code afterId}, newest first, in one round trip.
+     *
+     * @param afterId last id of the previous page, null for the first page
+     * @return empty if the inbox is cold or {@code afterId} is no longer in it; the caller reads the DB
+     */
+    public Optional<InboxSlice> findInboxPage(String recipient, Long afterId, int count) {
+        return timed(INBOX, "read", () -> {
+            List<byte[]> members = executeScript(READ_INBOX_SCRIPT, inboxKeys(recipient),
+                    afterId == null ? new byte[0] : recentListMember(afterId),
+                    String.valueOf(count).getBytes(StandardCharsets.UTF_8));
+            // Lettuce hands a nil reply to a multi-bulk script back as a list holding null
+            if (members == null || members.contains(null)) {
+                lookup(INBOX, 0, 1);
+                return Optional.empty();
+            }
+            List<Long> ids = new ArrayList<>(members.size());
+            boolean endOfInbox = false;
+            for (byte[] member : members) {
+                long id = Long.parseLong(new String(member, StandardCharsets.UTF_8));
+                if (id == INBOX_END_ID) {
+                    endOfInbox = true;
+                } else {
+                    ids.add(id);
+                }
+            }
+            lookup(INBOX, 1, 0);
+            return Optional.of(new InboxSlice(ids, endOfInbox));
+        });
     }
 
-    public void deleteNotification(Long id) {
-        String key = appProperties.getRedis().getNotificationKeyPrefix() + id;
-        redisTemplate.delete(key);
+    /**
+     * Fill a cold inbox from the DB. A no-op if the inbox got filled meanwhile; ids added to or
+     * removed from the inbox since {@code newest} was read are applied on top.
+     *
+     * @param newest   the recipient's newest rows, newest first, at most inbox-size
+     * @param complete true if these are all of the recipient's rows
+     */
+    public void populateInbox(String recipient, List<NotificationCursor> newest, boolean complete) {
+        List<Object> args = new ArrayList<>(inboxScriptArgs(false));
+        for (NotificationCursor cursor : newest) {
+            args.add(String.valueOf(cursor.createdAt().toInstant(ZoneOffset.UTC).toEpochMilli()).getBytes(StandardCharsets.UTF_8));
+            args.add(recentListMember(cursor.id()));
+        }
+        if (complete) {
+            args.add("-1".getBytes(StandardCharsets.UTF_8));
+            args.add(recentListMember(INBOX_END_ID));
+        }
+        timed(INBOX, "populate", () -> executeScript(ADD_INBOX_SCRIPT, inboxKeys(recipient), args.toArray()));
     }
-    public void clearRecentList() {
-        String recentListKey = appProperties.getRedis().getRecentListKey();
-        redisTemplate.delete(recentListKey);
+
+    /**
+     * Push new notifications into their recipients' inboxes, one script call per recipient since
+     * each inbox may live in its own cluster slot. Adds to a cold inbox are parked for a concurrent fill.
+     */
+    public void addNotificationToInbox(Notifications notification) {
+        addNotificationsToInboxes(List.of(notification));
     }
 
-    public Boolean setnxWithExpiration(String key, String value, Duration timeout) {
-        return redisTemplate.opsForValue().setIfAbsent(key, value, timeout);
+    public void addNotificationsToInboxes(List<Notifications> notifications) {
+        if (CollectionUtils.isEmpty(notifications)) {
+            return;
+        }
+        Map<String, List<Notifications>> byRecipient = new LinkedHashMap<>();
+        notifications.forEach(notification ->
+                byRecipient.computeIfAbsent(notification.getRecipient(), recipient -> new ArrayList<>()).add(notification));
+
+        timed(INBOX, "add", () -> byRecipient.forEach((recipient, recipientNotifications) -> {
+            List<Object> args = new ArrayList<>(inboxScriptArgs(true));
+            for (Notifications notification : recipientNotifications) {
+                args.add(String.valueOf(notification.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli()).getBytes(StandardCharsets.UTF_8));
+                args.add(recentListMember(notification.getId()));
+            }
+            executeScript(ADD_INBOX_SCRIPT, inboxKeys(recipient), args.toArray());
+        }));
     }
 
-    public String getLockKey(String key) {
-        return appProperties.getRedis().getRecentListKey() + ":" + key + ":lock";
+    public void removeNotificationFromInbox(Notifications notification) {
+        removeNotificationsFromInbox(notification.getRecipient(), List.of(notification.getId()));
     }
 
-    public void deleteKey(String key) {
-        redisTemplate.delete(key);
+    /**
+     * @param ids of one recipient
+     */
+    public void removeNotificationsFromInbox(String recipient, Collection<Long> ids) {
+        if (CollectionUtils.isEmpty(ids)) {
+            return;
+        }
+        List<Object> args = new ArrayList<>(ids.size() + 1);
+        args.add(inboxPendingTtlArg());
+        ids.forEach(id -> args.add(recentListMember(id)));
+        timed(INBOX, "remove", () -> executeScript(REMOVE_INBOX_SCRIPT, inboxKeys(recipient), args.toArray()));
     }
 
-    // unused method
-    public void addNotificationToRecentList(Notifications notification) {
-        String recentListKey = appProperties.getRedis().getRecentListKey();
+    private List<Object> inboxScriptArgs(boolean onlyIfExists) {
+        AppProperties.Redis properties = appProperties.getRedis();
+        return List.of(
+                String.valueOf(properties.getInboxSize()).getBytes(StandardCharsets.UTF_8),
+                String.valueOf(properties.getInboxTtl().toMillis()).getBytes(StandardCharsets.UTF_8),
+                recentListMember(INBOX_END_ID),
+                (onlyIfExists ? "1" : "0").getBytes(StandardCharsets.UTF_8),
+                inboxPendingTtlArg());
+    }
 
-        // 1. Score: 使用創建時間的毫秒級時間戳作為 Score
-        double score = notification.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli();
+    private byte[] inboxPendingTtlArg() {
+        return String.valueOf(appProperties.getRedis().getInboxPendingTtl().toMillis()).getBytes(StandardCharsets.UTF_8);
+    }
 
-        // 2. ZADD (新增/更新):
-        //    ZADD 是原子操作。如果 notification 已經存在 (基於序列化的 JSON)，
-        //    ZADD 會更新它的 score，在 create/update 時都調用它，可以處理新增和更新。
-        redisTemplate.opsForZSet().add(recentListKey, notification, score);
+    // hash tag keeps the inbox and its parked writes in one cluster slot for the scripts
+    private List<String> inboxKeys(String recipient) {
+        String inboxKey = appProperties.getRedis().getInboxKeyPrefix() + "{" + recipient + "}";
+        return List.of(inboxKey, inboxKey + ":pending", inboxKey + ":removed");
+    }
 
-        // 3. 定長維護 (原子操作): 移除除了最高 10 分之外的所有元素
-        //    注意：ZSET 是升序排列 (分數越低越舊)，所以這邊移除最舊的元素。
-        redisTemplate.opsForZSet().removeRange(recentListKey, 0, -11);
+    /**
+     * @param ids        inbox ids in order, newest first
+     * @param endOfInbox true if the recipient has nothing older than the last of {@code ids}
+     */
+    public record InboxSlice(List<Long> ids, boolean endOfInbox) {
     }
 
-    public void updateNotificationInRecentList(Notifications notification) {
-        String recentListKey = appProperties.getRedis().getRecentListKey();
+    /**
+     * Hand out {@code count} consecutive sequence numbers of the recipient.
+     *
+     * @return the last of them, null if the counter is cold (see {@link #seedRecipientSeq})
+     */
+    public Long nextRecipientSeq(String recipient, int count) {
+        return timed(READ_STATE, "next-seq", () ->
+                stringRedisTemplate.execute(NEXT_SEQ_SCRIPT, List.of(sequenceKey(recipient)), String.valueOf(count)));
+    }
 
-        // ZADD 命令如果 ID 存在，會執行更新
-        redisTemplate.opsForZSet().add(
-                recentListKey,
-                notification,
-                notification.getCreatedAt().toEpochSecond(ZoneOffset.UTC) // 使用創建時間作為 Score
-        );
+    /**
+     * Start a cold counter at {@code lastSeq}; a no-op if another node got there first.
+     */
+    public void seedRecipientSeq(String recipient, long lastSeq) {
+        timed(READ_STATE, "seed-seq", () -> stringRedisTemplate.opsForValue().setIfAbsent(sequenceKey(recipient), String.valueOf(lastSeq)));
+    }
 
-        // 保持定長（原子操作）
-        redisTemplate.opsForZSet().removeRange(recentListKey, 0, -11); // 移除分數最低（最舊）的元素
+    /**
+     * Bulk {@link #nextRecipientSeq}, one script call per recipient since each counter may live in
+     * its own cluster slot.
+     *
+     * @return the last sequence handed out per recipient; cold counters are absent
+     */
+    public Map<String, Long> nextRecipientSeqs(Map<String, Integer> counts) {
+        return timed(READ_STATE, "next-seqs", () -> {
+            Map<String, Long> allocated = new HashMap<>();
+            counts.forEach((recipient, count) -> {
+                Long last = stringRedisTemplate.execute(NEXT_SEQ_SCRIPT, List.of(sequenceKey(recipient)), String.valueOf(count));
+                if (last != null) {
+                    allocated.put(recipient, last);
+                }
+            });
+            return allocated;
+        });
     }
 
+    /**
+     * Bulk {@link #seedRecipientSeq}, pipelined.
+     */
+    public void seedRecipientSeqs(Map<String, Long> lastSeqs) {
+        timed(READ_STATE, "seed-seqs", () -> stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                lastSeqs.forEach((recipient, lastSeq) ->
+                        operations.opsForValue().setIfAbsent(sequenceKey(recipient), String.valueOf(lastSeq)));
+                return null;
+            }
+        }));
+    }
 
-    public void removeNotificationFromRecentList(Notifications notification) {
-        String recentListKey = appProperties.getRedis().getRecentListKey();
+    public Optional<Long> findRecipientSeq(String recipient) {
+        return timed(READ_STATE, "get-seq", () ->
+                Optional.ofNullable(stringRedisTemplate.opsForValue().get(sequenceKey(recipient))).map(Long::parseLong));
+    }
+
+    /**
+     * Set the unread bit of new notifications, one script call per recipient. For recipients whose
+     * state is cold the sequences are parked, for a rebuild that read the DB before these rows.
+     */
+    public void markUnread(List<Notifications> notifications) {
+        Map<String, List<Long>> byRecipient = new LinkedHashMap<>();
+        notifications.stream()
+                .filter(notification -> notification.getRecipientSeq() > 0)
+                .forEach(notification -> byRecipient.computeIfAbsent(notification.getRecipient(), recipient -> new ArrayList<>())
+                        .add(notification.getRecipientSeq()));
+        if (byRecipient.isEmpty()) {
+            return;
+        }
+
+        timed(READ_STATE, "mark-unread", () -> byRecipient.forEach((recipient, seqs) ->
+                stringRedisTemplate.execute(MARK_UNREAD_SCRIPT, readStateKeys(recipient), readStateArgs(seqs, true))));
+    }
+
+    /**
+     * Clear the unread bits of {@code seqs}.
+     *
+     * @return how many of them were unread, -1 if the recipient's state is cold
+     */
+    public long markRead(String recipient, Collection<Long> seqs) {
+        if (seqs.isEmpty()) {
+            return 0;
+        }
+        Long cleared = timed(READ_STATE, "mark-read", () -> stringRedisTemplate.execute(MARK_READ_SCRIPT,
+                readStateKeys(recipient), readStateArgs(seqs, false)));
+        return cleared == null ? -1 : cleared;
+    }
+
+    /**
+     * {@link #markRead} for deleted notifications: with cold state the sequences are parked instead,
+     * so a rebuild that still read the rows does not count them.
+     */
+    public void markDeleted(String recipient, Collection<Long> seqs) {
+        if (seqs.isEmpty()) {
+            return;
+        }
+        timed(READ_STATE, "mark-deleted", () -> stringRedisTemplate.execute(MARK_READ_SCRIPT,
+                readStateKeys(recipient), readStateArgs(seqs, true)));
+    }
+
+    /**
+     * Everything handed out so far is read: drops the bitmap and moves the base, O(1).
+     *
+     * @return the new base; every sequence up to it is read
+     */
+    public long markAllRead(String recipient) {
+        List<String> keys = new ArrayList<>(readStateKeys(recipient));
+        keys.add(sequenceKey(recipient));
+        Long base = timed(READ_STATE, "mark-all-read", () -> stringRedisTemplate.execute(MARK_ALL_READ_SCRIPT, keys,
+                String.valueOf(appProperties.getReadState().getRedisTtl().toMillis())));
+        return base == null ? 0 : base;
+    }
+
+    /**
+     * @return empty if the recipient's state is cold
+     */
+    public Optional<Long> findUnreadCount(String recipient) {
+        return timed(READ_STATE, "count", () -> {
+            Object count = stringRedisTemplate.opsForHash().get(readStateKeys(recipient).get(1), "count");
+            lookup(READ_STATE, count != null ? 1 : 0, count != null ? 0 : 1);
+            return Optional.ofNullable(count).map(value -> Long.parseLong(value.toString()));
+        });
+    }
+
+    /**
+     * Fill cold state from the DB, plus the creates and deletes parked since it went cold.
+     *
+     * @param base       every sequence up to this one is read
+     * @param unreadSeqs the unread ones above it
+     * @return false if another caller filled it first
+     */
+    public boolean populateUnread(String recipient, long base, Collection<Long> unreadSeqs) {
+        List<String> args = new ArrayList<>(unreadSeqs.size() + 2);
+        args.add(String.valueOf(appProperties.getReadState().getRedisTtl().toMillis()));
+        args.add(String.valueOf(base));
+        unreadSeqs.forEach(seq -> args.add(String.valueOf(seq)));
+        Long filled = timed(READ_STATE, "populate", () ->
+                stringRedisTemplate.execute(POPULATE_UNREAD_SCRIPT, readStateKeys(recipient), args.toArray()));
+        return filled != null && filled > 0;
+    }
+
+    // ttl, pending ttl ('' = do not park), then the sequences
+    private Object[] readStateArgs(Collection<Long> seqs, boolean parkIfCold) {
+        AppProperties.ReadState properties = appProperties.getReadState();
+        List<String> args = new ArrayList<>(seqs.size() + 2);
+        args.add(String.valueOf(properties.getRedisTtl().toMillis()));
+        args.add(parkIfCold ? String.valueOf(properties.getPendingTtl().toMillis()) : "");
+        seqs.forEach(seq -> args.add(String.valueOf(seq)));
+        return args.toArray();
+    }
+
+    // hash tag keeps bitmap, meta, parked sets and counter in one cluster slot for the scripts
+    private List<String> readStateKeys(String recipient) {
+        String prefix = appProperties.getRedis().getReadStateKeyPrefix() + "{" + recipient + "}";
+        return List.of(prefix + ":bits", prefix + ":meta", prefix + ":parked-unread", prefix + ":parked-deleted");
+    }
+
+    private String sequenceKey(String recipient) {
+        return appProperties.getRedis().getSequenceKeyPrefix() + "{" + recipient + "}";
+    }
+
+    /**
+     * Latency per key family and operation ({@code notification.redis}), with an error outcome
+     * when the call throws.
+     */
+    private <T> T timed(String family, String operation, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        boolean failed = false;
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            failed = true;
+            throw e;
+        } finally {
+            OperationTimers operationTimers = operationTimers(family, operation);
+            sample.stop(failed ? operationTimers.error() : operationTimers.success());
+        }
+    }
+
+    private void timed(String family, String operation, Runnable call) {
+        timed(family, operation, () -> {
+            call.run();
+            return null;
+        });
+    }
 
-        // ZREM 是原子操作，它會根據 Member (Notification 物件) 的值來移除 ZSET 中的元素
-        // ZSET 的 Member 必須與 ZADD 時存入的 Member 完全匹配
-        redisTemplate.opsForZSet().remove(recentListKey, notification);
+    private OperationTimers operationTimers(String family, String operation) {
+        Map<String, OperationTimers> byOperation = timers.computeIfAbsent(family, f -> new ConcurrentHashMap<>());
+        OperationTimers operationTimers = byOperation.get(operation);
+        if (operationTimers == null) {
+            operationTimers = byOperation.computeIfAbsent(operation, op -> new OperationTimers(
+                    timer(family, op, "success"), timer(family, op, "error")));
+        }
+        return operationTimers;
     }
 
+    private Timer timer(String family, String operation, String outcome) {
+        return Timer.builder("notification.redis")
+                .tag("family", family)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private void lookup(String family, long hitCount, long missCount) {
+        if (hitCount > 0) {
+            hits.get(family).increment(hitCount);
+        }
+        if (missCount > 0) {
+            misses.get(family).increment(missCount);
+        }
+    }
+
+    private Counter lookupCounter(String family, String result) {
+        return Counter.builder("notification.redis.lookups").tag("family", family).tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Scripts take raw byte args (bodies are already serialized) and return raw bytes;
+     * integer replies come back as Long regardless of the result serializer.
+     */
+    private <T> T executeScript(RedisScript<T> script, Object... args) {
+        return executeScript(script, recentListKeys(), args);
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private <T> T executeScript(RedisScript<T> script, List<String> keys, Object... args) {
+        RedisSerializer raw = RedisSerializer.byteArray();
+        return (T) redisTemplate.execute(script, raw, raw, keys, args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] serializeValue(Object value) {
+        return ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(value);
+    }
+
+    // hash tag keeps the list, its bodies and the parked writes in one cluster slot for the scripts
+    private List<String> recentListKeys() {
+        String recentListKey = "{" + appProperties.getRedis().getRecentListKey() + "}";
+        return List.of(recentListKey, recentListKey + ":bodies", recentListKey + ":pending", recentListKey + ":pending:bodies");
+    }
+
+    // parked writes only need to outlive a rebuild, which holds the lease
+    private byte[] pendingTtlArg() {
+        return String.valueOf(appProperties.getRedis().getRecentListLeaseTtl().toMillis()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Script args: size, ttl millis, only-if-exists flag, pending ttl millis, then (score, member, body)
+     * per notification.
+     */
+    Object[] recentListArgs(List<Notifications> notifications, boolean onlyIfExists) {
+        Object[] args = new Object[4 + notifications.size() * 3];
+        args[0] = String.valueOf(RECENT_LIST_SIZE).getBytes(StandardCharsets.UTF_8);
+        args[1] = String.valueOf(appProperties.getRedis().getRecentListTtl().toMillis()).getBytes(StandardCharsets.UTF_8);
+        args[2] = (onlyIfExists ? "1" : "0").getBytes(StandardCharsets.UTF_8);
+        args[3] = pendingTtlArg();
+        int i = 4;
+        for (Notifications notification : notifications) {
+            // using create date time as score
+            long score = notification.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli();
+            args[i++] = String.valueOf(score).getBytes(StandardCharsets.UTF_8);
+            args[i++] = recentListMember(notification.getId());
+            args[i++] = serializeValue(notification);
+        }
+        return args;
+    }
+
+    /**
+     * Zero padded so equal scores (e.g. a batch create) still order by id; inbox members use the same form.
+     */
+    private static byte[] recentListMember(Long id) {
+        return String.format("%019d", id).getBytes(StandardCharsets.UTF_8);
+    }
 }
@@ -0,0 +1,202 @@
+package com.example.demo.bulkimport;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.dto.ImportResult;
+import com.example.demo.dto.NotificationMessage;
+import com.example.demo.enums.ImportFormat;
+import com.example.demo.enums.NotificationMessageType;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.model.Notifications;
+import com.example.demo.mq.NotificationOutboxPublisher;
+import com.example.demo.readstate.NotificationReadState;
+import com.example.demo.repository.NotificationRepository;
+import com.example.demo.util.RedisUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("NotificationImporter 測試")
+class NotificationImporterTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private NotificationReadState notificationReadState;
+
+    @Mock
+    private NotificationOutboxPublisher notificationOutboxPublisher;
+
+    @Mock
+    private RedisUtil redisUtil;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private NotificationImporter importer;
+    // every row handed to insertAllInBatch, in order
+    private final List<Notifications> inserted = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getBulkImport().setBatchSize(2);
+        importer = new NotificationImporter(notificationRepository, notificationReadState, notificationOutboxPublisher,
+                redisUtil, new ObjectMapper(), appProperties, new SimpleMeterRegistry(), transactionManager);
+    }
+
+    private void insertSucceeds() {
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        lenient().when(notificationRepository.insertAllInBatch(anyList())).thenAnswer(inv -> {
+            List<Notifications> batch = new ArrayList<>(inv.getArgument(0));
+            for (Notifications notification : batch) {
+                notification.setId((long) inserted.size() + 1);
+                inserted.add(notification);
+            }
+            return batch;
+        });
+    }
+
+    private static BufferedReader upload(String content) {
+        return new BufferedReader(new StringReader(content));
+    }
+
+    @Test
+    @DisplayName("NDJSON 含錯誤列 -> 應分批寫入有效列、回報錯誤行號，並只發一筆匯入摘要")
+    void givenNdjsonWithBadRows_whenImport_thenBatchValidRowsAndReportErrors() throws IOException {
+        insertSucceeds();
+        String ndjson = """
+                {"type":"SMS","recipient":"+886900000001","content":"a"}
+                {"type":"SMS","recipient":"+886900000002","content":"b"}
+                not json
+
+                {"type":"EMAIL","recipient":"","content":"c"}
+                {"type":"EMAIL","recipient":"user@example.com","subject":"s","content":"d"}
+                """;
+
+        ImportResult result = importer.importNotifications(ImportFormat.NDJSON, upload(ndjson), false, false);
+
+        assertThat(result.getStatus()).isEqualTo(ImportResult.Status.COMPLETED);
+        assertThat(result.getProcessed()).isEqualTo(5);
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getFailed()).isEqualTo(2);
+        assertThat(result.getErrors()).extracting(ImportResult.RowError::getLine).containsExactly(3L, 5L);
+        assertThat(result.getErrors().get(1).getMessage()).isEqualTo("recipient is required");
+        // batch size 2: one full batch, one remainder
+        verify(notificationRepository, times(2)).insertAllInBatch(anyList());
+        verify(notificationReadState, times(2)).assignSequences(anyList());
+        verify(redisUtil, never()).cacheNotifications(anyList());
+        verify(notificationOutboxPublisher, never()).publishAll(anyList());
+
+        ArgumentCaptor<NotificationMessage> summary = ArgumentCaptor.forClass(NotificationMessage.class);
+        verify(notificationOutboxPublisher).publish(summary.capture());
+        assertThat(summary.getValue().getNotificationMessageType()).isEqualTo(NotificationMessageType.IMPORT);
+        assertThat(summary.getValue().getId()).isEqualTo(3L);
+        assertThat(summary.getValue().getSubject()).isEqualTo(result.getId());
+        assertThat(importer.findRunning()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("CSV 含引號、逗號與換行 -> 應依標題欄位解析，錯誤行號為該筆起始行")
+    void givenQuotedCsv_whenImport_thenParseByHeader() throws IOException {
+        insertSucceeds();
+        String csv = "content,Type,recipient,subject\r\n"
+                + "\"hello, \"\"world\"\"\",sms,+886900000001,\r\n"
+                + "\"two\nlines\",EMAIL,user@example.com,\"\"\r\n"
+                + "x,FAX,user@example.com,s\r\n";
+
+        ImportResult result = importer.importNotifications(ImportFormat.CSV, upload(csv), true, false);
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getErrors()).containsExactly(new ImportResult.RowError(5, "unsupported type: FAX"));
+        assertThat(inserted.get(0).getContent()).isEqualTo("hello, \"world\"");
+        assertThat(inserted.get(0).getType()).isEqualTo(NotificationType.SMS);
+        assertThat(inserted.get(0).getSubject()).isNull();
+        assertThat(inserted.get(1).getContent()).isEqualTo("two\nlines");
+        assertThat(inserted.get(1).getSubject()).isEmpty();
+        verify(redisUtil).cacheNotifications(anyList());
+    }
+
+    @Test
+    @DisplayName("CSV 標題缺少必要欄位 -> 應拋出 IllegalArgumentException 並釋放名額")
+    void givenCsvWithoutRequiredColumns_whenImport_thenThrow() throws IOException {
+        assertThrows(IllegalArgumentException.class,
+                () -> importer.importNotifications(ImportFormat.CSV, upload("recipient,content\nuser@example.com,x\n"), false, false));
+
+        insertSucceeds();
+        assertThat(importer.importNotifications(ImportFormat.CSV, upload(""), false, false).getStatus())
+                .isEqualTo(ImportResult.Status.COMPLETED);
+    }
+
+    @Test
+    @DisplayName("每列發送 CREATE -> 應隨每批寫入 outbox，不發匯入摘要")
+    void givenPublishEach_whenImport_thenCreateMessagePerRow() throws IOException {
+        insertSucceeds();
+        String ndjson = """
+                {"type":"SMS","recipient":"+886900000001","content":"a"}
+                {"type":"SMS","recipient":"+886900000002","content":"b"}
+                {"type":"SMS","recipient":"+886900000003","content":"c"}
+                """;
+
+        importer.importNotifications(ImportFormat.NDJSON, upload(ndjson), false, true);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<NotificationMessage>> messages = ArgumentCaptor.forClass(List.class);
+        verify(notificationOutboxPublisher, times(2)).publishAll(messages.capture());
+        assertThat(messages.getAllValues().stream().flatMap(List::stream).map(NotificationMessage::getNotificationMessageType))
+                .containsOnly(NotificationMessageType.CREATE)
+                .hasSize(3);
+        verify(notificationOutboxPublisher, never()).publish(any());
+    }
+
+    @Test
+    @DisplayName("DB 拒絕某批 -> 應停止並標記失敗，先前批次保留")
+    void givenDbRejectsBatch_whenImport_thenFailedWithEarlierBatchesKept() throws IOException {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(notificationRepository.insertAllInBatch(anyList()))
+                .thenAnswer(inv -> {
+                    List<Notifications> batch = inv.getArgument(0);
+                    batch.forEach(notification -> notification.setId(1L));
+                    return new ArrayList<>(batch);
+                })
+                .thenThrow(new DataIntegrityViolationException("Data too long for column 'content'"));
+        String ndjson = """
+                {"type":"SMS","recipient":"+886900000001","content":"a"}
+                {"type":"SMS","recipient":"+886900000002","content":"b"}
+                {"type":"SMS","recipient":"+886900000003","content":"c"}
+                {"type":"SMS","recipient":"+886900000004","content":"d"}
+                {"type":"SMS","recipient":"+886900000005","content":"e"}
+                """;
+
+        ImportResult result = importer.importNotifications(ImportFormat.NDJSON, upload(ndjson), false, false);
+
+        assertThat(result.getStatus()).isEqualTo(ImportResult.Status.FAILED);
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getProcessed()).isEqualTo(4);
+        assertThat(result.getMessage()).contains("Data too long");
+        verify(transactionManager).rollback(any());
+        verify(notificationOutboxPublisher, never()).publish(any());
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.demo.cache;
+
+import com.example.demo.config.RedisConfig;
+import com.example.demo.enums.NotificationPriority;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.enums.RedisValueFormat;
+import com.example.demo.model.Notifications;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("NotificationRedisSerializer 測試")
+class NotificationRedisSerializerTest {
+
+    private final GenericJackson2JsonRedisSerializer json = RedisConfig.jsonRedisSerializer();
+    private final NotificationRedisSerializer binary = new NotificationRedisSerializer(json, RedisValueFormat.BINARY);
+
+    private Notifications notification;
+
+    @BeforeEach
+    void setUp() {
+        notification = new Notifications();
+        notification.setId(123456789L);
+        notification.setType(NotificationType.SMS);
+        notification.setRecipient("+886912345678");
+        notification.setSubject("訂單已出貨");
+        notification.setContent("Your order #A-1024 has shipped and will arrive in 2 days.");
+        notification.setCreatedAt(LocalDateTime.of(2024, 5, 1, 8, 30, 15, 250_000_000));
+        notification.setVersion(3L);
+        notification.setRecipientSeq(42L);
+    }
+
+    @Test
+    @DisplayName("二進位編碼 -> 應能完整還原且比 JSON 小")
+    void givenBinaryFormat_whenRoundTrip_thenEqualAndSmallerThanJson() {
+        byte[] bytes = binary.serialize(notification);
+
+        assertThat(bytes[0]).isEqualTo(NotificationRedisSerializer.MAGIC);
+        assertThat(binary.deserialize(bytes)).isEqualTo(notification);
+        assertThat(bytes.length).isLessThan(json.serialize(notification).length / 2);
+    }
+
+    @Test
+    @DisplayName("null 欄位 -> 應保持為 null")
+    void givenNullFields_whenRoundTrip_thenNullsKept() {
+        Notifications sparse = new Notifications();
+        sparse.setId(1L);
+        sparse.setContent("");
+
+        assertThat(binary.deserialize(binary.serialize(sparse))).isEqualTo(sparse);
+    }
+
+    @Test
+    @DisplayName("非預設優先級 -> 應寫在第二個旗標位元組後並還原；NORMAL 則不多寫任何位元組")
+    void givenPriority_whenRoundTrip_thenKeptAndNormalAddsNothing() {
+        int normalLength = binary.serialize(notification).length;
+        notification.setPriority(NotificationPriority.LOW);
+
+        byte[] bytes = binary.serialize(notification);
+
+        assertThat(bytes.length).isEqualTo(normalLength + 2);
+        assertThat(binary.deserialize(bytes)).isEqualTo(notification);
+    }
+
+    @Test
+    @DisplayName("切換期間 -> 應能讀取舊的 JSON 值，非 Notifications 仍走 JSON")
+    void givenLegacyJson_whenDeserialize_thenReadable() {
+        assertThat(binary.deserialize(json.serialize(notification))).isEqualTo(notification);
+
+        Object other = binary.deserialize(binary.serialize(new HashMap<>(Map.of("k", "v"))));
+        assertThat(other).isEqualTo(Map.of("k", "v"));
+    }
+
+    @Test
+    @DisplayName("JSON 模式 -> 應寫出 JSON，但仍能讀二進位值 (回滾)")
+    void givenJsonFormat_whenSerialize_thenJsonButBinaryStillReadable() {
+        NotificationRedisSerializer jsonMode = new NotificationRedisSerializer(json, RedisValueFormat.JSON);
+
+        assertThat(jsonMode.serialize(notification)).isEqualTo(json.serialize(notification));
+        assertThat(jsonMode.deserialize(binary.serialize(notification))).isEqualTo(notification);
+    }
+
+    @Test
+    @DisplayName("截斷或未知版本 -> 應拋出 SerializationException")
+    void givenCorruptValue_whenDeserialize_thenThrow() {
+        byte[] bytes = binary.serialize(notification);
+
+        assertThrows(SerializationException.class, () -> binary.deserialize(Arrays.copyOf(bytes, bytes.length - 10)));
+        bytes[1] = 99;
+        assertThrows(SerializationException.class, () -> binary.deserialize(bytes));
+    }
+}
@@ -1,9 +1,18 @@
 package com.example.demo.controller;
 
+import com.example.demo.bulkimport.NotificationImporter;
+import com.example.demo.config.AppProperties;
+import com.example.demo.dto.ImportResult;
+import com.example.demo.dto.NotificationEvent;
+import com.example.demo.dto.NotificationPage;
 import com.example.demo.dto.NotificationRequest;
 import com.example.demo.dto.UpdateNotificationRequest;
+import com.example.demo.enums.ImportFormat;
+import com.example.demo.enums.NotificationMessageType;
 import com.example.demo.enums.NotificationType;
+import com.example.demo.export.NotificationExporter;
 import com.example.demo.model.Notifications;
+import com.example.demo.push.NotificationEventHub;
 import com.example.demo.service.NotificationService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,16 +24,25 @@ import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Flux;
 
+import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(NotificationController.class)
@@ -36,6 +54,26 @@ class NotificationControllerTest {
         public NotificationService notificationService() {
             return Mockito.mock(NotificationService.class);
         }
+
+        @Bean
+        public NotificationExporter notificationExporter() {
+            return Mockito.mock(NotificationExporter.class);
+        }
+
+        @Bean
+        public NotificationImporter notificationImporter() {
+            return Mockito.mock(NotificationImporter.class);
+        }
+
+        @Bean
+        public NotificationEventHub notificationEventHub() {
+            return Mockito.mock(NotificationEventHub.class);
+        }
+
+        @Bean
+        public AppProperties appProperties() {
+            return new AppProperties();
+        }
     }
 
     @Autowired
@@ -44,6 +82,15 @@ class NotificationControllerTest {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private NotificationExporter notificationExporter;
+
+    @Autowired
+    private NotificationImporter notificationImporter;
+
+    @Autowired
+    private NotificationEventHub notificationEventHub;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -51,6 +98,8 @@ class NotificationControllerTest {
 
     @BeforeEach
     void setUp() {
+        // singleton mocks from the test config, stubs would leak from one test to the next
+        Mockito.reset(notificationService, notificationExporter, notificationImporter, notificationEventHub);
         notification = new Notifications();
         notification.setId(1L);
         notification.setType(NotificationType.EMAIL);
@@ -78,6 +127,23 @@ class NotificationControllerTest {
                 .andExpect(jsonPath("$.subject").value("Test Subject"));
     }
 
+    @Test
+    void createNotifications_shouldReturnCreated() throws Exception {
+        when(notificationService.createNotifications(any())).thenReturn(List.of(notification));
+
+        NotificationRequest request = new NotificationRequest();
+        request.setType(NotificationType.EMAIL);
+        request.setRecipient("test@example.com");
+        request.setSubject("Test Subject");
+        request.setContent("Test Content");
+
+        mockMvc.perform(post("/notifications/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(request))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$[0].id").value(1L));
+    }
+
     @Test
     void getNotificationById_whenFound_shouldReturnOk() throws Exception {
         when(notificationService.getNotificationById(1L)).thenReturn(Optional.of(notification));
@@ -104,6 +170,156 @@ class NotificationControllerTest {
                 .andExpect(jsonPath("$[0].id").value(1L));
     }
 
+    @Test
+    void listNotifications_shouldReturnPageWithNextCursor() throws Exception {
+        when(notificationService.listNotifications("abc", 1))
+                .thenReturn(new NotificationPage(List.of(notification), "next", true));
+
+        mockMvc.perform(get("/notifications").param("after", "abc").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(1L))
+                .andExpect(jsonPath("$.nextCursor").value("next"))
+                .andExpect(jsonPath("$.hasNext").value(true));
+    }
+
+    @Test
+    void listNotifications_withInvalidCursor_shouldReturnBadRequest() throws Exception {
+        when(notificationService.listNotifications("bad", null)).thenThrow(new IllegalArgumentException("invalid cursor: bad"));
+
+        mockMvc.perform(get("/notifications").param("after", "bad"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("invalid cursor: bad"));
+    }
+
+    @Test
+    void listNotifications_withRecipient_shouldReturnInboxPage() throws Exception {
+        when(notificationService.listInbox("user@example.com", null, 20))
+                .thenReturn(new NotificationPage(List.of(notification), "next", false));
+
+        mockMvc.perform(get("/notifications").param("recipient", "user@example.com").param("limit", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(1L))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    void getUnreadCount_shouldReturnCount() throws Exception {
+        when(notificationService.getUnreadCount("user@example.com")).thenReturn(3L);
+
+        mockMvc.perform(get("/notifications/unread-count").param("recipient", "user@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.unreadCount").value(3));
+    }
+
+    @Test
+    void markRead_shouldReturnNewlyReadCount() throws Exception {
+        when(notificationService.markRead(List.of(1L, 2L))).thenReturn(2L);
+
+        mockMvc.perform(post("/notifications/read")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(1L, 2L))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.newlyRead").value(2));
+    }
+
+    @Test
+    void markAllRead_shouldReturnNoContent() throws Exception {
+        mockMvc.perform(post("/notifications/read-all").param("recipient", "user@example.com"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void exportNotifications_shouldStreamNdjson() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 2, 1, 0, 0);
+        when(notificationExporter.export(eq(from), eq(to), eq(NotificationType.SMS), any())).thenAnswer(inv -> {
+            NotificationExporter.Sink sink = inv.getArgument(3);
+            sink.open().write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        mockMvc.perform(get("/notifications/export")
+                        .param("from", "2024-01-01T00:00:00")
+                        .param("to", "2024-02-01T00:00:00")
+                        .param("type", "SMS"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson;charset=UTF-8"))
+                .andExpect(content().string("{\"id\":1}\n"));
+    }
+
+    @Test
+    void exportNotifications_whenClientDisconnects_shouldNotReturnServerError() throws Exception {
+        when(notificationExporter.export(any(), any(), any(), any())).thenAnswer(inv -> {
+            NotificationExporter.Sink sink = inv.getArgument(3);
+            sink.open().write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+            throw new CancellationException("export interrupted");
+        });
+
+        mockMvc.perform(get("/notifications/export")
+                        .param("from", "2024-01-01T00:00:00")
+                        .param("to", "2024-02-01T00:00:00"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void exportNotifications_withEmptyRange_shouldReturnBadRequest() throws Exception {
+        when(notificationExporter.export(any(), any(), any(), any())).thenThrow(new IllegalArgumentException("from must be before to"));
+
+        mockMvc.perform(get("/notifications/export")
+                        .param("from", "2024-02-01T00:00:00")
+                        .param("to", "2024-01-01T00:00:00"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("from must be before to"));
+    }
+
+    @Test
+    void importNotifications_withCsv_shouldImportRequestBody() throws Exception {
+        when(notificationImporter.importNotifications(eq(ImportFormat.CSV), any(), eq(true), eq(false))).thenAnswer(inv -> {
+            BufferedReader reader = inv.getArgument(1);
+            return ImportResult.builder()
+                    .status(ImportResult.Status.COMPLETED)
+                    .processed(reader.lines().count() - 1)
+                    .imported(1)
+                    .errors(List.of())
+                    .build();
+        });
+
+        mockMvc.perform(post("/notifications/import")
+                        .param("populateCache", "true")
+                        .contentType("text/csv")
+                        .content("type,recipient,subject,content\nSMS,+886900000000,,hello\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.processed").value(1))
+                .andExpect(jsonPath("$.imported").value(1));
+    }
+
+    @Test
+    void importNotifications_withJson_shouldReturnUnsupportedMediaType() throws Exception {
+        mockMvc.perform(post("/notifications/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    @Test
+    void streamNotifications_shouldSendServerSentEvents() throws Exception {
+        when(notificationEventHub.subscribe("user@example.com", null)).thenReturn(Flux.just(NotificationEvent.builder()
+                .event(NotificationMessageType.CREATE)
+                .id(1L)
+                .recipient("user@example.com")
+                .build()));
+
+        MvcResult result = mockMvc.perform(get("/notifications/stream").param("recipient", "user@example.com"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(content().string(containsString("data:{\"event\":\"CREATE\",\"id\":1,")));
+    }
+
     @Test
     void updateNotification_whenFound_shouldReturnOk() throws Exception {
         when(notificationService.updateNotification(eq(1L), any(UpdateNotificationRequest.class))).thenReturn(Optional.of(notification));
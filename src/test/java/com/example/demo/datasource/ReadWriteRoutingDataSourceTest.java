@@ -0,0 +1,196 @@
+package com.example.demo.datasource;
+
+import com.example.demo.config.AppProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Embedded H2 databases that each answer with their own name, wired like ReadReplicaConfig
+ * (LazyConnectionDataSourceProxy over the router).
+ */
+@DisplayName("ReadWriteRoutingDataSource 測試")
+class ReadWriteRoutingDataSourceTest {
+
+    private AppProperties appProperties;
+    private ReadWriteRoutingDataSource routingDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new AppProperties();
+        appProperties.getReadReplicas().setMaxLag(Duration.ofSeconds(5));
+        appProperties.getReadReplicas().setStickyWindow(Duration.ofSeconds(2));
+        appProperties.getReadReplicas().setLagQuery("SELECT seconds_behind FROM replication");
+        build("replica-1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadYourWrites.end();
+        routingDataSource.destroy();
+    }
+
+    @Test
+    @DisplayName("唯讀交易且副本延遲正常 -> 應讀取副本")
+    void givenFreshReplica_whenReadOnlyTransaction_thenReplica() {
+        routingDataSource.updateLag("replica-1", Duration.ofSeconds(1));
+
+        String who = readOnly.execute(status -> whoAmI());
+        assertThat(who).isEqualTo("replica-1");
+    }
+
+    @Test
+    @DisplayName("讀寫交易 -> 應走主庫")
+    void givenReadWriteTransaction_whenQuery_thenPrimary() {
+        routingDataSource.updateLag("replica-1", Duration.ZERO);
+
+        String who = readWrite.execute(status -> whoAmI());
+        assertThat(who).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("無交易 -> 應走主庫")
+    void givenNoTransaction_whenQuery_thenPrimary() {
+        routingDataSource.updateLag("replica-1", Duration.ZERO);
+
+        assertThat(whoAmI()).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("副本延遲超過上限或未知 -> 唯讀交易應退回主庫")
+    void givenLaggingOrUnknownReplica_whenReadOnlyTransaction_thenPrimary() {
+        routingDataSource.updateLag("replica-1", Duration.ofSeconds(30));
+        String who = readOnly.execute(status -> whoAmI());
+        assertThat(who).isEqualTo("primary");
+
+        routingDataSource.updateLag("replica-1", null);
+        who = readOnly.execute(status -> whoAmI());
+        assertThat(who).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("多個副本 -> 應輪流分配，並跳過延遲過高的副本")
+    void givenTwoReplicas_whenReadOnlyTransactions_thenRoundRobinSkippingLagging() {
+        routingDataSource.destroy();
+        build("replica-1", "replica-2");
+        routingDataSource.updateLag("replica-1", Duration.ZERO);
+        routingDataSource.updateLag("replica-2", Duration.ZERO);
+
+        List<String> served = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            served.add(readOnly.execute(status -> whoAmI()));
+        }
+        assertThat(served).containsExactly("replica-1", "replica-2", "replica-1", "replica-2");
+
+        routingDataSource.updateLag("replica-1", Duration.ofMinutes(1));
+        String who = readOnly.execute(status -> whoAmI());
+        assertThat(who).isEqualTo("replica-2");
+        who = readOnly.execute(status -> whoAmI());
+        assertThat(who).isEqualTo("replica-2");
+    }
+
+    @Test
+    @DisplayName("同一用戶剛寫入 -> 之後的唯讀交易應留在主庫並設定期限")
+    void givenOwnWrite_whenReadOnlyTransaction_thenPrimaryUntilDeadline() {
+        routingDataSource.updateLag("replica-1", Duration.ZERO);
+        AtomicLong deadline = new AtomicLong();
+        ReadYourWrites.begin(0, Duration.ofSeconds(2), deadline::set);
+
+        String who = readOnly.execute(status -> whoAmI());
+        assertThat(who).isEqualTo("replica-1");
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("UPDATE node SET name = name"));
+
+        assertThat(deadline.get()).isGreaterThan(System.currentTimeMillis());
+        who = readOnly.execute(status -> whoAmI());
+        assertThat(who).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("帶著未過期的期限 -> 唯讀交易應走主庫；已過期 -> 走副本")
+    void givenClientDeadline_whenReadOnlyTransaction_thenPrimaryOnlyBeforeIt() {
+        routingDataSource.updateLag("replica-1", Duration.ZERO);
+
+        ReadYourWrites.begin(System.currentTimeMillis() + 60_000, Duration.ofSeconds(2), ignored -> {
+        });
+        String who = readOnly.execute(status -> whoAmI());
+        assertThat(who).isEqualTo("primary");
+
+        ReadYourWrites.begin(System.currentTimeMillis() - 1, Duration.ofSeconds(2), ignored -> {
+        });
+        who = readOnly.execute(status -> whoAmI());
+        assertThat(who).isEqualTo("replica-1");
+    }
+
+    @Test
+    @DisplayName("延遲監控 -> 應以查詢結果更新副本延遲，查詢失敗視為不可用")
+    void givenLagQuery_whenCheck_thenLagApplied() {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(routingDataSource, appProperties);
+
+        monitor.check();
+        String who = readOnly.execute(status -> whoAmI());
+        assertThat(who).isEqualTo("replica-1");
+
+        new JdbcTemplate(routingDataSource.getReplicaDataSources().get("replica-1")).update("UPDATE replication SET seconds_behind = 60");
+        monitor.check();
+        who = readOnly.execute(status -> whoAmI());
+        assertThat(who).isEqualTo("primary");
+
+        appProperties.getReadReplicas().setLagQuery("SELECT missing FROM replication");
+        new JdbcTemplate(routingDataSource.getReplicaDataSources().get("replica-1")).update("UPDATE replication SET seconds_behind = 0");
+        monitor.check();
+        who = readOnly.execute(status -> whoAmI());
+        assertThat(who).isEqualTo("primary");
+    }
+
+    private void build(String... replicaNames) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String name : replicaNames) {
+            replicas.put(name, database(name));
+        }
+        routingDataSource = new ReadWriteRoutingDataSource(database("primary"), replicas, appProperties, new SimpleMeterRegistry());
+        routingDataSource.afterPropertiesSet();
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    private String whoAmI() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+        jdbcTemplate.execute("CREATE TABLE node (name VARCHAR(64))");
+        jdbcTemplate.update("INSERT INTO node (name) VALUES (?)", name);
+        jdbcTemplate.execute("CREATE TABLE replication (seconds_behind BIGINT)");
+        jdbcTemplate.update("INSERT INTO replication (seconds_behind) VALUES (0)");
+        return dataSource;
+    }
+}
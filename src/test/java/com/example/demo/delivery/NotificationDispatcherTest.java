@@ -0,0 +1,281 @@
+package com.example.demo.delivery;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.dto.NotificationMessage;
+import com.example.demo.enums.NotificationPriority;
+import com.example.demo.enums.NotificationType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("NotificationDispatcher 通道投遞測試 (本地 SMTP / HTTP stub)")
+class NotificationDispatcherTest {
+
+    private StubSmtpServer smtpServer;
+    private HttpServer smsGateway;
+    private final List<String> smsBodies = new CopyOnWriteArrayList<>();
+    private final CountDownLatch releaseSms = new CountDownLatch(1);
+
+    private NotificationDispatcher dispatcher;
+    private EmailChannelSender emailSender;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtpServer = new StubSmtpServer();
+
+        // SMS gateway that hangs until the test releases it
+        smsGateway = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        smsGateway.setExecutor(java.util.concurrent.Executors.newVirtualThreadPerTaskExecutor());
+        smsGateway.createContext("/sms", exchange -> {
+            smsBodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            try {
+                releaseSms.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(202, -1);
+            exchange.close();
+        });
+        smsGateway.start();
+
+        AppProperties appProperties = new AppProperties();
+        AppProperties.Email email = appProperties.getDelivery().getEmail();
+        email.setHost("localhost");
+        email.setPort(smtpServer.port());
+        email.setTimeout(Duration.ofSeconds(5));
+        AppProperties.Sms sms = appProperties.getDelivery().getSms();
+        sms.setGatewayUrl("http://localhost:" + smsGateway.getAddress().getPort() + "/sms");
+        sms.getLimits().setMaxConcurrency(1);
+        sms.getLimits().setDispatchTimeout(Duration.ofSeconds(2));
+
+        emailSender = new EmailChannelSender(appProperties);
+        dispatcher = new NotificationDispatcher(
+                List.of(emailSender, new SmsChannelSender(appProperties, new ObjectMapper())), appProperties,
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        releaseSms.countDown();
+        dispatcher.shutdown();
+        emailSender.shutdown();
+        smsGateway.stop(0);
+        smtpServer.close();
+    }
+
+    @Test
+    @DisplayName("SMS 閘道緩慢 -> 不應阻塞 EMAIL 投遞，且 SMTP 連線應被重用")
+    void givenSlowSmsGateway_whenDispatch_thenEmailStillDelivered() throws Exception {
+        CompletableFuture<Void> sms1 = dispatcher.dispatch(message(1L, NotificationType.SMS, "+886900000001"));
+        CompletableFuture<Void> sms2 = dispatcher.dispatch(message(2L, NotificationType.SMS, "+886900000002"));
+
+        CompletableFuture<Void> email1 = dispatcher.dispatch(message(3L, NotificationType.EMAIL, "a@example.com"));
+        email1.get(5, TimeUnit.SECONDS);
+        CompletableFuture<Void> email2 = dispatcher.dispatch(message(4L, NotificationType.EMAIL, "b@example.com"));
+        email2.get(5, TimeUnit.SECONDS);
+
+        assertThat(sms1).isNotDone();
+        assertThat(sms2).isNotDone();
+        assertThat(smtpServer.messages()).hasSize(2);
+        assertThat(smtpServer.connections()).isEqualTo(1);
+
+        releaseSms.countDown();
+        CompletableFuture.allOf(sms1, sms2).get(5, TimeUnit.SECONDS);
+        assertThat(smsBodies).hasSize(2);
+        assertThat(smsBodies.get(0)).contains("+886900000001");
+    }
+
+    @Test
+    @DisplayName("SMS 閘道卡住 -> 投遞應在 dispatch-timeout 後失敗，仍在排隊的訊息不應再送出")
+    void givenHungSmsGateway_whenDispatchTimeoutPasses_thenFailAndDropQueuedSend() throws Exception {
+        CompletableFuture<Void> sms1 = dispatcher.dispatch(message(1L, NotificationType.SMS, "+886900000001"));
+        CompletableFuture<Void> sms2 = dispatcher.dispatch(message(2L, NotificationType.SMS, "+886900000002"));
+
+        assertThatThrownBy(() -> sms1.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(TimeoutException.class);
+        assertThatThrownBy(() -> sms2.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(TimeoutException.class);
+
+        // the hung send finishes, the queued one finds its deadline passed
+        releaseSms.countDown();
+        Thread.sleep(300);
+        assertThat(smsBodies).hasSize(1);
+        assertThat(smsBodies.get(0)).contains("+886900000001");
+    }
+
+    @Test
+    @DisplayName("平台執行緒通道忙碌 -> 排隊中的 HIGH 應先於 LOW 積壓送出")
+    void givenPlatformThreadChannelBacklog_whenHighDispatched_thenOvertakesQueuedLow() throws Exception {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getDelivery().getEmail().getLimits().setMaxConcurrency(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        List<Long> sent = new CopyOnWriteArrayList<>();
+        ChannelSender blockingEmail = new ChannelSender() {
+            @Override
+            public NotificationType channel() {
+                return NotificationType.EMAIL;
+            }
+
+            @Override
+            public void send(NotificationMessage message) {
+                assertThat(Thread.currentThread().isVirtual()).isFalse();
+                if (message.getId() == 1L) {
+                    try {
+                        releaseFirst.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                sent.add(message.getId());
+            }
+
+            @Override
+            public boolean requiresPlatformThreads() {
+                return true;
+            }
+        };
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        NotificationDispatcher platformDispatcher = new NotificationDispatcher(List.of(blockingEmail), appProperties, meterRegistry);
+        try {
+            List<CompletableFuture<Void>> sends = new ArrayList<>();
+            sends.add(platformDispatcher.dispatch(message(1L, NotificationType.EMAIL, "a@example.com", NotificationPriority.LOW)));
+            for (long id = 2; id <= 6; id++) {
+                sends.add(platformDispatcher.dispatch(message(id, NotificationType.EMAIL, "a@example.com", NotificationPriority.LOW)));
+            }
+            Gauge queuedLow = meterRegistry.get("notification.delivery.queued")
+                    .tag("channel", "EMAIL").tag("priority", "LOW").gauge();
+            awaitValue(queuedLow, 5);
+            sends.add(platformDispatcher.dispatch(message(7L, NotificationType.EMAIL, "a@example.com", NotificationPriority.HIGH)));
+            awaitValue(meterRegistry.get("notification.delivery.queued")
+                    .tag("channel", "EMAIL").tag("priority", "HIGH").gauge(), 1);
+
+            releaseFirst.countDown();
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+            assertThat(sent).containsExactly(1L, 7L, 2L, 3L, 4L, 5L, 6L);
+        } finally {
+            releaseFirst.countDown();
+            platformDispatcher.shutdown();
+        }
+    }
+
+    private static void awaitValue(Gauge gauge, double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (gauge.value() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(gauge.value()).isEqualTo(expected);
+    }
+
+    private NotificationMessage message(Long id, NotificationType type, String recipient) {
+        return message(id, type, recipient, null);
+    }
+
+    private NotificationMessage message(Long id, NotificationType type, String recipient, NotificationPriority priority) {
+        return NotificationMessage.builder()
+                .id(id)
+                .notificationType(type)
+                .recipient(recipient)
+                .subject("subject " + id)
+                .content("content " + id)
+                .priority(priority)
+                .build();
+    }
+
+    /**
+     * Just enough SMTP to accept mail: one thread per connection, everything answered with 250.
+     */
+    static class StubSmtpServer implements AutoCloseable {
+
+        private final ServerSocket serverSocket;
+        private final List<String> messages = new CopyOnWriteArrayList<>();
+        private volatile int connections;
+
+        StubSmtpServer() throws IOException {
+            serverSocket = new ServerSocket(0);
+            Thread.ofVirtual().start(() -> {
+                while (!serverSocket.isClosed()) {
+                    try {
+                        Socket socket = serverSocket.accept();
+                        connections++;
+                        Thread.ofVirtual().start(() -> serve(socket));
+                    } catch (IOException e) {
+                        return;
+                    }
+                }
+            });
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        List<String> messages() {
+            return messages;
+        }
+
+        int connections() {
+            return connections;
+        }
+
+        private void serve(Socket socket) {
+            try (socket;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                 PrintWriter out = new PrintWriter(socket.getOutputStream(), true)) {
+                out.print("220 stub ESMTP\r\n");
+                out.flush();
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.toUpperCase();
+                    if (command.startsWith("DATA")) {
+                        out.print("354 go ahead\r\n");
+                        out.flush();
+                        StringBuilder data = new StringBuilder();
+                        while (!(line = in.readLine()).equals(".")) {
+                            data.append(line).append('\n');
+                        }
+                        messages.add(data.toString());
+                        out.print("250 queued\r\n");
+                    } else if (command.startsWith("QUIT")) {
+                        out.print("221 bye\r\n");
+                        out.flush();
+                        return;
+                    } else {
+                        out.print("250 ok\r\n");
+                    }
+                    out.flush();
+                }
+            } catch (IOException ignored) {
+                // client went away
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+}
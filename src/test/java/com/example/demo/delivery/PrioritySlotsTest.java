@@ -0,0 +1,96 @@
+package com.example.demo.delivery;
+
+import com.example.demo.enums.NotificationPriority;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.example.demo.enums.NotificationPriority.HIGH;
+import static com.example.demo.enums.NotificationPriority.LOW;
+import static com.example.demo.enums.NotificationPriority.NORMAL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("PrioritySlots 測試")
+class PrioritySlotsTest {
+
+    private static final Map<NotificationPriority, Integer> WEIGHTS = Map.of(HIGH, 2, NORMAL, 1, LOW, 1);
+
+    @Test
+    @DisplayName("有空閒名額 -> 任何優先級都應直接取得")
+    void givenFreeSlots_whenAcquire_thenNoWait() throws InterruptedException {
+        PrioritySlots slots = new PrioritySlots(2, WEIGHTS);
+
+        slots.acquire(LOW);
+        slots.acquire(HIGH);
+
+        assertThat(slots.queued(LOW)).isZero();
+        assertThat(slots.queued(HIGH)).isZero();
+    }
+
+    @Test
+    @DisplayName("名額用盡且各優先級都在等待 -> 應依權重輪流放行，HIGH 先但 LOW 不會餓死")
+    void givenWaitersOfEveryPriority_whenSlotsFreed_thenWeightedHighFirst() throws Exception {
+        PrioritySlots slots = new PrioritySlots(1, WEIGHTS);
+        slots.acquire(NORMAL);
+        List<NotificationPriority> granted = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+
+        // LOW queues first: arrival order must not matter
+        for (NotificationPriority priority : List.of(LOW, LOW, HIGH, HIGH, HIGH, HIGH)) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                try {
+                    slots.acquire(priority);
+                    granted.add(priority);
+                    slots.release();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        awaitQueued(slots, LOW, 2);
+        awaitQueued(slots, HIGH, 4);
+
+        slots.release();
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+
+        assertThat(granted).containsExactly(HIGH, HIGH, LOW, HIGH, HIGH, LOW);
+    }
+
+    @Test
+    @DisplayName("等待中被中斷 -> 應離開佇列，不佔用名額")
+    void givenInterruptedWaiter_whenInterrupted_thenLeavesQueue() throws Exception {
+        PrioritySlots slots = new PrioritySlots(1, WEIGHTS);
+        slots.acquire(NORMAL);
+        Thread waiter = Thread.ofVirtual().start(() -> {
+            try {
+                slots.acquire(LOW);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        awaitQueued(slots, LOW, 1);
+
+        waiter.interrupt();
+        waiter.join(5000);
+
+        assertThat(slots.queued(LOW)).isZero();
+        slots.release();
+        // the slot came back instead of going to the interrupted waiter
+        slots.acquire(HIGH);
+        assertThat(slots.queued(HIGH)).isZero();
+    }
+
+    private static void awaitQueued(PrioritySlots slots, NotificationPriority priority, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (slots.queued(priority) < expected) {
+            assertThat(System.currentTimeMillis()).as("waiters queued in time").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}
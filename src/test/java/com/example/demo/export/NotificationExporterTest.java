@@ -0,0 +1,148 @@
+package com.example.demo.export;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.exception.ConcurrencyLimitExceededException;
+import com.example.demo.model.Notifications;
+import com.example.demo.repository.NotificationRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("NotificationExporter 測試")
+class NotificationExporterTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2024, 2, 1, 0, 0);
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AppProperties appProperties;
+    private NotificationExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new AppProperties();
+        appProperties.getExport().setMaxConcurrent(1);
+        exporter = new NotificationExporter(notificationRepository, new ObjectMapper(), appProperties,
+                new SimpleMeterRegistry(), transactionManager);
+    }
+
+    private static Notifications row(long id) {
+        Notifications notification = new Notifications();
+        notification.setId(id);
+        notification.setType(NotificationType.SMS);
+        notification.setRecipient("+886900000000");
+        notification.setContent("c" + id);
+        return notification;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void streamRows(long count) {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(notificationRepository.streamRange(eq(NotificationType.SMS), eq(FROM), eq(TO), anyInt(), any())).thenAnswer(inv -> {
+            Consumer<Notifications> sink = inv.getArgument(4);
+            for (long id = 1; id <= count; id++) {
+                sink.accept(row(id));
+            }
+            return count;
+        });
+    }
+
+    @Test
+    @DisplayName("範圍內有資料 -> 應逐行輸出 NDJSON")
+    void givenRows_whenExport_thenOneJsonObjectPerLine() throws IOException {
+        streamRows(3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exporter.export(FROM, TO, NotificationType.SMS, () -> out);
+
+        assertThat(rows).isEqualTo(3);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).startsWith("{\"id\":1,").endsWith("}");
+        assertThat(lines[2]).contains("\"content\":\"c3\"");
+    }
+
+    @Test
+    @DisplayName("客戶端中斷連線 -> 應拋出 UncheckedIOException 並釋放名額")
+    void givenClientGone_whenExport_thenAbortAndReleasePermit() throws IOException {
+        streamRows(3);
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        appProperties.getExport().setFlushEvery(1);
+
+        assertThrows(UncheckedIOException.class, () -> exporter.export(FROM, TO, NotificationType.SMS, () -> broken));
+
+        // permit is back, the next export runs
+        assertThat(exporter.export(FROM, TO, NotificationType.SMS, ByteArrayOutputStream::new)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("請求執行緒被中斷 -> 應還原 repository 轉譯前的 CancellationException 並釋放名額")
+    void givenCancelledInsideRepository_whenExport_thenCancellationAndReleasePermit() throws IOException {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(notificationRepository.streamRange(any(), any(), any(), anyInt(), any()))
+                .thenThrow(new InvalidDataAccessApiUsageException("export interrupted", new CancellationException("export interrupted")))
+                .thenReturn(0L);
+
+        assertThrows(CancellationException.class, () -> exporter.export(FROM, TO, null, ByteArrayOutputStream::new));
+
+        assertThat(exporter.export(FROM, TO, null, ByteArrayOutputStream::new)).isZero();
+    }
+
+    @Test
+    @DisplayName("超過同時匯出上限 -> 應拒絕且不開啟輸出")
+    void givenExportRunning_whenExport_thenRejected() throws IOException {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(notificationRepository.streamRange(any(), any(), any(), anyInt(), any())).thenAnswer(inv -> {
+            NotificationExporter.Sink second = () -> {
+                throw new AssertionError("must not be opened");
+            };
+            assertThrows(ConcurrencyLimitExceededException.class, () -> exporter.export(FROM, TO, null, second));
+            return 0L;
+        });
+
+        exporter.export(FROM, TO, null, ByteArrayOutputStream::new);
+    }
+
+    @Test
+    @DisplayName("空的時間範圍 -> 應拋出 IllegalArgumentException")
+    void givenEmptyRange_whenExport_thenThrow() {
+        assertThrows(IllegalArgumentException.class, () -> exporter.export(TO, FROM, null, ByteArrayOutputStream::new));
+        verifyNoInteractions(notificationRepository);
+    }
+}
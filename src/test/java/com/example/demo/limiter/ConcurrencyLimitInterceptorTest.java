@@ -0,0 +1,27 @@
+package com.example.demo.limiter;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.enums.LimitedOperation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ConcurrencyLimitInterceptor 測試")
+class ConcurrencyLimitInterceptorTest {
+
+    @Test
+    @DisplayName("固定上限的操作 -> 不應建立自適應限流器與指標")
+    void givenFixedCapOperations_whenCreated_thenOnlyAdaptiveOnesLimited() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        ConcurrencyLimitInterceptor interceptor = new ConcurrencyLimitInterceptor(new AppProperties(), meterRegistry);
+
+        for (LimitedOperation operation : LimitedOperation.values()) {
+            assertThat(interceptor.limiter(operation) != null).isEqualTo(operation.isAdaptive());
+            assertThat(meterRegistry.find("notification.limiter.limit").tag("operation", operation.name()).gauge() != null)
+                    .isEqualTo(operation.isAdaptive());
+        }
+    }
+}
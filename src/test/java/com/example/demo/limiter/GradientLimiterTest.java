@@ -0,0 +1,91 @@
+package com.example.demo.limiter;
+
+import com.example.demo.config.AppProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("GradientLimiter 測試")
+class GradientLimiterTest {
+
+    private AppProperties.Limiter properties;
+    private GradientLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AppProperties.Limiter();
+        properties.setInitialLimit(10);
+        properties.setMinLimit(2);
+        properties.setMaxLimit(100);
+        limiter = new GradientLimiter(properties);
+    }
+
+    @Test
+    @DisplayName("達到上限 -> 多出的呼叫應立即被拒絕")
+    void givenLimitReached_whenTryAcquire_thenRejected() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("延遲穩定且滿載 -> 上限應逐步提高")
+    void givenSteadyLatencyAtFullLoad_whenReleased_thenLimitGrows() {
+        runAtFullLoad(200, 5);
+
+        assertThat(limiter.getLimit()).isGreaterThan(10);
+    }
+
+    @Test
+    @DisplayName("延遲飆高 -> 上限應下降")
+    void givenLatencySpike_whenReleased_thenLimitShrinks() {
+        runAtFullLoad(200, 5);
+        int before = limiter.getLimit();
+
+        runAtFullLoad(50, 50);
+
+        assertThat(limiter.getLimit()).isLessThan(before);
+    }
+
+    @Test
+    @DisplayName("呼叫被丟棄 -> 上限應乘法遞減但不低於下限")
+    void givenDroppedCalls_whenReleased_thenLimitBacksOffToMin() {
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire();
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(5), true);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("負載很低 -> 上限不應因延遲樣本而改變")
+    void givenLowUtilisation_whenReleased_thenLimitUnchanged() {
+        for (int i = 0; i < 200; i++) {
+            limiter.tryAcquire();
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(i % 2 == 0 ? 5 : 500), false);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    // keep every slot busy, then release them all with the given latency
+    private void runAtFullLoad(int rounds, long rttMillis) {
+        for (int round = 0; round < rounds; round++) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limiter.release(TimeUnit.MILLISECONDS.toNanos(rttMillis), false);
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.demo.mq;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.delivery.NotificationDispatcher;
+import com.example.demo.dto.NotificationMessage;
+import com.example.demo.enums.DedupState;
+import com.example.demo.enums.NotificationMessageType;
+import com.example.demo.util.RedisUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyStatus;
+import org.apache.rocketmq.spring.autoconfigure.RocketMQProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("NotificationConsumer 批次與冪等測試")
+class NotificationConsumerTest {
+
+    @Mock
+    private RedisUtil redisUtil;
+
+    @Mock
+    private NotificationDispatcher notificationDispatcher;
+
+    private NotificationConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        consumer = spy(new NotificationConsumer(new AppProperties(), new RocketMQProperties(), redisUtil, new ObjectMapper(), notificationDispatcher,
+                new SimpleMeterRegistry()));
+    }
+
+    @Test
+    @DisplayName("重複投遞 -> 已處理過的訊息與批次內重複的訊息都應跳過")
+    void givenDuplicates_whenOnMessages_thenHandleOnlyFreshOnce() {
+        NotificationMessage first = message(1L, 0L);
+        NotificationMessage replayed = message(2L, 0L);
+        when(redisUtil.claimProcessing(eq(List.of("1:CREATE:0", "2:CREATE:0")), any(Duration.class)))
+                .thenReturn(List.of(DedupState.FRESH, DedupState.DONE));
+        when(notificationDispatcher.dispatch(first)).thenReturn(CompletableFuture.completedFuture(null));
+
+        ConsumeConcurrentlyStatus status = consumer.onMessages(List.of(first, first, replayed));
+
+        assertThat(status).isEqualTo(ConsumeConcurrentlyStatus.CONSUME_SUCCESS);
+        verify(consumer, times(1)).handle(first);
+        verify(consumer, never()).handle(replayed);
+        verify(notificationDispatcher).dispatch(first);
+        verify(redisUtil).markProcessed(eq(List.of("1:CREATE:0")), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("投遞失敗 -> 成功的才標記為已處理，失敗的應釋放並要求重新投遞")
+    void givenHandlerFailure_whenOnMessages_thenMarkOnlyHandledAndReconsumeLater() {
+        NotificationMessage ok = message(1L, 0L);
+        NotificationMessage failing = message(2L, 3L);
+        when(redisUtil.claimProcessing(anyList(), any(Duration.class))).thenReturn(List.of(DedupState.FRESH, DedupState.FRESH));
+        when(notificationDispatcher.dispatch(ok)).thenReturn(CompletableFuture.completedFuture(null));
+        when(notificationDispatcher.dispatch(failing)).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("boom")));
+
+        ConsumeConcurrentlyStatus status = consumer.onMessages(List.of(ok, failing));
+
+        assertThat(status).isEqualTo(ConsumeConcurrentlyStatus.RECONSUME_LATER);
+        verify(redisUtil).markProcessed(eq(List.of("1:CREATE:0")), any(Duration.class));
+        verify(redisUtil).releaseProcessing(List.of("2:CREATE:3"));
+    }
+
+    @Test
+    @DisplayName("訊息正由其他投遞處理中 -> 不應處理也不應視為完成，應要求稍後重新投遞")
+    void givenMessageInProgressElsewhere_whenOnMessages_thenReconsumeLaterWithoutHandling() {
+        NotificationMessage busy = message(1L, 0L);
+        when(redisUtil.claimProcessing(anyList(), any(Duration.class))).thenReturn(List.of(DedupState.IN_PROGRESS));
+
+        ConsumeConcurrentlyStatus status = consumer.onMessages(List.of(busy));
+
+        assertThat(status).isEqualTo(ConsumeConcurrentlyStatus.RECONSUME_LATER);
+        verify(consumer, never()).handle(any());
+        verify(redisUtil, never()).releaseProcessing(any());
+    }
+
+    private NotificationMessage message(Long id, Long version) {
+        return NotificationMessage.builder()
+                .id(id)
+                .notificationMessageType(NotificationMessageType.CREATE)
+                .version(version)
+                .build();
+    }
+}
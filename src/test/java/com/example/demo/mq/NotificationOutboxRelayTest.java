@@ -0,0 +1,232 @@
+package com.example.demo.mq;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.dto.NotificationMessage;
+import com.example.demo.enums.NotificationPriority;
+import com.example.demo.model.NotificationOutbox;
+import com.example.demo.repository.NotificationOutboxRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.rocketmq.client.producer.SendResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("NotificationOutboxRelay 測試")
+class NotificationOutboxRelayTest {
+
+    @Mock
+    private NotificationOutboxRepository notificationOutboxRepository;
+
+    @Mock
+    private NotificationProducer notificationProducer;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AppProperties appProperties = new AppProperties();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private NotificationOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new NotificationOutboxRelay(notificationOutboxRepository, notificationProducer,
+                appProperties, objectMapper, transactionManager, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("全部發送成功 -> 應以批次發送並一次標記所有已發送的列")
+    void givenClaimedRows_whenRelayBatch_thenBatchSendAndMarkSentInBulk() throws Exception {
+        List<NotificationOutbox> rows = List.of(row(1L, 10L), row(2L, 20L), row(3L, 30L));
+        when(notificationOutboxRepository.findClaimableForUpdate(any(LocalDateTime.class), any(Pageable.class))).thenReturn(rows);
+        when(notificationProducer.sendNotificationsAsync(anyString(), anyList()))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult()));
+
+        int sent = relay.relayBatch();
+
+        assertThat(sent).isEqualTo(3);
+        verify(notificationOutboxRepository).claim(eq(List.of(1L, 2L, 3L)), any(LocalDateTime.class));
+        verify(notificationProducer).sendNotificationsAsync(eq("notification-topic"),
+                argThat(messages -> messages.stream().map(NotificationMessage::getSubject).toList()
+                        .equals(List.of("row-1", "row-2", "row-3"))));
+        ArgumentCaptor<Collection<Long>> idsCaptor = ArgumentCaptor.captor();
+        verify(notificationOutboxRepository).markSent(idsCaptor.capture(), any(LocalDateTime.class));
+        assertThat(idsCaptor.getValue()).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    @DisplayName("認領的交易 -> 應在發送前提交，不在持有列鎖時等待 broker")
+    void givenClaimedRows_whenRelayBatch_thenCommitClaimBeforeSending() throws Exception {
+        when(notificationOutboxRepository.findClaimableForUpdate(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(row(1L, 10L)));
+        when(notificationProducer.sendNotificationsAsync(anyString(), anyList()))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult()));
+
+        relay.relayBatch();
+
+        InOrder inOrder = inOrder(notificationOutboxRepository, transactionManager, notificationProducer);
+        inOrder.verify(notificationOutboxRepository).claim(any(), any(LocalDateTime.class));
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(notificationProducer).sendNotificationsAsync(anyString(), anyList());
+        inOrder.verify(notificationOutboxRepository).markSent(any(), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("批次超過 send-batch-size -> 應拆成多個批次發送")
+    void givenMoreRowsThanSendBatchSize_whenRelayBatch_thenSplitIntoBatches() throws Exception {
+        appProperties.getOutbox().setSendBatchSize(2);
+        when(notificationOutboxRepository.findClaimableForUpdate(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(row(1L, 10L), row(2L, 20L), row(3L, 30L)));
+        when(notificationProducer.sendNotificationsAsync(anyString(), anyList()))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult()));
+
+        assertThat(relay.relayBatch()).isEqualTo(3);
+
+        verify(notificationProducer).sendNotificationsAsync(anyString(), argThat(messages -> messages.size() == 2));
+        verify(notificationProducer).sendNotificationsAsync(anyString(), argThat(messages -> messages.size() == 1));
+    }
+
+    @Test
+    @DisplayName("發送失敗 -> 不應標記，並釋放認領讓下一輪重送")
+    void givenFailedSend_whenRelayBatch_thenLeaveRowsUnsentAndReleaseClaim() throws Exception {
+        when(notificationOutboxRepository.findClaimableForUpdate(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(row(1L, 10L), row(2L, 20L)));
+        when(notificationProducer.sendNotificationsAsync(anyString(), anyList()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        int sent = relay.relayBatch();
+
+        assertThat(sent).isZero();
+        verify(notificationOutboxRepository, never()).markSent(any(), any());
+        verify(notificationOutboxRepository).release(List.of(1L, 2L));
+    }
+
+    @Test
+    @DisplayName("payload 無法解析 -> 其餘列照常發送，壞列應記錄並標記為已發送不再認領")
+    void givenCorruptPayload_whenRelayBatch_thenOthersSentAndCorruptRowRetired() throws Exception {
+        NotificationOutbox corrupt = row(2L, 20L);
+        corrupt.setPayload("{not json");
+        when(notificationOutboxRepository.findClaimableForUpdate(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(row(1L, 10L), corrupt, row(3L, 30L)));
+        when(notificationProducer.sendNotificationsAsync(anyString(), anyList()))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult()));
+
+        assertThat(relay.relayBatch()).isEqualTo(3);
+
+        verify(notificationProducer).sendNotificationsAsync(eq("notification-topic"),
+                argThat(messages -> messages.stream().map(NotificationMessage::getSubject).toList()
+                        .equals(List.of("row-1", "row-3"))));
+        ArgumentCaptor<Collection<Long>> idsCaptor = ArgumentCaptor.captor();
+        verify(notificationOutboxRepository, times(2)).markSent(idsCaptor.capture(), any(LocalDateTime.class));
+        assertThat(idsCaptor.getAllValues()).satisfiesExactlyInAnyOrder(
+                ids -> assertThat(ids).containsExactlyInAnyOrder(1L, 3L),
+                ids -> assertThat(ids).containsExactly(2L));
+        verify(notificationOutboxRepository, never()).release(any());
+        assertThat(meterRegistry.counter("notification.outbox.corrupt").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("確認在其他執行緒回來 -> 同時未確認的批次不應超過 max-in-flight，且只從 relay 執行緒發送")
+    void givenSlowAcks_whenRelayBatch_thenNeverExceedMaxInFlight() throws Exception {
+        appProperties.getOutbox().setMaxInFlight(2);
+        appProperties.getOutbox().setSendBatchSize(1);
+        List<NotificationOutbox> rows = new ArrayList<>();
+        for (long id = 1; id <= 8; id++) {
+            rows.add(row(id, id * 10));
+        }
+        when(notificationOutboxRepository.findClaimableForUpdate(any(LocalDateTime.class), any(Pageable.class))).thenReturn(rows);
+
+        ScheduledExecutorService broker = Executors.newScheduledThreadPool(4);
+        AtomicInteger outstanding = new AtomicInteger();
+        AtomicInteger maxOutstanding = new AtomicInteger();
+        Set<Thread> senders = ConcurrentHashMap.newKeySet();
+        when(notificationProducer.sendNotificationsAsync(anyString(), anyList())).thenAnswer(inv -> {
+            senders.add(Thread.currentThread());
+            maxOutstanding.accumulateAndGet(outstanding.incrementAndGet(), Math::max);
+            CompletableFuture<SendResult> ack = new CompletableFuture<>();
+            broker.schedule(() -> {
+                outstanding.decrementAndGet();
+                ack.complete(new SendResult());
+            }, 5, TimeUnit.MILLISECONDS);
+            return ack;
+        });
+
+        try {
+            assertThat(relay.relayBatch()).isEqualTo(8);
+        } finally {
+            broker.shutdownNow();
+        }
+
+        assertThat(maxOutstanding.get()).isEqualTo(2);
+        assertThat(senders).containsExactly(Thread.currentThread());
+    }
+
+    @Test
+    @DisplayName("各優先級依權重分配每輪名額 -> 未用完的名額應留給其他優先級")
+    void givenPriorityWeights_whenRelayBatch_thenQuotaPerPriorityThenLeftovers() throws Exception {
+        appProperties.getOutbox().setBatchSize(21);
+        relay = new NotificationOutboxRelay(notificationOutboxRepository, notificationProducer,
+                appProperties, objectMapper, transactionManager, meterRegistry);
+        when(notificationOutboxRepository.findClaimableByPriorityForUpdate(eq(NotificationPriority.HIGH.ordinal()),
+                any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(row(1L, 10L), row(2L, 20L)));
+        when(notificationOutboxRepository.findClaimableForUpdate(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(row(3L, 30L)));
+        when(notificationProducer.sendNotificationsAsync(anyString(), anyList()))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult()));
+
+        assertThat(relay.relayBatch()).isEqualTo(3);
+
+        // 16/4/1 of 21 rows; HIGH took 2, so 19 are left for whatever is waiting
+        verify(notificationOutboxRepository).findClaimableByPriorityForUpdate(eq(NotificationPriority.HIGH.ordinal()),
+                any(LocalDateTime.class), eq(PageRequest.of(0, 16)));
+        verify(notificationOutboxRepository).findClaimableByPriorityForUpdate(eq(NotificationPriority.NORMAL.ordinal()),
+                any(LocalDateTime.class), eq(PageRequest.of(0, 4)));
+        verify(notificationOutboxRepository).findClaimableByPriorityForUpdate(eq(NotificationPriority.LOW.ordinal()),
+                any(LocalDateTime.class), eq(PageRequest.of(0, 1)));
+        verify(notificationOutboxRepository).findClaimableForUpdate(any(LocalDateTime.class), eq(PageRequest.of(0, 19)));
+        verify(notificationOutboxRepository).claim(eq(List.of(1L, 2L)), any(LocalDateTime.class));
+        verify(notificationOutboxRepository).claim(eq(List.of(3L)), any(LocalDateTime.class));
+    }
+
+    private NotificationOutbox row(Long id, Long notificationId) throws Exception {
+        NotificationOutbox row = new NotificationOutbox();
+        row.setId(id);
+        row.setTopic("notification-topic");
+        row.setMessageKey(String.valueOf(notificationId));
+        row.setPayload(objectMapper.writeValueAsString(NotificationMessage.builder()
+                .id(notificationId)
+                .subject("row-" + id)
+                .build()));
+        row.setCreatedAt(LocalDateTime.now());
+        return row;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.demo.mq;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.dto.NotificationMessage;
+import com.example.demo.enums.OverflowPolicy;
+import com.example.demo.exception.NotificationBackpressureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.rocketmq.client.producer.SendCallback;
+import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.spring.core.RocketMQTemplate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("NotificationProducer 非同步發送測試")
+class NotificationProducerTest {
+
+    private static final String TOPIC = "notification-topic";
+
+    @Mock
+    private RocketMQTemplate rocketmqTemplate;
+
+    private final AppProperties appProperties = new AppProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private NotificationProducer producer;
+
+    @BeforeEach
+    void setUp() {
+        AppProperties.Producer properties = appProperties.getRocketmq().getProducer();
+        properties.setMaxInFlight(1);
+        properties.setRetryBackoff(Duration.ofMillis(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        producer.shutdown();
+    }
+
+    @Test
+    @DisplayName("發送成功 -> future 完成並記錄延遲")
+    void givenBrokerAck_whenSendAsync_thenCompleteFuture() {
+        producer = new NotificationProducer(rocketmqTemplate, appProperties, meterRegistry);
+
+        CompletableFuture<SendResult> future = producer.sendNotificationAsync(TOPIC, message(1L));
+        SendResult result = new SendResult();
+        captureCallback().onSuccess(result);
+
+        assertThat(future).isCompletedWithValue(result);
+        assertThat(meterRegistry.get("notification.mq.send").tag("outcome", "success").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("視窗已滿且策略為 REJECT -> 應立即以 backpressure 失敗")
+    void givenFullWindowAndReject_whenSendAsync_thenFailFast() {
+        appProperties.getRocketmq().getProducer().setOverflowPolicy(OverflowPolicy.REJECT);
+        producer = new NotificationProducer(rocketmqTemplate, appProperties, meterRegistry);
+
+        producer.sendNotificationAsync(TOPIC, message(1L));
+        CompletableFuture<SendResult> rejected = producer.sendNotificationAsync(TOPIC, message(2L));
+
+        assertThat(rejected).isCompletedExceptionally();
+        assertThat(rejected.exceptionNow()).isInstanceOf(NotificationBackpressureException.class);
+        verify(rocketmqTemplate, times(1)).asyncSend(anyString(), any(Message.class), any(SendCallback.class), anyLong());
+    }
+
+    @Test
+    @DisplayName("視窗已滿且策略為 SPILL -> 應暫存並在前一筆完成後發送")
+    void givenFullWindowAndSpill_whenFirstCompletes_thenSendSpilled() {
+        appProperties.getRocketmq().getProducer().setOverflowPolicy(OverflowPolicy.SPILL);
+        producer = new NotificationProducer(rocketmqTemplate, appProperties, meterRegistry);
+
+        producer.sendNotificationAsync(TOPIC, message(1L));
+        CompletableFuture<SendResult> spilled = producer.sendNotificationAsync(TOPIC, message(2L));
+        assertThat(spilled).isNotDone();
+
+        captureCallback().onSuccess(new SendResult());
+
+        verify(rocketmqTemplate, times(2)).asyncSend(anyString(), any(Message.class), any(SendCallback.class), anyLong());
+    }
+
+    @Test
+    @DisplayName("發送失敗 -> 應依重試策略重送，成功後 future 完成")
+    void givenTransientFailure_whenSendAsync_thenRetry() {
+        producer = new NotificationProducer(rocketmqTemplate, appProperties, meterRegistry);
+
+        CompletableFuture<SendResult> future = producer.sendNotificationAsync(TOPIC, message(1L));
+        captureCallback().onException(new IllegalStateException("timeout"));
+
+        ArgumentCaptor<SendCallback> retryCallback = ArgumentCaptor.forClass(SendCallback.class);
+        verify(rocketmqTemplate, timeout(TimeUnit.SECONDS.toMillis(2)).times(2))
+                .asyncSend(anyString(), any(Message.class), retryCallback.capture(), anyLong());
+        retryCallback.getValue().onSuccess(new SendResult());
+
+        assertThat(future).isCompleted();
+        assertThat(future).isNotCompletedExceptionally();
+    }
+
+    private SendCallback captureCallback() {
+        ArgumentCaptor<SendCallback> callback = ArgumentCaptor.forClass(SendCallback.class);
+        verify(rocketmqTemplate, atLeastOnce()).asyncSend(eq(TOPIC), any(Message.class), callback.capture(), anyLong());
+        return callback.getValue();
+    }
+
+    private NotificationMessage message(Long id) {
+        return NotificationMessage.builder().id(id).build();
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.demo.push;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.dto.NotificationEvent;
+import com.example.demo.dto.NotificationMessage;
+import com.example.demo.enums.NotificationMessageType;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.exception.ConcurrencyLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("NotificationEventHub 測試")
+class NotificationEventHubTest {
+
+    private static final String RECIPIENT = "user@example.com";
+
+    private AppProperties appProperties;
+    private NotificationEventHub hub;
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new AppProperties();
+        appProperties.getPush().setBufferSize(2);
+        hub = new NotificationEventHub(appProperties, new SimpleMeterRegistry());
+    }
+
+    private static NotificationMessage message(long id, String recipient, NotificationType type) {
+        return NotificationMessage.builder()
+                .id(id)
+                .notificationMessageType(NotificationMessageType.CREATE)
+                .notificationType(type)
+                .recipient(recipient)
+                .version(0L)
+                .build();
+    }
+
+    /**
+     * Requests only what the test asks for, like a client that reads slowly.
+     */
+    private static final class SlowSubscriber extends BaseSubscriber<NotificationEvent> {
+        private final List<NotificationEvent> received = new ArrayList<>();
+        private boolean completed;
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            // no demand until the test asks
+        }
+
+        @Override
+        protected void hookOnNext(NotificationEvent event) {
+            received.add(event);
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            completed = true;
+        }
+    }
+
+    @Test
+    @DisplayName("依收件者與類型訂閱 -> 只應收到符合的事件")
+    void givenFilteredSubscribers_whenPublish_thenOnlyMatchingEvents() {
+        List<NotificationEvent> byRecipient = new ArrayList<>();
+        List<NotificationEvent> byType = new ArrayList<>();
+        List<NotificationEvent> all = new ArrayList<>();
+        hub.subscribe(RECIPIENT, null).subscribe(byRecipient::add);
+        hub.subscribe(null, NotificationType.SMS).subscribe(byType::add);
+        hub.subscribe(null, null).subscribe(all::add);
+
+        hub.publish(message(1L, RECIPIENT, NotificationType.EMAIL));
+        hub.publish(message(2L, "+886900000000", NotificationType.SMS));
+
+        assertThat(byRecipient).extracting(NotificationEvent::getId).containsExactly(1L);
+        assertThat(byType).extracting(NotificationEvent::getId).containsExactly(2L);
+        assertThat(all).extracting(NotificationEvent::getId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("慢速訂閱者佇列已滿 -> 應丟棄事件，下一筆事件帶上遺漏數，不影響其他訂閱者")
+    void givenSlowSubscriber_whenBufferFull_thenDropAndReportMissed() {
+        SlowSubscriber slow = new SlowSubscriber();
+        List<NotificationEvent> fast = new ArrayList<>();
+        hub.subscribe(RECIPIENT, null).subscribe(slow);
+        hub.subscribe(RECIPIENT, null).subscribe(fast::add);
+
+        for (long id = 1; id <= 3; id++) {
+            hub.publish(message(id, RECIPIENT, NotificationType.SMS));
+        }
+        slow.request(2);
+        hub.publish(message(4L, RECIPIENT, NotificationType.SMS));
+        slow.request(1);
+
+        assertThat(slow.received).extracting(NotificationEvent::getId).containsExactly(1L, 2L, 4L);
+        assertThat(slow.received.get(2).getMissed()).isEqualTo(1L);
+        assertThat(fast).extracting(NotificationEvent::getMissed).containsOnly(0L).hasSize(4);
+    }
+
+    @Test
+    @DisplayName("訂閱者完全不讀 -> 遺漏超過佇列大小後應在送完佇列後斷線")
+    void givenStalledSubscriber_whenMissedMoreThanBuffer_thenCompleteAfterDrain() {
+        SlowSubscriber stalled = new SlowSubscriber();
+        hub.subscribe(RECIPIENT, null).subscribe(stalled);
+
+        for (long id = 1; id <= 5; id++) {
+            hub.publish(message(id, RECIPIENT, NotificationType.SMS));
+        }
+
+        assertThat(hub.subscriberCount()).isZero();
+        stalled.request(Long.MAX_VALUE);
+        assertThat(stalled.received).extracting(NotificationEvent::getId).containsExactly(1L, 2L);
+        assertThat(stalled.completed).isTrue();
+    }
+
+    @Test
+    @DisplayName("取消訂閱 -> 應移除訂閱者")
+    void givenSubscriber_whenCancel_thenUnregistered() {
+        Disposable subscription = hub.subscribe(RECIPIENT, null).subscribe();
+        assertThat(hub.subscriberCount()).isEqualTo(1);
+
+        subscription.dispose();
+
+        assertThat(hub.subscriberCount()).isZero();
+        hub.publish(message(1L, RECIPIENT, NotificationType.SMS));
+    }
+
+    @Test
+    @DisplayName("達到訂閱上限 -> 應拋出 ConcurrencyLimitExceededException")
+    void givenMaxSubscribers_whenSubscribe_thenRejected() {
+        appProperties.getPush().setMaxSubscribers(1);
+        hub.subscribe(null, null).subscribe();
+
+        assertThrows(ConcurrencyLimitExceededException.class, () -> hub.subscribe(RECIPIENT, null));
+    }
+
+    @Test
+    @DisplayName("多個連線同時通過上限檢查 -> 只有上限內的能訂閱，其餘應以 ConcurrencyLimitExceededException 結束")
+    void givenConnectsPassingCheckTogether_whenSubscribed_thenCapHeld() {
+        appProperties.getPush().setMaxSubscribers(2);
+        List<Flux<NotificationEvent>> connects = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            connects.add(hub.subscribe(RECIPIENT, null));
+        }
+        List<Throwable> errors = new ArrayList<>();
+
+        connects.forEach(flux -> flux.subscribe(event -> {
+        }, errors::add));
+
+        assertThat(hub.subscriberCount()).isEqualTo(2);
+        assertThat(errors).hasSize(2).allMatch(ConcurrencyLimitExceededException.class::isInstance);
+    }
+}
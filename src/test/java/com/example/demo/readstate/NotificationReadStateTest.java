@@ -0,0 +1,145 @@
+package com.example.demo.readstate;
+
+import com.example.demo.model.Notifications;
+import com.example.demo.repository.NotificationRepository;
+import com.example.demo.util.RedisUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("NotificationReadState 測試")
+class NotificationReadStateTest {
+
+    private static final String RECIPIENT = "user@example.com";
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private RedisUtil redisUtil;
+
+    @Mock
+    private ReadStateWriteBehind writeBehind;
+
+    private NotificationReadState readState;
+
+    @BeforeEach
+    void setUp() {
+        readState = new NotificationReadState(notificationRepository, redisUtil, writeBehind, new SimpleMeterRegistry());
+    }
+
+    private static Notifications row(long id, long seq) {
+        Notifications notification = new Notifications();
+        notification.setId(id);
+        notification.setRecipient(RECIPIENT);
+        notification.setRecipientSeq(seq);
+        return notification;
+    }
+
+    @Test
+    @DisplayName("序號計數器遺失 -> 應以 DB 最大序號補種後再遞增")
+    void givenColdSequence_whenAllocate_thenSeedFromDbAndIncrement() {
+        when(redisUtil.nextRecipientSeq(RECIPIENT, 3)).thenReturn(null, 45L);
+        when(notificationRepository.findMaxRecipientSeq(RECIPIENT)).thenReturn(42L);
+
+        assertThat(readState.allocate(RECIPIENT, 3)).isEqualTo(43L);
+
+        verify(redisUtil).seedRecipientSeq(RECIPIENT, 42L);
+    }
+
+    @Test
+    @DisplayName("批次配置序號 -> 應依收件者一次遞增，冷計數器以 DB 最大序號補種")
+    void givenBatchWithColdRecipient_whenAssignSequences_thenOneRangePerRecipient() {
+        Notifications first = row(1L, 0L);
+        Notifications second = row(2L, 0L);
+        Notifications other = row(3L, 0L);
+        other.setRecipient("other@example.com");
+        when(redisUtil.nextRecipientSeqs(Map.of(RECIPIENT, 2, "other@example.com", 1))).thenReturn(Map.of(RECIPIENT, 12L));
+        when(notificationRepository.findMaxRecipientSeqs(Set.of("other@example.com")))
+                .thenReturn(List.<Object[]>of(new Object[]{"other@example.com", 4L}));
+        when(redisUtil.nextRecipientSeqs(Map.of("other@example.com", 1))).thenReturn(Map.of("other@example.com", 5L));
+
+        readState.assignSequences(List.of(first, other, second));
+
+        verify(redisUtil).seedRecipientSeqs(Map.of("other@example.com", 4L));
+        assertThat(first.getRecipientSeq()).isEqualTo(11L);
+        assertThat(second.getRecipientSeq()).isEqualTo(12L);
+        assertThat(other.getRecipientSeq()).isEqualTo(5L);
+    }
+
+    @Test
+    @DisplayName("未讀數在 Redis -> 應直接回傳，不查 DB")
+    void givenWarmState_whenUnreadCount_thenNoDb() {
+        when(redisUtil.findUnreadCount(RECIPIENT)).thenReturn(Optional.of(5L));
+
+        assertThat(readState.unreadCount(RECIPIENT)).isEqualTo(5L);
+
+        verifyNoInteractions(notificationRepository, writeBehind);
+    }
+
+    @Test
+    @DisplayName("Redis 狀態遺失 -> 應從 DB 重建點陣圖，並套用本節點尚未寫入 DB 的已讀，不在請求執行緒上寫 DB")
+    void givenColdState_whenUnreadCount_thenRebuildWithUnwrittenReads() {
+        when(redisUtil.findUnreadCount(RECIPIENT)).thenReturn(Optional.empty(), Optional.of(2L));
+        when(writeBehind.pendingReads(RECIPIENT)).thenReturn(new ReadStateWriteBehind.PendingReads(5L, Set.of(8L)));
+        when(notificationRepository.findUnreadSeqs(RECIPIENT)).thenReturn(List.of(4L, 9L, 8L, 7L));
+
+        assertThat(readState.unreadCount(RECIPIENT)).isEqualTo(2L);
+
+        InOrder inOrder = inOrder(writeBehind, notificationRepository, redisUtil);
+        inOrder.verify(writeBehind).pendingReads(RECIPIENT);
+        inOrder.verify(notificationRepository).findUnreadSeqs(RECIPIENT);
+        // 4 is under a pending mark-all and 8 is read; bitmap starts right below the oldest unread sequence
+        inOrder.verify(redisUtil).populateUnread(RECIPIENT, 6L, List.of(9L, 7L));
+        verify(writeBehind, never()).flush();
+    }
+
+    @Test
+    @DisplayName("標記已讀 -> 應清除位元並排入 DB 寫回，舊資料 (序號 0) 只寫 DB")
+    void givenWarmState_whenMarkRead_thenClearBitsAndQueueWrite() {
+        when(redisUtil.markRead(RECIPIENT, List.of(3L, 4L))).thenReturn(1L);
+
+        List<Notifications> rows = List.of(row(1L, 3L), row(2L, 4L), row(3L, 0L));
+        long newlyRead = readState.markRead(rows);
+
+        assertThat(newlyRead).isEqualTo(1L);
+        verify(writeBehind).markRead(rows);
+        verify(notificationRepository, never()).findUnreadSeqs(RECIPIENT);
+    }
+
+    @Test
+    @DisplayName("刪除通知 -> 應以刪除標記清除位元，冷狀態時由 Redis 暫存")
+    void givenDeletedNotification_whenOnDeleted_thenMarkDeleted() {
+        readState.onDeleted(row(1L, 3L));
+        readState.onDeleted(row(2L, 0L));
+
+        verify(redisUtil).markDeleted(RECIPIENT, List.of(3L));
+        verifyNoMoreInteractions(redisUtil);
+    }
+
+    @Test
+    @DisplayName("全部已讀 -> 應移動基準點並以該序號排入 DB 寫回")
+    void givenRecipient_whenMarkAllRead_thenMoveBaseAndQueueWrite() {
+        when(redisUtil.findRecipientSeq(RECIPIENT)).thenReturn(Optional.of(10L));
+        when(redisUtil.markAllRead(RECIPIENT)).thenReturn(10L);
+
+        readState.markAllRead(RECIPIENT);
+
+        verify(writeBehind).markAllRead(RECIPIENT, 10L);
+        verifyNoInteractions(notificationRepository);
+    }
+}
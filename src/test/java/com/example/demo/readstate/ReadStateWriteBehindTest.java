@@ -0,0 +1,81 @@
+package com.example.demo.readstate;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.model.Notifications;
+import com.example.demo.repository.NotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ReadStateWriteBehind 測試")
+class ReadStateWriteBehindTest {
+
+    private static final String RECIPIENT = "user@example.com";
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ReadStateWriteBehind writeBehind;
+
+    @BeforeEach
+    void setUp() {
+        writeBehind = new ReadStateWriteBehind(notificationRepository, new AppProperties(), new SimpleMeterRegistry(),
+                transactionManager);
+    }
+
+    @Test
+    @DisplayName("已讀標記寫入 DB 之前與寫入當中 -> 應列為待寫入；寫入提交後才移除")
+    void givenQueuedMarks_whenFlush_thenPendingUntilCommitted() {
+        Notifications other = row(3L, 1L);
+        other.setRecipient("other@example.com");
+        writeBehind.markRead(List.of(row(1L, 5L), row(2L, 0L), other));
+        writeBehind.markAllRead(RECIPIENT, 4L);
+        assertThat(writeBehind.pendingReads(RECIPIENT)).isEqualTo(new ReadStateWriteBehind.PendingReads(4L, Set.of(5L)));
+
+        AtomicReference<ReadStateWriteBehind.PendingReads> duringWrite = new AtomicReference<>();
+        when(notificationRepository.markReadByIds(anyCollection(), any())).thenAnswer(invocation -> {
+            duringWrite.set(writeBehind.pendingReads(RECIPIENT));
+            return 3;
+        });
+        writeBehind.flush();
+
+        assertThat(duringWrite.get().isRead(5L)).isTrue();
+        assertThat(writeBehind.pendingReads(RECIPIENT)).isEqualTo(new ReadStateWriteBehind.PendingReads(0L, Set.of()));
+    }
+
+    @Test
+    @DisplayName("寫入 DB 失敗 -> 已讀標記應重新排隊並仍列為待寫入")
+    void givenFailedWrite_whenFlush_thenStillPending() {
+        writeBehind.markRead(List.of(row(1L, 5L)));
+        when(notificationRepository.markReadByIds(anyCollection(), any())).thenThrow(new IllegalStateException("db down"));
+
+        writeBehind.flush();
+
+        assertThat(writeBehind.pendingReads(RECIPIENT).isRead(5L)).isTrue();
+    }
+
+    private static Notifications row(long id, long seq) {
+        Notifications notification = new Notifications();
+        notification.setId(id);
+        notification.setRecipient(RECIPIENT);
+        notification.setRecipientSeq(seq);
+        return notification;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.demo.repository;
+
+import com.example.demo.enums.NotificationPriority;
+import com.example.demo.model.NotificationOutbox;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Claim query on an embedded H2 database.
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@DisplayName("NotificationOutboxRepository 測試")
+class NotificationOutboxRepositoryTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    @Autowired
+    private NotificationOutboxRepository notificationOutboxRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    @DisplayName("同一 key 有多筆未發送 -> 只能認領最舊的一筆")
+    void givenSeveralUnsentRowsOfOneKey_whenFindClaimable_thenOnlyOldest() {
+        NotificationOutbox create = persist("10", NotificationPriority.NORMAL, null, null);
+        persist("10", NotificationPriority.NORMAL, null, null);
+        NotificationOutbox other = persist("20", NotificationPriority.NORMAL, null, null);
+
+        assertThat(claimable()).containsExactly(create.getId(), other.getId());
+    }
+
+    @Test
+    @DisplayName("最舊的一筆已被其他 relay 認領 -> 同 key 的下一筆也不可認領，直到它發送完成")
+    void givenHeadClaimedElsewhere_whenFindClaimable_thenKeyBlockedUntilSent() {
+        NotificationOutbox create = persist("10", NotificationPriority.NORMAL, NOW.plusSeconds(30), null);
+        NotificationOutbox update = persist("10", NotificationPriority.NORMAL, null, null);
+
+        assertThat(claimable()).isEmpty();
+
+        notificationOutboxRepository.markSent(List.of(create.getId()), NOW);
+        entityManager.clear();
+        assertThat(claimable()).containsExactly(update.getId());
+    }
+
+    @Test
+    @DisplayName("認領已過期 -> 應可再次認領")
+    void givenLapsedClaim_whenFindClaimable_thenClaimableAgain() {
+        NotificationOutbox row = persist("10", NotificationPriority.NORMAL, NOW.minusSeconds(1), null);
+
+        assertThat(claimable()).containsExactly(row.getId());
+    }
+
+    @Test
+    @DisplayName("不同優先級 -> 高優先級先認領")
+    void givenMixedPriorities_whenFindClaimable_thenHighestFirst() {
+        NotificationOutbox normal = persist("10", NotificationPriority.NORMAL, null, null);
+        NotificationOutbox high = persist("20", NotificationPriority.HIGH, null, null);
+        persist("30", NotificationPriority.LOW, NOW, NOW);
+
+        assertThat(claimable()).containsExactly(high.getId(), normal.getId());
+    }
+
+    @Test
+    @DisplayName("依優先級認領 -> 只回傳該優先級，同 key 仍只認領最舊的一筆")
+    void givenMixedPriorities_whenFindClaimableByPriority_thenOnlyThatPriority() {
+        persist("10", NotificationPriority.HIGH, null, null);
+        NotificationOutbox low = persist("20", NotificationPriority.LOW, null, null);
+        persist("20", NotificationPriority.LOW, null, null);
+        NotificationOutbox otherLow = persist("30", NotificationPriority.LOW, null, null);
+
+        assertThat(notificationOutboxRepository.findClaimableByPriorityForUpdate(NotificationPriority.LOW.ordinal(), NOW,
+                PageRequest.of(0, 10)).stream().map(NotificationOutbox::getId))
+                .containsExactly(low.getId(), otherLow.getId());
+    }
+
+    private List<Long> claimable() {
+        return notificationOutboxRepository.findClaimableForUpdate(NOW, PageRequest.of(0, 10)).stream()
+                .map(NotificationOutbox::getId)
+                .toList();
+    }
+
+    private NotificationOutbox persist(String key, NotificationPriority priority, LocalDateTime claimedUntil, LocalDateTime sentAt) {
+        NotificationOutbox row = new NotificationOutbox();
+        row.setTopic("notification-topic");
+        row.setMessageKey(key);
+        row.setPayload("{}");
+        row.setPriority(priority.ordinal());
+        row.setCreatedAt(NOW);
+        row.setClaimedUntil(claimedUntil);
+        row.setSentAt(sentAt);
+        return entityManager.persistFlushFind(row);
+    }
+}
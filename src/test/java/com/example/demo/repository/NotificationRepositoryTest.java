@@ -0,0 +1,131 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.ExpiredNotification;
+import com.example.demo.enums.NotificationPriority;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.model.NotificationArchive;
+import com.example.demo.model.Notifications;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * JDBC fragment queries on an embedded H2 database, the export stream over a real JDBC cursor included.
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@DisplayName("NotificationRepository 測試")
+class NotificationRepositoryTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    @DisplayName("歸檔 -> 應保留已讀狀態欄位與優先級並自原表刪除")
+    void givenReadAndUnreadRows_whenArchive_thenReadStateAndPriorityKept() {
+        Notifications read = persist(7L);
+        Notifications unread = persist(NotificationType.EMAIL, 8L, NotificationPriority.HIGH);
+        notificationRepository.markReadByIds(List.of(read.getId()), NOW);
+
+        assertThat(notificationRepository.archive(List.of(read.getId(), unread.getId()), NOW)).isEqualTo(2);
+        entityManager.clear();
+
+        NotificationArchive archivedRead = entityManager.find(NotificationArchive.class, read.getId());
+        NotificationArchive archivedUnread = entityManager.find(NotificationArchive.class, unread.getId());
+        assertThat(archivedRead.getRecipientSeq()).isEqualTo(7L);
+        assertThat(archivedRead.getReadAt()).isEqualTo(NOW);
+        assertThat(archivedUnread.getRecipientSeq()).isEqualTo(8L);
+        assertThat(archivedUnread.getReadAt()).isNull();
+        assertThat(archivedRead.getPriority()).isEqualTo(NotificationPriority.NORMAL);
+        assertThat(archivedUnread.getPriority()).isEqualTo(NotificationPriority.HIGH);
+        assertThat(notificationRepository.findAllById(List.of(read.getId(), unread.getId()))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("過期分段 -> 應帶出收件人與序號，並依游標接續")
+    void givenExpiredRows_whenFindExpiredChunk_thenRecipientAndSeqWithCursor() {
+        Notifications first = persist(7L);
+        Notifications second = persist(8L);
+        LocalDateTime before = LocalDateTime.now().plusMinutes(1);
+
+        List<ExpiredNotification> chunk = notificationRepository.findExpiredChunk(NotificationType.EMAIL, before, null, 1);
+        assertThat(chunk).containsExactly(new ExpiredNotification(first.getId(), first.getCreatedAt(), "user@example.com", 7L));
+
+        assertThat(notificationRepository.findExpiredChunk(NotificationType.EMAIL, before, chunk.get(0).cursor(), 10))
+                .extracting(ExpiredNotification::id, ExpiredNotification::recipientSeq)
+                .containsExactly(tuple(second.getId(), 8L));
+    }
+
+    @Test
+    @DisplayName("串流匯出 -> 應經由 JDBC 游標依建立時間順序逐筆交出，並可依類型過濾")
+    void givenRowsInRange_whenStreamRange_thenOldestFirstFilteredByType() {
+        Notifications first = persist(NotificationType.EMAIL, 1L);
+        persist(NotificationType.SMS, 2L);
+        Notifications third = persist(NotificationType.EMAIL, 3L);
+        LocalDateTime from = LocalDateTime.now().minusMinutes(1);
+        LocalDateTime to = LocalDateTime.now().plusMinutes(1);
+        List<Notifications> streamed = new ArrayList<>();
+
+        long rows = notificationRepository.streamRange(NotificationType.EMAIL, from, to, 1, streamed::add);
+
+        assertThat(rows).isEqualTo(2);
+        assertThat(streamed).extracting(Notifications::getId).containsExactly(first.getId(), third.getId());
+        assertThat(streamed.get(1).getRecipientSeq()).isEqualTo(3L);
+        assertThat(notificationRepository.streamRange(null, from, to, 1, notification -> {
+        })).isEqualTo(3);
+        assertThat(notificationRepository.streamRange(null, to, to.plusMinutes(1), 1, notification -> {
+        })).isZero();
+    }
+
+    @Test
+    @DisplayName("串流途中被取消 -> 應停止查詢並拋出（經 repository 轉譯），連線仍可使用")
+    void givenSinkCancels_whenStreamRange_thenQueryStoppedAndRethrown() {
+        persist(NotificationType.EMAIL, 1L);
+        persist(NotificationType.EMAIL, 2L);
+        LocalDateTime from = LocalDateTime.now().minusMinutes(1);
+        LocalDateTime to = LocalDateTime.now().plusMinutes(1);
+        int[] seen = {0};
+
+        assertThatThrownBy(() -> notificationRepository.streamRange(null, from, to, 1, notification -> {
+            seen[0]++;
+            throw new CancellationException("export interrupted");
+        })).hasCauseInstanceOf(CancellationException.class);
+
+        assertThat(seen[0]).isEqualTo(1);
+        assertThat(notificationRepository.count()).isEqualTo(2);
+    }
+
+    private Notifications persist(long recipientSeq) {
+        return persist(NotificationType.EMAIL, recipientSeq);
+    }
+
+    private Notifications persist(NotificationType type, long recipientSeq) {
+        return persist(type, recipientSeq, NotificationPriority.NORMAL);
+    }
+
+    private Notifications persist(NotificationType type, long recipientSeq, NotificationPriority priority) {
+        Notifications notification = new Notifications();
+        notification.setType(type);
+        notification.setRecipient("user@example.com");
+        notification.setSubject("subject");
+        notification.setContent("content");
+        notification.setRecipientSeq(recipientSeq);
+        notification.setPriority(priority);
+        return entityManager.persistFlushFind(notification);
+    }
+}
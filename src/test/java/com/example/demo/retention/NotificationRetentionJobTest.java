@@ -0,0 +1,124 @@
+package com.example.demo.retention;
+
+import com.example.demo.cache.NotificationNearCache;
+import com.example.demo.config.AppProperties;
+import com.example.demo.dto.ExpiredNotification;
+import com.example.demo.dto.NotificationCursor;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.repository.NotificationRepository;
+import com.example.demo.repository.NotificationScheduleRepository;
+import com.example.demo.util.RedisUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("NotificationRetentionJob 測試")
+class NotificationRetentionJobTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private NotificationScheduleRepository notificationScheduleRepository;
+
+    @Mock
+    private RedisUtil redisUtil;
+
+    @Mock
+    private NotificationNearCache notificationNearCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AppProperties appProperties;
+    private NotificationRetentionJob job;
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new AppProperties();
+        appProperties.getRetention().setEnabled(true);
+        appProperties.getRetention().getTtl().put(NotificationType.SMS, Duration.ofDays(90));
+        appProperties.getRetention().setChunkSize(2);
+        appProperties.getRetention().setChunkPause(Duration.ZERO);
+        job = new NotificationRetentionJob(notificationRepository, notificationScheduleRepository, redisUtil, notificationNearCache,
+                appProperties, new SimpleMeterRegistry(), transactionManager);
+    }
+
+    @Test
+    @DisplayName("過期資料跨多個分段 -> 應依游標逐段歸檔並清除快取")
+    void givenExpiredRowsInChunks_whenPurge_thenArchiveChunkByChunkAndEvict() {
+        when(redisUtil.acquireLease(anyString(), anyString(), any())).thenReturn(true);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        LocalDateTime old = LocalDateTime.now().minusDays(200);
+        when(notificationRepository.findExpiredChunk(eq(NotificationType.SMS), any(), isNull(), eq(2)))
+                .thenReturn(List.of(expired(old, 1L, "a", 1), expired(old, 2L, "b", 0)));
+        when(notificationRepository.findExpiredChunk(eq(NotificationType.SMS), any(), eq(new NotificationCursor(old, 2L)), eq(2)))
+                .thenReturn(List.of(expired(old, 3L, "a", 2)));
+        when(notificationRepository.archive(eq(List.of(1L, 2L)), any())).thenReturn(2);
+        when(notificationRepository.archive(eq(List.of(3L)), any())).thenReturn(1);
+
+        long archived = job.purge();
+
+        assertThat(archived).isEqualTo(3);
+        verify(redisUtil).deleteNotifications(List.of(1L, 2L));
+        verify(redisUtil).deleteNotifications(List.of(3L));
+        verify(redisUtil).removeNotificationsFromRecentList(List.of(1L, 2L));
+        verify(notificationNearCache).invalidateLocally(List.of(3L));
+        // evicted like a delete: pending schedule rows, inbox entries and unread bits
+        verify(notificationScheduleRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(redisUtil).removeNotificationsFromInbox("a", List.of(1L));
+        verify(redisUtil).removeNotificationsFromInbox("b", List.of(2L));
+        verify(redisUtil).removeNotificationsFromInbox("a", List.of(3L));
+        verify(redisUtil).markDeleted("a", List.of(1L));
+        verify(redisUtil).markDeleted("a", List.of(2L));
+        // sequence 0 predates read state, nothing to clear
+        verify(redisUtil).markDeleted("b", List.of());
+        // short chunk means the end, no extra query
+        verify(notificationRepository, times(2)).findExpiredChunk(any(), any(), any(), anyInt());
+        verify(redisUtil).releaseLease(eq(appProperties.getRetention().getLeaseKey()), anyString());
+    }
+
+    @Test
+    @DisplayName("其他節點持有租約 -> 不應執行")
+    void givenLeaseHeldElsewhere_whenPurge_thenNothing() {
+        when(redisUtil.acquireLease(anyString(), anyString(), any())).thenReturn(false);
+
+        assertThat(job.purge()).isZero();
+
+        verifyNoInteractions(notificationRepository);
+        verify(redisUtil, never()).releaseLease(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("未啟用 -> 排程不應執行")
+    void givenDisabled_whenSchedule_thenNothing() {
+        appProperties.getRetention().setEnabled(false);
+
+        job.schedule();
+
+        verifyNoInteractions(redisUtil, notificationRepository);
+    }
+
+    private static ExpiredNotification expired(LocalDateTime createdAt, long id, String recipient, long recipientSeq) {
+        return new ExpiredNotification(id, createdAt, recipient, recipientSeq);
+    }
+}
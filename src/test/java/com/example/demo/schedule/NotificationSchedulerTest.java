@@ -0,0 +1,226 @@
+package com.example.demo.schedule;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.enums.NotificationMessageType;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.model.NotificationSchedule;
+import com.example.demo.model.Notifications;
+import com.example.demo.mq.NotificationOutboxPublisher;
+import com.example.demo.repository.NotificationRepository;
+import com.example.demo.repository.NotificationScheduleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("NotificationScheduler 測試")
+class NotificationSchedulerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    @Mock
+    private NotificationScheduleRepository notificationScheduleRepository;
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private NotificationOutboxPublisher notificationOutboxPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MutableClock clock;
+    private NotificationScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getRocketmq().setNotificationTopic("notification-topic");
+        clock = new MutableClock(START.toInstant(ZoneOffset.UTC));
+        scheduler = new NotificationScheduler(notificationScheduleRepository, notificationRepository, notificationOutboxPublisher,
+                appProperties, new SimpleMeterRegistry(), transactionManager, clock);
+    }
+
+    @Test
+    @DisplayName("認領尚未到期的列 -> 到期前不應發送，到期的 tick 才寫入 outbox 並刪除排程列")
+    void givenClaimedRow_whenTickPastDueAt_thenPublishOnceAndDeleteRow() {
+        LocalDateTime dueAt = START.plusSeconds(5);
+        NotificationSchedule row = new NotificationSchedule(1L, dueAt, null);
+        when(notificationScheduleRepository.findClaimableForUpdate(any(), any(), any(Pageable.class)))
+                .thenReturn(List.of(row));
+        when(notificationScheduleRepository.findAllByIdForUpdate(List.of(1L))).thenReturn(List.of(row));
+        when(notificationRepository.findAllById(List.of(1L))).thenReturn(List.of(notification(1L)));
+
+        scheduler.claimDue();
+        verify(notificationScheduleRepository).claim(eq(List.of(1L)), eq(START), eq(30L));
+
+        clock.set(dueAt.minusNanos(1_000_000));
+        scheduler.tick();
+        verifyNoInteractions(notificationOutboxPublisher);
+
+        clock.set(dueAt);
+        scheduler.tick();
+        verify(notificationOutboxPublisher).publishAll(argThat(messages -> messages.size() == 1
+                && messages.get(0).getId() == 1L
+                && messages.get(0).getNotificationMessageType() == NotificationMessageType.CREATE));
+        verify(notificationScheduleRepository).deleteAllByIdInBatch(List.of(1L));
+        // one transaction: lock the rows, write the outbox, delete the rows
+        InOrder inOrder = inOrder(notificationScheduleRepository, notificationOutboxPublisher, transactionManager);
+        inOrder.verify(notificationScheduleRepository).findAllByIdForUpdate(List.of(1L));
+        inOrder.verify(notificationOutboxPublisher).publishAll(anyList());
+        inOrder.verify(notificationScheduleRepository).deleteAllByIdInBatch(List.of(1L));
+        inOrder.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("同一 tick 到期多筆 -> 應以一次 publishAll 寫入 outbox")
+    void givenSeveralDueRows_whenRelease_thenOnePublishAllPerBatch() {
+        List<NotificationSchedule> rows = List.of(new NotificationSchedule(1L, START.minusSeconds(1), null),
+                new NotificationSchedule(2L, START.minusSeconds(1), null));
+        when(notificationScheduleRepository.findClaimableForUpdate(any(), any(), any(Pageable.class))).thenReturn(rows);
+        when(notificationScheduleRepository.findAllByIdForUpdate(List.of(1L, 2L))).thenReturn(rows);
+        when(notificationRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(notification(1L), notification(2L)));
+
+        scheduler.claimDue();
+
+        verify(notificationOutboxPublisher).publishAll(argThat(messages -> messages.size() == 2));
+        verify(notificationScheduleRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+    }
+
+    @Test
+    @DisplayName("通知已被刪除 -> 不應寫入 outbox，但應刪除排程列")
+    void givenDeletedNotification_whenDue_thenDropScheduleWithoutPublishing() {
+        NotificationSchedule row = new NotificationSchedule(1L, START.minusSeconds(1), null);
+        when(notificationScheduleRepository.findClaimableForUpdate(any(), any(), any(Pageable.class)))
+                .thenReturn(List.of(row));
+        when(notificationScheduleRepository.findAllByIdForUpdate(List.of(1L))).thenReturn(List.of(row));
+        when(notificationRepository.findAllById(List.of(1L))).thenReturn(List.of());
+
+        scheduler.claimDue();
+
+        verify(notificationOutboxPublisher).publishAll(List.of());
+        verify(notificationScheduleRepository).deleteAllByIdInBatch(List.of(1L));
+    }
+
+    @Test
+    @DisplayName("排程已被取消 -> 不應讀取通知也不應寫入 outbox")
+    void givenCancelledSchedule_whenDue_thenNothingPublished() {
+        when(notificationScheduleRepository.findClaimableForUpdate(any(), any(), any(Pageable.class)))
+                .thenReturn(List.of(new NotificationSchedule(1L, START.minusSeconds(1), null)));
+        when(notificationScheduleRepository.findAllByIdForUpdate(List.of(1L))).thenReturn(List.of());
+
+        scheduler.claimDue();
+
+        verifyNoInteractions(notificationRepository, notificationOutboxPublisher);
+        verify(notificationScheduleRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    @DisplayName("寫入 outbox 失敗 -> 應回滾，租約過期後可被再次認領")
+    void givenFailedRelease_whenDue_thenRolledBackAndAllowReclaim() {
+        NotificationSchedule row = new NotificationSchedule(1L, START.minusSeconds(1), null);
+        when(notificationScheduleRepository.findClaimableForUpdate(any(), any(), any(Pageable.class)))
+                .thenReturn(List.of(row));
+        when(notificationScheduleRepository.findAllByIdForUpdate(List.of(1L))).thenReturn(List.of(row));
+        when(notificationRepository.findAllById(List.of(1L))).thenReturn(List.of(notification(1L)));
+        doThrow(new IllegalStateException("db down")).when(notificationOutboxPublisher).publishAll(anyList());
+
+        scheduler.claimDue();
+        verify(transactionManager).rollback(any());
+        verify(notificationScheduleRepository, never()).deleteAllByIdInBatch(any());
+
+        // claimed again once the lease ran out: released again
+        scheduler.claimDue();
+        verify(notificationOutboxPublisher, times(2)).publishAll(anyList());
+    }
+
+    @Test
+    @DisplayName("同一列在持有中被再次認領 -> 不應重複放入時間輪")
+    void givenHeldRow_whenClaimedAgain_thenNotHeldTwice() {
+        LocalDateTime dueAt = START.plusSeconds(5);
+        NotificationSchedule row = new NotificationSchedule(1L, dueAt, null);
+        when(notificationScheduleRepository.findClaimableForUpdate(any(), any(), any(Pageable.class)))
+                .thenReturn(List.of(row));
+        when(notificationScheduleRepository.findAllByIdForUpdate(List.of(1L))).thenReturn(List.of(row));
+        when(notificationRepository.findAllById(List.of(1L))).thenReturn(List.of(notification(1L)));
+
+        scheduler.claimDue();
+        scheduler.claimDue();
+        clock.set(dueAt);
+        scheduler.tick();
+
+        verify(notificationOutboxPublisher, times(1)).publishAll(anyList());
+    }
+
+    @Test
+    @DisplayName("更新仍在排程中的通知 -> 應鎖定排程列並回報仍待發送；刪除時應取消排程")
+    void givenPendingRow_whenChangedOrDeleted_thenLockedAndCancelled() {
+        NotificationSchedule row = new NotificationSchedule(1L, START.plusMinutes(5), null);
+        when(notificationScheduleRepository.existsById(1L)).thenReturn(true);
+        when(notificationScheduleRepository.findAllByIdForUpdate(List.of(1L))).thenReturn(List.of(row));
+
+        assertThat(scheduler.isPending(1L)).isTrue();
+        assertThat(scheduler.cancel(1L)).isTrue();
+        verify(notificationScheduleRepository).deleteAllByIdInBatch(List.of(1L));
+
+        // never scheduled: no locking read at all
+        assertThat(scheduler.isPending(2L)).isFalse();
+        verify(notificationScheduleRepository, never()).findAllByIdForUpdate(List.of(2L));
+    }
+
+    private static Notifications notification(long id) {
+        Notifications notification = new Notifications();
+        notification.setId(id);
+        notification.setType(NotificationType.EMAIL);
+        notification.setRecipient("user@example.com");
+        notification.setContent("content");
+        notification.setVersion(0L);
+        return notification;
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        private void set(LocalDateTime dateTime) {
+            now = dateTime.toInstant(ZoneOffset.UTC);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.demo.schedule;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("TimingWheel 測試")
+class TimingWheelTest {
+
+    @Test
+    @DisplayName("到期前推進 -> 不應提早觸發；到期後才觸發")
+    void givenDeadline_whenAdvanceBeforeAndAfter_thenFireOnlyWhenDue() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 0);
+        List<String> fired = new ArrayList<>();
+
+        assertThat(wheel.add(250, "a")).isTrue();
+        wheel.advance(299, fired::add);
+        assertThat(fired).isEmpty();
+
+        wheel.advance(300, fired::add);
+        assertThat(fired).containsExactly("a");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("已到期的期限 -> add 應返回 false 且不加入")
+    void givenPastDeadline_whenAdd_thenRejected() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 1000);
+
+        assertThat(wheel.add(1000, "due")).isFalse();
+        assertThat(wheel.add(900, "late")).isFalse();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("超出第一層的期限 -> 應新增上層並依到期先後觸發")
+    void givenDeadlinesAcrossLevels_whenAdvance_thenFireInDeadlineOrder() {
+        // level 0 spans 800ms, level 1 6.4s, level 2 51.2s
+        TimingWheel<Long> wheel = new TimingWheel<>(100, 8, 0);
+        List<Long> deadlines = List.of(30_000L, 500L, 7_000L, 6_400L, 100L, 800L);
+        deadlines.forEach(deadline -> wheel.add(deadline, deadline));
+        List<Long> fired = new ArrayList<>();
+
+        for (long now = 0; now <= 30_000; now += 100) {
+            int before = fired.size();
+            wheel.advance(now, fired::add);
+            // whatever fired at this step was due by now and not a tick before
+            for (long deadline : fired.subList(before, fired.size())) {
+                assertThat(deadline).isBetween(now - 99, now);
+            }
+        }
+        assertThat(fired).containsExactly(100L, 500L, 800L, 6_400L, 7_000L, 30_000L);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("一次推進多個 tick -> 應依到期先後一次觸發全部到期項目")
+    void givenLongPause_whenAdvance_thenFireEverythingDueInOrder() {
+        TimingWheel<Long> wheel = new TimingWheel<>(100, 4, 0);
+        wheel.add(2_000L, 2_000L);
+        wheel.add(150L, 150L);
+        wheel.add(900L, 900L);
+        List<Long> fired = new ArrayList<>();
+
+        wheel.advance(5_000, fired::add);
+
+        assertThat(fired).containsExactly(150L, 900L, 2_000L);
+    }
+}
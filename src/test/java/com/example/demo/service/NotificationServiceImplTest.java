@@ -1,14 +1,27 @@
 package com.example.demo.service;
 
+import com.example.demo.cache.NotificationNearCache;
+import com.example.demo.cache.RecentListFillSignal;
+import com.example.demo.config.AppProperties;
+import com.example.demo.dto.NotificationCursor;
 import com.example.demo.dto.NotificationMessage;
+import com.example.demo.dto.NotificationPage;
 import com.example.demo.dto.NotificationRequest;
 import com.example.demo.dto.UpdateNotificationRequest;
 import com.example.demo.enums.NotificationMessageType;
+import com.example.demo.enums.NotificationPriority;
 import com.example.demo.enums.NotificationType;
+import com.example.demo.enums.WriteLockMode;
+import com.example.demo.exception.NotificationConflictException;
+import com.example.demo.model.NotificationSchedule;
 import com.example.demo.model.Notifications;
-import com.example.demo.mq.NotificationProducer;
+import com.example.demo.mq.NotificationOutboxPublisher;
+import com.example.demo.readstate.NotificationReadState;
 import com.example.demo.repository.NotificationRepository;
+import com.example.demo.schedule.NotificationScheduler;
 import com.example.demo.util.RedisUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -16,14 +29,22 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -41,11 +62,32 @@ class NotificationServiceImplTest {
     private NotificationRepository notificationRepository;
 
     @Mock
-    private NotificationProducer notificationProducer;
+    private NotificationOutboxPublisher notificationOutboxPublisher;
 
     @Mock
     private RedisUtil redisUtil;
 
+    @Mock
+    private NotificationNearCache notificationNearCache;
+
+    @Mock
+    private RecentListFillSignal recentListFillSignal;
+
+    @Mock
+    private NotificationReadState notificationReadState;
+
+    @Mock
+    private NotificationScheduler notificationScheduler;
+
+    @Spy
+    private AppProperties appProperties = new AppProperties();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @Captor
     private ArgumentCaptor<TransactionSynchronization> synchronizationCaptor;
 
@@ -89,6 +131,7 @@ class NotificationServiceImplTest {
         void givenValidRequest_whenCreateNotification_thenSaveAndExecuteAfterCommitActions() {
             // Given
             when(notificationRepository.save(any(Notifications.class))).thenReturn(testNotification);
+            when(notificationReadState.allocate("user123", 1)).thenReturn(7L);
 
             try (MockedStatic<TransactionSynchronizationManager> mockedManager = mockStatic(TransactionSynchronizationManager.class)) {
                 // Arrange: Mock transaction as active
@@ -103,6 +146,7 @@ class NotificationServiceImplTest {
                 assertThat(result.getId()).isEqualTo(TEST_ID);
                 verify(notificationRepository).save(notificationCaptor.capture());
                 assertThat(notificationCaptor.getValue().getRecipient()).isEqualTo(testRequest.getRecipient());
+                assertThat(notificationCaptor.getValue().getRecipientSeq()).isEqualTo(7L);
 
                 // And: Verify synchronization was registered and capture the callback
                 mockedManager.verify(() -> TransactionSynchronizationManager.registerSynchronization(synchronizationCaptor.capture()));
@@ -112,8 +156,11 @@ class NotificationServiceImplTest {
 
                 // Assert: Verify the afterCommit logic was executed
                 verify(redisUtil).cacheNotification(testNotification);
-                verify(redisUtil).clearRecentList();
-                verify(notificationProducer).sendNotification(messageCaptor.capture());
+                verify(redisUtil).addNotificationToRecentList(testNotification);
+                verify(notificationReadState).onCreated(List.of(testNotification));
+
+                // And: MQ message was written to the outbox inside the transaction
+                verify(notificationOutboxPublisher).publish(messageCaptor.capture());
                 assertThat(messageCaptor.getValue().getNotificationMessageType()).isEqualTo(NotificationMessageType.CREATE);
             }
         }
@@ -136,15 +183,144 @@ class NotificationServiceImplTest {
 
                 // And: Verify DB save was still called, but no after-commit actions occurred
                 verify(notificationRepository).save(any(Notifications.class));
-                verifyNoInteractions(notificationProducer, redisUtil);
+                verifyNoInteractions(notificationOutboxPublisher, redisUtil);
+            }
+        }
+
+        @Test
+        @DisplayName("指定優先級 -> 應保存在實體上並隨CREATE訊息寫入outbox；未指定則為NORMAL")
+        void givenPriority_whenCreateNotification_thenKeptOnEntityAndMessage() {
+            testRequest.setPriority(NotificationPriority.HIGH);
+            when(notificationRepository.save(any(Notifications.class))).thenAnswer(inv -> inv.getArgument(0));
+
+            try (MockedStatic<TransactionSynchronizationManager> mockedManager = mockStatic(TransactionSynchronizationManager.class)) {
+                notificationService.createNotification(testRequest);
+                testRequest.setPriority(null);
+                notificationService.createNotification(testRequest);
+            }
+
+            verify(notificationRepository, times(2)).save(notificationCaptor.capture());
+            assertThat(notificationCaptor.getAllValues()).extracting(Notifications::getPriority)
+                    .containsExactly(NotificationPriority.HIGH, NotificationPriority.NORMAL);
+            verify(notificationOutboxPublisher, times(2)).publish(messageCaptor.capture());
+            assertThat(messageCaptor.getAllValues()).extracting(NotificationMessage::getPriority)
+                    .containsExactly(NotificationPriority.HIGH, NotificationPriority.NORMAL);
+        }
+
+        @Test
+        @DisplayName("指定未來的scheduledAt -> 應保存到DB，但CREATE訊息交由排程器而不寫入outbox")
+        void givenFutureScheduledAt_whenCreateNotification_thenScheduleInsteadOfOutbox() {
+            // Given
+            LocalDateTime scheduledAt = LocalDateTime.now().plusHours(1);
+            testRequest.setScheduledAt(scheduledAt);
+            when(notificationRepository.save(any(Notifications.class))).thenReturn(testNotification);
+            when(notificationScheduler.isDeferred(scheduledAt)).thenReturn(true);
+
+            try (MockedStatic<TransactionSynchronizationManager> mockedManager = mockStatic(TransactionSynchronizationManager.class)) {
+                // When
+                notificationService.createNotification(testRequest);
+
+                // Then
+                verify(notificationRepository).save(any(Notifications.class));
+                verify(notificationScheduler).schedule(List.of(new NotificationSchedule(TEST_ID, scheduledAt, null)));
+                verifyNoInteractions(notificationOutboxPublisher);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("批次創建通知 (createNotifications)")
+    class CreateNotificationsTests {
+
+        private List<NotificationRequest> testRequests;
+
+        @BeforeEach
+        void setUp() {
+            testRequests = List.of(
+                    NotificationRequest.builder().recipient("user1").subject("s1").content("c1").type(NotificationType.EMAIL).build(),
+                    NotificationRequest.builder().recipient("user2").subject("s2").content("c2").type(NotificationType.SMS).build());
+        }
+
+        @Test
+        @DisplayName("成功批次創建 -> 應一次批次寫入DB，並在事務提交後批次寫快取和MQ")
+        void givenValidRequests_whenCreateNotifications_thenBatchInsertAndBatchAfterCommit() {
+            // Given
+            when(notificationRepository.insertAllInBatch(anyList())).thenAnswer(inv -> {
+                List<Notifications> entities = inv.getArgument(0);
+                for (int i = 0; i < entities.size(); i++) {
+                    entities.get(i).setId((long) i + 1);
+                }
+                return entities;
+            });
+
+            try (MockedStatic<TransactionSynchronizationManager> mockedManager = mockStatic(TransactionSynchronizationManager.class)) {
+                // When
+                List<Notifications> result = notificationService.createNotifications(testRequests);
+
+                // Then
+                assertThat(result).extracting(Notifications::getId).containsExactly(1L, 2L);
+                verify(notificationRepository).insertAllInBatch(anyList());
+                verify(notificationRepository, never()).save(any());
+
+                mockedManager.verify(() -> TransactionSynchronizationManager.registerSynchronization(synchronizationCaptor.capture()));
+                synchronizationCaptor.getValue().afterCommit();
+
+                verify(redisUtil).cacheNotifications(result);
+                verify(redisUtil).addNotificationsToRecentList(result);
+                verify(notificationOutboxPublisher).publishAll(argThat(messages -> messages.size() == 2
+                        && messages.stream().allMatch(m -> m.getNotificationMessageType() == NotificationMessageType.CREATE)));
             }
         }
+
+        @Test
+        @DisplayName("部分請求指定未來的scheduledAt -> 只有未排程的寫入outbox，其餘交由排程器")
+        void givenSomeScheduledRequests_whenCreateNotifications_thenOnlyUnscheduledGoToOutbox() {
+            // Given
+            LocalDateTime scheduledAt = LocalDateTime.now().plusHours(1);
+            testRequests.get(1).setScheduledAt(scheduledAt);
+            when(notificationScheduler.isDeferred(any())).thenAnswer(inv -> inv.getArgument(0) != null);
+            when(notificationRepository.insertAllInBatch(anyList())).thenAnswer(inv -> {
+                List<Notifications> entities = inv.getArgument(0);
+                for (int i = 0; i < entities.size(); i++) {
+                    entities.get(i).setId((long) i + 1);
+                }
+                return entities;
+            });
+
+            try (MockedStatic<TransactionSynchronizationManager> mockedManager = mockStatic(TransactionSynchronizationManager.class)) {
+                // When
+                notificationService.createNotifications(testRequests);
+
+                // Then
+                verify(notificationScheduler).schedule(List.of(new NotificationSchedule(2L, scheduledAt, null)));
+                verify(notificationOutboxPublisher).publishAll(argThat(messages -> messages.size() == 1
+                        && messages.get(0).getId() == 1L));
+            }
+        }
+
+        @Test
+        @DisplayName("超過批次上限 -> 應拋出IllegalArgumentException且不寫入DB")
+        void givenTooManyRequests_whenCreateNotifications_thenThrow() {
+            appProperties.getBatch().setMaxSize(1);
+
+            assertThrows(IllegalArgumentException.class, () -> notificationService.createNotifications(testRequests));
+            verifyNoInteractions(notificationRepository, notificationOutboxPublisher, redisUtil);
+        }
     }
 
     @Nested
     @DisplayName("查詢單一通知 (getNotificationById)")
     class GetNotificationByIdTests {
 
+        @Test
+        @DisplayName("本地快取命中 -> 應直接返回且不查詢Redis和DB")
+        void givenNearCacheHit_whenGetNotificationById_thenSkipRedisAndDb() {
+            when(notificationNearCache.get(TEST_ID)).thenReturn(Optional.of(testNotification));
+            Optional<Notifications> result = notificationService.getNotificationById(TEST_ID);
+            assertThat(result).isPresent().contains(testNotification);
+            verifyNoInteractions(redisUtil, notificationRepository);
+        }
+
         @Test
         @DisplayName("快取命中 -> 應從快取返回且不查詢DB")
         void givenCacheHit_whenGetNotificationById_thenReturnFromCache() {
@@ -153,6 +329,7 @@ class NotificationServiceImplTest {
             assertThat(result).isPresent().contains(testNotification);
             verify(notificationRepository, never()).findById(anyLong());
             verify(redisUtil, never()).cacheNotification(any());
+            verify(notificationNearCache).put(testNotification);
         }
 
         @Test
@@ -164,6 +341,7 @@ class NotificationServiceImplTest {
             assertThat(result).isPresent().contains(testNotification);
             verify(notificationRepository).findById(TEST_ID);
             verify(redisUtil).cacheNotification(testNotification);
+            verify(notificationNearCache).put(testNotification);
         }
 
         @Test
@@ -215,13 +393,28 @@ class NotificationServiceImplTest {
                 synchronizationCaptor.getValue().afterCommit();
 
                 // Assert: Verify afterCommit logic
-                verify(redisUtil).clearRecentList();
+                verify(redisUtil).updateNotificationInRecentList(any(Notifications.class));
                 verify(redisUtil).deleteNotification(TEST_ID);
-                verify(notificationProducer).sendNotification(messageCaptor.capture());
+                verify(notificationNearCache).invalidate(TEST_ID);
+                verify(notificationOutboxPublisher).publish(messageCaptor.capture());
                 assertThat(messageCaptor.getValue().getNotificationMessageType()).isEqualTo(NotificationMessageType.UPDATE);
             }
         }
 
+        @Test
+        @DisplayName("CREATE 仍在排程中 -> 不應發送 UPDATE，由稍後的 CREATE 帶出新內容")
+        void givenPendingSchedule_whenUpdateNotification_thenNoUpdateMessage() {
+            when(notificationRepository.findNotificationAndLockById(TEST_ID)).thenReturn(Optional.of(testNotification));
+            when(notificationRepository.save(any(Notifications.class))).thenAnswer(inv -> inv.getArgument(0));
+            when(notificationScheduler.isPending(TEST_ID)).thenReturn(true);
+
+            try (MockedStatic<TransactionSynchronizationManager> ignored = mockStatic(TransactionSynchronizationManager.class)) {
+                assertThat(notificationService.updateNotification(TEST_ID, updateRequest)).isPresent();
+
+                verifyNoInteractions(notificationOutboxPublisher);
+            }
+        }
+
         @Test
         @DisplayName("當通知ID不存在時 -> 應返回空Optional且不執行任何操作")
         void givenNonExistingId_whenUpdateNotification_thenReturnEmpty() {
@@ -229,8 +422,8 @@ class NotificationServiceImplTest {
             Optional<Notifications> result = notificationService.updateNotification(TEST_ID, updateRequest);
             assertThat(result).isNotPresent();
             verify(notificationRepository, never()).save(any());
-            verifyNoInteractions(notificationProducer);
-            verify(redisUtil, never()).clearRecentList();
+            verifyNoInteractions(notificationOutboxPublisher);
+            verify(redisUtil, never()).updateNotificationInRecentList(any());
             verify(redisUtil, never()).deleteNotification(anyLong());
         }
     }
@@ -262,13 +455,29 @@ class NotificationServiceImplTest {
                 synchronizationCaptor.getValue().afterCommit();
 
                 // Assert: Verify afterCommit logic
-                verify(redisUtil).clearRecentList();
+                verify(redisUtil).removeNotificationFromRecentList(testNotification);
+                verify(notificationReadState).onDeleted(testNotification);
                 verify(redisUtil).deleteNotification(TEST_ID);
-                verify(notificationProducer).sendNotification(messageCaptor.capture());
+                verify(notificationNearCache).invalidate(TEST_ID);
+                verify(notificationOutboxPublisher).publish(messageCaptor.capture());
                 assertThat(messageCaptor.getValue().getNotificationMessageType()).isEqualTo(NotificationMessageType.DELETE);
             }
         }
 
+        @Test
+        @DisplayName("CREATE 仍在排程中 -> 應取消排程且不發送 DELETE")
+        void givenPendingSchedule_whenDeleteNotification_thenCancelledWithoutDeleteMessage() {
+            when(notificationRepository.findNotificationAndLockById(TEST_ID)).thenReturn(Optional.of(testNotification));
+            when(notificationScheduler.cancel(TEST_ID)).thenReturn(true);
+
+            try (MockedStatic<TransactionSynchronizationManager> ignored = mockStatic(TransactionSynchronizationManager.class)) {
+                assertThat(notificationService.deleteNotification(TEST_ID)).isTrue();
+
+                verify(notificationScheduler).cancel(TEST_ID);
+                verifyNoInteractions(notificationOutboxPublisher);
+            }
+        }
+
         @Test
         @DisplayName("當通知ID不存在時 -> 應返回false且不執行任何操作")
         void givenNonExistingId_whenDeleteNotification_thenReturnFalse() {
@@ -276,7 +485,298 @@ class NotificationServiceImplTest {
             boolean result = notificationService.deleteNotification(TEST_ID);
             assertThat(result).isFalse();
             verify(notificationRepository, never()).deleteById(anyLong());
-            verifyNoInteractions(notificationProducer);
+            verifyNoInteractions(notificationOutboxPublisher);
+        }
+    }
+
+    @Nested
+    @DisplayName("樂觀鎖模式 (app.write.lock-mode=optimistic)")
+    class OptimisticWriteTests {
+
+        private UpdateNotificationRequest updateRequest;
+
+        @BeforeEach
+        void setup() {
+            appProperties.getWrite().setLockMode(WriteLockMode.OPTIMISTIC);
+            appProperties.getWrite().setRetryBackoff(Duration.ZERO);
+            testNotification.setVersion(3L);
+
+            updateRequest = new UpdateNotificationRequest();
+            updateRequest.setSubject("Updated Subject");
+            updateRequest.setContent("Updated Content");
+        }
+
+        @Test
+        @DisplayName("版本衝突一次 -> 應重新讀取後以新版本更新成功，且不取得行鎖")
+        void givenOneConflict_whenUpdateNotification_thenRetriedWithFreshVersion() {
+            Notifications newer = copyOf(testNotification);
+            newer.setVersion(4L);
+            when(notificationRepository.findById(TEST_ID)).thenReturn(Optional.of(testNotification), Optional.of(newer));
+            when(notificationRepository.updateIfVersion(TEST_ID, 3L, "Updated Subject", "Updated Content")).thenReturn(0);
+            when(notificationRepository.updateIfVersion(TEST_ID, 4L, "Updated Subject", "Updated Content")).thenReturn(1);
+
+            try (MockedStatic<TransactionSynchronizationManager> ignored = mockStatic(TransactionSynchronizationManager.class)) {
+                Optional<Notifications> result = notificationService.updateNotification(TEST_ID, updateRequest);
+
+                assertThat(result).isPresent();
+                assertThat(result.get().getVersion()).isEqualTo(5L);
+                assertThat(result.get().getSubject()).isEqualTo("Updated Subject");
+                verify(notificationRepository, never()).findNotificationAndLockById(anyLong());
+                verify(notificationOutboxPublisher).publish(messageCaptor.capture());
+                assertThat(messageCaptor.getValue().getVersion()).isEqualTo(5L);
+            }
+        }
+
+        @Test
+        @DisplayName("重試次數用盡 -> 應拋出衝突例外且不發送MQ")
+        void givenConflictOnEveryAttempt_whenUpdateNotification_thenConflictException() {
+            when(notificationRepository.findById(TEST_ID)).thenReturn(Optional.of(testNotification));
+            when(notificationRepository.updateIfVersion(anyLong(), anyLong(), any(), any())).thenReturn(0);
+
+            assertThrows(NotificationConflictException.class,
+                    () -> notificationService.updateNotification(TEST_ID, updateRequest));
+            verify(notificationRepository, times(3)).updateIfVersion(anyLong(), anyLong(), any(), any());
+            // one transaction per attempt, none held across the backoff
+            verify(transactionManager, times(3)).getTransaction(any());
+            verify(transactionManager, times(3)).commit(any());
+            verifyNoInteractions(notificationOutboxPublisher);
+        }
+
+        @Test
+        @DisplayName("重試時資料已被刪除 -> 刪除應返回false")
+        void givenRowDeletedDuringRetry_whenDeleteNotification_thenReturnFalse() {
+            when(notificationRepository.findById(TEST_ID)).thenReturn(Optional.of(testNotification), Optional.empty());
+            when(notificationRepository.deleteIfVersion(TEST_ID, 3L)).thenReturn(0);
+
+            assertThat(notificationService.deleteNotification(TEST_ID)).isFalse();
+            verify(notificationRepository, never()).deleteById(anyLong());
+            verifyNoInteractions(notificationOutboxPublisher);
+        }
+
+        private Notifications copyOf(Notifications source) {
+            Notifications copy = new Notifications();
+            copy.setId(source.getId());
+            copy.setType(source.getType());
+            copy.setRecipient(source.getRecipient());
+            copy.setSubject(source.getSubject());
+            copy.setContent(source.getContent());
+            return copy;
+        }
+    }
+
+    @Nested
+    @DisplayName("批次ID查詢 (getNotificationsByIds)")
+    class GetNotificationsByIdsTests {
+
+        private Notifications notification(long id) {
+            Notifications notification = new Notifications();
+            notification.setId(id);
+            return notification;
+        }
+
+        @Test
+        @DisplayName("近端快取、Redis MGET、DB 各命中一部分 -> 只對未命中的ID查DB並一次回填")
+        void givenMixedHits_whenGetNotificationsByIds_thenOneMgetAndOneQuery() {
+            Notifications near = notification(1L);
+            Notifications cached = notification(2L);
+            Notifications fromDb = notification(3L);
+            when(notificationNearCache.get(anyLong())).thenReturn(Optional.empty());
+            when(notificationNearCache.get(1L)).thenReturn(Optional.of(near));
+            when(redisUtil.findNotificationsByIds(List.of(2L, 3L, 4L))).thenReturn(Map.of(2L, cached));
+            when(notificationRepository.findAllById(List.of(3L, 4L))).thenReturn(List.of(fromDb));
+
+            Map<Long, Notifications> result = notificationService.getNotificationsByIds(List.of(1L, 2L, 3L, 4L, 2L));
+
+            assertThat(result).containsOnlyKeys(1L, 2L, 3L);
+            verify(redisUtil).cacheNotifications(List.of(fromDb));
+            verify(notificationNearCache).put(cached);
+            verify(notificationNearCache).put(fromDb);
+            verify(redisUtil, never()).findNotificationById(anyLong());
+            verify(notificationRepository, never()).findById(anyLong());
+        }
+
+        @Test
+        @DisplayName("全部命中快取 -> 不查DB也不回填")
+        void givenAllCached_whenGetNotificationsByIds_thenNoDbQuery() {
+            when(notificationNearCache.get(anyLong())).thenReturn(Optional.empty());
+            when(redisUtil.findNotificationsByIds(List.of(1L))).thenReturn(Map.of(1L, testNotification));
+
+            Map<Long, Notifications> result = notificationService.getNotificationsByIds(List.of(1L));
+
+            assertThat(result).containsEntry(1L, testNotification);
+            verifyNoInteractions(notificationRepository);
+            verify(redisUtil, never()).cacheNotifications(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("分頁查詢 (listNotifications) - keyset")
+    class ListNotificationsTests {
+
+        private Notifications row(long id, LocalDateTime createdAt) {
+            Notifications notification = new Notifications();
+            notification.setId(id);
+            notification.setCreatedAt(createdAt);
+            return notification;
+        }
+
+        @Test
+        @DisplayName("第一頁 -> 多取一筆判斷是否有下一頁，游標指向本頁最後一筆")
+        void givenNoCursor_whenListNotifications_thenFirstPageWithEndCursor() {
+            LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0, 0, 123_000_000);
+            List<Notifications> rows = List.of(row(3L, now), row(2L, now), row(1L, now.minusSeconds(1)));
+            when(notificationRepository.findAllByOrderByCreatedAtDescIdDesc(Limit.of(3))).thenReturn(rows);
+
+            NotificationPage page = notificationService.listNotifications(null, 2);
+
+            assertThat(page.getItems()).extracting(Notifications::getId).containsExactly(3L, 2L);
+            assertThat(page.isHasNextPage()).isTrue();
+            assertThat(NotificationCursor.decode(page.getEndCursor())).isEqualTo(new NotificationCursor(now, 2L));
+        }
+
+        @Test
+        @DisplayName("帶游標 -> 應以 (created_at, id) 作 keyset 條件查詢")
+        void givenCursor_whenListNotifications_thenSeekAfterCursor() {
+            LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 12, 0, 0, 123_000_000);
+            String after = new NotificationCursor(createdAt, 2L).encode();
+            when(notificationRepository.findPageAfter(createdAt, 2L, Limit.of(3))).thenReturn(List.of(row(1L, createdAt)));
+
+            NotificationPage page = notificationService.listNotifications(after, 2);
+
+            assertThat(page.getItems()).extracting(Notifications::getId).containsExactly(1L);
+            assertThat(page.isHasNextPage()).isFalse();
+            verify(notificationRepository, never()).findAllByOrderByCreatedAtDescIdDesc(any());
+        }
+
+        @Test
+        @DisplayName("limit 超過上限 -> 應截到 max-limit")
+        void givenTooLargeLimit_whenListNotifications_thenCapped() {
+            when(notificationRepository.findAllByOrderByCreatedAtDescIdDesc(any())).thenReturn(List.of());
+
+            NotificationPage page = notificationService.listNotifications(null, 10_000);
+
+            verify(notificationRepository).findAllByOrderByCreatedAtDescIdDesc(Limit.of(appProperties.getPagination().getMaxLimit() + 1));
+            assertThat(page.getEndCursor()).isNull();
+        }
+
+        @Test
+        @DisplayName("無效游標 -> 應拋出 IllegalArgumentException")
+        void givenInvalidCursor_whenListNotifications_thenThrow() {
+            assertThrows(IllegalArgumentException.class, () -> notificationService.listNotifications("not-a-cursor", 2));
+            verifyNoInteractions(notificationRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("已讀狀態 (markRead / getUnreadCount)")
+    class ReadStateTests {
+
+        @Test
+        @DisplayName("快取內容沒有序號 -> 應從 DB 重讀該筆再標記已讀")
+        void givenCachedEntryWithoutSeq_whenMarkRead_thenRereadFromDb() {
+            Notifications withSeq = new Notifications();
+            withSeq.setId(2L);
+            withSeq.setRecipient("user123");
+            withSeq.setRecipientSeq(5L);
+            Notifications fromDb = new Notifications();
+            fromDb.setId(TEST_ID);
+            fromDb.setRecipient("user123");
+            fromDb.setRecipientSeq(4L);
+            when(notificationNearCache.get(TEST_ID)).thenReturn(Optional.of(testNotification));
+            when(notificationNearCache.get(2L)).thenReturn(Optional.of(withSeq));
+            when(notificationRepository.findAllById(List.of(TEST_ID))).thenReturn(List.of(fromDb));
+            when(notificationReadState.markRead(any())).thenReturn(2L);
+
+            assertThat(notificationService.markRead(List.of(TEST_ID, 2L))).isEqualTo(2L);
+
+            verify(notificationReadState).markRead(argThat(marked -> marked.size() == 2
+                    && marked.stream().allMatch(notification -> notification.getRecipientSeq() > 0)));
+        }
+
+        @Test
+        @DisplayName("超過批次上限 -> 應拋出 IllegalArgumentException")
+        void givenTooManyIds_whenMarkRead_thenThrow() {
+            appProperties.getBatch().setMaxSize(1);
+
+            assertThrows(IllegalArgumentException.class, () -> notificationService.markRead(List.of(1L, 2L)));
+            verifyNoInteractions(notificationReadState);
+        }
+
+        @Test
+        @DisplayName("沒有收件人 -> 未讀數應拋出 IllegalArgumentException")
+        void givenBlankRecipient_whenGetUnreadCount_thenThrow() {
+            assertThrows(IllegalArgumentException.class, () -> notificationService.getUnreadCount(""));
+            verifyNoInteractions(notificationReadState);
+        }
+    }
+
+    @Nested
+    @DisplayName("收件匣 (listInbox) - 每位收件人的 Redis ZSET")
+    class ListInboxTests {
+
+        private static final String RECIPIENT = "user@example.com";
+        private final LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0, 0, 123_000_000);
+
+        private Notifications row(long id) {
+            Notifications notification = new Notifications();
+            notification.setId(id);
+            notification.setRecipient(RECIPIENT);
+            notification.setCreatedAt(now.minusSeconds(id));
+            return notification;
+        }
+
+        @Test
+        @DisplayName("快取涵蓋此頁 -> 應只以 id 批次取內容，不查 DB 分頁")
+        void givenWarmInbox_whenListInbox_thenPageFromCache() {
+            when(redisUtil.findInboxPage(RECIPIENT, null, 3)).thenReturn(Optional.of(new RedisUtil.InboxSlice(List.of(1L, 2L, 3L), false)));
+            when(notificationNearCache.get(anyLong())).thenReturn(Optional.empty());
+            when(redisUtil.findNotificationsByIds(List.of(1L, 2L))).thenReturn(Map.of(1L, row(1L), 2L, row(2L)));
+
+            NotificationPage page = notificationService.listInbox(RECIPIENT, null, 2);
+
+            assertThat(page.getItems()).extracting(Notifications::getId).containsExactly(1L, 2L);
+            assertThat(page.isHasNextPage()).isTrue();
+            assertThat(NotificationCursor.decode(page.getEndCursor())).isEqualTo(NotificationCursor.of(row(2L)));
+            verifyNoInteractions(notificationRepository);
+        }
+
+        @Test
+        @DisplayName("收件匣未載入 -> 應從 DB 只取 id 回填，並以回填結果回應第一頁")
+        void givenColdInbox_whenListInbox_thenFillAndServe() {
+            when(redisUtil.findInboxPage(RECIPIENT, null, 3)).thenReturn(Optional.empty());
+            List<NotificationCursor> head = List.of(NotificationCursor.of(row(1L)), NotificationCursor.of(row(2L)));
+            when(notificationRepository.findInboxHead(RECIPIENT, Limit.of(appProperties.getRedis().getInboxSize() + 1))).thenReturn(head);
+            when(notificationNearCache.get(anyLong())).thenReturn(Optional.empty());
+            when(redisUtil.findNotificationsByIds(List.of(1L, 2L))).thenReturn(Map.of(1L, row(1L), 2L, row(2L)));
+
+            NotificationPage page = notificationService.listInbox(RECIPIENT, null, 2);
+
+            verify(redisUtil).populateInbox(RECIPIENT, head, true);
+            assertThat(page.getItems()).extracting(Notifications::getId).containsExactly(1L, 2L);
+            assertThat(page.isHasNextPage()).isFalse();
+            verify(notificationRepository, never()).findByRecipientOrderByCreatedAtDescIdDesc(any(), any());
+        }
+
+        @Test
+        @DisplayName("快取只有部分且不是完整歷史 -> 應改由 DB keyset 查詢")
+        void givenPageBeyondCachedIds_whenListInbox_thenReadDb() {
+            String after = NotificationCursor.of(row(2L)).encode();
+            when(redisUtil.findInboxPage(RECIPIENT, 2L, 3)).thenReturn(Optional.of(new RedisUtil.InboxSlice(List.of(3L), false)));
+            when(notificationRepository.findRecipientPageAfter(RECIPIENT, row(2L).getCreatedAt(), 2L, Limit.of(3)))
+                    .thenReturn(List.of(row(3L), row(4L)));
+
+            NotificationPage page = notificationService.listInbox(RECIPIENT, after, 2);
+
+            assertThat(page.getItems()).extracting(Notifications::getId).containsExactly(3L, 4L);
+            assertThat(page.isHasNextPage()).isFalse();
+            verify(redisUtil, never()).populateInbox(any(), any(), anyBoolean());
+        }
+
+        @Test
+        @DisplayName("沒有收件人 -> 應拋出 IllegalArgumentException")
+        void givenBlankRecipient_whenListInbox_thenThrow() {
+            assertThrows(IllegalArgumentException.class, () -> notificationService.listInbox(" ", null, 2));
+            verifyNoInteractions(redisUtil, notificationRepository);
         }
     }
 
@@ -298,60 +798,110 @@ class NotificationServiceImplTest {
             List<Notifications> result = notificationService.getRecentNotifications();
             assertThat(result).isEqualTo(notificationList);
             verify(notificationRepository, never()).findTop10ByOrderByCreatedAtDesc(any());
-            verify(redisUtil, never()).setnxWithExpiration(anyString(), anyString(), any());
+            verify(redisUtil, never()).acquireLease(anyString(), anyString(), any());
         }
 
         @Test
-        @DisplayName("快取未命中，成功獲取鎖 -> 應從DB查詢並回填快取 (雙重檢查鎖)")
-        void givenCacheMissAndLockAcquired_whenGetRecentNotifications_thenFetchFromDbAndCache() {
+        @DisplayName("快取未命中，成功獲取租約 -> 應從DB查詢、回填快取、通知等待者並以 token 釋放租約")
+        void givenCacheMissAndLeaseAcquired_whenGetRecentNotifications_thenFetchFromDbAndCache() {
             when(redisUtil.findRecentNotifications()).thenReturn(Collections.emptyList());
-            when(redisUtil.setnxWithExpiration(eq(LOCK_KEY), anyString(), any(Duration.class))).thenReturn(true);
+            when(redisUtil.acquireLease(eq(LOCK_KEY), anyString(), any(Duration.class))).thenReturn(true);
             when(notificationRepository.findTop10ByOrderByCreatedAtDesc(any(PageRequest.class))).thenReturn(notificationList);
 
             List<Notifications> result = notificationService.getRecentNotifications();
 
             assertThat(result).isEqualTo(notificationList);
-            InOrder inOrder = inOrder(redisUtil, notificationRepository);
+            ArgumentCaptor<String> tokenCaptor = ArgumentCaptor.forClass(String.class);
+            InOrder inOrder = inOrder(redisUtil, notificationRepository, recentListFillSignal);
             inOrder.verify(redisUtil).findRecentNotifications(); // 第一次檢查
-            inOrder.verify(redisUtil).setnxWithExpiration(eq(LOCK_KEY), anyString(), any(Duration.class)); // 獲取鎖
+            inOrder.verify(redisUtil).acquireLease(eq(LOCK_KEY), tokenCaptor.capture(), any(Duration.class)); // 獲取租約
             inOrder.verify(redisUtil).findRecentNotifications(); // 第二次檢查
             inOrder.verify(notificationRepository).findTop10ByOrderByCreatedAtDesc(any(PageRequest.class)); // 查DB
             inOrder.verify(redisUtil).populateRecentList(notificationList); // 回填快取
-            inOrder.verify(redisUtil).deleteKey(LOCK_KEY); // 釋放鎖
+            inOrder.verify(recentListFillSignal).publish(); // 喚醒等待者
+            inOrder.verify(redisUtil).releaseLease(LOCK_KEY, tokenCaptor.getValue()); // 只釋放自己的租約
         }
 
         @Test
-        @DisplayName("雙重檢查鎖：在獲取鎖後，發現快取已被其他線程填充 -> 應直接返回快取數據")
-        void givenLockAcquiredButCachePopulated_whenGetRecentNotifications_thenReturnFromCache() {
+        @DisplayName("雙重檢查鎖：在獲取租約後，發現快取已被其他線程填充 -> 應直接返回快取數據")
+        void givenLeaseAcquiredButCachePopulated_whenGetRecentNotifications_thenReturnFromCache() {
             when(redisUtil.findRecentNotifications())
                     .thenReturn(Collections.emptyList()) // 第一次檢查 miss
                     .thenReturn(notificationList);       // 第二次檢查 hit
-            when(redisUtil.setnxWithExpiration(eq(LOCK_KEY), anyString(), any(Duration.class))).thenReturn(true);
+            when(redisUtil.acquireLease(eq(LOCK_KEY), anyString(), any(Duration.class))).thenReturn(true);
 
             List<Notifications> result = notificationService.getRecentNotifications();
 
             assertThat(result).isEqualTo(notificationList);
             verify(notificationRepository, never()).findTop10ByOrderByCreatedAtDesc(any());
             verify(redisUtil, never()).populateRecentList(any());
-            verify(redisUtil).deleteKey(LOCK_KEY); // 仍需釋放鎖
+            verify(redisUtil).releaseLease(eq(LOCK_KEY), anyString()); // 仍需釋放租約
         }
 
         @Test
-        @DisplayName("快取未命中，獲取鎖失敗 -> 應等待後重試並從快取獲取數據")
-        void givenCacheMissAndLockFailed_whenGetRecentNotifications_thenWaitAndRetry() {
-            when(redisUtil.setnxWithExpiration(eq(LOCK_KEY), anyString(), any(Duration.class))).thenReturn(false);
+        @DisplayName("快取未命中，獲取租約失敗 -> 應等待填充通知後從快取獲取數據")
+        void givenCacheMissAndLeaseTaken_whenFillSignalled_thenReturnFromCache() {
+            when(redisUtil.acquireLease(eq(LOCK_KEY), anyString(), any(Duration.class))).thenReturn(false);
+            when(recentListFillSignal.nextFill()).thenReturn(CompletableFuture.completedFuture(null));
             when(redisUtil.findRecentNotifications())
                     .thenReturn(Collections.emptyList()) // 第一次檢查 miss
-                    .thenReturn(notificationList);       // 重試後檢查 hit
+                    .thenReturn(Collections.emptyList()) // 訂閱後再檢查 miss
+                    .thenReturn(notificationList);       // 收到通知後 hit
 
             List<Notifications> result = notificationService.getRecentNotifications();
 
             assertThat(result).isEqualTo(notificationList);
-            verify(redisUtil, times(1)).setnxWithExpiration(eq(LOCK_KEY), anyString(), any(Duration.class));
-            verify(redisUtil, times(2)).findRecentNotifications(); // 初始一次，重試一次
+            verify(redisUtil, times(3)).findRecentNotifications();
             verify(notificationRepository, never()).findTop10ByOrderByCreatedAtDesc(any());
             verify(redisUtil, never()).populateRecentList(any());
-            verify(redisUtil, never()).deleteKey(LOCK_KEY);
+            verify(redisUtil, never()).releaseLease(anyString(), anyString());
+        }
+
+        @Test
+        @DisplayName("獲取租約失敗且等待逾時 -> 應回退查DB，而不是返回空列表")
+        void givenLeaseTakenAndNoFill_whenWaitTimesOut_thenFallBackToDb() {
+            appProperties.getRedis().setRecentListFillWait(Duration.ofMillis(20));
+            when(redisUtil.acquireLease(eq(LOCK_KEY), anyString(), any(Duration.class))).thenReturn(false);
+            when(recentListFillSignal.nextFill()).thenReturn(new CompletableFuture<>());
+            when(redisUtil.findRecentNotifications()).thenReturn(Collections.emptyList());
+            when(notificationRepository.findTop10ByOrderByCreatedAtDesc(any(PageRequest.class))).thenReturn(notificationList);
+
+            List<Notifications> result = notificationService.getRecentNotifications();
+
+            assertThat(result).isEqualTo(notificationList);
+            verify(redisUtil, never()).populateRecentList(any()); // 回填交給租約持有者
+        }
+
+        @Test
+        @DisplayName("同一 JVM 併發未命中 -> 應共用同一次載入，只查一次DB")
+        void givenConcurrentMisses_whenGetRecentNotifications_thenLoadOnce() throws Exception {
+            CountDownLatch followerArrived = new CountDownLatch(1);
+            AtomicInteger reads = new AtomicInteger();
+            when(redisUtil.findRecentNotifications()).thenAnswer(invocation -> {
+                // leader: first check + DCL, follower: third read
+                if (reads.incrementAndGet() == 3) {
+                    followerArrived.countDown();
+                }
+                return Collections.emptyList();
+            });
+            when(redisUtil.acquireLease(eq(LOCK_KEY), anyString(), any(Duration.class))).thenReturn(true);
+            when(notificationRepository.findTop10ByOrderByCreatedAtDesc(any(PageRequest.class))).thenAnswer(invocation -> {
+                followerArrived.await(5, TimeUnit.SECONDS);
+                // give the follower time to join the in-flight load
+                Thread.sleep(50);
+                return notificationList;
+            });
+
+            CompletableFuture<List<Notifications>> leader = CompletableFuture.supplyAsync(notificationService::getRecentNotifications);
+            while (reads.get() < 2) {
+                Thread.onSpinWait();
+            }
+            List<Notifications> follower = notificationService.getRecentNotifications();
+
+            assertThat(follower).isEqualTo(notificationList);
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(notificationList);
+            verify(notificationRepository, times(1)).findTop10ByOrderByCreatedAtDesc(any());
+            verify(redisUtil, times(1)).acquireLease(eq(LOCK_KEY), anyString(), any(Duration.class));
         }
     }
 }
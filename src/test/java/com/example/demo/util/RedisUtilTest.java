@@ -0,0 +1,306 @@
+package com.example.demo.util;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.config.RedisConfig;
+import com.example.demo.dto.NotificationCursor;
+import com.example.demo.enums.DedupState;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.model.Notifications;
+import com.github.fppt.jedismock.RedisServer;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.protocol.ProtocolVersion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The real scripts and value codec against jedis-mock, an in-process Redis server that runs Lua.
+ */
+@DisplayName("RedisUtil 測試")
+class RedisUtilTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private static RedisServer server;
+    private static LettuceConnectionFactory connectionFactory;
+
+    private AppProperties appProperties;
+    private StringRedisTemplate stringRedisTemplate;
+    private RedisUtil redisUtil;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        server = RedisServer.newRedisServer().start();
+        connectionFactory = connectionFactory(server);
+    }
+
+    @AfterAll
+    static void stopServer() throws IOException {
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    /**
+     * A Lettuce connection factory on a jedis-mock server, which only speaks RESP2.
+     */
+    public static LettuceConnectionFactory connectionFactory(RedisServer server) {
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(server.getHost(), server.getBindPort()),
+                LettuceClientConfiguration.builder()
+                        .clientOptions(ClientOptions.builder().protocolVersion(ProtocolVersion.RESP2).build())
+                        .build());
+        factory.afterPropertiesSet();
+        factory.start();
+        return factory;
+    }
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new AppProperties();
+        appProperties.getRedis().setRecentListKey("recent_notifications");
+        appProperties.getRedis().setNotificationKeyPrefix("notification:");
+        RedisTemplate<String, Object> redisTemplate = new RedisConfig().redisTemplate(connectionFactory, appProperties);
+        stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+        redisUtil = new RedisUtil(redisTemplate, stringRedisTemplate, appProperties, new SimpleMeterRegistry());
+        stringRedisTemplate.execute(connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        }, true);
+    }
+
+    @Test
+    @DisplayName("最近清單為冷 -> 新增不應讓清單變熱；重建後應保留最新的 10 筆")
+    void givenColdRecentList_whenAddThenPopulate_thenNewestKept() {
+        redisUtil.addNotificationToRecentList(notification(100L, 100));
+        assertThat(redisUtil.findRecentNotifications()).isEmpty();
+
+        redisUtil.populateRecentList(notifications(1, 10));
+        redisUtil.addNotificationToRecentList(notification(11L, 11));
+
+        // 100 was parked while cold and merged by the populate
+        assertThat(redisUtil.findRecentNotifications()).extracting(Notifications::getId)
+                .containsExactly(100L, 11L, 10L, 9L, 8L, 7L, 6L, 5L, 4L, 3L);
+    }
+
+    @Test
+    @DisplayName("更新與移除最近清單中的通知 -> 內容應更新；清單不足時應整個丟棄")
+    void givenWarmRecentList_whenUpdateAndRemove_thenBodyReplacedAndShortListDropped() {
+        redisUtil.populateRecentList(notifications(1, 10));
+
+        Notifications updated = notification(5L, 5);
+        updated.setSubject("updated");
+        redisUtil.updateNotificationInRecentList(updated);
+        assertThat(redisUtil.findRecentNotifications()).filteredOn(n -> n.getId() == 5L)
+                .extracting(Notifications::getSubject).containsExactly("updated");
+
+        redisUtil.removeNotificationFromRecentList(updated);
+        assertThat(redisUtil.findRecentNotifications()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("重建期間的新增、更新與刪除 -> 重建後應套用，不被較舊的快照蓋掉")
+    void givenWritesWhileCold_whenPopulateWithOlderSnapshot_thenWritesApplied() {
+        // the rebuild read rows 1-10 from the DB, then these committed before its populate
+        redisUtil.addNotificationToRecentList(notification(11L, 11));
+        Notifications updated = notification(9L, 9);
+        updated.setSubject("updated");
+        redisUtil.updateNotificationInRecentList(updated);
+        redisUtil.removeNotificationsFromRecentList(List.of(10L));
+
+        redisUtil.populateRecentList(notifications(1, 10));
+
+        List<Notifications> recent = redisUtil.findRecentNotifications();
+        assertThat(recent).extracting(Notifications::getId).containsExactly(11L, 9L, 8L, 7L, 6L, 5L, 4L, 3L, 2L, 1L);
+        assertThat(recent).filteredOn(n -> n.getId() == 9L).extracting(Notifications::getSubject).containsExactly("updated");
+        // parked writes are consumed by the populate
+        assertThat(stringRedisTemplate.hasKey("{recent_notifications}:pending:bodies")).isFalse();
+    }
+
+    @Test
+    @DisplayName("重建期間刪除導致清單不足 -> 重建後清單應維持為冷")
+    void givenRemoveWhileCold_whenPopulateLeavesListShort_thenStaysCold() {
+        redisUtil.removeNotificationsFromRecentList(List.of(10L));
+
+        redisUtil.populateRecentList(notifications(1, 10));
+
+        assertThat(redisUtil.findRecentNotifications()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("收件匣完整載入 -> 分頁應依新到舊並標記結尾")
+    void givenCompleteInbox_whenPage_thenNewestFirstWithEnd() {
+        redisUtil.populateInbox("a@example.com", List.of(
+                new NotificationCursor(START.plusSeconds(3), 3L),
+                new NotificationCursor(START.plusSeconds(2), 2L),
+                new NotificationCursor(START.plusSeconds(1), 1L)), true);
+        redisUtil.addNotificationToInbox(notification(4L, 4));
+
+        RedisUtil.InboxSlice first = redisUtil.findInboxPage("a@example.com", null, 2).orElseThrow();
+        assertThat(first.ids()).containsExactly(4L, 3L);
+        assertThat(first.endOfInbox()).isFalse();
+
+        RedisUtil.InboxSlice second = redisUtil.findInboxPage("a@example.com", 3L, 5).orElseThrow();
+        assertThat(second.ids()).containsExactly(2L, 1L);
+        assertThat(second.endOfInbox()).isTrue();
+
+        assertThat(redisUtil.findInboxPage("b@example.com", null, 2)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("收件匣載入期間的新增與刪除 -> 載入後應套用，結尾標記不應遮住新 id")
+    void givenWritesWhileInboxCold_whenPopulateWithOlderSnapshot_thenWritesApplied() {
+        // the fill read ids 1-3 as the whole history, then 4 was created and 2 deleted
+        redisUtil.addNotificationToInbox(notification(4L, 4));
+        redisUtil.removeNotificationFromInbox(notification(2L, 2));
+        redisUtil.populateInbox("a@example.com", List.of(
+                new NotificationCursor(START.plusSeconds(3), 3L),
+                new NotificationCursor(START.plusSeconds(2), 2L),
+                new NotificationCursor(START.plusSeconds(1), 1L)), true);
+
+        RedisUtil.InboxSlice slice = redisUtil.findInboxPage("a@example.com", null, 10).orElseThrow();
+        assertThat(slice.ids()).containsExactly(4L, 3L, 1L);
+        assertThat(slice.endOfInbox()).isTrue();
+    }
+
+    @Test
+    @DisplayName("一次刪除多筆 -> 已載入的收件匣應移除全部")
+    void givenWarmInbox_whenRemoveSeveral_thenAllRemoved() {
+        redisUtil.populateInbox("a@example.com", List.of(
+                new NotificationCursor(START.plusSeconds(3), 3L),
+                new NotificationCursor(START.plusSeconds(2), 2L),
+                new NotificationCursor(START.plusSeconds(1), 1L)), true);
+
+        redisUtil.removeNotificationsFromInbox("a@example.com", List.of(1L, 3L));
+
+        assertThat(redisUtil.findInboxPage("a@example.com", null, 10).orElseThrow().ids()).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("收件匣已被其他讀取者載入 -> 較舊的快照不應覆寫")
+    void givenInboxFilledMeanwhile_whenPopulate_thenNoop() {
+        redisUtil.populateInbox("a@example.com", List.of(new NotificationCursor(START.plusSeconds(1), 1L)), true);
+        redisUtil.removeNotificationFromInbox(notification(1L, 1));
+
+        redisUtil.populateInbox("a@example.com", List.of(new NotificationCursor(START.plusSeconds(1), 1L)), true);
+
+        assertThat(redisUtil.findInboxPage("a@example.com", null, 10).orElseThrow().ids()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("多位收件人的新增 -> 每位收件人的收件匣各自更新")
+    void givenSeveralRecipients_whenAddToInboxes_thenEachWarmInboxUpdated() {
+        redisUtil.populateInbox("a@example.com", List.of(), true);
+        redisUtil.populateInbox("b@example.com", List.of(), true);
+        Notifications toB = notification(2L, 2);
+        toB.setRecipient("b@example.com");
+
+        redisUtil.addNotificationsToInboxes(List.of(notification(1L, 1), toB));
+
+        assertThat(redisUtil.findInboxPage("a@example.com", null, 10).orElseThrow().ids()).containsExactly(1L);
+        assertThat(redisUtil.findInboxPage("b@example.com", null, 10).orElseThrow().ids()).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("未讀狀態載入後標記未讀、已讀、全部已讀 -> 計數應正確")
+    void givenPopulatedReadState_whenMarkUnreadAndRead_thenCountFollows() {
+        String recipient = "a@example.com";
+        redisUtil.seedRecipientSeq(recipient, 2);
+        assertThat(redisUtil.populateUnread(recipient, 0, List.of(1L, 2L))).isTrue();
+        assertThat(redisUtil.populateUnread(recipient, 0, List.of())).isFalse();
+
+        Long seq = redisUtil.nextRecipientSeq(recipient, 1);
+        Notifications created = notification(3L, 3);
+        created.setRecipient(recipient);
+        created.setRecipientSeq(seq);
+        redisUtil.markUnread(List.of(created));
+        assertThat(redisUtil.findUnreadCount(recipient)).contains(3L);
+
+        assertThat(redisUtil.markRead(recipient, List.of(1L, 1L, 3L))).isEqualTo(2L);
+        assertThat(redisUtil.findUnreadCount(recipient)).contains(1L);
+
+        assertThat(redisUtil.markAllRead(recipient)).isEqualTo(3L);
+        assertThat(redisUtil.findUnreadCount(recipient)).contains(0L);
+    }
+
+    @Test
+    @DisplayName("未讀狀態重建期間的新增與刪除 -> 重建後應套用，快照以下的新序號也應計入")
+    void givenCreatesAndDeletesWhileCold_whenPopulate_thenApplied() {
+        String recipient = "a@example.com";
+        // the rebuild read 5 and 7 as unread; meanwhile 6 (allocated before 7, committed after
+        // the read) and 8 were created, and 5 was deleted
+        redisUtil.markUnread(List.of(unread(recipient, 6L), unread(recipient, 8L)));
+        redisUtil.markDeleted(recipient, List.of(5L));
+        assertThat(redisUtil.findUnreadCount(recipient)).isEmpty();
+
+        assertThat(redisUtil.populateUnread(recipient, 4, List.of(5L, 7L))).isTrue();
+        assertThat(redisUtil.findUnreadCount(recipient)).contains(3L);
+        assertThat(redisUtil.markRead(recipient, List.of(5L, 6L, 7L, 8L))).isEqualTo(3L);
+
+        // state keys expire once idle, parked ones are consumed
+        assertThat(stringRedisTemplate.getExpire("notification:unread:{a@example.com}:meta")).isPositive();
+        assertThat(stringRedisTemplate.hasKey("notification:unread:{a@example.com}:parked-unread")).isFalse();
+    }
+
+    @Test
+    @DisplayName("未讀狀態重建時快照仍含已刪除的通知 -> 不應計入")
+    void givenDeleteWhileCold_whenPopulateWithRowStillInSnapshot_thenNotCounted() {
+        String recipient = "a@example.com";
+        redisUtil.markDeleted(recipient, List.of(5L));
+
+        redisUtil.populateUnread(recipient, 4, List.of(5L, 6L));
+
+        assertThat(redisUtil.findUnreadCount(recipient)).contains(1L);
+    }
+
+    private static Notifications unread(String recipient, long seq) {
+        Notifications notification = notification(seq, (int) seq);
+        notification.setRecipient(recipient);
+        notification.setRecipientSeq(seq);
+        return notification;
+    }
+
+    @Test
+    @DisplayName("去重鍵 -> 處理中、完成、釋放後應依序回報對應狀態")
+    void givenDedupKeys_whenClaimMarkRelease_thenStatesFollow() {
+        Duration ttl = Duration.ofMinutes(1);
+        assertThat(redisUtil.claimProcessing(List.of("a", "b"), ttl)).containsExactly(DedupState.FRESH, DedupState.FRESH);
+        assertThat(redisUtil.claimProcessing(List.of("a"), ttl)).containsExactly(DedupState.IN_PROGRESS);
+
+        redisUtil.markProcessed(List.of("a"), ttl);
+        redisUtil.releaseProcessing(List.of("b"));
+
+        assertThat(redisUtil.claimProcessing(List.of("a", "b"), ttl)).containsExactly(DedupState.DONE, DedupState.FRESH);
+    }
+
+    private static List<Notifications> notifications(int from, int to) {
+        return LongStream.rangeClosed(from, to).mapToObj(id -> notification(id, (int) id)).toList();
+    }
+
+    private static Notifications notification(long id, int second) {
+        Notifications notification = new Notifications();
+        notification.setId(id);
+        notification.setType(NotificationType.EMAIL);
+        notification.setRecipient("a@example.com");
+        notification.setSubject("subject " + id);
+        notification.setContent("content");
+        notification.setCreatedAt(START.plusSeconds(second));
+        notification.setVersion(0L);
+        return notification;
+    }
+}